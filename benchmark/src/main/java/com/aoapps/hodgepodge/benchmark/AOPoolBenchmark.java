@@ -0,0 +1,162 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.benchmark;
+
+import com.aoapps.hodgepodge.io.AOPool;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the allocate/release cycle of {@link AOPool#getConnection()} with trivial connections,
+ * isolating the overhead of the pool itself.  When there are more threads than connections,
+ * this measures contention on a saturated pool.
+ *
+ * @author  AO Industries, Inc.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AOPoolBenchmark {
+
+  private static final Logger logger = Logger.getLogger(AOPoolBenchmark.class.getName());
+
+  /**
+   * A connection that does nothing but return itself to the pool when closed.
+   */
+  static final class DummyConnection implements AutoCloseable {
+
+    private final DummyPool pool;
+    private boolean closed;
+
+    private DummyConnection(DummyPool pool) {
+      this.pool = pool;
+    }
+
+    @Override
+    public void close() throws IOException {
+      pool.release(this);
+    }
+  }
+
+  static final class DummyPool extends AOPool<DummyConnection, IOException, InterruptedIOException> {
+
+    DummyPool(int poolSize) {
+      super(AOPoolBenchmark.class.getName(), poolSize, UNLIMITED_MAX_CONNECTION_AGE, AOPoolBenchmark.logger);
+    }
+
+    @Override
+    protected void release(DummyConnection connection) throws IOException {
+      super.release(connection);
+    }
+
+    @Override
+    protected DummyConnection getConnectionObject() {
+      return new DummyConnection(this);
+    }
+
+    @Override
+    protected void close(DummyConnection conn) {
+      conn.closed = true;
+    }
+
+    @Override
+    protected boolean isClosed(DummyConnection conn) {
+      return conn.closed;
+    }
+
+    @Override
+    protected void resetConnection(DummyConnection conn) {
+      // Nothing to reset
+    }
+
+    @Override
+    protected IOException newException(String message, Throwable cause) {
+      return new IOException(message, cause);
+    }
+
+    @Override
+    protected InterruptedIOException newInterruptedException(String message, Throwable cause) {
+      InterruptedIOException e = new InterruptedIOException(message);
+      e.initCause(cause);
+      return e;
+    }
+  }
+
+  @Param({"4", "64"})
+  public int poolSize;
+
+  private DummyPool pool;
+
+  @Setup
+  public void setup() {
+    pool = new DummyPool(poolSize);
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.close();
+  }
+
+  private DummyConnection getAndRelease() throws IOException {
+    try (DummyConnection conn = pool.getConnection()) {
+      return conn;
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public DummyConnection getConnection1Thread() throws IOException {
+    return getAndRelease();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public DummyConnection getConnection4Threads() throws IOException {
+    return getAndRelease();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public DummyConnection getConnectionMaxThreads() throws IOException {
+    return getAndRelease();
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.benchmark;
+
+import com.aoapps.hodgepodge.cache.BackgroundCache;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks cache hits of {@link BackgroundCache#get(java.lang.Object)}, with
+ * the keys requested following the selected {@link Distribution}.
+ *
+ * @author  AO Industries, Inc.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackgroundCacheBenchmark {
+
+  private static final int KEYS = 1 << 16;
+
+  /**
+   * Long enough that no refresh happens during a benchmark.
+   */
+  private static final long REFRESH_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+  @State(Scope.Benchmark)
+  public static class CacheState {
+
+    @Param({"ZIPF", "RANDOM", "FEW_UNIQUE"})
+    public Distribution distribution;
+
+    BackgroundCache<Integer, String, RuntimeException> cache;
+
+    Integer[] keys;
+
+    @Setup
+    public void setup() {
+      cache = new BackgroundCache<>(
+          BackgroundCacheBenchmark.class.getName(),
+          RuntimeException.class,
+          REFRESH_INTERVAL,
+          REFRESH_INTERVAL * 2
+      );
+      int[] values = distribution.generate(KEYS);
+      keys = new Integer[KEYS];
+      for (int i = 0; i < KEYS; i++) {
+        keys[i] = values[i];
+        cache.get(keys[i], String::valueOf);
+      }
+    }
+
+    @TearDown
+    public void tearDown() {
+      cache.stop();
+    }
+  }
+
+  /**
+   * Each thread walks the keys from its own offset.
+   */
+  @State(Scope.Thread)
+  public static class ThreadState {
+
+    private static int nextOffset;
+
+    int index;
+
+    @Setup
+    public void setup() {
+      synchronized (ThreadState.class) {
+        index = nextOffset;
+        nextOffset += KEYS / 16;
+      }
+    }
+  }
+
+  private static BackgroundCache.Result<String, RuntimeException> get(CacheState cacheState, ThreadState threadState) {
+    int i = threadState.index;
+    threadState.index = (i + 1) & (KEYS - 1);
+    return cacheState.cache.get(cacheState.keys[i & (KEYS - 1)]);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public BackgroundCache.Result<String, RuntimeException> get1Thread(CacheState cacheState, ThreadState threadState) {
+    return get(cacheState, threadState);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public BackgroundCache.Result<String, RuntimeException> get4Threads(CacheState cacheState, ThreadState threadState) {
+    return get(cacheState, threadState);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public BackgroundCache.Result<String, RuntimeException> getMaxThreads(CacheState cacheState, ThreadState threadState) {
+    return get(cacheState, threadState);
+  }
+}
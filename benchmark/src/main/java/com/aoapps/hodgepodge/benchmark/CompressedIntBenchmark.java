@@ -0,0 +1,108 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.benchmark;
+
+import com.aoapps.hodgepodge.io.stream.StreamableInput;
+import com.aoapps.hodgepodge.io.stream.StreamableOutput;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the compressed <code>int</code> encoding of {@link StreamableOutput#writeCompressedInt(int)}
+ * and its decoding in {@link StreamableInput#readCompressedInt()}.
+ * Results are per value.
+ *
+ * @author  AO Industries, Inc.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(CompressedIntBenchmark.VALUES)
+public class CompressedIntBenchmark {
+
+  static final int VALUES = 4096;
+
+  @Param
+  public Distribution distribution;
+
+  private int[] values;
+  private StreamableOutput out;
+  private ByteArrayInputStream encoded;
+  private StreamableInput in;
+
+  @Setup
+  public void setup() throws IOException {
+    values = distribution.generate(VALUES);
+    // Shift into the range of compressed ints
+    for (int i = 0; i < VALUES; i++) {
+      values[i] >>= 2;
+    }
+    out = new StreamableOutput(OutputStream.nullOutputStream());
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    try (StreamableOutput encoder = new StreamableOutput(bout)) {
+      for (int value : values) {
+        encoder.writeCompressedInt(value);
+      }
+    }
+    encoded = new ByteArrayInputStream(bout.toByteArray());
+    in = new StreamableInput(encoded);
+  }
+
+  @Benchmark
+  public void writeCompressedInt() throws IOException {
+    StreamableOutput myOut = out;
+    for (int value : values) {
+      myOut.writeCompressedInt(value);
+    }
+  }
+
+  @Benchmark
+  public int readCompressedInt() throws IOException {
+    encoded.reset();
+    StreamableInput myIn = in;
+    int sum = 0;
+    for (int i = 0; i < VALUES; i++) {
+      sum += myIn.readCompressedInt();
+    }
+    return sum;
+  }
+}
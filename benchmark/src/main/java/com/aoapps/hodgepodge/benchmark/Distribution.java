@@ -0,0 +1,136 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The shapes of input data used to parameterize benchmarks.
+ * All data is generated from a fixed seed so results are comparable between runs.
+ *
+ * @author  AO Industries, Inc.
+ */
+public enum Distribution {
+
+  /**
+   * Uniformly distributed over the full range of <code>int</code>.
+   */
+  RANDOM {
+    @Override
+    void fill(int[] values, Random random) {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = random.nextInt();
+      }
+    }
+  },
+
+  /**
+   * {@link #RANDOM} values, already in ascending order.
+   */
+  SORTED {
+    @Override
+    void fill(int[] values, Random random) {
+      RANDOM.fill(values, random);
+      Arrays.sort(values);
+    }
+  },
+
+  /**
+   * {@link #RANDOM} values, in descending order.
+   */
+  REVERSED {
+    @Override
+    void fill(int[] values, Random random) {
+      SORTED.fill(values, random);
+      for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+        int t = values[i];
+        values[i] = values[j];
+        values[j] = t;
+      }
+    }
+  },
+
+  /**
+   * Only {@link #FEW_UNIQUE_VALUES} distinct values, in random order.
+   */
+  FEW_UNIQUE {
+    @Override
+    void fill(int[] values, Random random) {
+      int[] unique = new int[FEW_UNIQUE_VALUES];
+      RANDOM.fill(unique, random);
+      for (int i = 0; i < values.length; i++) {
+        values[i] = unique[random.nextInt(FEW_UNIQUE_VALUES)];
+      }
+    }
+  },
+
+  /**
+   * Non-negative ranks following Zipf's law (exponent 1), where small values dominate.
+   * This resembles identifiers and counts in real data, and is the shape
+   * most favorable to compressed encodings.
+   */
+  ZIPF {
+    @Override
+    void fill(int[] values, Random random) {
+      int ranks = Math.max(1, Math.min(values.length, MAX_ZIPF_RANKS));
+      double[] cumulative = new double[ranks];
+      double sum = 0;
+      for (int rank = 0; rank < ranks; rank++) {
+        sum += 1.0 / (rank + 1);
+        cumulative[rank] = sum;
+      }
+      for (int i = 0; i < values.length; i++) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+        values[i] = index >= 0 ? index : Math.min(-(index + 1), ranks - 1);
+      }
+    }
+  };
+
+  /**
+   * The number of distinct values in {@link #FEW_UNIQUE}.
+   */
+  public static final int FEW_UNIQUE_VALUES = 16;
+
+  /**
+   * The maximum number of distinct ranks in {@link #ZIPF}.
+   */
+  public static final int MAX_ZIPF_RANKS = 1 << 20;
+
+  /**
+   * The seed used for all generated data.
+   */
+  private static final long SEED = 0x486f646765706f64L;
+
+  abstract void fill(int[] values, Random random);
+
+  /**
+   * Generates new values of this distribution.
+   */
+  public int[] generate(int size) {
+    int[] values = new int[size];
+    fill(values, new Random(SEED));
+    return values;
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.benchmark;
+
+import com.aoapps.hodgepodge.sort.FastQSort;
+import com.aoapps.hodgepodge.sort.IntegerRadixSort;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link IntegerRadixSort} and {@link FastQSort} against the JDK sorts.
+ *
+ * <p>Each invocation sorts a fresh copy of the source data.  The copy is included
+ * in every measurement, so compare against {@link #javaSortIntArray()} rather than
+ * reading the absolute times.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SortBenchmark {
+
+  /**
+   * Covers the small-list fallback, the single-threaded radix sort, and the concurrent radix sort.
+   */
+  @Param({"1024", "65536", "1048576"})
+  public int size;
+
+  @Param
+  public Distribution distribution;
+
+  private int[] ints;
+  private Integer[] integers;
+
+  @Setup
+  public void setup() {
+    ints = distribution.generate(size);
+    integers = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      integers[i] = ints[i];
+    }
+  }
+
+  @Benchmark
+  public int[] javaSortIntArray() {
+    int[] array = ints.clone();
+    Arrays.sort(array);
+    return array;
+  }
+
+  @Benchmark
+  public int[] integerRadixSortIntArray() {
+    int[] array = ints.clone();
+    IntegerRadixSort.getInstance().sort(array);
+    return array;
+  }
+
+  @Benchmark
+  public int[] integerRadixSortSingleThreadedIntArray() {
+    int[] array = ints.clone();
+    IntegerRadixSort.getSingleThreadedInstance().sort(array);
+    return array;
+  }
+
+  @Benchmark
+  public Integer[] javaSortIntegerArray() {
+    Integer[] array = integers.clone();
+    Arrays.sort(array);
+    return array;
+  }
+
+  @Benchmark
+  public Integer[] integerRadixSortIntegerArray() {
+    Integer[] array = integers.clone();
+    IntegerRadixSort.getInstance().sort(array);
+    return array;
+  }
+
+  @Benchmark
+  public Integer[] fastQSortIntegerArray() {
+    Integer[] array = integers.clone();
+    FastQSort.getInstance().sort(array);
+    return array;
+  }
+}
@@ -45,7 +45,10 @@ import java.util.Random;
  * A simple disk concurrency scalability benchmark.  Pass in one or more parameters indicating the files or devices to test, such as <code>/dev/md0</code>
  *
  * @author  AO Industries, Inc.
+ *
+ * @deprecated  Please use {@link StorageBenchmark}, which measures latency percentiles and writes JSON.
  */
+@Deprecated
 @SuppressWarnings("UseOfSystemOutOrSystemErr")
 public final class Benchmark {
 
@@ -0,0 +1,196 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A disk-backed list of fixed-width <code>byte[]</code> values, stored as records in a temporary
+ * {@link FixedRecordFile}.  Values are accessed through a block cache, and the bulk methods move
+ * many values per I/O.
+ *
+ * <p>Every element must be exactly {@link #getWidth()} bytes long.  Each call to {@link #get(int)} returns
+ * a new array; use {@link #get(int, byte[], int)} to read into an existing array instead.  As with all
+ * arrays, elements are compared by identity, so {@link #indexOf(java.lang.Object)} and related methods
+ * will not find equal contents.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class BytesFileList extends RecordFileList<byte[]> {
+
+  public BytesFileList(String filenamePrefix, String filenameExtension, int width) throws IOException {
+    this(filenamePrefix, filenameExtension, width, FileList.DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * @param  cacheSize  The maximum number of bytes of records to cache in memory.  At least one block is always cached.
+   */
+  public BytesFileList(String filenamePrefix, String filenameExtension, int width, long cacheSize) throws IOException {
+    super(filenamePrefix, filenameExtension, width, cacheSize);
+  }
+
+  /**
+   * Gets the number of bytes in every element.
+   */
+  public int getWidth() {
+    return recordBuffer.length;
+  }
+
+  private void checkWidth(byte[] element) throws IllegalArgumentException {
+    if (element.length != recordBuffer.length) {
+      throw new IllegalArgumentException("element.length != width: " + element.length + " != " + recordBuffer.length);
+    }
+  }
+
+  /**
+   * Reads an element into an existing array.
+   */
+  public void get(int index, byte[] dest, int off) {
+    try {
+      RecordBlockCache.Block block = cache.getBlock(index);
+      System.arraycopy(block.getData(), cache.getOffset(index), dest, off, recordBuffer.length);
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  @Override
+  public byte[] get(int index) {
+    byte[] element = new byte[recordBuffer.length];
+    get(index, element, 0);
+    return element;
+  }
+
+  @Override
+  public byte[] set(int index, byte[] element) {
+    checkWidth(element);
+    try {
+      byte[] old = get(index);
+      cache.write(index, element, element.length);
+      return old;
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  @Override
+  public void add(int index, byte[] element) {
+    checkWidth(element);
+    try {
+      insertRecords(index, element, 0, 1);
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  @Override
+  public byte[] remove(int index) {
+    try {
+      byte[] old = get(index);
+      removeRecord(index);
+      return old;
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  /**
+   * Finds the first element with the same contents as the given array.
+   *
+   * @return  the index or {@code -1} when not found
+   */
+  public int indexOfContents(byte[] value) {
+    if (value.length != recordBuffer.length) {
+      return -1;
+    }
+    try {
+      int width = recordBuffer.length;
+      byte[] batch = getBatchBuffer();
+      int batchRecords = getBatchRecords();
+      int size = size();
+      for (int start = 0; start < size; start += batchRecords) {
+        int count = Math.min(batchRecords, size - start);
+        readRecords(start, batch, 0, count);
+        for (int i = 0; i < count; i++) {
+          if (Arrays.equals(batch, i * width, (i + 1) * width, value, 0, width)) {
+            return start + i;
+          }
+        }
+      }
+      return -1;
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  /**
+   * Reads a range of elements into consecutive bytes of an array, with many elements per I/O.
+   *
+   * @param  off  the offset into {@code dest}, in bytes
+   * @param  len  the number of elements
+   */
+  public void getBytes(int from, byte[] dest, int off, int len) throws IndexOutOfBoundsException {
+    checkRange(from, Math.multiplyExact(len, recordBuffer.length), off, dest.length);
+    checkRecords(from, len);
+    try {
+      readRecords(from, dest, off, len);
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  /**
+   * Writes a range of existing elements from consecutive bytes of an array, with many elements per I/O.
+   *
+   * @param  off  the offset into {@code src}, in bytes
+   * @param  len  the number of elements
+   */
+  public void setBytes(int from, byte[] src, int off, int len) throws IndexOutOfBoundsException {
+    checkRange(from, Math.multiplyExact(len, recordBuffer.length), off, src.length);
+    checkRecords(from, len);
+    try {
+      writeRecords(from, src, off, len);
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  /**
+   * Inserts elements from consecutive bytes of an array, with many elements per I/O.
+   *
+   * @param  off  the offset into {@code src}, in bytes
+   * @param  len  the number of elements
+   */
+  public void addBytes(int index, byte[] src, int off, int len) throws IndexOutOfBoundsException {
+    checkRange(index, Math.multiplyExact(len, recordBuffer.length), off, src.length);
+    try {
+      insertRecords(index, src, off, len);
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+}
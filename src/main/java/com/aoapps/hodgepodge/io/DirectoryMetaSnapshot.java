@@ -1,6 +1,6 @@
 /*
  * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
- * Copyright (C) 2013, 2016, 2019, 2021, 2022, 2024  AO Industries, Inc.
+ * Copyright (C) 2013, 2016, 2019, 2021, 2022, 2024, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -23,12 +23,49 @@
 
 package com.aoapps.hodgepodge.io;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Recursively (but not following symbolic links), gets a snapshot of the meta
@@ -40,6 +77,11 @@ import java.util.TreeMap;
  * <p>Only watches the lengths and modified times for filesystem objects that Java
  * considers a file.</p>
  *
+ * <p>A snapshot may be {@link #write(java.io.DataOutput) persisted} and later
+ * {@link #update() updated}, which only lists the directories whose modified time
+ * has changed, or that may have changed again within the same timestamp as the previous scan.  A {@link Watcher} keeps a snapshot current from a {@link WatchService}.
+ * Snapshots are compared with {@link #diff(com.aoapps.hodgepodge.io.DirectoryMetaSnapshot)}.</p>
+ *
  * @see  File#isFile()  for what Java considers a file
  *
  * @author  AO Industries, Inc.
@@ -81,9 +123,314 @@ public final class DirectoryMetaSnapshot {
     }
   }
 
+  /**
+   * The differences between two snapshots.
+   */
+  public static final class Diff {
+
+    private final SortedSet<String> added;
+    private final SortedSet<String> removed;
+    private final SortedSet<String> modified;
+
+    private Diff(SortedSet<String> added, SortedSet<String> removed, SortedSet<String> modified) {
+      this.added = Collections.unmodifiableSortedSet(added);
+      this.removed = Collections.unmodifiableSortedSet(removed);
+      this.modified = Collections.unmodifiableSortedSet(modified);
+    }
+
+    /**
+     * Gets the files only in the newer snapshot.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+    public SortedSet<String> getAdded() {
+      return added;
+    }
+
+    /**
+     * Gets the files only in the older snapshot.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+    public SortedSet<String> getRemoved() {
+      return removed;
+    }
+
+    /**
+     * Gets the files in both snapshots with different meta data.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
+    public SortedSet<String> getModified() {
+      return modified;
+    }
+
+    public boolean isEmpty() {
+      return added.isEmpty() && removed.isEmpty() && modified.isEmpty();
+    }
+  }
+
+  /**
+   * The original format, with directory modified times in milliseconds and no scan start time.
+   */
+  private static final int MAGIC_V1 = 0x444d5331;
+
+  private static final int MAGIC = 0x444d5332;
+
+  /**
+   * The coarsest modified time granularity expected of a filesystem, which is two seconds on FAT.
+   */
+  private static final long GRANULARITY_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+  /**
+   * The scan start time used when unknown, which causes every directory to be listed on update.
+   */
+  private static final long UNKNOWN_SCAN_START = Long.MAX_VALUE;
+
+  // <editor-fold defaultstate="collapsed" desc="Compact storage">
+  /**
+   * Sorted paths with their meta data in parallel arrays, using around 40 bytes per file
+   * instead of the 150+ bytes of a {@link TreeMap} entry, path {@link String}, and
+   * {@link FileMetaSnapshot}.
+   */
+  private static final class MetaTable {
+
+    private final FrontCodedStringList paths;
+    private final long[] lastModified;
+
+    /**
+     * The lengths or {@code null} for directories.
+     */
+    private final long[] length;
+
+    private MetaTable(FrontCodedStringList paths, long[] lastModified, long[] length) {
+      this.paths = paths;
+      this.lastModified = lastModified;
+      this.length = length;
+    }
+
+    private int size() {
+      return paths.size();
+    }
+  }
+
+  /**
+   * Collects paths in any order into a {@link MetaTable}.  Paths are sorted in chunks, which are
+   * then merged, so only one chunk of path {@link String strings} is held at a time.
+   * Duplicate paths are ignored.
+   */
+  private static final class Collector {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final boolean hasLength;
+    private final List<MetaTable> runs = new ArrayList<>();
+    private String[] paths = new String[16];
+    private long[] lastModified = new long[16];
+    private long[] length;
+    private int count;
+
+    private Collector(boolean hasLength) {
+      this.hasLength = hasLength;
+      if (hasLength) {
+        length = new long[16];
+      }
+    }
+
+    private void add(String path, long lastModified, long length) {
+      if (count == paths.length) {
+        if (count == CHUNK_SIZE) {
+          runs.add(sortChunk());
+          count = 0;
+        } else {
+          int newLen = Math.min(CHUNK_SIZE, count * 2);
+          paths = Arrays.copyOf(paths, newLen);
+          this.lastModified = Arrays.copyOf(this.lastModified, newLen);
+          if (hasLength) {
+            this.length = Arrays.copyOf(this.length, newLen);
+          }
+        }
+      }
+      paths[count] = path;
+      this.lastModified[count] = lastModified;
+      if (hasLength) {
+        this.length[count] = length;
+      }
+      count++;
+    }
+
+    private MetaTable sortChunk() {
+      Integer[] order = new Integer[count];
+      for (int i = 0; i < count; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (i1, i2) -> paths[i1].compareTo(paths[i2]));
+      FrontCodedStringList.Builder builder = new FrontCodedStringList.Builder();
+      long[] newLastModified = new long[count];
+      long[] newLength = hasLength ? new long[count] : null;
+      int size = 0;
+      String last = null;
+      for (int i : order) {
+        String path = paths[i];
+        paths[i] = null;
+        if (!path.equals(last)) {
+          builder.add(path);
+          newLastModified[size] = lastModified[i];
+          if (hasLength) {
+            newLength[size] = length[i];
+          }
+          size++;
+          last = path;
+        }
+      }
+      return new MetaTable(
+          builder.build(),
+          Arrays.copyOf(newLastModified, size),
+          hasLength ? Arrays.copyOf(newLength, size) : null
+      );
+    }
+
+    private static final class RunCursor {
+
+      private final int run;
+      private final MetaTable table;
+      private final FrontCodedStringList.Cursor cursor;
+      private String path;
+      private int index;
+
+      private RunCursor(int run, MetaTable table) {
+        this.run = run;
+        this.table = table;
+        this.cursor = table.paths.cursor(0);
+      }
+
+      private boolean next() {
+        if (!cursor.hasNext()) {
+          return false;
+        }
+        index = cursor.nextIndex();
+        path = cursor.next();
+        return true;
+      }
+    }
+
+    private MetaTable finish() {
+      if (count > 0 || runs.isEmpty()) {
+        runs.add(sortChunk());
+        count = 0;
+      }
+      if (runs.size() == 1) {
+        return runs.get(0);
+      }
+      // Merge the sorted runs
+      int total = 0;
+      PriorityQueue<RunCursor> queue = new PriorityQueue<>(
+          runs.size(),
+          Comparator.<RunCursor, String>comparing(c -> c.path).thenComparingInt(c -> c.run)
+      );
+      for (int i = 0; i < runs.size(); i++) {
+        MetaTable run = runs.get(i);
+        total += run.size();
+        RunCursor cursor = new RunCursor(i, run);
+        if (cursor.next()) {
+          queue.add(cursor);
+        }
+      }
+      runs.clear();
+      FrontCodedStringList.Builder builder = new FrontCodedStringList.Builder();
+      long[] newLastModified = new long[total];
+      long[] newLength = hasLength ? new long[total] : null;
+      int size = 0;
+      String last = null;
+      RunCursor cursor;
+      while ((cursor = queue.poll()) != null) {
+        if (!cursor.path.equals(last)) {
+          builder.add(cursor.path);
+          newLastModified[size] = cursor.table.lastModified[cursor.index];
+          if (hasLength) {
+            newLength[size] = cursor.table.length[cursor.index];
+          }
+          size++;
+          last = cursor.path;
+        }
+        if (cursor.next()) {
+          queue.add(cursor);
+        }
+      }
+      return new MetaTable(
+          builder.build(),
+          size == total ? newLastModified : Arrays.copyOf(newLastModified, size),
+          !hasLength || size == total ? newLength : Arrays.copyOf(newLength, size)
+      );
+    }
+  }
+
+  /**
+   * Groups the paths by the index of their parent directory.
+   *
+   * @return  the start of each directory's children, followed by the path indexes
+   */
+  private static int[][] groupByParent(FrontCodedStringList paths, FrontCodedStringList directories) {
+    int size = paths.size();
+    int numDirectories = directories.size();
+    int[] parents = new int[size];
+    int[] start = new int[numDirectories + 1];
+    String lastParent = null;
+    int lastParentIndex = -1;
+    FrontCodedStringList.Cursor cursor = paths.cursor(0);
+    for (int i = 0; i < size; i++) {
+      String path = cursor.next();
+      int parentIndex;
+      if (path.isEmpty()) {
+        // The starting directory has no parent
+        parentIndex = -1;
+      } else {
+        // Siblings are usually near each other, so look up each parent once
+        String parent = getParent(path);
+        if (!parent.equals(lastParent)) {
+          lastParent = parent;
+          lastParentIndex = directories.indexOf(parent);
+        }
+        parentIndex = lastParentIndex;
+      }
+      parents[i] = parentIndex;
+      if (parentIndex >= 0) {
+        start[parentIndex + 1]++;
+      }
+    }
+    for (int i = 0; i < numDirectories; i++) {
+      start[i + 1] += start[i];
+    }
+    int[] indexes = new int[start[numDirectories]];
+    int[] pos = Arrays.copyOf(start, numDirectories);
+    for (int i = 0; i < size; i++) {
+      int parentIndex = parents[i];
+      if (parentIndex >= 0) {
+        indexes[pos[parentIndex]++] = i;
+      }
+    }
+    return new int[][]{start, indexes};
+  }
+  // </editor-fold>
+
+  private final String startPath;
+
+  /**
+   * The time, in nanoseconds since the epoch, this snapshot started reading the filesystem.
+   */
+  private final long scanStart;
+
+  private final MetaTable fileTable;
+
+  /**
+   * The full-precision modified time of each directory, in nanoseconds since the epoch, used to
+   * skip listing unchanged directories on update.  The starting directory is the empty string.
+   */
+  private final MetaTable directoryTable;
+
   private final SortedMap<String, FileMetaSnapshot> files;
+  private final SortedMap<String, Long> directories;
 
   public DirectoryMetaSnapshot(String startPath) throws IOException {
+    this.startPath = startPath;
+    this.scanStart = now();
     Map<String, FilesystemIteratorRule> noPrefixRules = Collections.emptyMap();
     FilesystemIterator iter = new FilesystemIterator(
         Collections.singletonMap(startPath, FilesystemIteratorRule.OK),
@@ -91,21 +438,507 @@ public final class DirectoryMetaSnapshot {
         startPath
     );
     final String expectedStart = startPath + File.separatorChar;
-    SortedMap<String, FileMetaSnapshot> newFiles = new TreeMap<>();
-    File file;
-    while ((file = iter.getNextFile()) != null) {
-      if (file.isFile()) {
-        String path = file.getPath();
-        if (!path.startsWith(expectedStart)) {
-          throw new AssertionError("Unexpected start of path: " + path);
-        }
-        newFiles.put(
-            path.substring(expectedStart.length()),
-            new FileMetaSnapshot(file.lastModified(), file.length())
+    Collector newFiles = new Collector(true);
+    Collector newDirectories = new Collector(false);
+    FilesystemEntry entry;
+    while ((entry = iter.getNextEntry()) != null) {
+      BasicFileAttributes attributes = entry.getAttributes();
+      if (attributes.isDirectory()) {
+        String path = entry.getFilename();
+        newDirectories.add(
+            path.equals(startPath) ? "" : getRelativePath(path, expectedStart),
+            toNanos(attributes.lastModifiedTime()),
+            0
         );
+        continue;
+      }
+      final long lastModified;
+      final long length;
+      if (attributes.isRegularFile()) {
+        // Use the attributes read during traversal
+        lastModified = attributes.lastModifiedTime().toMillis();
+        length = attributes.size();
+      } else if (attributes.isSymbolicLink() && entry.getFile().isFile()) {
+        // Symbolic links to files are considered files by Java, so use their target
+        File file = entry.getFile();
+        lastModified = file.lastModified();
+        length = file.length();
+      } else {
+        continue;
+      }
+      newFiles.add(
+          getRelativePath(entry.getFilename(), expectedStart),
+          lastModified,
+          length
+      );
+    }
+    this.fileTable = newFiles.finish();
+    this.directoryTable = newDirectories.finish();
+    this.files = newFilesView();
+    this.directories = newDirectoriesView();
+  }
+
+  private DirectoryMetaSnapshot(String startPath, long scanStart, MetaTable fileTable, MetaTable directoryTable) {
+    this.startPath = startPath;
+    this.scanStart = scanStart;
+    this.fileTable = fileTable;
+    this.directoryTable = directoryTable;
+    this.files = newFilesView();
+    this.directories = newDirectoriesView();
+  }
+
+  private SortedMap<String, FileMetaSnapshot> newFilesView() {
+    long[] lastModified = fileTable.lastModified;
+    long[] length = fileTable.length;
+    return new FrontCodedSortedMap<>(fileTable.paths, i -> new FileMetaSnapshot(lastModified[i], length[i]));
+  }
+
+  private SortedMap<String, Long> newDirectoriesView() {
+    long[] lastModified = directoryTable.lastModified;
+    return new FrontCodedSortedMap<>(directoryTable.paths, i -> lastModified[i]);
+  }
+
+  private static String getRelativePath(String path, String expectedStart) {
+    if (!path.startsWith(expectedStart)) {
+      throw new AssertionError("Unexpected start of path: " + path);
+    }
+    return path.substring(expectedStart.length());
+  }
+
+  private static long toNanos(FileTime time) {
+    return time.to(TimeUnit.NANOSECONDS);
+  }
+
+  private static long now() {
+    return toNanos(FileTime.from(Instant.now()));
+  }
+
+  // <editor-fold defaultstate="collapsed" desc="Persistence">
+  /**
+   * Writes this snapshot, including the directory modified times used by {@link #update()}.
+   *
+   * @see  #read(java.io.DataInput)
+   */
+  public void write(DataOutput out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeUTF(startPath);
+    out.writeLong(scanStart);
+    int numDirectories = directoryTable.size();
+    out.writeInt(numDirectories);
+    FrontCodedStringList.Cursor cursor = directoryTable.paths.cursor(0);
+    for (int i = 0; i < numDirectories; i++) {
+      out.writeUTF(cursor.next());
+      out.writeLong(directoryTable.lastModified[i]);
+    }
+    int numFiles = fileTable.size();
+    out.writeInt(numFiles);
+    cursor = fileTable.paths.cursor(0);
+    for (int i = 0; i < numFiles; i++) {
+      out.writeUTF(cursor.next());
+      out.writeLong(fileTable.lastModified[i]);
+      out.writeLong(fileTable.length[i]);
+    }
+  }
+
+  /**
+   * Writes this snapshot to the given file.
+   *
+   * @see  #read(java.io.File)
+   */
+  public void write(File file) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      write(out);
+    }
+  }
+
+  /**
+   * Reads a snapshot written by {@link #write(java.io.DataOutput)}.  Snapshots in the original
+   * format, without full-precision directory modified times, list every directory on their
+   * first {@link #update()}.
+   */
+  public static DirectoryMetaSnapshot read(DataInput in) throws IOException {
+    int magic = in.readInt();
+    if (magic != MAGIC && magic != MAGIC_V1) {
+      throw new IOException("Not a directory snapshot");
+    }
+    String startPath = in.readUTF();
+    long scanStart = magic == MAGIC ? in.readLong() : UNKNOWN_SCAN_START;
+    Collector directories = new Collector(false);
+    for (int i = in.readInt(); i > 0; i--) {
+      String path = in.readUTF();
+      long lastModified = in.readLong();
+      directories.add(path, magic == MAGIC ? lastModified : TimeUnit.MILLISECONDS.toNanos(lastModified), 0);
+    }
+    Collector files = new Collector(true);
+    for (int i = in.readInt(); i > 0; i--) {
+      String path = in.readUTF();
+      long lastModified = in.readLong();
+      long length = in.readLong();
+      files.add(path, lastModified, length);
+    }
+    return new DirectoryMetaSnapshot(startPath, scanStart, files.finish(), directories.finish());
+  }
+
+  /**
+   * Reads a snapshot from the given file.
+   *
+   * @see  #write(java.io.File)
+   */
+  public static DirectoryMetaSnapshot read(File file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      return read(in);
+    }
+  }
+  // </editor-fold>
+
+  // <editor-fold defaultstate="collapsed" desc="Updates">
+  /**
+   * Gets a new snapshot of the same directory, only listing the directories whose modified
+   * time has changed.  A directory modified within two seconds of the start of
+   * the previous scan is always listed, since it may have changed again without its timestamp
+   * changing.  Since a file may be modified in-place without changing its directory,
+   * the files in unchanged directories are still checked, but without listing the directory.
+   */
+  public DirectoryMetaSnapshot update() throws IOException {
+    return new Scanner(null).scan();
+  }
+
+  /**
+   * Rescans from a previous snapshot, reusing the listings of unchanged directories.
+   */
+  private final class Scanner {
+
+    /**
+     * The directories to list when watching, or {@code null} to list those with a new modified time.
+     */
+    private final Set<String> changed;
+    private final long newScanStart = now();
+    private final Path root = Paths.get(startPath);
+
+    /**
+     * The files and directories within each previous directory, by directory index.
+     */
+    private final int[] childFileStart;
+    private final int[] childFiles;
+    private final int[] childDirectoryStart;
+    private final int[] childDirectories;
+
+    private final Collector newFiles = new Collector(true);
+    private final Collector newDirectories = new Collector(false);
+
+    private Scanner(Set<String> changed) {
+      this.changed = changed;
+      int[][] grouped = groupByParent(fileTable.paths, directoryTable.paths);
+      childFileStart = grouped[0];
+      childFiles = grouped[1];
+      grouped = groupByParent(directoryTable.paths, directoryTable.paths);
+      childDirectoryStart = grouped[0];
+      childDirectories = grouped[1];
+    }
+
+    private DirectoryMetaSnapshot scan() throws IOException {
+      scan("", Math.max(-1, directoryTable.paths.indexOf("")), null);
+      return new DirectoryMetaSnapshot(startPath, newScanStart, newFiles.finish(), newDirectories.finish());
+    }
+
+    private Path resolve(String path) {
+      return path.isEmpty() ? root : root.resolve(path);
+    }
+
+    /**
+     * Scans one directory.
+     *
+     * @param  oldIndex  the index in the previous snapshot or {@code -1} when new
+     * @param  attributes  the attributes from the parent listing or {@code null} when not yet read
+     */
+    private void scan(String path, int oldIndex, BasicFileAttributes attributes) throws IOException {
+      Path dir = resolve(path);
+      long modified;
+      boolean list;
+      if (changed != null && attributes == null && oldIndex != -1 && !changed.contains(path)) {
+        // Watched and unchanged
+        modified = directoryTable.lastModified[oldIndex];
+        list = false;
+      } else {
+        if (attributes == null) {
+          try {
+            attributes = Files.readAttributes(dir, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+          } catch (NoSuchFileException err) {
+            // Normal if the directory was deleted while accessing
+            return;
+          }
+        }
+        if (!attributes.isDirectory()) {
+          // Replaced by a non-directory, the parent will be listed
+          return;
+        }
+        modified = toNanos(attributes.lastModifiedTime());
+        list = oldIndex == -1 || (changed == null ? isChanged(oldIndex, modified) : changed.contains(path));
+      }
+      newDirectories.add(path, modified, 0);
+      if (list) {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+          for (Path child : stream) {
+            String name = child.getFileName().toString();
+            String childPath = path.isEmpty() ? name : (path + File.separatorChar + name);
+            BasicFileAttributes childAttributes;
+            try {
+              childAttributes = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (NoSuchFileException err) {
+              // Normal if the file was deleted while accessing
+              continue;
+            }
+            if (childAttributes.isDirectory()) {
+              scan(childPath, Math.max(-1, directoryTable.paths.indexOf(childPath)), childAttributes);
+            } else {
+              addFile(childPath, child, childAttributes);
+            }
+          }
+        } catch (NoSuchFileException | NotDirectoryException err) {
+          // Normal if the directory was deleted while accessing
+        }
+      } else {
+        for (int i = childFileStart[oldIndex], end = childFileStart[oldIndex + 1]; i < end; i++) {
+          int fileIndex = childFiles[i];
+          String childPath = fileTable.paths.get(fileIndex);
+          if (changed != null) {
+            newFiles.add(childPath, fileTable.lastModified[fileIndex], fileTable.length[fileIndex]);
+          } else {
+            try {
+              Path child = resolve(childPath);
+              addFile(childPath, child, Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+            } catch (NoSuchFileException err) {
+              // Normal if the file was deleted while accessing
+            }
+          }
+        }
+        for (int i = childDirectoryStart[oldIndex], end = childDirectoryStart[oldIndex + 1]; i < end; i++) {
+          int directoryIndex = childDirectories[i];
+          scan(directoryTable.paths.get(directoryIndex), directoryIndex, null);
+        }
       }
     }
-    this.files = Collections.unmodifiableSortedMap(newFiles);
+
+    /**
+     * Checks if a directory may have changed since the previous scan.  A directory whose saved
+     * modified time is not strictly older than the start of the previous scan, less the
+     * filesystem granularity, may have been modified again within the same timestamp.
+     */
+    private boolean isChanged(int oldIndex, long modified) {
+      long oldModified = directoryTable.lastModified[oldIndex];
+      return oldModified != modified || oldModified >= scanStart - GRANULARITY_NANOS;
+    }
+
+    private void addFile(String path, Path file, BasicFileAttributes attributes) {
+      if (attributes.isRegularFile()) {
+        newFiles.add(path, attributes.lastModifiedTime().toMillis(), attributes.size());
+      } else if (attributes.isSymbolicLink()) {
+        // Symbolic links to files are considered files by Java, so use their target
+        File target = file.toFile();
+        if (target.isFile()) {
+          newFiles.add(path, target.lastModified(), target.length());
+        }
+      }
+    }
+  }
+
+  private static String getParent(String path) {
+    int slashPos = path.lastIndexOf(File.separatorChar);
+    return slashPos == -1 ? "" : path.substring(0, slashPos);
+  }
+
+  /**
+   * Keeps a snapshot current by listing only the directories reported by a {@link WatchService}.
+   * Falls back to a full {@link #update()} when events are lost.
+   *
+   * <p>This class is thread-safe.</p>
+   */
+  public static final class Watcher implements Closeable {
+
+    private final WatchService watchService;
+    private final Map<WatchKey, String> keys = new HashMap<>();
+    private final Map<String, WatchKey> keysByPath = new HashMap<>();
+    private final Set<String> changed = new HashSet<>();
+    private DirectoryMetaSnapshot snapshot;
+
+    /**
+     * Starts watching all directories of the given snapshot, then updates it to catch any
+     * changes made before watching began.
+     */
+    public Watcher(DirectoryMetaSnapshot snapshot) throws IOException {
+      Path root = Paths.get(snapshot.startPath);
+      this.watchService = root.getFileSystem().newWatchService();
+      try {
+        this.snapshot = snapshot;
+        register();
+        this.snapshot = snapshot.update();
+        // The update listed every directory registered above
+        changed.clear();
+        register();
+      } catch (IOException | RuntimeException | Error e) {
+        watchService.close();
+        throw e;
+      }
+    }
+
+    /**
+     * Registers new directories and cancels removed ones.  New directories are listed again
+     * on the next update, since they may have changed before being registered.
+     */
+    private void register() throws IOException {
+      Path root = Paths.get(snapshot.startPath);
+      for (String path : snapshot.directories.keySet()) {
+        if (!keysByPath.containsKey(path)) {
+          WatchKey key;
+          try {
+            key = (path.isEmpty() ? root : root.resolve(path)).register(
+                watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY
+            );
+          } catch (NoSuchFileException | NotDirectoryException err) {
+            // Normal if the directory was deleted while accessing
+            changed.add(getParent(path));
+            continue;
+          }
+          keys.put(key, path);
+          keysByPath.put(path, key);
+          changed.add(path);
+        }
+      }
+      Iterator<Map.Entry<String, WatchKey>> iter = keysByPath.entrySet().iterator();
+      while (iter.hasNext()) {
+        Map.Entry<String, WatchKey> entry = iter.next();
+        if (!snapshot.directories.containsKey(entry.getKey())) {
+          WatchKey key = entry.getValue();
+          key.cancel();
+          keys.remove(key);
+          iter.remove();
+        }
+      }
+    }
+
+    /**
+     * Processes a signalled key, returning {@code true} when events were lost.
+     */
+    private boolean process(WatchKey key) {
+      boolean overflow = false;
+      String path = keys.get(key);
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+          overflow = true;
+        } else if (path != null) {
+          changed.add(path);
+        }
+      }
+      if (!key.reset() && path != null) {
+        keys.remove(key);
+        keysByPath.remove(path);
+      }
+      return overflow;
+    }
+
+    private DirectoryMetaSnapshot refresh(boolean overflow) throws IOException {
+      WatchKey key;
+      while ((key = watchService.poll()) != null) {
+        overflow |= process(key);
+      }
+      if (overflow) {
+        snapshot = snapshot.update();
+      } else if (!changed.isEmpty()) {
+        snapshot = snapshot.new Scanner(new HashSet<>(changed)).scan();
+      } else {
+        return snapshot;
+      }
+      changed.clear();
+      register();
+      return snapshot;
+    }
+
+    /**
+     * Gets the current snapshot, listing any directories changed since the last call.
+     */
+    public DirectoryMetaSnapshot getSnapshot() throws IOException {
+      synchronized (this) {
+        try {
+          return refresh(false);
+        } catch (ClosedWatchServiceException err) {
+          throw new IOException(err);
+        }
+      }
+    }
+
+    /**
+     * Waits up to the given time for a change to be reported, then gets the current snapshot.
+     *
+     * @see  #getSnapshot()
+     */
+    public DirectoryMetaSnapshot awaitSnapshot(long timeout, TimeUnit unit) throws IOException {
+      synchronized (this) {
+        try {
+          boolean overflow = false;
+          if (changed.isEmpty()) {
+            WatchKey key = watchService.poll(timeout, unit);
+            if (key != null) {
+              overflow = process(key);
+            }
+          }
+          return refresh(overflow);
+        } catch (InterruptedException err) {
+          // Restore the interrupted status
+          Thread.currentThread().interrupt();
+          InterruptedIOException ioErr = new InterruptedIOException();
+          ioErr.initCause(err);
+          throw ioErr;
+        } catch (ClosedWatchServiceException err) {
+          throw new IOException(err);
+        }
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      watchService.close();
+    }
+  }
+  // </editor-fold>
+
+  /**
+   * Compares this snapshot to a newer snapshot in a single pass over both.
+   */
+  public Diff diff(DirectoryMetaSnapshot newer) {
+    SortedSet<String> added = new TreeSet<>();
+    SortedSet<String> removed = new TreeSet<>();
+    SortedSet<String> modified = new TreeSet<>();
+    Iterator<Map.Entry<String, FileMetaSnapshot>> oldIter = files.entrySet().iterator();
+    Iterator<Map.Entry<String, FileMetaSnapshot>> newIter = newer.files.entrySet().iterator();
+    Map.Entry<String, FileMetaSnapshot> oldEntry = oldIter.hasNext() ? oldIter.next() : null;
+    Map.Entry<String, FileMetaSnapshot> newEntry = newIter.hasNext() ? newIter.next() : null;
+    while (oldEntry != null || newEntry != null) {
+      int diff;
+      if (oldEntry == null) {
+        diff = 1;
+      } else if (newEntry == null) {
+        diff = -1;
+      } else {
+        diff = oldEntry.getKey().compareTo(newEntry.getKey());
+      }
+      if (diff < 0) {
+        removed.add(oldEntry.getKey());
+        oldEntry = oldIter.hasNext() ? oldIter.next() : null;
+      } else if (diff > 0) {
+        added.add(newEntry.getKey());
+        newEntry = newIter.hasNext() ? newIter.next() : null;
+      } else {
+        if (!oldEntry.getValue().equals(newEntry.getValue())) {
+          modified.add(oldEntry.getKey());
+        }
+        oldEntry = oldIter.hasNext() ? oldIter.next() : null;
+        newEntry = newIter.hasNext() ? newIter.next() : null;
+      }
+    }
+    return new Diff(added, removed, modified);
   }
 
   /**
@@ -125,6 +958,10 @@ public final class DirectoryMetaSnapshot {
     return files.hashCode();
   }
 
+  public String getStartPath() {
+    return startPath;
+  }
+
   @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmodifiable
   public SortedMap<String, FileMetaSnapshot> getFiles() {
     return files;
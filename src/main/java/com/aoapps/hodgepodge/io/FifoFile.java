@@ -1,6 +1,6 @@
 /*
  * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
- * Copyright (C) 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2016, 2019, 2021, 2022, 2024  AO Industries, Inc.
+ * Copyright (C) 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2016, 2019, 2021, 2022, 2024, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -30,7 +30,7 @@ import java.io.RandomAccessFile;
 
 /**
  * A <code>FifoFile</code> allows code to read and write to an on-disk managed FIFO.
- * Objects of this class provide <code>InputStream</code> and <code>OutputStream</code>
+ * Objects of this class provide <code>InputStream</code>, <code>OutputStream</code>, and channel
  * implementations that may be used by any number of concurrent threads.  If using this
  * class to access a single file from multiple instances of <code>FifoFile</code>, whether
  * in a single JVM or different JVMs, due to limitations of the underlying
@@ -41,6 +41,9 @@ import java.io.RandomAccessFile;
  * <p>This class is best used for persistence or management of large
  * FIFO data sets.</p>
  *
+ * @see  MappedFifoFile
+ * @see  MessageFifoFile
+ *
  * @author  AO Industries, Inc.
  */
 public class FifoFile {
@@ -48,29 +51,51 @@ public class FifoFile {
   final RandomAccessFile file;
   final FifoFileInputStream in;
   final FifoFileOutputStream out;
+  final FifoFileChannel channel;
   final long maxFifoLength;
   final long fileLength;
   final int blockSize;
+  private final GroupCommitPolicy flushPolicy;
+
+  /**
+   * Forces pending flushes once the maximum delay has passed, or {@code null} when unlimited.
+   */
+  private final GroupCommitTimer flushTimer;
+
+  private int pendingFlushes;
+  private long pendingFlushesSince;
 
   public FifoFile(String filename, long maxFifoLength) throws IOException {
     this(new File(filename), maxFifoLength);
   }
 
   public FifoFile(File file, long maxFifoLength) throws IOException {
+    this(file, maxFifoLength, GroupCommitPolicy.EVERY_OPERATION);
+  }
+
+  /**
+   * @param  flushPolicy  determines how many calls to {@link #flush()} are grouped into each
+   *                      force to the storage device.  When the policy has a maximum delay, a
+   *                      background thread forces any calls pending that long.
+   */
+  public FifoFile(File file, long maxFifoLength, GroupCommitPolicy flushPolicy) throws IOException {
     if (maxFifoLength < 1) {
       throw new IllegalArgumentException("The FIFO must be at least one byte long");
     }
 
     this.maxFifoLength = maxFifoLength;
+    this.flushPolicy = flushPolicy;
     this.fileLength = maxFifoLength + 16;
     this.file = new RandomAccessFile(file, "rw");
     this.in = new FifoFileInputStream(this);
     this.out = new FifoFileOutputStream(this);
+    this.channel = new FifoFileChannel(this);
     long myBlockSize = maxFifoLength >> 8;
     this.blockSize = myBlockSize >= BufferManager.BUFFER_SIZE ? BufferManager.BUFFER_SIZE : myBlockSize <= 0 ? 1 : (int) myBlockSize;
     if (this.file.length() != fileLength) {
       reset();
     }
+    this.flushTimer = GroupCommitTimer.start(flushPolicy, "FifoFile - Flush Timer", this::flushIfDue);
   }
 
   public FifoFileInputStream getInputStream() {
@@ -81,6 +106,13 @@ public class FifoFile {
     return out;
   }
 
+  /**
+   * Gets a channel for reading and writing with {@link java.nio.ByteBuffer}s.
+   */
+  public FifoFileChannel getChannel() {
+    return channel;
+  }
+
   public long getMaximumFifoLength() {
     return maxFifoLength;
   }
@@ -93,6 +125,10 @@ public class FifoFile {
     return blockSize;
   }
 
+  public GroupCommitPolicy getFlushPolicy() {
+    return flushPolicy;
+  }
+
   /**
    * Resets this <code>FifoFile</code> to contain no contents and start writing at the beginning of the file.
    */
@@ -104,9 +140,21 @@ public class FifoFile {
     }
   }
 
+  /**
+   * Forces any flushes still pending under the flush policy then closes the file.
+   */
   public void close() throws IOException {
     synchronized (this) {
-      file.close();
+      try {
+        if (pendingFlushes > 0 && file.getChannel().isOpen()) {
+          sync();
+        }
+      } finally {
+        if (flushTimer != null) {
+          flushTimer.close();
+        }
+        file.close();
+      }
     }
   }
 
@@ -157,14 +205,48 @@ public class FifoFile {
   }
 
   /**
-   * Flushes all updates to this file to the underlying storage device.  This is performed by
-   * <code>RandomAccessFile.getChannel().force(true)</code>.
+   * Flushes all updates to this file to the underlying storage device, grouped according to the
+   * {@link #getFlushPolicy() flush policy}.  With the default policy every call forces the device.
+   * Otherwise, calls are counted and only the one completing a group forces the device, along
+   * with the updates of all the calls before it.
    *
+   * @see  #sync()
    * @see  FifoFileOutputStream#flush()
    */
   public void flush() throws IOException {
     synchronized (this) {
-      file.getChannel().force(true);
+      if (pendingFlushes++ == 0) {
+        pendingFlushesSince = System.nanoTime();
+        if (flushTimer != null) {
+          flushTimer.schedule(pendingFlushesSince);
+        }
+      }
+      if (flushPolicy.isDue(pendingFlushes, pendingFlushesSince)) {
+        sync();
+      }
+    }
+  }
+
+  /**
+   * Forces the flushes pending for the maximum delay of the flush policy, called by {@link #flushTimer}.
+   */
+  private void flushIfDue() throws IOException {
+    synchronized (this) {
+      if (file.getChannel().isOpen() && flushPolicy.isDue(pendingFlushes, pendingFlushesSince)) {
+        sync();
+      }
+    }
+  }
+
+  /**
+   * Flushes all updates to this file to the underlying storage device, regardless of the flush policy.
+   * This is performed by <code>RandomAccessFile.getChannel().force(false)</code>, since the length
+   * of the file does not change once {@link #reset() reset}.
+   */
+  public void sync() throws IOException {
+    synchronized (this) {
+      file.getChannel().force(false);
+      pendingFlushes = 0;
     }
   }
 }
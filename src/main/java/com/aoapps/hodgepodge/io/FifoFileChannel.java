@@ -0,0 +1,280 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A channel view of a {@link FifoFile}, for reading and writing {@link ByteBuffer}s, including
+ * direct buffers, without copying through arrays.  Each contiguous span of the FIFO, of which
+ * there are two when wrapping around the end of the file, is transferred with a single scattering
+ * read or gathering write of the underlying {@link FileChannel}.
+ *
+ * <p>Like the streams, this may be used by any number of concurrent threads, and is always in
+ * blocking mode: reads block until at least one byte is available, and writes block until all
+ * bytes are written.  The end of the stream is never reached.</p>
+ *
+ * @see FifoFile
+ *
+ * @author  AO Industries, Inc.
+ */
+public class FifoFileChannel implements ByteChannel, ScatteringByteChannel, GatheringByteChannel {
+
+  private final FifoFile file;
+
+  FifoFileChannel(FifoFile file) {
+    this.file = file;
+  }
+
+  private static void waitOn(FifoFile file) throws InterruptedIOException {
+    try {
+      file.wait();
+    } catch (InterruptedException err) {
+      // Restore the interrupted status
+      Thread.currentThread().interrupt();
+      InterruptedIOException ioErr = new InterruptedIOException();
+      ioErr.initCause(err);
+      throw ioErr;
+    }
+  }
+
+  private static long remaining(ByteBuffer[] buffers, int offset, int length) {
+    if (offset < 0 || length < 0 || offset > buffers.length - length) {
+      throw new IndexOutOfBoundsException();
+    }
+    long remaining = 0;
+    for (int i = offset; i < offset + length; i++) {
+      remaining += buffers[i].remaining();
+    }
+    return remaining;
+  }
+
+  /**
+   * Limits the buffers to the given total, returning their original limits.
+   */
+  private static int[] limit(ByteBuffer[] buffers, int offset, int length, long total) {
+    int[] limits = new int[length];
+    for (int i = 0; i < length; i++) {
+      ByteBuffer buffer = buffers[offset + i];
+      limits[i] = buffer.limit();
+      int count = (int) Math.min(buffer.remaining(), total);
+      buffer.limit(buffer.position() + count);
+      total -= count;
+    }
+    return limits;
+  }
+
+  private static void restore(ByteBuffer[] buffers, int offset, int[] limits) {
+    for (int i = 0; i < limits.length; i++) {
+      buffers[offset + i].limit(limits[i]);
+    }
+  }
+
+  /**
+   * Reads into the buffers, blocking until at least one byte is available.
+   * Transfers as many bytes as are available and fit, up to two spans.
+   */
+  @Override
+  public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+    long remaining = remaining(dsts, offset, length);
+    if (remaining == 0) {
+      return 0;
+    }
+    synchronized (file) {
+      while (true) {
+        if (Thread.currentThread().isInterrupted()) {
+          throw new InterruptedIOException();
+        }
+        long fileLen = file.getLength();
+        if (fileLen >= 1) {
+          long pos = file.getFirstIndex();
+          long count = Math.min(remaining, fileLen);
+          FileChannel channel = file.file.getChannel();
+          long total = 0;
+          while (total < count) {
+            long index = (pos + total) % file.maxFifoLength;
+            long span = Math.min(count - total, file.maxFifoLength - index);
+            int[] limits = limit(dsts, offset, length, span);
+            long spanRead;
+            try {
+              channel.position(16 + index);
+              spanRead = 0;
+              while (spanRead < span) {
+                long n = channel.read(dsts, offset, length);
+                if (n == -1) {
+                  throw new EOFException("Unexpected EOF");
+                }
+                spanRead += n;
+              }
+            } finally {
+              restore(dsts, offset, limits);
+            }
+            total += spanRead;
+          }
+          file.setFirstIndex((pos + total) % file.maxFifoLength);
+          file.setLength(fileLen - total);
+          file.notifyAll();
+          return total;
+        }
+        waitOn(file);
+      }
+    }
+  }
+
+  @Override
+  public long read(ByteBuffer[] dsts) throws IOException {
+    return read(dsts, 0, dsts.length);
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    return (int) read(new ByteBuffer[] {dst}, 0, 1);
+  }
+
+  /**
+   * Writes all the bytes from the buffers, blocking as needed for space.
+   * Each acquisition of the lock writes as much as there is space for, up to two spans.
+   */
+  @Override
+  public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+    final long total = remaining(srcs, offset, length);
+    long remaining = total;
+    while (remaining > 0) {
+      synchronized (file) {
+        while (true) {
+          if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException();
+          }
+          long fileLen = file.getLength();
+          long free = file.maxFifoLength - fileLen;
+          if (free > 0) {
+            long pos = (file.getFirstIndex() + fileLen) % file.maxFifoLength;
+            long count = Math.min(remaining, free);
+            FileChannel channel = file.file.getChannel();
+            long written = 0;
+            while (written < count) {
+              long index = (pos + written) % file.maxFifoLength;
+              long span = Math.min(count - written, file.maxFifoLength - index);
+              int[] limits = limit(srcs, offset, length, span);
+              try {
+                channel.position(16 + index);
+                long spanWritten = 0;
+                while (spanWritten < span) {
+                  spanWritten += channel.write(srcs, offset, length);
+                }
+              } finally {
+                restore(srcs, offset, limits);
+              }
+              written += span;
+            }
+            file.setLength(fileLen + count);
+            remaining -= count;
+            file.notifyAll();
+            break;
+          }
+          waitOn(file);
+        }
+      }
+    }
+    return total;
+  }
+
+  @Override
+  public long write(ByteBuffer[] srcs) throws IOException {
+    return write(srcs, 0, srcs.length);
+  }
+
+  @Override
+  public int write(ByteBuffer src) throws IOException {
+    return (int) write(new ByteBuffer[] {src}, 0, 1);
+  }
+
+  /**
+   * Drains up to the given number of bytes currently in the FIFO to the target without blocking,
+   * using {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} so the
+   * bytes may be sent without passing through user space.  Stops early when the target, such as a
+   * non-blocking socket, accepts fewer bytes than offered.
+   *
+   * @return  the number of bytes transferred and removed from the FIFO
+   */
+  public long transferTo(WritableByteChannel target, long maxBytes) throws IOException {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("maxBytes < 0: " + maxBytes);
+    }
+    synchronized (file) {
+      long fileLen = file.getLength();
+      long pos = file.getFirstIndex();
+      long count = Math.min(maxBytes, fileLen);
+      FileChannel channel = file.file.getChannel();
+      long total = 0;
+      while (total < count) {
+        long index = (pos + total) % file.maxFifoLength;
+        long span = Math.min(count - total, file.maxFifoLength - index);
+        long n = channel.transferTo(16 + index, span, target);
+        total += n;
+        if (n < span) {
+          break;
+        }
+      }
+      if (total > 0) {
+        file.setFirstIndex((pos + total) % file.maxFifoLength);
+        file.setLength(fileLen - total);
+        file.notifyAll();
+      }
+      return total;
+    }
+  }
+
+  /**
+   * Drains all the bytes currently in the FIFO to the target without blocking.
+   *
+   * @see  #transferTo(java.nio.channels.WritableByteChannel, long)
+   */
+  public long transferTo(WritableByteChannel target) throws IOException {
+    return transferTo(target, Long.MAX_VALUE);
+  }
+
+  @Override
+  public boolean isOpen() {
+    return file.file.getChannel().isOpen();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see  FifoFile#close()
+   */
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+}
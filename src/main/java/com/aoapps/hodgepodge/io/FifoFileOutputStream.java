@@ -1,6 +1,6 @@
 /*
  * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
- * Copyright (C) 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2013, 2016, 2018, 2019, 2021, 2022  AO Industries, Inc.
+ * Copyright (C) 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2013, 2016, 2018, 2019, 2021, 2022, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -162,8 +162,8 @@ public class FifoFileOutputStream extends OutputStream {
   }
 
   /**
-   * Flushes all updates to this file to the underlying storage device.  This is performed by
-   * <code>RandomAccessFile.getChannel().force(true)</code>.
+   * Flushes all updates to this file to the underlying storage device, grouped according to the
+   * {@link FifoFile#getFlushPolicy() flush policy}.
    *
    * @see  FifoFile#flush()
    */
@@ -1,6 +1,6 @@
 /*
  * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
- * Copyright (C) 2003, 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2016, 2017, 2019, 2020, 2021, 2022  AO Industries, Inc.
+ * Copyright (C) 2003, 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2016, 2017, 2019, 2020, 2021, 2022, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -23,7 +23,6 @@
 
 package com.aoapps.hodgepodge.io;
 
-import com.aoapps.lang.AutoCloseables;
 import com.aoapps.lang.io.AoByteArrayInputStream;
 import com.aoapps.lang.io.AoByteArrayOutputStream;
 import com.aoapps.tempfiles.TempFileContext;
@@ -31,60 +30,182 @@ import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /**
  * A <code>FileList</code> is a List that stores its objects in
  * a fixed-record-size file.
  *
+ * <p>Unless disabled, records are accessed through a least-recently-used cache of record blocks.
+ * Sequential access, such as iteration, triggers read-ahead of the following blocks.  Modified
+ * records are written to the file when their block is evicted or the list is {@link #flush() flushed}.</p>
+ *
+ * <p>Objects implementing {@link FileListBufferObject} are encoded and decoded directly against the record bytes.
+ * When {@link #setFlyweight(boolean) flyweight}, {@link #get(int)} decodes into a single reused object, so that
+ * full scans of a cached list of these objects do not allocate.</p>
+ *
  * @author  AO Industries, Inc.
  */
-public class FileList<T extends FileListObject> extends AbstractList<T> implements RandomAccess, Closeable {
+public class FileList<T extends FileListObject> extends AbstractList<T> implements RandomAccess, Closeable, Flushable {
 
-  private final String filenamePrefix;
-  private final String filenameExtension;
-  private final TempFileContext tempFileContext;
+  /**
+   * The default number of bytes of records cached, when caching is enabled.
+   */
+  public static final long DEFAULT_CACHE_SIZE = 1L << 20;
+
+  private final RecordFileStorage storage;
   private final FixedRecordFile frf;
+  private final RecordBlockCache cache;
   private final FileListObjectFactory<T> objectFactory;
 
-  private final AoByteArrayInputStream inBuffer;
-  private final DataInputStream dataInBuffer;
+  private final Decoder decoder;
   private final AoByteArrayOutputStream outBuffer;
   private final DataOutputStream dataOutBuffer;
 
+  /**
+   * The record bytes for encoding {@link FileListBufferObject}.
+   */
+  private final byte[] outBytes;
+  private final ByteBuffer outByteBuffer;
+
+  /**
+   * The array holding the most recently {@link #encode(FileListObject) encoded} record.
+   */
+  private byte[] encoded;
+
+  private boolean flyweight;
+  private T flyweightObject;
+
+  /**
+   * The optional settings of a {@link FileList}.  The settings are copied when the list is created,
+   * so one instance may be reused for any number of lists.
+   */
+  public static class Options {
+
+    private boolean memoryMapped;
+    private long cacheSize = -1;
+    private boolean indexed;
+
+    public boolean isMemoryMapped() {
+      return memoryMapped;
+    }
+
+    /**
+     * When {@code true}, records are accessed through a {@link MappedFixedRecordFile} instead of system calls.
+     * Defaults to {@code false}.
+     */
+    public Options setMemoryMapped(boolean memoryMapped) {
+      this.memoryMapped = memoryMapped;
+      return this;
+    }
+
+    /**
+     * Gets the maximum number of bytes of records to cache in memory.  Unless {@link #setCacheSize(long) set},
+     * this is {@link FileList#DEFAULT_CACHE_SIZE}, or {@code 0} when memory-mapped where the mapping already serves as the cache.
+     */
+    public long getCacheSize() {
+      if (cacheSize != -1) {
+        return cacheSize;
+      }
+      return memoryMapped ? 0 : DEFAULT_CACHE_SIZE;
+    }
+
+    /**
+     * @param  cacheSize  The maximum number of bytes of records to cache in memory, or {@code 0} to disable the cache.
+     *
+     * @see  FileList#DEFAULT_CACHE_SIZE
+     */
+    public Options setCacheSize(long cacheSize) {
+      if (cacheSize < 0) {
+        throw new IllegalArgumentException("cacheSize < 0: " + cacheSize);
+      }
+      this.cacheSize = cacheSize;
+      return this;
+    }
+
+    public boolean isIndexed() {
+      return indexed;
+    }
+
+    /**
+     * When {@code true}, the file uses an {@link FixedRecordFile#setIndexed(boolean) indexed layout}
+     * so that inserts and removes in the middle of the list do not shift the following records.
+     * Defaults to {@code false}.
+     */
+    public Options setIndexed(boolean indexed) {
+      this.indexed = indexed;
+      return this;
+    }
+  }
+
+  /**
+   * Creates a list with the default {@link Options}.
+   */
   public FileList(
       String filenamePrefix,
       String filenameExtension,
       int objectLength,
       FileListObjectFactory<T> objectFactory
   ) throws IOException {
-    this.filenamePrefix = filenamePrefix;
-    this.filenameExtension = filenameExtension;
-    this.tempFileContext = new TempFileContext();
-    this.frf = new FixedRecordFile(
-        tempFileContext.createTempFile(
-            filenamePrefix + '_',
-            filenameExtension == null ? null : ("." + filenameExtension)
-        ).getFile(),
-        "rw",
-        objectLength + 1
+    this(filenamePrefix, filenameExtension, objectLength, objectFactory, new Options());
+  }
+
+  public FileList(
+      String filenamePrefix,
+      String filenameExtension,
+      int objectLength,
+      FileListObjectFactory<T> objectFactory,
+      Options options
+  ) throws IOException {
+    this.storage = new RecordFileStorage(
+        filenamePrefix,
+        filenameExtension,
+        objectLength + 1,
+        options.isMemoryMapped(),
+        options.getCacheSize(),
+        options.isIndexed()
     );
+    this.frf = storage.frf;
+    this.cache = storage.cache;
     this.objectFactory = objectFactory;
 
-    this.inBuffer = new AoByteArrayInputStream(new byte[objectLength + 1]);
-    this.dataInBuffer = new DataInputStream(inBuffer);
+    this.decoder = new Decoder();
     this.outBuffer = new AoByteArrayOutputStream(objectLength + 1);
     this.dataOutBuffer = new DataOutputStream(outBuffer);
+    this.outBytes = new byte[objectLength + 1];
+    this.outByteBuffer = ByteBuffer.wrap(outBytes);
+  }
+
+  public boolean isFlyweight() {
+    return flyweight;
+  }
+
+  /**
+   * When flyweight, {@link #get(int)} and iteration decode every non-null record into the same object,
+   * which is only valid until the next call.  Other methods always return new objects.
+   */
+  public void setFlyweight(boolean flyweight) {
+    this.flyweight = flyweight;
   }
 
   @Override
   public void clear() {
     try {
+      if (cache != null) {
+        cache.clear();
+      }
       frf.removeAllRecords();
       modCount++;
     } catch (IOException err) {
@@ -92,17 +213,137 @@ public class FileList<T extends FileListObject> extends AbstractList<T> implemen
     }
   }
 
+  /**
+   * Decodes records from byte arrays.  Each thread decoding records must have its own.
+   */
+  private final class Decoder {
+
+    private final AoByteArrayInputStream in;
+    private final DataInputStream dataIn;
+
+    /**
+     * A view of {@link #in} for decoding {@link FileListBufferObject}.
+     */
+    private final ByteBuffer inByteBuffer;
+
+    private Decoder() {
+      in = new AoByteArrayInputStream(new byte[frf.getRecordLength()]);
+      dataIn = new DataInputStream(in);
+      inByteBuffer = ByteBuffer.wrap(in.getInternalByteArray());
+    }
+
+    /**
+     * Reads a record from the file pointer and decodes it.
+     */
+    private T readAndDecode(T reuse) throws IOException {
+      in.fillFrom(frf);
+      return decode(in.getInternalByteArray(), inByteBuffer, 0, reuse);
+    }
+
+    /**
+     * Decodes a record directly from the given bytes.
+     *
+     * @param  buffer  a buffer wrapping {@code data}
+     * @param  reuse  when non-null, the object decoded into
+     */
+    private T decode(byte[] data, ByteBuffer buffer, int offset, T reuse) throws IOException {
+      if (data[offset] == 0) {
+        return null;
+      }
+      T obj = reuse == null ? objectFactory.createInstance() : reuse;
+      if (obj instanceof FileListBufferObject) {
+        buffer.limit(offset + frf.getRecordLength()).position(offset + 1);
+        ((FileListBufferObject) obj).readRecord(buffer);
+      } else {
+        byte[] inBytes = in.getInternalByteArray();
+        if (data != inBytes) {
+          System.arraycopy(data, offset, inBytes, 0, inBytes.length);
+        }
+        in.reset();
+        in.skip(1);
+        obj.readRecord(dataIn);
+      }
+      return obj;
+    }
+  }
+
+  /**
+   * Reads and decodes a record, directly from the cached block when cached.
+   *
+   * @param  reuse  when non-null, the object decoded into
+   */
+  private T readObject(int index, T reuse) throws IndexOutOfBoundsException, IOException {
+    if (cache != null) {
+      RecordBlockCache.Block block = cache.getBlock(index);
+      return decoder.decode(block.getData(), block.getBuffer(), cache.getOffset(index), reuse);
+    } else {
+      frf.seekToExistingRecord(index);
+      return decoder.readAndDecode(reuse);
+    }
+  }
+
+  /**
+   * Encodes an object, including its leading null flag, into {@link #encoded}.
+   *
+   * @return  the number of bytes used
+   */
+  private int encode(T element) throws IOException {
+    int recordSize;
+    if (element instanceof FileListBufferObject) {
+      outBytes[0] = 1;
+      outByteBuffer.clear().position(1);
+      try {
+        ((FileListBufferObject) element).writeRecord(outByteBuffer);
+      } catch (BufferOverflowException e) {
+        throw new IOException("Record length exceeded: frf.getRecordLength()=" + frf.getRecordLength(), e);
+      }
+      recordSize = outByteBuffer.position();
+      encoded = outBytes;
+    } else {
+      outBuffer.reset();
+      if (element == null) {
+        dataOutBuffer.writeBoolean(false);
+      } else {
+        dataOutBuffer.writeBoolean(true);
+        element.writeRecord(dataOutBuffer);
+      }
+      recordSize = outBuffer.size();
+      if (recordSize > frf.getRecordLength()) {
+        throw new IOException("Record length exceeded: outBuffer.size()=" + recordSize + ", frf.getRecordLength()=" + frf.getRecordLength());
+      }
+      encoded = outBuffer.getInternalByteArray();
+    }
+    return recordSize;
+  }
+
+  /**
+   * Writes the most recently {@link #encode(FileListObject) encoded} record to an existing index.
+   */
+  private void writeRecord(int index, int recordSize) throws IndexOutOfBoundsException, IOException {
+    if (cache != null) {
+      cache.write(index, encoded, recordSize);
+    } else {
+      frf.seekToExistingRecord(index);
+      frf.write(encoded, 0, recordSize);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see  #setFlyweight(boolean)
+   */
   @Override
   public T get(int index) {
     try {
-      frf.seekToExistingRecord(index);
-      inBuffer.fillFrom(frf);
-      if (dataInBuffer.readBoolean()) {
-        T obj = objectFactory.createInstance();
-        obj.readRecord(dataInBuffer);
+      if (flyweight) {
+        T obj = readObject(index, flyweightObject);
+        if (obj != null) {
+          flyweightObject = obj;
+        }
         return obj;
       } else {
-        return null;
+        return readObject(index, null);
       }
     } catch (IOException err) {
       throw new UncheckedIOException("frf=" + frf, err);
@@ -111,7 +352,11 @@ public class FileList<T extends FileListObject> extends AbstractList<T> implemen
 
   public void swap(int index1, int index2) {
     try {
-      frf.swap(index1, index2);
+      if (cache != null) {
+        cache.swap(index1, index2);
+      } else {
+        frf.swap(index1, index2);
+      }
     } catch (IOException err) {
       throw new UncheckedIOException("frf=" + frf, err);
     }
@@ -134,31 +379,10 @@ public class FileList<T extends FileListObject> extends AbstractList<T> implemen
   public T set(int index, T element) {
     try {
       // Read old object
-      frf.seekToExistingRecord(index);
-      inBuffer.fillFrom(frf);
-      T old;
-      if (dataInBuffer.readBoolean()) {
-        old = objectFactory.createInstance();
-        old.readRecord(dataInBuffer);
-      } else {
-        old = null;
-      }
+      T old = readObject(index, null);
 
       // Write new object
-      frf.seekToExistingRecord(index);
-      outBuffer.reset();
-      if (element == null) {
-        dataOutBuffer.writeBoolean(false);
-      } else {
-        T newObj = element;
-        dataOutBuffer.writeBoolean(true);
-        newObj.writeRecord(dataOutBuffer);
-      }
-      int recordSize = outBuffer.size();
-      if (recordSize > frf.getRecordLength()) {
-        throw new IOException("Record length exceeded: outBuffer.size()=" + recordSize + ", frf.getRecordLength()=" + frf.getRecordLength());
-      }
-      outBuffer.writeTo(frf);
+      writeRecord(index, encode(element));
 
       // Return old object
       return old;
@@ -171,24 +395,16 @@ public class FileList<T extends FileListObject> extends AbstractList<T> implemen
   public void add(int index, T element) {
     try {
       // Write to buffer
-      outBuffer.reset();
-      if (element == null) {
-        dataOutBuffer.writeBoolean(false);
-      } else {
-        T newObj = element;
-        dataOutBuffer.writeBoolean(true);
-        newObj.writeRecord(dataOutBuffer);
-      }
-      int recordSize = outBuffer.size();
-      if (recordSize > frf.getRecordLength()) {
-        throw new IOException("Record length exceeded: outBuffer.size()=" + recordSize + ", frf.getRecordLength()=" + frf.getRecordLength());
-      }
+      int recordSize = encode(element);
 
       // Seeks to beginning of the new record
+      if (cache != null) {
+        cache.invalidateFrom(index);
+      }
       frf.addRecord(index);
 
       // Write new object
-      outBuffer.writeTo(frf);
+      frf.write(encoded, 0, recordSize);
 
       modCount++;
     } catch (IOException err) {
@@ -213,8 +429,18 @@ public class FileList<T extends FileListObject> extends AbstractList<T> implemen
         boolean changed = false;
         int otherSize = otherFileList.size();
         if (otherSize > 0) {
+          otherFileList.flush();
+          if (cache != null) {
+            cache.invalidateFrom(index);
+          }
           frf.addRecords(index, otherSize);
-          FixedRecordFile.copyRecords(otherFileList.frf, 0, frf, index, otherSize);
+          if (otherFileList == this) {
+            // Copy the records before the insert, then the records shifted after the inserted ones
+            FixedRecordFile.copyRecords(frf, 0, frf, index, index);
+            FixedRecordFile.copyRecords(frf, (long) index + otherSize, frf, 2L * index, (long) otherSize - index);
+          } else {
+            FixedRecordFile.copyRecords(otherFileList.frf, 0, frf, index, otherSize);
+          }
           changed = true;
         }
         if (changed) {
@@ -226,27 +452,19 @@ public class FileList<T extends FileListObject> extends AbstractList<T> implemen
         boolean changed = false;
         int otherSize = collection.size();
         if (otherSize > 0) {
+          if (cache != null) {
+            cache.invalidateFrom(index);
+          }
           frf.addRecords(index, otherSize);
           Iterator<? extends T> records = collection.iterator();
           int count = 0;
           while (records.hasNext()) {
             // Write to buffer
-            outBuffer.reset();
-            T o = records.next();
-            if (o == null) {
-              dataOutBuffer.writeBoolean(false);
-            } else {
-              dataOutBuffer.writeBoolean(true);
-              o.writeRecord(dataOutBuffer);
-            }
-            int recordSize = outBuffer.size();
-            if (recordSize > frf.getRecordLength()) {
-              throw new IOException("Record length exceeded: outBuffer.size()=" + recordSize + ", frf.getRecordLength()=" + frf.getRecordLength());
-            }
+            int recordSize = encode(records.next());
 
             // Write to disk
             frf.seekToExistingRecord(index + count);
-            outBuffer.writeTo(frf);
+            frf.write(encoded, 0, recordSize);
             count++;
           }
           if (count != otherSize) {
@@ -268,16 +486,11 @@ public class FileList<T extends FileListObject> extends AbstractList<T> implemen
   public T remove(int index) {
     try {
       // Read the old object
-      frf.seekToExistingRecord(index);
-      inBuffer.fillFrom(frf);
-      T old;
-      if (dataInBuffer.readBoolean()) {
-        old = objectFactory.createInstance();
-        old.readRecord(dataInBuffer);
-      } else {
-        old = null;
-      }
+      T old = readObject(index, null);
 
+      if (cache != null) {
+        cache.invalidateFrom(index);
+      }
       frf.removeRecord(index);
 
       modCount++;
@@ -289,21 +502,220 @@ public class FileList<T extends FileListObject> extends AbstractList<T> implemen
     }
   }
 
+  private void checkRange(int from, int to, int length) throws IndexOutOfBoundsException {
+    if (from < 0) {
+      throw new IndexOutOfBoundsException("from<0: " + from);
+    }
+    if (from > to) {
+      throw new IndexOutOfBoundsException("from>to: " + from + ">" + to);
+    }
+    int size = size();
+    if (to > size) {
+      throw new IndexOutOfBoundsException("to>size(): " + to + ">" + size);
+    }
+    if (to - from > length) {
+      throw new IndexOutOfBoundsException("Array too small: (to - from)=" + (to - from) + ", length=" + length);
+    }
+  }
+
+  /**
+   * Reads a range of records into an array, with many records per I/O.  New objects are
+   * always created, even when {@link #setFlyweight(boolean) flyweight}.
+   *
+   * @param  from  the index of the first record, inclusive
+   * @param  to  the index of the last record, exclusive
+   * @param  dest  receives the objects, starting at {@code dest[0]}
+   */
+  public void getRange(int from, int to, T[] dest) throws IndexOutOfBoundsException {
+    checkRange(from, to, dest.length);
+    try {
+      // Cached changes must be in the file
+      flush();
+      int recordLength = frf.getRecordLength();
+      int batchRecords = Math.min(storage.getBatchRecords(), to - from);
+      byte[] batch = new byte[batchRecords * recordLength];
+      ByteBuffer batchBuffer = ByteBuffer.wrap(batch);
+      int index = from;
+      while (index < to) {
+        int count = Math.min(batchRecords, to - index);
+        frf.readRecords(index, batch, 0, count);
+        for (int i = 0; i < count; i++) {
+          dest[index - from + i] = decoder.decode(batch, batchBuffer, i * recordLength, null);
+        }
+        index += count;
+      }
+    } catch (IOException err) {
+      throw new UncheckedIOException("frf=" + frf + ", from=" + from + ", to=" + to, err);
+    }
+  }
+
+  /**
+   * Writes a range of existing records from an array, with many records per I/O.
+   *
+   * @param  from  the index of the first record, inclusive
+   * @param  to  the index of the last record, exclusive
+   * @param  src  the objects, starting at {@code src[0]}
+   */
+  public void setRange(int from, int to, T[] src) throws IndexOutOfBoundsException {
+    checkRange(from, to, src.length);
+    try {
+      // Cached copies of the records are replaced
+      if (cache != null) {
+        cache.invalidateRange(from, to);
+      }
+      int recordLength = frf.getRecordLength();
+      int batchRecords = Math.min(storage.getBatchRecords(), to - from);
+      byte[] batch = new byte[batchRecords * recordLength];
+      int index = from;
+      while (index < to) {
+        int count = Math.min(batchRecords, to - index);
+        for (int i = 0; i < count; i++) {
+          int recordSize = encode(src[index - from + i]);
+          int offset = i * recordLength;
+          System.arraycopy(encoded, 0, batch, offset, recordSize);
+          Arrays.fill(batch, offset + recordSize, offset + recordLength, (byte) 0);
+        }
+        frf.writeRecords(index, batch, 0, count);
+        index += count;
+      }
+    } catch (IOException err) {
+      throw new UncheckedIOException("frf=" + frf + ", from=" + from + ", to=" + to, err);
+    }
+  }
+
+  /**
+   * Splits by ranges of records.  Each split reads batches of records with positional reads, which do not
+   * share the file pointer, so the splits may be traversed in parallel.  Any modified records in the cache are
+   * {@link #flush() flushed} first, and the list must not be modified while the spliterator is in use.
+   * When {@link #setFlyweight(boolean) flyweight}, each split decodes into its own reused object.
+   */
+  @Override
+  public Spliterator<T> spliterator() {
+    try {
+      flush();
+    } catch (IOException err) {
+      throw new UncheckedIOException("frf=" + frf, err);
+    }
+    return new RecordSpliterator(0, size(), modCount);
+  }
+
+  private final class RecordSpliterator implements Spliterator<T> {
+
+    private final int expectedModCount;
+    private int index;
+    private final int end;
+
+    private Decoder splitDecoder;
+    private byte[] batch;
+    private ByteBuffer batchBuffer;
+    private int batchStart;
+    private int batchCount;
+    private T reuse;
+
+    private RecordSpliterator(int index, int end, int expectedModCount) {
+      this.index = index;
+      this.end = end;
+      this.expectedModCount = expectedModCount;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+      if (index >= end) {
+        return false;
+      }
+      action.accept(next());
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+      while (index < end) {
+        action.accept(next());
+      }
+    }
+
+    private T next() {
+      try {
+        int recordLength = frf.getRecordLength();
+        if (index >= batchStart + batchCount) {
+          if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+          }
+          if (batch == null) {
+            int batchRecords = Math.min(storage.getBatchRecords(), end - index);
+            batch = new byte[batchRecords * recordLength];
+            batchBuffer = ByteBuffer.wrap(batch);
+            splitDecoder = new Decoder();
+          }
+          int count = Math.min(batch.length / recordLength, end - index);
+          batchBuffer.clear();
+          frf.readRecords(index, batchBuffer, count);
+          batchStart = index;
+          batchCount = count;
+        }
+        T obj = splitDecoder.decode(batch, batchBuffer, (index - batchStart) * recordLength, flyweight ? reuse : null);
+        if (obj != null && flyweight) {
+          reuse = obj;
+        }
+        index++;
+        return obj;
+      } catch (IOException err) {
+        throw new UncheckedIOException("frf=" + frf + ", index=" + index, err);
+      }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+      int minSplit = storage.getBatchRecords();
+      int remaining = end - index;
+      if (remaining < minSplit * 2) {
+        return null;
+      }
+      int mid = index + (remaining >>> 1);
+      Spliterator<T> prefix = new RecordSpliterator(index, mid, expectedModCount);
+      index = mid;
+      batchCount = 0;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return (long) end - index;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | SIZED | SUBSIZED;
+    }
+  }
+
   public String getFilenamePrefix() {
-    return filenamePrefix;
+    return storage.getFilenamePrefix();
   }
 
   public String getFilenameExtension() {
-    return filenameExtension;
+    return storage.getFilenameExtension();
   }
 
   public FileListObjectFactory<T> getObjectFactory() {
     return objectFactory;
   }
 
+  /**
+   * Writes any modified records held in the block cache to the underlying file.
+   */
+  @Override
+  public void flush() throws IOException {
+    storage.flush();
+  }
+
+  /**
+   * Closes the list and deletes its temporary file.  Modified records in the block cache are
+   * discarded instead of written, and an indexed file is not compacted, since the file is deleted.
+   */
   @Override
   public void close() throws IOException {
-    AutoCloseables.closeAndThrow(IOException.class, IOException::new, frf, tempFileContext);
+    storage.close();
   }
 
   /**
@@ -0,0 +1,93 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A <code>FileListBufferObject</code> encodes and decodes directly against a slice of the
+ * record bytes held by a <code>FileList</code>, avoiding the stream copies of {@link FileListObject}.
+ *
+ * <p>The buffer is positioned at the start of the record and limited to its end.  It is in the default big-endian
+ * order, so records written with the same field sequence as {@link DataOutputStream} are identical.
+ * The buffer is only valid for the duration of the call.</p>
+ *
+ * <p>{@link FileList} always uses these methods for objects of this type.  The stream-based methods are
+ * bridged through them, using a buffer of {@link #getRecordLength()} bytes, so records written to a stream
+ * are padded with zeros to this length.</p>
+ *
+ * @see  FileList#setFlyweight(boolean)
+ *
+ * @author  AO Industries, Inc.
+ */
+public interface FileListBufferObject extends FileListObject {
+
+  /**
+   * Writes this object at the current position of the buffer.
+   *
+   * @throws  java.nio.BufferOverflowException  when the record length is exceeded
+   */
+  void writeRecord(ByteBuffer out);
+
+  /**
+   * Reads this object from the current position of the buffer, replacing any previous state.
+   */
+  void readRecord(ByteBuffer in);
+
+  /**
+   * Gets the maximum number of bytes written by {@link #writeRecord(java.nio.ByteBuffer)}, which is
+   * the number of bytes written and read by the stream-based methods.
+   */
+  int getRecordLength();
+
+  /**
+   * Writes this object through {@link #writeRecord(java.nio.ByteBuffer)}, padded with zeros to
+   * {@link #getRecordLength()} bytes.
+   */
+  @Override
+  default void writeRecord(DataOutputStream out) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(getRecordLength());
+    try {
+      writeRecord(buffer);
+    } catch (BufferOverflowException e) {
+      throw new IOException("Record length exceeded: getRecordLength()=" + getRecordLength(), e);
+    }
+    out.write(buffer.array());
+  }
+
+  /**
+   * Reads {@link #getRecordLength()} bytes then decodes this object through
+   * {@link #readRecord(java.nio.ByteBuffer)}.
+   */
+  @Override
+  default void readRecord(DataInputStream in) throws IOException {
+    byte[] record = new byte[getRecordLength()];
+    in.readFully(record);
+    readRecord(ByteBuffer.wrap(record));
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * A file found by {@link FilesystemIterator#getNextEntry()}, along with its attributes as read
+ * once, without following symbolic links, while listing its directory.
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class FilesystemEntry {
+
+  private final String filename;
+  private final Path path;
+  private final BasicFileAttributes attributes;
+
+  FilesystemEntry(String filename, Path path, BasicFileAttributes attributes) {
+    this.filename = filename;
+    this.path = path;
+    this.attributes = attributes;
+  }
+
+  @Override
+  public String toString() {
+    return filename;
+  }
+
+  /**
+   * Gets the filename, as would be returned by {@link File#getPath()} for the same file
+   * from {@link FilesystemIterator#getNextFile()}.
+   */
+  public String getFilename() {
+    return filename;
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  public File getFile() {
+    return new File(filename);
+  }
+
+  /**
+   * Gets the attributes, read without following symbolic links.  A symbolic link is therefore
+   * never a directory or regular file here, regardless of its target.
+   */
+  public BasicFileAttributes getAttributes() {
+    return attributes;
+  }
+}
@@ -1,6 +1,6 @@
 /*
  * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
- * Copyright (C) 2003, 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2013, 2014, 2015, 2016, 2019, 2020, 2021, 2022, 2024  AO Industries, Inc.
+ * Copyright (C) 2003, 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2013, 2014, 2015, 2016, 2019, 2020, 2021, 2022, 2024, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -24,12 +24,31 @@
 package com.aoapps.hodgepodge.io;
 
 import com.aoapps.lang.EmptyArrays;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.EmptyStackException;
 import java.util.Iterator;
 import java.util.List;
@@ -40,12 +59,17 @@ import java.util.Stack;
 /**
  * Iterates through all of the files in a file system.
  *
+ * <p>Files may be iterated as either {@link File} by {@link #getNextFile()}, or as
+ * {@link FilesystemEntry} by {@link #getNextEntry()}.  The latter reads the attributes of each
+ * file once, without following symbolic links, instead of separately checking for directories,
+ * resolving canonical paths to avoid symbolic links, and leaving the caller to read the modified
+ * time and length.  The two must not be mixed on the same iterator.</p>
+ *
  * @author  AO Industries, Inc.
  */
 public class FilesystemIterator implements Comparable<FilesystemIterator> {
 
-  private final Map<String, FilesystemIteratorRule> rules;
-  private final Map<String, FilesystemIteratorRule> prefixRules;
+  private final FilesystemIteratorRuleIndex ruleIndex;
   private final String startPath;
   private final boolean isPreorder;
   private final boolean isSorted;
@@ -84,12 +108,13 @@ public class FilesystemIterator implements Comparable<FilesystemIterator> {
   /**
    * Constructs a file system iterator with the provided rules and conversion.
    *
+   * <p>The rules are compiled here, so changes to the maps after construction are not seen.</p>
+   *
    * @param  rules  the rules that will be applied during iteration
    * @param  startPath  if "", all roots will be used, otherwise starts at the provided path
    */
   public FilesystemIterator(Map<String, FilesystemIteratorRule> rules, Map<String, FilesystemIteratorRule> prefixRules, String startPath, boolean isPreorder, boolean isSorted) {
-    this.rules = rules;
-    this.prefixRules = prefixRules;
+    this.ruleIndex = new FilesystemIteratorRuleIndex(rules, prefixRules);
     currentDirectories = null;
     currentLists = null;
     currentIndexes = null;
@@ -107,8 +132,28 @@ public class FilesystemIterator implements Comparable<FilesystemIterator> {
   /**
    * Gets the next file from the iterator or <code>null</code> if the iterator has completed the iteration of the file system.
    * This method is internally synchronized and is thread-safe.
+   *
+   * @see  #setCheckpoint(java.io.File, com.aoapps.hodgepodge.io.GroupCommitPolicy)
    */
   public File getNextFile() throws IOException {
+    synchronized (this) {
+      // The files already returned are processed once the next is requested
+      if (checkpointFile != null && pendingFiles > 0 && checkpointPolicy.isDue(pendingFiles, pendingFilesSince)) {
+        writeCheckpoint();
+      }
+      File file = getNextFile0();
+      if (checkpointFile != null) {
+        if (file == null) {
+          Files.deleteIfExists(checkpointFile.toPath());
+        } else if (pendingFiles++ == 0) {
+          pendingFilesSince = System.nanoTime();
+        }
+      }
+      return file;
+    }
+  }
+
+  private File getNextFile0() throws IOException {
     synchronized (this) {
       // Loop trying to get the file because files may be removed during the loop
       while (true) {
@@ -118,24 +163,8 @@ public class FilesystemIterator implements Comparable<FilesystemIterator> {
 
         // Initialize the stacks, if needed
         if (currentDirectories == null) {
-          if (startPath.length() == 0) {
-            // Starting at root will include the starting directory itself
-            (currentDirectories = new Stack<>()).push("");
-            (currentLists = new Stack<>()).push(getFilesystemRoots());
-          } else {
-            if (isFilesystemRoot(startPath)) {
-              // Starting from a root, has no parent
-              (currentDirectories = new Stack<>()).push("");
-              (currentLists = new Stack<>()).push(new String[]{startPath});
-            } else {
-              // Starting at non root will include the starting directory itself
-              File startPathFile = new File(startPath);
-              String parent = startPathFile.getParent();
-              String name = startPathFile.getName();
-              (currentDirectories = new Stack<>()).push(parent);
-              (currentLists = new Stack<>()).push(new String[]{name});
-            }
-          }
+          (currentDirectories = new Stack<>()).push(getStartDirectory());
+          (currentLists = new Stack<>()).push(getStartList());
           (currentIndexes = new Stack<>()).push(0);
         }
         String currentDirectory;
@@ -167,14 +196,7 @@ public class FilesystemIterator implements Comparable<FilesystemIterator> {
           return null;
         } else {
           // Get the current filename
-          final String filename;
-          if (currentDirectory.length() == 0) {
-            filename = currentList[currentIndex];
-          } else if (currentDirectory.endsWith(File.separator)) {
-            filename = currentDirectory + currentList[currentIndex];
-          } else {
-            filename = currentDirectory + File.separatorChar + currentList[currentIndex];
-          }
+          final String filename = resolve(currentDirectory, currentList[currentIndex]);
 
           // Increment index to point to the next file
           currentIndexes.pop();
@@ -184,57 +206,14 @@ public class FilesystemIterator implements Comparable<FilesystemIterator> {
             final File file = new File(filename);
             if (file.isDirectory()) {
               // Directories
-              final String filenamePlusSlash;
-              if (filename.endsWith(File.separator)) {
-                filenamePlusSlash = filename;
-              } else {
-                filenamePlusSlash = filename + File.separatorChar;
-              }
-
-              final boolean includeDirectory;
-              final boolean recurse;
-              // If the settings for the directory indicate include
-              if (isIncluded(filename)) {
-                // Directory is included, optimized recurse follows
-                includeDirectory = true;
-                FilesystemIteratorRule rule = rules.get(filenamePlusSlash);
-                if (rule == null) {
-                  recurse = true;
-                } else {
-                  if (rule.isIncluded(filenamePlusSlash)) {
-                    recurse = true;
-                  } else {
-                    // This is the shortcut to not list directory when flagged as "/proc/"-style skip and
-                    // there are no overriding children
-                    recurse = hasIncludedChild(filenamePlusSlash);
-                  }
-                }
-              } else {
-                // Force include if there are any backup-enabled settings that are a child of this
-                if (hasIncludedChild(filenamePlusSlash)) {
-                  includeDirectory = true;
-                  recurse = true;
-                } else {
-                  includeDirectory = false;
-                  recurse = false;
-                }
-              }
+              final DirectoryAction action = getDirectoryAction(filename);
+              final boolean includeDirectory = action != DirectoryAction.SKIP;
+              final boolean recurse = action == DirectoryAction.RECURSE;
               // Push on stacks for next level
               if (includeDirectory) {
                 String[] list;
                 if (recurse) {
-                  // Skip anything that is not canonical, this avoids symbolic link targets
-                  if (file.getCanonicalPath().equals(filename)) {
-                    list = file.list();
-                    if (list == null) {
-                      list = EmptyArrays.EMPTY_STRING_ARRAY;
-                    } else if (isSorted && list.length > 0) {
-                      Arrays.sort(list);
-                    }
-                  } else {
-                    // System.err.println("Skipping non-canonical directory listing: "+filename);
-                    list = EmptyArrays.EMPTY_STRING_ARRAY;
-                  }
+                  list = listDirectory(file, filename);
                 } else {
                   list = EmptyArrays.EMPTY_STRING_ARRAY;
                 }
@@ -270,6 +249,416 @@ public class FilesystemIterator implements Comparable<FilesystemIterator> {
     }
   }
 
+  // <editor-fold defaultstate="collapsed" desc="Checkpoints">
+
+  private static final int CHECKPOINT_MAGIC = 0x46534931;
+
+  private File checkpointFile;
+  private GroupCommitPolicy checkpointPolicy;
+  private int pendingFiles;
+  private long pendingFilesSince;
+
+  /**
+   * Periodically saves the state of {@link #getNextFile()} to the given file, so an interrupted
+   * traversal may be {@link #resume(java.io.File) resumed}.  A checkpoint is written once the policy
+   * is due, counting each file returned as an operation.  A file is only considered processed once
+   * the next file is requested, so the last file returned before an interruption is returned again
+   * when resumed.  The file is replaced atomically, and deleted when the traversal completes.
+   */
+  public void setCheckpoint(File checkpointFile, GroupCommitPolicy policy) {
+    synchronized (this) {
+      this.checkpointFile = checkpointFile;
+      this.checkpointPolicy = policy;
+      pendingFiles = 0;
+    }
+  }
+
+  /**
+   * Writes the checkpoint now, when {@link #setCheckpoint(java.io.File, com.aoapps.hodgepodge.io.GroupCommitPolicy) configured}.
+   */
+  public void writeCheckpoint() throws IOException {
+    synchronized (this) {
+      if (checkpointFile != null) {
+        File newFile = new File(checkpointFile.getPath() + ".new");
+        try (FileOutputStream fileOut = new FileOutputStream(newFile)) {
+          DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+          writeCheckpoint(out);
+          out.flush();
+          fileOut.getFD().sync();
+        }
+        Files.move(newFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        pendingFiles = 0;
+      }
+    }
+  }
+
+  /**
+   * Writes the state of {@link #getNextFile()}.  For each directory being traversed, only the last
+   * name returned is written when sorted, since the rest of the listing can be found again.
+   * The remaining names are written when not sorted, or for the starting list.
+   */
+  public void writeCheckpoint(DataOutput out) throws IOException {
+    synchronized (this) {
+      out.writeInt(CHECKPOINT_MAGIC);
+      out.writeUTF(startPath);
+      out.writeBoolean(isPreorder);
+      out.writeBoolean(isSorted);
+      out.writeBoolean(filesDone);
+      int depth = currentDirectories == null ? -1 : currentDirectories.size();
+      out.writeInt(depth);
+      for (int i = 0; i < depth; i++) {
+        String directory = currentDirectories.get(i);
+        String[] list = currentLists.get(i);
+        int index = currentIndexes.get(i);
+        out.writeBoolean(directory != null);
+        if (directory != null) {
+          out.writeUTF(directory);
+        }
+        if (isSorted && i > 0) {
+          out.writeBoolean(index > 0);
+          if (index > 0) {
+            out.writeUTF(list[Math.min(index, list.length) - 1]);
+          }
+        } else {
+          int remaining = Math.max(0, list.length - index);
+          out.writeInt(remaining);
+          for (int j = list.length - remaining; j < list.length; j++) {
+            out.writeUTF(list[j]);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Resumes {@link #getNextFile()} from the given checkpoint file, if it exists.
+   * Must be called before iteration begins.
+   *
+   * @return  {@code true} when resumed, {@code false} when there is no checkpoint
+   *
+   * @see  #resume(java.io.DataInput)
+   */
+  public boolean resume(File checkpointFile) throws IOException {
+    if (!checkpointFile.exists()) {
+      return false;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(checkpointFile)))) {
+      resume(in);
+    }
+    return true;
+  }
+
+  /**
+   * Resumes {@link #getNextFile()} from a checkpoint written by an iterator with the same start
+   * path and flags.  Only the directories still being traversed are listed again, and each
+   * continues after the last name returned, so files added or removed since are handled.
+   * Must be called before iteration begins.
+   *
+   * @throws  IllegalStateException  if iteration has already begun
+   * @throws  IOException  if the checkpoint does not match this iterator
+   */
+  public void resume(DataInput in) throws IOException {
+    synchronized (this) {
+      if (currentDirectories != null || filesDone) {
+        throw new IllegalStateException("Iteration has already begun");
+      }
+      if (
+          in.readInt() != CHECKPOINT_MAGIC
+              || !in.readUTF().equals(startPath)
+              || in.readBoolean() != isPreorder
+              || in.readBoolean() != isSorted
+      ) {
+        throw new IOException("Checkpoint does not match this iterator");
+      }
+      boolean newFilesDone = in.readBoolean();
+      int depth = in.readInt();
+      if (depth == -1) {
+        filesDone = newFilesDone;
+        return;
+      }
+      Stack<String> newDirectories = new Stack<>();
+      Stack<String[]> newLists = new Stack<>();
+      Stack<Integer> newIndexes = new Stack<>();
+      for (int i = 0; i < depth; i++) {
+        String directory = in.readBoolean() ? in.readUTF() : null;
+        String[] list;
+        int index;
+        if (isSorted && i > 0) {
+          String lastName = in.readBoolean() ? in.readUTF() : null;
+          try {
+            list = listDirectory(new File(directory), directory);
+          } catch (FileNotFoundException err) {
+            // Normal if the file was deleted while accessing
+            list = EmptyArrays.EMPTY_STRING_ARRAY;
+          }
+          if (lastName == null) {
+            index = 0;
+          } else {
+            // Continue after the last name returned, whether or not it still exists
+            index = Arrays.binarySearch(list, lastName);
+            index = index >= 0 ? index + 1 : -(index + 1);
+          }
+        } else {
+          int remaining = in.readInt();
+          list = new String[remaining];
+          for (int j = 0; j < remaining; j++) {
+            list[j] = in.readUTF();
+          }
+          index = 0;
+        }
+        newDirectories.push(directory);
+        newLists.push(list);
+        newIndexes.push(index);
+      }
+      currentDirectories = newDirectories;
+      currentLists = newLists;
+      currentIndexes = newIndexes;
+      filesDone = newFilesDone;
+    }
+  }
+
+  // </editor-fold>
+
+  // <editor-fold defaultstate="collapsed" desc="Entries">
+
+  private static final FilesystemEntry[] EMPTY_ENTRIES = {};
+
+  private static final class EntryFrame {
+    private final FilesystemEntry directory;
+    private final FilesystemEntry[] entries;
+    private int index;
+
+    private EntryFrame(FilesystemEntry directory, FilesystemEntry[] entries) {
+      this.directory = directory;
+      this.entries = entries;
+    }
+  }
+
+  private Deque<EntryFrame> entryFrames;
+  private boolean entriesDone;
+
+  /**
+   * Reads the attributes of the given files within a directory, without following symbolic links.
+   * Files that no longer exist are omitted.
+   */
+  private static FilesystemEntry[] readEntries(String directory, List<String> names) throws IOException {
+    List<FilesystemEntry> entries = new ArrayList<>(names.size());
+    for (String name : names) {
+      String filename = resolve(directory, name);
+      Path path = Paths.get(filename);
+      try {
+        entries.add(new FilesystemEntry(filename, path, Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS)));
+      } catch (NoSuchFileException err) {
+        // Normal if the file was deleted while accessing
+      }
+    }
+    return entries.toArray(new FilesystemEntry[entries.size()]);
+  }
+
+  /**
+   * Lists the contents of a directory being recursed, sorted when this iterator is sorted.
+   *
+   * @return  the entries or {@code null} when the directory no longer exists
+   */
+  private FilesystemEntry[] listEntries(FilesystemEntry directory) throws IOException {
+    List<String> names = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.getPath())) {
+      for (Path path : stream) {
+        names.add(path.getFileName().toString());
+      }
+    } catch (NoSuchFileException err) {
+      // Normal if the file was deleted while accessing
+      return null;
+    }
+    if (names.isEmpty()) {
+      return EMPTY_ENTRIES;
+    }
+    if (isSorted) {
+      Collections.sort(names);
+    }
+    return readEntries(directory.getFilename(), names);
+  }
+
+  /**
+   * Gets the next file, with its attributes, from the iterator or <code>null</code> if the
+   * iterator has completed the iteration of the file system.  The files, rules, and order are
+   * the same as {@link #getNextFile()}, except symbolic links to directories are returned as
+   * non-directories instead of as empty directories.
+   * This method is internally synchronized and is thread-safe.
+   */
+  public FilesystemEntry getNextEntry() throws IOException {
+    synchronized (this) {
+      while (true) {
+        if (entriesDone) {
+          return null;
+        }
+        if (entryFrames == null) {
+          entryFrames = new ArrayDeque<>();
+          String startDirectory = getStartDirectory();
+          if (startDirectory == null) {
+            entriesDone = true;
+            return null;
+          }
+          entryFrames.push(new EntryFrame(null, readEntries(startDirectory, Arrays.asList(getStartList()))));
+        }
+        EntryFrame frame = entryFrames.peek();
+        if (frame.index >= frame.entries.length) {
+          entryFrames.pop();
+          if (entryFrames.isEmpty()) {
+            entriesDone = true;
+            return null;
+          }
+          if (!isPreorder) {
+            return frame.directory;
+          }
+          continue;
+        }
+        FilesystemEntry entry = frame.entries[frame.index++];
+        String filename = entry.getFilename();
+        if (entry.getAttributes().isDirectory()) {
+          DirectoryAction action = getDirectoryAction(filename);
+          if (action != DirectoryAction.SKIP) {
+            FilesystemEntry[] children;
+            if (action == DirectoryAction.RECURSE) {
+              children = listEntries(entry);
+              if (children == null) {
+                continue;
+              }
+            } else {
+              children = EMPTY_ENTRIES;
+            }
+            if (children.length > 0) {
+              entryFrames.push(new EntryFrame(entry, children));
+              if (isPreorder) {
+                return entry;
+              }
+            } else {
+              // If empty directory both preorder and postorder return directory immediately
+              return entry;
+            }
+          }
+        } else if (isIncluded(filename)) {
+          return entry;
+        }
+      }
+    }
+  }
+
+  // </editor-fold>
+
+  /**
+   * Gets the directory containing the starting list of files, which is "" when starting at the roots.
+   */
+  String getStartDirectory() throws IOException {
+    if (startPath.length() == 0 || isFilesystemRoot(startPath)) {
+      // Starting from a root, has no parent
+      return "";
+    } else {
+      return new File(startPath).getParent();
+    }
+  }
+
+  /**
+   * Gets the starting list of files, relative to {@link #getStartDirectory()}.
+   * The starting directory itself is included when not starting at the roots.
+   */
+  String[] getStartList() throws IOException {
+    if (startPath.length() == 0) {
+      return getFilesystemRoots();
+    } else if (isFilesystemRoot(startPath)) {
+      return new String[]{startPath};
+    } else {
+      return new String[]{new File(startPath).getName()};
+    }
+  }
+
+  /**
+   * Gets the filename of an entry within a directory.
+   */
+  static String resolve(String directory, String name) {
+    if (directory.length() == 0) {
+      return name;
+    } else if (directory.endsWith(File.separator)) {
+      return directory + name;
+    } else {
+      return directory + File.separatorChar + name;
+    }
+  }
+
+  /**
+   * What is done with a directory.
+   */
+  enum DirectoryAction {
+    /**
+     * Neither the directory nor its contents are included.
+     */
+    SKIP,
+    /**
+     * The directory is included, but its contents are not listed.
+     */
+    INCLUDE,
+    /**
+     * The directory is included and its contents are listed.
+     */
+    RECURSE
+  }
+
+  /**
+   * Determines what is done with a directory, according to the rules.
+   * This is safe for concurrent use, provided the rules are.
+   */
+  DirectoryAction getDirectoryAction(String filename) throws IOException {
+    final String filenamePlusSlash;
+    if (filename.endsWith(File.separator)) {
+      filenamePlusSlash = filename;
+    } else {
+      filenamePlusSlash = filename + File.separatorChar;
+    }
+    // If the settings for the directory indicate include
+    if (isIncluded(filename)) {
+      // Directory is included, optimized recurse follows
+      FilesystemIteratorRule rule = ruleIndex.getRule(filenamePlusSlash);
+      if (
+          rule == null
+              || rule.isIncluded(filenamePlusSlash)
+              // This is the shortcut to not list directory when flagged as "/proc/"-style skip and
+              // there are no overriding children
+              || hasIncludedChild(filenamePlusSlash)
+      ) {
+        return DirectoryAction.RECURSE;
+      } else {
+        return DirectoryAction.INCLUDE;
+      }
+    } else {
+      // Force include if there are any backup-enabled settings that are a child of this
+      if (hasIncludedChild(filenamePlusSlash)) {
+        return DirectoryAction.RECURSE;
+      } else {
+        return DirectoryAction.SKIP;
+      }
+    }
+  }
+
+  /**
+   * Lists the contents of a directory being recursed, sorted when this iterator is sorted.
+   * Directories that are not canonical are not listed, which avoids symbolic link targets.
+   */
+  String[] listDirectory(File file, String filename) throws IOException {
+    // Skip anything that is not canonical, this avoids symbolic link targets
+    if (file.getCanonicalPath().equals(filename)) {
+      String[] list = file.list();
+      if (list == null) {
+        list = EmptyArrays.EMPTY_STRING_ARRAY;
+      } else if (isSorted && list.length > 0) {
+        Arrays.sort(list);
+      }
+      return list;
+    } else {
+      // System.err.println("Skipping non-canonical directory listing: "+filename);
+      return EmptyArrays.EMPTY_STRING_ARRAY;
+    }
+  }
+
   /**
    * Gets the next files, up to batchSize.
    *
@@ -298,7 +687,7 @@ public class FilesystemIterator implements Comparable<FilesystemIterator> {
     for (File fileRoot : fileRoots) {
       String root = fileRoot.getPath();
       // Only add if this root is used for at least one backup setting
-      FilesystemIteratorRule defaultRule = rules.get("");
+      FilesystemIteratorRule defaultRule = ruleIndex.getRule("");
       if (
           (defaultRule != null && defaultRule.isIncluded(root))
               || hasIncludedChild(root)
@@ -326,11 +715,9 @@ public class FilesystemIterator implements Comparable<FilesystemIterator> {
    * Gets the rule that best suits the provided filename.  The rule is the longer
    * rule between the regular rules and the prefix rules.
    *
-   * <p>The regular rules are scanned first by looking through the filename and then
-   * all parents up to the root for the first match.  These use Map lookups in the
-   * set of rules so this should still perform well when there are many rules.
-   * For example, when searching for the rule for /home/u/username/tmp/, this
-   * will search:</p>
+   * <p>The regular rules match the filename or any of its parents up to the root,
+   * with the longest match being used.  For example, when searching for the rule for /home/u/username/tmp/, this
+   * will consider:</p>
    *
    * <ol>
    *   <li>/home/u/username/tmp/</li>
@@ -345,60 +732,17 @@ public class FilesystemIterator implements Comparable<FilesystemIterator> {
    *   <li></li>
    * </ol>
    *
-   * <p>Next, the entire list of prefix rules is searched, with the longest rule
-   * being used if it is a longer match than that found in the regular rules.</p>
+   * <p>The longest matching prefix rule is used instead if it is a longer match than
+   * that found in the regular rules.</p>
+   *
+   * <p>Both are found by a single walk of the {@link FilesystemIteratorRuleIndex compiled rules}
+   * along the filename.</p>
    */
   private FilesystemIteratorRule getBestRule(final String filename) {
-    String longestPrefix = null;
-    FilesystemIteratorRule rule = null;
-    // First search the path and all of its parents for the first regular rule
-    String path = filename;
-    while (true) {
-      // Check the current path for an exact match
-      // System.out.println("DEBUG: Checking "+path);
-      rule = rules.get(path);
-      if (rule != null) {
-        longestPrefix = path;
-        break;
-      }
-
-      // If done, break the loop
-      int pathLen = path.length();
-      if (pathLen == 0) {
-        break;
-      }
-
-      int lastSlashPos = path.lastIndexOf(File.separatorChar);
-      if (lastSlashPos == -1) {
-        path = "";
-      } else if (lastSlashPos == (pathLen - 1)) {
-        // If ends with a slash, remove that slash
-        path = path.substring(0, lastSlashPos);
-      } else {
-        // Otherwise, remove and leave the last slash
-        path = path.substring(0, lastSlashPos + 1);
-      }
-    }
-    if (prefixRules != null) {
-      // TODO: If there are many more prefix rules than the length of this filename, it will at some threshold
-      //       be faster to do a map lookup for each possible length of the string.
-      //       Would also only need to look down to longestPrefix
-      for (Map.Entry<String, FilesystemIteratorRule> entry : prefixRules.entrySet()) {
-        String prefix = entry.getKey();
-        if (
-            (longestPrefix == null || prefix.length() > longestPrefix.length())
-                && filename.startsWith(prefix)
-        ) {
-          // System.err.println("DEBUG: FilesystemIterator: getBestRule: filename="+filename+", prefix="+prefix+", longestPrefix="+longestPrefix);
-          longestPrefix = prefix;
-          rule = entry.getValue();
-        }
-      }
-    }
-    return rule;
+    return ruleIndex.getBestRule(filename);
   }
 
-  private boolean isIncluded(String filename) throws IOException {
+  boolean isIncluded(String filename) throws IOException {
     FilesystemIteratorRule rule = getBestRule(filename);
     if (rule != null) {
       return rule.isIncluded(filename);
@@ -406,25 +750,11 @@ public class FilesystemIterator implements Comparable<FilesystemIterator> {
     return false;
   }
 
+  /**
+   * Checks if any rule starting with the current filename+File.separatorChar has backup enabled.
+   */
   private boolean hasIncludedChild(String filenamePlusSlash) throws IOException {
-    // Iterate through all rules, looking for the first one that starts with the current filename+File.separatorChar and has backup enabled
-    for (Map.Entry<String, FilesystemIteratorRule> entry : rules.entrySet()) {
-      String path = entry.getKey();
-      if (path.startsWith(filenamePlusSlash)) {
-        FilesystemIteratorRule rule = entry.getValue();
-        if (rule.isIncluded(filenamePlusSlash)) {
-          return true;
-        }
-      }
-    }
-    for (Map.Entry<String, FilesystemIteratorRule> entry : prefixRules.entrySet()) {
-      String path = entry.getKey();
-      FilesystemIteratorRule rule = entry.getValue();
-      if (path.startsWith(filenamePlusSlash) && rule.isIncluded(filenamePlusSlash)) {
-        return true;
-      }
-    }
-    return false;
+    return ruleIndex.hasIncludedChild(filenamePlusSlash);
   }
 
   static class FilenameIterator implements Iterator<String> {
@@ -0,0 +1,242 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The rules of a {@link FilesystemIterator} compiled into a single character trie over the
+ * paths of both the regular rules and the prefix rules.  Finding the best rule for a path and
+ * checking for included descendants walk the trie once along the path, in time proportional to
+ * the length of the path and without creating substrings.
+ *
+ * <p>Each node also holds the distinct rules at or below it.  Since most configurations reuse a
+ * few rules, such as {@link FilesystemIteratorRule#OK} and {@link FilesystemIteratorRule#SKIP},
+ * for many paths, checking for included descendants evaluates only a few rules.</p>
+ *
+ * <p>This is immutable and safe for concurrent use.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class FilesystemIteratorRuleIndex {
+
+  private static final char[] NO_KEYS = {};
+  private static final Node[] NO_CHILDREN = {};
+
+  private static final class Node {
+
+    /**
+     * The characters leading to each child, sorted.
+     */
+    private final char[] keys;
+    private final Node[] children;
+
+    /**
+     * The regular rule whose path ends at this node, if any.
+     */
+    private final FilesystemIteratorRule rule;
+
+    /**
+     * The prefix rule whose prefix ends at this node, if any.
+     */
+    private final FilesystemIteratorRule prefixRule;
+
+    /**
+     * The distinct rules at or below this node.
+     */
+    private final FilesystemIteratorRule[] descendantRules;
+
+    private Node(char[] keys, Node[] children, FilesystemIteratorRule rule, FilesystemIteratorRule prefixRule, FilesystemIteratorRule[] descendantRules) {
+      this.keys = keys;
+      this.children = children;
+      this.rule = rule;
+      this.prefixRule = prefixRule;
+      this.descendantRules = descendantRules;
+    }
+
+    private Node getChild(char ch) {
+      char[] k = keys;
+      int low = 0;
+      int high = k.length - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        char midKey = k[mid];
+        if (midKey < ch) {
+          low = mid + 1;
+        } else if (midKey > ch) {
+          high = mid - 1;
+        } else {
+          return children[mid];
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * A mutable node while compiling.
+   */
+  private static final class Builder {
+    private final TreeMap<Character, Builder> children = new TreeMap<>();
+    private FilesystemIteratorRule rule;
+    private FilesystemIteratorRule prefixRule;
+
+    private Builder getOrAdd(String path) {
+      Builder node = this;
+      for (int i = 0, len = path.length(); i < len; i++) {
+        node = node.children.computeIfAbsent(path.charAt(i), ch -> new Builder());
+      }
+      return node;
+    }
+
+    private Node build() {
+      int size = children.size();
+      char[] keys = size == 0 ? NO_KEYS : new char[size];
+      Node[] built = size == 0 ? NO_CHILDREN : new Node[size];
+      int i = 0;
+      for (Map.Entry<Character, Builder> entry : children.entrySet()) {
+        keys[i] = entry.getKey();
+        built[i] = entry.getValue().build();
+        i++;
+      }
+      FilesystemIteratorRule[] descendantRules;
+      if (rule == null && prefixRule == null && size == 1) {
+        // Share with the only child
+        descendantRules = built[0].descendantRules;
+      } else {
+        Set<FilesystemIteratorRule> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (rule != null) {
+          distinct.add(rule);
+        }
+        if (prefixRule != null) {
+          distinct.add(prefixRule);
+        }
+        for (Node child : built) {
+          Collections.addAll(distinct, child.descendantRules);
+        }
+        descendantRules = distinct.toArray(new FilesystemIteratorRule[distinct.size()]);
+      }
+      return new Node(keys, built, rule, prefixRule, descendantRules);
+    }
+  }
+
+  private final Node root;
+
+  /**
+   * @param  prefixRules  may be {@code null}
+   */
+  FilesystemIteratorRuleIndex(Map<String, FilesystemIteratorRule> rules, Map<String, FilesystemIteratorRule> prefixRules) {
+    Builder builder = new Builder();
+    for (Map.Entry<String, FilesystemIteratorRule> entry : rules.entrySet()) {
+      builder.getOrAdd(entry.getKey()).rule = entry.getValue();
+    }
+    if (prefixRules != null) {
+      for (Map.Entry<String, FilesystemIteratorRule> entry : prefixRules.entrySet()) {
+        builder.getOrAdd(entry.getKey()).prefixRule = entry.getValue();
+      }
+    }
+    root = builder.build();
+  }
+
+  /**
+   * Checks if a regular rule at the given length of the filename would be found by walking
+   * the filename and its parents: the filename itself, each parent with and without its
+   * trailing separator, and the empty path.
+   */
+  private static boolean isParentOrSelf(String filename, int length) {
+    return
+        length == 0
+            || length == filename.length()
+            || filename.charAt(length) == File.separatorChar
+            || filename.charAt(length - 1) == File.separatorChar;
+  }
+
+  /**
+   * Gets the rule that best suits the provided filename.  The rule is the longer
+   * rule between the regular rules, matching the filename or any of its parents,
+   * and the prefix rules.  A regular rule is used when of equal length.
+   */
+  FilesystemIteratorRule getBestRule(String filename) {
+    FilesystemIteratorRule rule = null;
+    int ruleLength = -1;
+    FilesystemIteratorRule prefixRule = null;
+    int prefixLength = -1;
+    Node node = root;
+    for (int i = 0, len = filename.length(); ; i++) {
+      if (node.rule != null && isParentOrSelf(filename, i)) {
+        rule = node.rule;
+        ruleLength = i;
+      }
+      if (node.prefixRule != null) {
+        prefixRule = node.prefixRule;
+        prefixLength = i;
+      }
+      if (i == len) {
+        break;
+      }
+      node = node.getChild(filename.charAt(i));
+      if (node == null) {
+        break;
+      }
+    }
+    return prefixLength > ruleLength ? prefixRule : rule;
+  }
+
+  /**
+   * Gets the regular rule for exactly the given path, if any.
+   */
+  FilesystemIteratorRule getRule(String path) {
+    Node node = root;
+    for (int i = 0, len = path.length(); i < len && node != null; i++) {
+      node = node.getChild(path.charAt(i));
+    }
+    return node == null ? null : node.rule;
+  }
+
+  /**
+   * Checks if any regular or prefix rule starting with the given directory, including the
+   * directory itself, includes the directory.
+   */
+  boolean hasIncludedChild(String filenamePlusSlash) throws IOException {
+    Node node = root;
+    for (int i = 0, len = filenamePlusSlash.length(); i < len; i++) {
+      node = node.getChild(filenamePlusSlash.charAt(i));
+      if (node == null) {
+        return false;
+      }
+    }
+    for (FilesystemIteratorRule rule : node.descendantRules) {
+      if (rule.isIncluded(filenamePlusSlash)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
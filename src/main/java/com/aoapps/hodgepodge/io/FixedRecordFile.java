@@ -1,6 +1,6 @@
 /*
  * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
- * Copyright (C) 2003, 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2013, 2016, 2019, 2021, 2022  AO Industries, Inc.
+ * Copyright (C) 2003, 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2013, 2016, 2019, 2021, 2022, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -23,25 +23,56 @@
 
 package com.aoapps.hodgepodge.io;
 
+import com.aoapps.collections.IntArrayList;
 import com.aoapps.lang.util.BufferManager;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
 
 /**
  * A way to more easily manipulate files with fixed-record-size rows.
  *
+ * <p>By default, records are stored in order and inserting or removing a record shifts all the records
+ * that follow it.  When {@link #setIndexed(boolean) indexed}, the logical order of the records is instead
+ * kept in an in-memory index of physical record slots: inserted records are appended to the end of the file
+ * (or fill a single freed slot), removed records only free their slot, and swaps only update the index.
+ * The physical order is restored by {@link #compact()}, which is also performed automatically once more
+ * than half of the file is free slots, when no longer indexed, and on {@link #close()}.</p>
+ *
+ * <p>While indexed, records must be accessed one at a time after {@link #seekToExistingRecord(int)},
+ * or as ranges through {@link #readRecords(int, byte[], int, int)} and {@link #writeRecords(int, byte[], int, int)}.
+ * The records following {@link #addRecords(int, int)} remain physically contiguous so they may be written
+ * sequentially.</p>
+ *
  * @author  AO Industries, Inc.
  */
 public class FixedRecordFile extends RandomAccessFile {
 
   private final int recordLength;
 
+  /**
+   * The minimum number of free slots before automatic compaction.
+   */
+  private static final int AUTO_COMPACT_MIN_FREE = 1024;
+
   private final byte[] buff1;
   private final byte[] buff2;
 
+  /**
+   * When indexed, the physical slot of each record in logical order, otherwise {@code null}.
+   */
+  private IntArrayList index;
+
+  /**
+   * When indexed, the physical slots no longer used by any record.
+   */
+  private IntArrayList free;
+
   public FixedRecordFile(
       String name,
       String mode,
@@ -68,6 +99,10 @@ public class FixedRecordFile extends RandomAccessFile {
     if (index < 0) {
       throw new IndexOutOfBoundsException(index + "<0");
     }
+    if (this.index != null) {
+      seek((long) getSlot(index) * recordLength);
+      return;
+    }
     long startPos = (long) index * recordLength;
     if (startPos >= length()) {
       throw new IndexOutOfBoundsException(index + " >= " + getRecordCount());
@@ -88,6 +123,10 @@ public class FixedRecordFile extends RandomAccessFile {
       if (index < 0) {
         throw new IndexOutOfBoundsException("index<0: " + index);
       }
+      if (this.index != null) {
+        addSlots(index, numRecords);
+        return;
+      }
       long recordsStart = (long) index * recordLength;
       long recordsBytes = (long) numRecords * recordLength;
       long recordsEnd = recordsStart + recordsBytes;
@@ -99,13 +138,16 @@ public class FixedRecordFile extends RandomAccessFile {
         // Insert the record if not at the end
         long moveLength = length() - recordsStart;
         setLength(length() + recordsBytes);
-        copyBytes(this, recordsStart, this, recordsStart + recordsBytes, moveLength);
+        moveBytes(recordsStart, recordsStart + recordsBytes, moveLength);
       }
       seek(recordsStart);
     }
   }
 
   public int getRecordCount() throws IOException {
+    if (index != null) {
+      return index.size();
+    }
     long size = length() / recordLength;
     return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
   }
@@ -162,6 +204,16 @@ public class FixedRecordFile extends RandomAccessFile {
     }
   }
 
+  /**
+   * Moves bytes within this file, used to shift the records following an insert or remove.
+   * The regions may overlap.
+   *
+   * @see  #copyBytes(java.io.RandomAccessFile, long, java.io.RandomAccessFile, long, long)
+   */
+  protected void moveBytes(long fromIndex, long toIndex, long numBytes) throws IOException {
+    copyBytes(this, fromIndex, this, toIndex, numBytes);
+  }
+
   public static void copyRecords(FixedRecordFile from, long fromIndex, FixedRecordFile to, long toIndex, long numRecords) throws IOException {
     if (numRecords < 0) {
       throw new IllegalArgumentException("numRecords<0: " + numRecords);
@@ -172,10 +224,41 @@ public class FixedRecordFile extends RandomAccessFile {
       throw new IllegalArgumentException("Files do not have the same record length: from.recordLength=" + recordLength + ", to.recordLength=" + to.recordLength);
     }
 
-    copyBytes(from, fromIndex * (long) recordLength, to, toIndex * (long) recordLength, numRecords * (long) recordLength);
+    if (from.index == null && to.index == null) {
+      copyBytes(from, fromIndex * (long) recordLength, to, toIndex * (long) recordLength, numRecords * (long) recordLength);
+    } else if (numRecords > 0) {
+      // Copy by logical record ranges
+      if (fromIndex < 0 || fromIndex + numRecords > from.getRecordCount()) {
+        throw new IndexOutOfBoundsException("fromIndex=" + fromIndex + ", numRecords=" + numRecords + ", from.getRecordCount()=" + from.getRecordCount());
+      }
+      if (toIndex < 0 || toIndex + numRecords > to.getRecordCount()) {
+        throw new IndexOutOfBoundsException("toIndex=" + toIndex + ", numRecords=" + numRecords + ", to.getRecordCount()=" + to.getRecordCount());
+      }
+      int blockRecords = Math.max(1, BufferManager.BUFFER_SIZE / recordLength);
+      byte[] buff = blockRecords * recordLength <= BufferManager.BUFFER_SIZE ? BufferManager.getBytes() : new byte[recordLength];
+      try {
+        boolean backward = from == to && fromIndex < toIndex;
+        long copied = 0;
+        while (copied < numRecords) {
+          int count = (int) Math.min(blockRecords, numRecords - copied);
+          long offset = backward ? (numRecords - copied - count) : copied;
+          from.readRecords((int) (fromIndex + offset), buff, 0, count);
+          to.writeRecords((int) (toIndex + offset), buff, 0, count);
+          copied += count;
+        }
+      } finally {
+        if (buff.length == BufferManager.BUFFER_SIZE) {
+          BufferManager.release(buff, false);
+        }
+      }
+    }
   }
 
   public void removeAllRecords() throws IOException {
+    if (index != null) {
+      index.clear();
+      free.clear();
+    }
     setLength(0);
   }
 
@@ -183,6 +266,10 @@ public class FixedRecordFile extends RandomAccessFile {
     if (index < 0) {
       throw new IndexOutOfBoundsException(index + "<0");
     }
+    if (this.index != null) {
+      removeSlot(index);
+      return;
+    }
     long startPos = (long) index * recordLength;
     if (startPos >= length()) {
       throw new IndexOutOfBoundsException(index + " >= " + getRecordCount());
@@ -191,7 +278,7 @@ public class FixedRecordFile extends RandomAccessFile {
     // Shift objects if not at new end of list
     long newEnd = length() - recordLength;
     if (newEnd > startPos) {
-      copyBytes(this, startPos + recordLength, this, startPos, newEnd - startPos);
+      moveBytes(startPos + recordLength, startPos, newEnd - startPos);
     }
 
     // Truncate the file
@@ -203,6 +290,13 @@ public class FixedRecordFile extends RandomAccessFile {
   }
 
   public void swap(int index1, int index2) throws IOException {
+    if (index != null) {
+      int slot1 = getSlot(index1);
+      int slot2 = getSlot(index2);
+      index.set(index1, slot2);
+      index.set(index2, slot1);
+      return;
+    }
     if (index1 != index2) {
       if (index1 < 0) {
         throw new IndexOutOfBoundsException("index1<0: " + index1);
@@ -231,4 +325,304 @@ public class FixedRecordFile extends RandomAccessFile {
       write(buff2);
     }
   }
+
+  /**
+   * Reads consecutive records into the provided buffer.
+   */
+  public void readRecords(int index, byte[] buff, int off, int numRecords) throws IndexOutOfBoundsException, IOException {
+    transferRecords(index, buff, off, numRecords, false);
+  }
+
+  /**
+   * Writes consecutive existing records from the provided buffer.
+   */
+  public void writeRecords(int index, byte[] buff, int off, int numRecords) throws IndexOutOfBoundsException, IOException {
+    transferRecords(index, buff, off, numRecords, true);
+  }
+
+  /**
+   * Reads consecutive records into the remaining space of the buffer using positional reads,
+   * without moving the file pointer.  Unlike the other methods, this may be called concurrently
+   * from multiple threads, provided the file is not modified meanwhile.
+   */
+  public void readRecords(int index, ByteBuffer buffer, int numRecords) throws IndexOutOfBoundsException, IOException {
+    if (numRecords < 0) {
+      throw new IllegalArgumentException("numRecords<0: " + numRecords);
+    }
+    if (index < 0) {
+      throw new IndexOutOfBoundsException(index + "<0");
+    }
+    int recordCount = getRecordCount();
+    if ((long) index + numRecords > recordCount) {
+      throw new IndexOutOfBoundsException((index + numRecords) + " > " + recordCount);
+    }
+    if ((long) numRecords * recordLength > buffer.remaining()) {
+      throw new IllegalArgumentException("Buffer too small: numRecords=" + numRecords + ", buffer.remaining()=" + buffer.remaining());
+    }
+    int limit = buffer.limit();
+    try {
+      int done = 0;
+      while (done < numRecords) {
+        int slot;
+        int run;
+        if (this.index == null) {
+          slot = index;
+          run = numRecords;
+        } else {
+          slot = this.index.getInt(index + done);
+          run = 1;
+          while (done + run < numRecords && this.index.getInt(index + done + run) == slot + run) {
+            run++;
+          }
+        }
+        buffer.limit(buffer.position() + run * recordLength);
+        readAt((long) slot * recordLength, buffer);
+        done += run;
+      }
+    } finally {
+      buffer.limit(limit);
+    }
+  }
+
+  /**
+   * Fills the remaining space of the buffer from the given position in the file, without moving the file pointer.
+   * Must be safe for concurrent use.
+   */
+  protected void readAt(long position, ByteBuffer buffer) throws IOException {
+    FileChannel channel = getChannel();
+    while (buffer.hasRemaining()) {
+      int count = channel.read(buffer, position);
+      if (count == -1) {
+        throw new EOFException();
+      }
+      position += count;
+    }
+  }
+
+  private void transferRecords(int index, byte[] buff, int off, int numRecords, boolean write) throws IndexOutOfBoundsException, IOException {
+    if (numRecords < 0) {
+      throw new IllegalArgumentException("numRecords<0: " + numRecords);
+    }
+    if (index < 0) {
+      throw new IndexOutOfBoundsException(index + "<0");
+    }
+    int recordCount = getRecordCount();
+    if ((long) index + numRecords > recordCount) {
+      throw new IndexOutOfBoundsException((index + numRecords) + " > " + recordCount);
+    }
+    int done = 0;
+    while (done < numRecords) {
+      // Transfer each run of physically consecutive slots at once
+      int slot;
+      int run;
+      if (this.index == null) {
+        slot = index;
+        run = numRecords;
+      } else {
+        slot = this.index.getInt(index + done);
+        run = 1;
+        while (done + run < numRecords && this.index.getInt(index + done + run) == slot + run) {
+          run++;
+        }
+      }
+      seek((long) slot * recordLength);
+      if (write) {
+        write(buff, off + done * recordLength, run * recordLength);
+      } else {
+        readFully(buff, off + done * recordLength, run * recordLength);
+      }
+      done += run;
+    }
+  }
+
+  public boolean isIndexed() {
+    return index != null;
+  }
+
+  /**
+   * Enables or disables the indexed layout.  Enabling starts with the current physical order.
+   * Disabling first {@link #compact() compacts} the file.
+   */
+  public void setIndexed(boolean indexed) throws IOException {
+    if (indexed) {
+      if (index == null) {
+        int recordCount = getRecordCount();
+        IntArrayList newIndex = new IntArrayList(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+          newIndex.add(i);
+        }
+        index = newIndex;
+        free = new IntArrayList();
+      }
+    } else if (index != null) {
+      compact();
+      index = null;
+      free = null;
+    }
+  }
+
+  private int getSlot(int index) throws IndexOutOfBoundsException {
+    if (index < 0) {
+      throw new IndexOutOfBoundsException(index + "<0");
+    }
+    int size = this.index.size();
+    if (index >= size) {
+      throw new IndexOutOfBoundsException(index + " >= " + size);
+    }
+    return this.index.getInt(index);
+  }
+
+  /**
+   * Allocates slots for new records, leaving the file positioned at the first.
+   */
+  private void addSlots(int index, int numRecords) throws IndexOutOfBoundsException, IOException {
+    int size = this.index.size();
+    if (index > size) {
+      throw new IndexOutOfBoundsException(index + " > " + size);
+    }
+    int firstSlot;
+    if (numRecords == 1 && !free.isEmpty()) {
+      firstSlot = free.removeAtIndex(free.size() - 1);
+    } else {
+      long physicalLength = length();
+      long firstSlotLong = (physicalLength + recordLength - 1) / recordLength;
+      if (firstSlotLong + numRecords > Integer.MAX_VALUE) {
+        throw new IOException("Too many records: " + (firstSlotLong + numRecords));
+      }
+      firstSlot = (int) firstSlotLong;
+      setLength((firstSlotLong + numRecords) * recordLength);
+    }
+    if (index == size) {
+      this.index.ensureCapacity(size + numRecords);
+      for (int i = 0; i < numRecords; i++) {
+        this.index.add(firstSlot + i);
+      }
+    } else {
+      int[] slots = new int[numRecords];
+      for (int i = 0; i < numRecords; i++) {
+        slots[i] = firstSlot + i;
+      }
+      this.index.addAll(index, new IntArrayList(slots));
+    }
+    seek((long) firstSlot * recordLength);
+  }
+
+  private void removeSlot(int index) throws IndexOutOfBoundsException, IOException {
+    int slot = getSlot(index);
+    this.index.removeAtIndex(index);
+    long slotEnd = ((long) slot + 1) * recordLength;
+    if (slotEnd == length()) {
+      // The last slot is simply truncated
+      setLength(slotEnd - recordLength);
+    } else {
+      free.add(slot);
+      int freeCount = free.size();
+      if (freeCount >= AUTO_COMPACT_MIN_FREE && freeCount > this.index.size()) {
+        compact();
+      }
+    }
+  }
+
+  /**
+   * Moves each record to the physical position of its logical index, reclaiming any free slots.
+   * Each record out of place is read and written once.  Does nothing when not indexed.
+   */
+  public void compact() throws IOException {
+    if (index != null) {
+      int recordCount = index.size();
+      int[] slots = index.toArrayInt();
+      int physicalCount = recordCount;
+      for (int slot : slots) {
+        physicalCount = Math.max(physicalCount, slot + 1);
+      }
+      // The record index currently held by each slot, or -1 when free
+      int[] owners = new int[physicalCount];
+      Arrays.fill(owners, -1);
+      boolean inOrder = true;
+      for (int i = 0; i < recordCount; i++) {
+        owners[slots[i]] = i;
+        if (slots[i] != i) {
+          inOrder = false;
+        }
+      }
+      if (!inOrder) {
+        // Follow the chains starting at slots that do not need to be preserved
+        for (int i = 0; i < recordCount; i++) {
+          if (owners[i] == -1) {
+            int pos = i;
+            do {
+              int from = slots[pos];
+              copyRecord(from, pos, buff1);
+              slots[pos] = pos;
+              owners[pos] = pos;
+              owners[from] = -1;
+              pos = from;
+            } while (pos < recordCount);
+          }
+        }
+        // All that remains are cycles, which are rotated through a buffer
+        for (int i = 0; i < recordCount; i++) {
+          if (slots[i] != i) {
+            seek((long) i * recordLength);
+            readFully(buff2);
+            int pos = i;
+            while (slots[pos] != i) {
+              int from = slots[pos];
+              copyRecord(from, pos, buff1);
+              slots[pos] = pos;
+              pos = from;
+            }
+            seek((long) pos * recordLength);
+            write(buff2);
+            slots[pos] = pos;
+          }
+        }
+      }
+      long newLength = (long) recordCount * recordLength;
+      if (length() > newLength) {
+        setLength(newLength);
+      }
+      index.clear();
+      index.ensureCapacity(recordCount);
+      for (int i = 0; i < recordCount; i++) {
+        index.add(i);
+      }
+      free.clear();
+    }
+  }
+
+  private void copyRecord(int fromSlot, int toSlot, byte[] buff) throws IOException {
+    seek((long) fromSlot * recordLength);
+    readFully(buff);
+    seek((long) toSlot * recordLength);
+    write(buff);
+  }
+
+  /**
+   * When indexed, {@link #compact() compacts} the file and stops indexing.
+   * This is called by {@link #close()} and must be called by subclasses before
+   * releasing any resources needed by reads and writes.
+   */
+  protected void closeIndex() throws IOException {
+    if (index != null) {
+      try {
+        compact();
+      } finally {
+        index = null;
+        free = null;
+      }
+    }
+  }
+
+  /**
+   * {@link #closeIndex() Compacts} the file when indexed before closing it.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      closeIndex();
+    } finally {
+      super.close();
+    }
+  }
 }
@@ -0,0 +1,197 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.IntFunction;
+
+/**
+ * An unmodifiable {@link SortedMap} view of a {@link FrontCodedStringList} of keys,
+ * with the values created on demand from their index.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class FrontCodedSortedMap<V> extends AbstractMap<String, V> implements SortedMap<String, V> {
+
+  private final FrontCodedStringList keys;
+  private final IntFunction<? extends V> values;
+  private final int from;
+  private final int to;
+
+  FrontCodedSortedMap(FrontCodedStringList keys, IntFunction<? extends V> values) {
+    this(keys, values, 0, keys.size());
+  }
+
+  private FrontCodedSortedMap(FrontCodedStringList keys, IntFunction<? extends V> values, int from, int to) {
+    this.keys = keys;
+    this.values = values;
+    this.from = from;
+    this.to = to;
+  }
+
+  private int indexOf(Object key) {
+    if (key instanceof String) {
+      int index = keys.indexOf((String) key);
+      if (index >= from && index < to) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  private int bound(String key) {
+    return Math.max(from, Math.min(to, keys.ceilingIndex(key)));
+  }
+
+  @Override
+  public int size() {
+    return to - from;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return from == to;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) != -1;
+  }
+
+  @Override
+  public V get(Object key) {
+    int index = indexOf(key);
+    return index == -1 ? null : values.apply(index);
+  }
+
+  @Override
+  public Comparator<? super String> comparator() {
+    return null;
+  }
+
+  @Override
+  public SortedMap<String, V> subMap(String fromKey, String toKey) {
+    if (fromKey.compareTo(toKey) > 0) {
+      throw new IllegalArgumentException("fromKey > toKey");
+    }
+    return new FrontCodedSortedMap<>(keys, values, bound(fromKey), bound(toKey));
+  }
+
+  @Override
+  public SortedMap<String, V> headMap(String toKey) {
+    return new FrontCodedSortedMap<>(keys, values, from, bound(toKey));
+  }
+
+  @Override
+  public SortedMap<String, V> tailMap(String fromKey) {
+    return new FrontCodedSortedMap<>(keys, values, bound(fromKey), to);
+  }
+
+  @Override
+  public String firstKey() {
+    if (from == to) {
+      throw new NoSuchElementException();
+    }
+    return keys.get(from);
+  }
+
+  @Override
+  public String lastKey() {
+    if (from == to) {
+      throw new NoSuchElementException();
+    }
+    return keys.get(to - 1);
+  }
+
+  @Override
+  public Set<Entry<String, V>> entrySet() {
+    return new AbstractSet<Entry<String, V>>() {
+      @Override
+      public int size() {
+        return to - from;
+      }
+
+      @Override
+      public Iterator<Entry<String, V>> iterator() {
+        FrontCodedStringList.Cursor cursor = keys.cursor(from);
+        return new Iterator<Entry<String, V>>() {
+          @Override
+          public boolean hasNext() {
+            return cursor.nextIndex() < to;
+          }
+
+          @Override
+          public Entry<String, V> next() {
+            int index = cursor.nextIndex();
+            if (index >= to) {
+              throw new NoSuchElementException();
+            }
+            return new SimpleImmutableEntry<>(cursor.next(), values.apply(index));
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * Compares in a single pass when the other map is also sorted by natural ordering.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof SortedMap) || ((SortedMap<?, ?>) obj).comparator() != null) {
+      return super.equals(obj);
+    }
+    SortedMap<?, ?> other = (SortedMap<?, ?>) obj;
+    if (other.size() != size()) {
+      return false;
+    }
+    Iterator<Entry<String, V>> iter = entrySet().iterator();
+    for (Map.Entry<?, ?> otherEntry : other.entrySet()) {
+      Entry<String, V> entry = iter.next();
+      if (
+          !entry.getKey().equals(otherEntry.getKey())
+              || !Objects.equals(entry.getValue(), otherEntry.getValue())
+      ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode();
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import com.aoapps.lang.EmptyArrays;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable, sorted list of strings stored front-coded in a single byte array.
+ * Every {@link #BLOCK_SIZE}th string is stored in full as a restart point, and the
+ * others store only their differences from the previous string.  Lookups
+ * binary search the restart points then scan within a block.
+ *
+ * <p>The strings are sorted by {@link String#compareTo(java.lang.String)}, and are
+ * limited to a total of 2 GiB of encoded data.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class FrontCodedStringList {
+
+  static final int BLOCK_SIZE = 16;
+
+  /**
+   * Builds a list from strings added in ascending order.
+   */
+  static final class Builder {
+
+    private byte[] data = EmptyArrays.EMPTY_BYTE_ARRAY;
+    private int dataLen;
+    private int[] blockOffsets = EmptyArrays.EMPTY_INT_ARRAY;
+    private int size;
+    private int maxLength;
+    private String last;
+    private byte[] lastBytes = EmptyArrays.EMPTY_BYTE_ARRAY;
+
+    /**
+     * Adds the next string.
+     *
+     * @throws  IllegalArgumentException  if not greater than the previous string
+     */
+    Builder add(String str) {
+      if (last != null && str.compareTo(last) <= 0) {
+        throw new IllegalArgumentException("Strings not in ascending order: \"" + last + "\", \"" + str + '"');
+      }
+      byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+      if ((size % BLOCK_SIZE) == 0) {
+        int block = size / BLOCK_SIZE;
+        if (block == blockOffsets.length) {
+          blockOffsets = Arrays.copyOf(blockOffsets, Math.max(16, block * 2));
+        }
+        blockOffsets[block] = dataLen;
+        ensureCapacity(5 + bytes.length);
+        writeVarInt(bytes.length);
+        System.arraycopy(bytes, 0, data, dataLen, bytes.length);
+        dataLen += bytes.length;
+      } else {
+        int shared = 0;
+        int max = Math.min(bytes.length, lastBytes.length);
+        while (shared < max && bytes[shared] == lastBytes[shared]) {
+          shared++;
+        }
+        int suffixLen = bytes.length - shared;
+        ensureCapacity(10 + suffixLen);
+        writeVarInt(shared);
+        writeVarInt(suffixLen);
+        System.arraycopy(bytes, shared, data, dataLen, suffixLen);
+        dataLen += suffixLen;
+      }
+      if (bytes.length > maxLength) {
+        maxLength = bytes.length;
+      }
+      size++;
+      last = str;
+      lastBytes = bytes;
+      return this;
+    }
+
+    private void ensureCapacity(int needed) {
+      long required = (long) dataLen + needed;
+      if (required > Integer.MAX_VALUE - 8) {
+        throw new IllegalStateException("Front-coded data too large: " + required);
+      }
+      if (required > data.length) {
+        data = Arrays.copyOf(data, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(required, Math.max(256, (long) data.length * 2))));
+      }
+    }
+
+    private void writeVarInt(int value) {
+      while ((value & ~0x7f) != 0) {
+        data[dataLen++] = (byte) ((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      data[dataLen++] = (byte) value;
+    }
+
+    int size() {
+      return size;
+    }
+
+    FrontCodedStringList build() {
+      return new FrontCodedStringList(
+          Arrays.copyOf(data, dataLen),
+          Arrays.copyOf(blockOffsets, (size + BLOCK_SIZE - 1) / BLOCK_SIZE),
+          size,
+          maxLength
+      );
+    }
+  }
+
+  static final FrontCodedStringList EMPTY = new Builder().build();
+
+  private final byte[] data;
+  private final int[] blockOffsets;
+  private final int size;
+  private final int maxLength;
+
+  private FrontCodedStringList(byte[] data, int[] blockOffsets, int size, int maxLength) {
+    this.data = data;
+    this.blockOffsets = blockOffsets;
+    this.size = size;
+    this.maxLength = maxLength;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Sequentially decodes strings starting at a given index.
+   */
+  final class Cursor {
+
+    private final byte[] buff = new byte[maxLength];
+    private int len;
+    private int pos;
+    private int index;
+
+    private Cursor(int index) {
+      seek(index);
+    }
+
+    private void seek(int index) {
+      if (index < 0 || index > size) {
+        throw new IndexOutOfBoundsException(Integer.toString(index));
+      }
+      this.index = (index / BLOCK_SIZE) * BLOCK_SIZE;
+      this.pos = this.index < size ? blockOffsets[index / BLOCK_SIZE] : data.length;
+      this.len = 0;
+      while (this.index < index) {
+        decodeNext();
+      }
+    }
+
+    private int readVarInt() {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = data[pos++];
+        value |= (b & 0x7f) << shift;
+        shift += 7;
+      } while (b < 0);
+      return value;
+    }
+
+    private void decodeNext() {
+      if ((index % BLOCK_SIZE) == 0) {
+        len = readVarInt();
+        System.arraycopy(data, pos, buff, 0, len);
+        pos += len;
+      } else {
+        int shared = readVarInt();
+        int suffixLen = readVarInt();
+        System.arraycopy(data, pos, buff, shared, suffixLen);
+        pos += suffixLen;
+        len = shared + suffixLen;
+      }
+      index++;
+    }
+
+    /**
+     * Gets the index of the string that will be returned by {@link #next()}.
+     */
+    int nextIndex() {
+      return index;
+    }
+
+    boolean hasNext() {
+      return index < size;
+    }
+
+    String next() {
+      if (index >= size) {
+        throw new NoSuchElementException();
+      }
+      decodeNext();
+      return new String(buff, 0, len, StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Gets a cursor positioned at the given index.
+   */
+  Cursor cursor(int index) {
+    return new Cursor(index);
+  }
+
+  String get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(Integer.toString(index));
+    }
+    return new Cursor(index).next();
+  }
+
+  /**
+   * Finds a string.
+   *
+   * @return  the index of the string, or <code>-(insertion point) - 1</code> when not found,
+   *          matching {@link Arrays#binarySearch(java.lang.Object[], java.lang.Object)}
+   */
+  int indexOf(String str) {
+    // Find the last block starting with a string not greater than str
+    int low = 0;
+    int high = blockOffsets.length - 1;
+    int block = -1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int diff = new Cursor(mid * BLOCK_SIZE).next().compareTo(str);
+      if (diff == 0) {
+        return mid * BLOCK_SIZE;
+      } else if (diff < 0) {
+        block = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    if (block == -1) {
+      return -1;
+    }
+    // Scan within the block
+    Cursor cursor = new Cursor(block * BLOCK_SIZE);
+    int end = Math.min(size, (block + 1) * BLOCK_SIZE);
+    while (cursor.nextIndex() < end) {
+      int index = cursor.nextIndex();
+      int diff = cursor.next().compareTo(str);
+      if (diff == 0) {
+        return index;
+      } else if (diff > 0) {
+        return -index - 1;
+      }
+    }
+    return -end - 1;
+  }
+
+  /**
+   * Gets the index of the first string greater than or equal to the given string.
+   */
+  int ceilingIndex(String str) {
+    int index = indexOf(str);
+    return index >= 0 ? index : (-index - 1);
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Determines when a group of pending operations is made durable.  A group is committed once it
+ * contains the maximum number of operations, or once its first operation has been pending for the
+ * maximum delay, whichever comes first.
+ *
+ * <p>The files accepting a policy with a maximum delay start a background thread that commits
+ * a group once its delay has passed, so the last operations before a pause are not left pending.
+ * Where there is no such thread, the delay is only checked as operations are performed.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class GroupCommitPolicy {
+
+  /**
+   * Commits after every operation.
+   */
+  public static final GroupCommitPolicy EVERY_OPERATION = new GroupCommitPolicy(1, 0, TimeUnit.NANOSECONDS);
+
+  /**
+   * Only commits when explicitly requested.
+   */
+  public static final GroupCommitPolicy EXPLICIT = new GroupCommitPolicy(Integer.MAX_VALUE, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+  private final int maxOperations;
+  private final long maxDelayNanos;
+
+  /**
+   * @param  maxOperations  the maximum number of operations per group, at least one
+   * @param  maxDelay  the maximum time an operation may remain pending, zero to only limit by operations
+   */
+  public GroupCommitPolicy(int maxOperations, long maxDelay, TimeUnit unit) {
+    if (maxOperations < 1) {
+      throw new IllegalArgumentException("maxOperations < 1: " + maxOperations);
+    }
+    if (maxDelay < 0) {
+      throw new IllegalArgumentException("maxDelay < 0: " + maxDelay);
+    }
+    this.maxOperations = maxOperations;
+    long nanos = unit.toNanos(maxDelay);
+    this.maxDelayNanos = nanos == 0 ? Long.MAX_VALUE : nanos;
+  }
+
+  @Override
+  public String toString() {
+    return GroupCommitPolicy.class.getSimpleName() + "(maxOperations=" + maxOperations
+        + ", maxDelayNanos=" + (maxDelayNanos == Long.MAX_VALUE ? "unlimited" : Long.toString(maxDelayNanos)) + ')';
+  }
+
+  public int getMaxOperations() {
+    return maxOperations;
+  }
+
+  /**
+   * Gets the maximum delay in nanoseconds, or {@link Long#MAX_VALUE} when unlimited.
+   */
+  public long getMaxDelayNanos() {
+    return maxDelayNanos;
+  }
+
+  /**
+   * Checks if a group is due to be committed.
+   *
+   * @param  pendingOperations  the number of operations performed since the last commit
+   * @param  pendingSinceNanos  the {@link System#nanoTime()} of the first pending operation
+   */
+  public boolean isDue(int pendingOperations, long pendingSinceNanos) {
+    return pendingOperations > 0
+        && (
+        pendingOperations >= maxOperations
+            || (maxDelayNanos != Long.MAX_VALUE && System.nanoTime() - pendingSinceNanos >= maxDelayNanos)
+      );
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.aoapps.hodgepodge.io;
+
+import com.aoapps.lang.io.function.IORunnable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commits a group once its first operation has been pending for the maximum delay of a
+ * {@link GroupCommitPolicy}, even when no further operations are performed.  Owned by one file,
+ * which {@link #schedule(long) schedules} each group as its first operation is performed, and
+ * {@link #close() closes} this when the file is closed.
+ *
+ * <p>A commit that fails remains pending, so is retried and reported by the next operation
+ * or close of the file.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class GroupCommitTimer implements Closeable {
+
+  /**
+   * Starts a timer for the given policy.
+   *
+   * @param  commitIfDue  acquires the lock of the file, then commits when open and the policy is due
+   *
+   * @return  the timer or {@code null} when the policy has no maximum delay
+   */
+  static GroupCommitTimer start(GroupCommitPolicy policy, String name, IORunnable commitIfDue) {
+    if (policy.getMaxOperations() == 1 || policy.getMaxDelayNanos() == Long.MAX_VALUE) {
+      return null;
+    }
+    GroupCommitTimer timer = new GroupCommitTimer(policy.getMaxDelayNanos(), commitIfDue);
+    Thread thread = new Thread(timer::run, name);
+    thread.setDaemon(true);
+    thread.start();
+    return timer;
+  }
+
+  private final long maxDelayNanos;
+  private final IORunnable commitIfDue;
+
+  private boolean scheduled;
+  private long dueNanos;
+  private boolean closed;
+
+  private GroupCommitTimer(long maxDelayNanos, IORunnable commitIfDue) {
+    this.maxDelayNanos = maxDelayNanos;
+    this.commitIfDue = commitIfDue;
+  }
+
+  /**
+   * Schedules a commit for a new group.
+   *
+   * @param  pendingSinceNanos  the {@link System#nanoTime()} of the first operation of the group
+   */
+  void schedule(long pendingSinceNanos) {
+    synchronized (this) {
+      scheduled = true;
+      dueNanos = pendingSinceNanos + maxDelayNanos;
+      notify();
+    }
+  }
+
+  private void run() {
+    while (true) {
+      synchronized (this) {
+        try {
+          while (!closed && !scheduled) {
+            wait();
+          }
+          if (closed) {
+            return;
+          }
+          long waitNanos = dueNanos - System.nanoTime();
+          if (waitNanos > 0) {
+            // Rescheduled or closed while waiting are both checked again
+            TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+            continue;
+          }
+          scheduled = false;
+        } catch (InterruptedException e) {
+          // Restore the interrupted status
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+      // Committed outside the lock of this timer, since the file holds its own lock while scheduling
+      try {
+        commitIfDue.run();
+      } catch (IOException e) {
+        // Remains pending
+      }
+    }
+  }
+
+  /**
+   * Stops the timer without committing.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      closed = true;
+      notify();
+    }
+  }
+}
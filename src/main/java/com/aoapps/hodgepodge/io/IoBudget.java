@@ -0,0 +1,301 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Limits bulk I/O to a number of operations and bytes per second, so maintenance
+ * tasks may run without hurting the latency of other work on the same devices.
+ * One budget may be shared by any number of threads and tools.
+ *
+ * <p>Each limit is a token bucket holding up to one second of its rate.  An operation
+ * reserves its tokens immediately, possibly going into debt, and then waits until the
+ * debt is repaid.  Later operations wait behind it, which keeps the long-term rate
+ * exact even for operations larger than the bucket.</p>
+ *
+ * <p>The rates may be changed at any time.  When a latency target is set, the rates
+ * are also reduced while the {@link #recordLatency(long) reported latency} is over the
+ * target, and recover gradually once it is under.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class IoBudget {
+
+  /**
+   * The smallest fraction of the configured rates used while over the latency target.
+   */
+  private static final double MIN_FACTOR = 0.01;
+
+  /**
+   * The fraction of the rates kept on each decrease while over the latency target.
+   */
+  private static final double DECREASE = 0.75;
+
+  /**
+   * The fraction of the configured rates added on each increase while under the latency target.
+   */
+  private static final double INCREASE = 0.05;
+
+  /**
+   * The minimum time between adjustments to the rates.
+   */
+  private static final long ADJUST_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /**
+   * The weight of each new latency in the moving average.
+   */
+  private static final double LATENCY_WEIGHT = 0.2;
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private double opsPerSecond;
+  private double bytesPerSecond;
+  private long latencyTargetNanos;
+
+  private double opsTokens;
+  private double bytesTokens;
+  private long lastRefill = System.nanoTime();
+
+  private double factor = 1;
+  private double averageLatencyNanos = -1;
+  private long lastAdjust = lastRefill;
+
+  /**
+   * @param  opsPerSecond  the maximum operations per second, zero for unlimited
+   * @param  bytesPerSecond  the maximum bytes per second, zero for unlimited
+   */
+  public IoBudget(double opsPerSecond, double bytesPerSecond) {
+    setOpsPerSecond(opsPerSecond);
+    setBytesPerSecond(bytesPerSecond);
+    synchronized (this) {
+      opsTokens = this.opsPerSecond;
+      bytesTokens = this.bytesPerSecond;
+    }
+  }
+
+  @Override
+  public String toString() {
+    synchronized (this) {
+      return IoBudget.class.getSimpleName() + "(opsPerSecond=" + (opsPerSecond == 0 ? "unlimited" : Double.toString(opsPerSecond))
+          + ", bytesPerSecond=" + (bytesPerSecond == 0 ? "unlimited" : Double.toString(bytesPerSecond))
+          + ", factor=" + factor + ')';
+    }
+  }
+
+  private static void checkRate(String name, double rate) {
+    if (!(rate >= 0) || Double.isInfinite(rate)) {
+      throw new IllegalArgumentException(name + " must be a finite, non-negative number: " + rate);
+    }
+  }
+
+  /**
+   * Adds the tokens accumulated since the last refill, at the current rates.
+   */
+  private void refill(long now) {
+    double seconds = (double) (now - lastRefill) / NANOS_PER_SECOND;
+    lastRefill = now;
+    if (opsPerSecond != 0) {
+      double rate = opsPerSecond * factor;
+      opsTokens = Math.min(rate, opsTokens + seconds * rate);
+    }
+    if (bytesPerSecond != 0) {
+      double rate = bytesPerSecond * factor;
+      bytesTokens = Math.min(rate, bytesTokens + seconds * rate);
+    }
+  }
+
+  /**
+   * Gets the maximum operations per second, or zero when unlimited.
+   */
+  public double getOpsPerSecond() {
+    synchronized (this) {
+      return opsPerSecond;
+    }
+  }
+
+  /**
+   * Sets the maximum operations per second, zero for unlimited.
+   */
+  public void setOpsPerSecond(double opsPerSecond) {
+    checkRate("opsPerSecond", opsPerSecond);
+    synchronized (this) {
+      refill(System.nanoTime());
+      this.opsPerSecond = opsPerSecond;
+      opsTokens = Math.min(opsTokens, opsPerSecond * factor);
+    }
+  }
+
+  /**
+   * Gets the maximum bytes per second, or zero when unlimited.
+   */
+  public double getBytesPerSecond() {
+    synchronized (this) {
+      return bytesPerSecond;
+    }
+  }
+
+  /**
+   * Sets the maximum bytes per second, zero for unlimited.
+   */
+  public void setBytesPerSecond(double bytesPerSecond) {
+    checkRate("bytesPerSecond", bytesPerSecond);
+    synchronized (this) {
+      refill(System.nanoTime());
+      this.bytesPerSecond = bytesPerSecond;
+      bytesTokens = Math.min(bytesTokens, bytesPerSecond * factor);
+    }
+  }
+
+  /**
+   * Gets the latency target in nanoseconds, or zero when not adapting to latency.
+   */
+  public long getLatencyTargetNanos() {
+    synchronized (this) {
+      return latencyTargetNanos;
+    }
+  }
+
+  /**
+   * Sets the latency target, zero to no longer adapt to latency.
+   * Only the configured rates are reduced, so this has no effect on a budget that is unlimited.
+   *
+   * @see  #recordLatency(long)
+   */
+  public void setLatencyTarget(long latencyTarget, TimeUnit unit) {
+    if (latencyTarget < 0) {
+      throw new IllegalArgumentException("latencyTarget < 0: " + latencyTarget);
+    }
+    synchronized (this) {
+      refill(System.nanoTime());
+      latencyTargetNanos = unit.toNanos(latencyTarget);
+      if (latencyTargetNanos == 0) {
+        factor = 1;
+        averageLatencyNanos = -1;
+      }
+    }
+  }
+
+  /**
+   * Gets the fraction of the configured rates currently allowed, which is less than one
+   * while adapting to latency.
+   */
+  public double getFactor() {
+    synchronized (this) {
+      return factor;
+    }
+  }
+
+  /**
+   * Reports the observed latency of one operation.  Has no effect unless a latency target is set.
+   *
+   * @see  #setLatencyTarget(long, java.util.concurrent.TimeUnit)
+   */
+  public void recordLatency(long latencyNanos) {
+    synchronized (this) {
+      if (latencyTargetNanos != 0) {
+        averageLatencyNanos = averageLatencyNanos == -1
+            ? latencyNanos
+            : (averageLatencyNanos + LATENCY_WEIGHT * (latencyNanos - averageLatencyNanos));
+        long now = System.nanoTime();
+        if ((now - lastAdjust) >= ADJUST_INTERVAL_NANOS) {
+          refill(now);
+          lastAdjust = now;
+          if (averageLatencyNanos > latencyTargetNanos) {
+            factor = Math.max(MIN_FACTOR, factor * DECREASE);
+          } else {
+            factor = Math.min(1, factor + INCREASE);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Waits until the given operations and bytes are within the budget.
+   *
+   * @throws  InterruptedIOException  when interrupted while waiting
+   */
+  public void acquire(int ops, long bytes) throws InterruptedIOException {
+    if (ops < 0) {
+      throw new IllegalArgumentException("ops < 0: " + ops);
+    }
+    if (bytes < 0) {
+      throw new IllegalArgumentException("bytes < 0: " + bytes);
+    }
+    long waitNanos;
+    synchronized (this) {
+      long now = System.nanoTime();
+      refill(now);
+      double waitSeconds = 0;
+      if (opsPerSecond != 0) {
+        opsTokens -= ops;
+        if (opsTokens < 0) {
+          waitSeconds = -opsTokens / (opsPerSecond * factor);
+        }
+      }
+      if (bytesPerSecond != 0) {
+        bytesTokens -= bytes;
+        if (bytesTokens < 0) {
+          waitSeconds = Math.max(waitSeconds, -bytesTokens / (bytesPerSecond * factor));
+        }
+      }
+      waitNanos = (long) (waitSeconds * NANOS_PER_SECOND);
+    }
+    if (waitNanos > 0) {
+      long deadline = System.nanoTime() + waitNanos;
+      long remaining;
+      while ((remaining = deadline - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(this, remaining);
+        if (Thread.interrupted()) {
+          // Restore the interrupted status
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException();
+        }
+      }
+    }
+  }
+
+  /**
+   * Waits until the given number of operations are within the budget.
+   *
+   * @see  #acquire(int, long)
+   */
+  public void acquireOps(int ops) throws InterruptedIOException {
+    acquire(ops, 0);
+  }
+
+  /**
+   * Waits until the given number of bytes are within the budget, counted as one operation.
+   *
+   * @see  #acquire(int, long)
+   */
+  public void acquireBytes(long bytes) throws InterruptedIOException {
+    acquire(1, bytes);
+  }
+}
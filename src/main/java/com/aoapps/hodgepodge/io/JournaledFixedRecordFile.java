@@ -0,0 +1,688 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import com.aoapps.lang.io.IoUtils;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * A {@link FixedRecordFile} that is crash safe at the granularity of its multi-record operations
+ * ({@link #addRecords(int, int)}, {@link #removeRecord(int)}, {@link #removeAllRecords()},
+ * {@link #swap(int, int)}, and {@link #writeRecords(int, byte[], int, int)}) by way of a
+ * write-ahead redo journal.
+ *
+ * <p>Changes are held in memory, spilling page images to the journal when large, and are not
+ * written to the file until committed.  A commit writes the remaining pages and a checksummed
+ * commit record to the journal, forces the journal, applies the pages to the file, forces the
+ * file, and then clears the journal.  Operations are grouped into commits according to a
+ * {@link GroupCommitPolicy}, so a group of operations costs three forces instead of one or more
+ * per operation.  Commits only happen between operations, so after a crash the file is found as
+ * of the last commit, never part way through shifting records.  Since this class is not thread
+ * safe, it cannot commit from a background thread, so policies with a maximum delay are not
+ * supported.  Writes made directly, such as
+ * filling in a record just added, are committed with the next group.</p>
+ *
+ * <p>A journal left by a crash is replayed when the file is next opened read-write.  Opening
+ * read-only while a journal needs replaying fails.</p>
+ *
+ * <p>The {@link #setIndexed(boolean) indexed layout} is not supported, since its in-memory index
+ * would not survive a crash, and enabling it fails with an {@link IOException}.  The underlying {@link #getChannel() channel} and
+ * {@link #getFD() file descriptor} do not reflect uncommitted changes.</p>
+ *
+ * <p>Like {@link java.io.RandomAccessFile}, this class is not thread safe.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class JournaledFixedRecordFile extends FixedRecordFile {
+
+  private static final int PAGE_SIZE = 4096;
+
+  /**
+   * The number of bytes of changed pages held in memory before spilling them to the journal.
+   */
+  private static final long SPILL_SIZE = 16L << 20;
+
+  private static final long MAGIC = 0x46524a524e4c0001L;
+
+  private static final int HEADER_SIZE = 8 + 4;
+
+  private static final int PAGE_RECORD = 1;
+  private static final int TRUNCATE_RECORD = 2;
+  private static final int COMMIT_RECORD = 3;
+
+  private static final int PAGE_RECORD_HEADER_SIZE = 4 + 8;
+
+  /**
+   * Gets the journal used for the given file.
+   */
+  public static File getJournalFile(File file) {
+    return new File(file.getPath() + ".journal");
+  }
+
+  private final File journalFile;
+
+  /**
+   * The journal, or {@code null} when read-only.
+   */
+  private final RandomAccessFile journal;
+
+  private final GroupCommitPolicy policy;
+
+  /**
+   * The logical length of the file, including uncommitted changes.
+   */
+  private long length;
+
+  /**
+   * The actual length of the file.
+   */
+  private long physicalLength;
+
+  /**
+   * Bytes of the file at or beyond this position are treated as zero, since the logical length
+   * has been reduced below this since the last commit.
+   */
+  private long zeroFrom = Long.MAX_VALUE;
+
+  private long position;
+
+  /**
+   * The changed pages held in memory.
+   */
+  private final TreeMap<Long, byte[]> dirty = new TreeMap<>();
+
+  /**
+   * The offset in the journal of the most recent image of each spilled page.
+   */
+  private final TreeMap<Long, Long> journaled = new TreeMap<>();
+
+  private long journalLength;
+
+  private final CRC32 journalCrc = new CRC32();
+
+  private final byte[] recordBuff = new byte[PAGE_RECORD_HEADER_SIZE];
+
+  /**
+   * The most recently read unchanged page, to avoid rereading it for each small read.
+   */
+  private final byte[] cleanPage = new byte[PAGE_SIZE];
+  private long cleanPageIndex = -1;
+
+  private int pendingOperations;
+  private long pendingSince;
+
+  public JournaledFixedRecordFile(
+      File file,
+      String mode,
+      int recordLength
+  ) throws FileNotFoundException, IOException {
+    this(file, mode, recordLength, GroupCommitPolicy.EVERY_OPERATION);
+  }
+
+  /**
+   * @param  policy  determines how many operations are grouped into each commit
+   *
+   * @throws  IllegalArgumentException  when the policy groups operations by a maximum delay
+   */
+  public JournaledFixedRecordFile(
+      File file,
+      String mode,
+      int recordLength,
+      GroupCommitPolicy policy
+  ) throws FileNotFoundException, IOException {
+    super(file, mode, recordLength);
+    if (policy.getMaxOperations() > 1 && policy.getMaxDelayNanos() != Long.MAX_VALUE) {
+      super.close();
+      throw new IllegalArgumentException("Policies with a maximum delay are not supported: " + policy);
+    }
+    this.journalFile = getJournalFile(file);
+    this.policy = policy;
+    RandomAccessFile newJournal = null;
+    try {
+      if ("r".equals(mode)) {
+        if (journalFile.length() > 0) {
+          throw new IOException("Journal must be replayed by opening read-write: " + journalFile);
+        }
+      } else {
+        newJournal = new RandomAccessFile(journalFile, "rw");
+      }
+      journal = newJournal;
+      if (journal != null) {
+        recover();
+      }
+      length = physicalLength = getChannel().size();
+    } catch (IOException | RuntimeException e) {
+      try {
+        if (newJournal != null) {
+          newJournal.close();
+        }
+      } catch (IOException e2) {
+        e.addSuppressed(e2);
+      }
+      try {
+        super.close();
+      } catch (IOException e2) {
+        e.addSuppressed(e2);
+      }
+      throw e;
+    }
+  }
+
+  public GroupCommitPolicy getPolicy() {
+    return policy;
+  }
+
+  // <editor-fold defaultstate="collapsed" desc="Journal">
+
+  /**
+   * Replays a committed journal left by a crash, or discards an incomplete one.
+   */
+  private void recover() throws IOException {
+    if (journal.length() == 0) {
+      return;
+    }
+    TreeMap<Long, Long> pages = new TreeMap<>();
+    long newLength = -1;
+    long newZeroFrom = -1;
+    CRC32 crc = new CRC32();
+    try (DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(new FileInputStream(journalFile)), crc))) {
+      if (in.readLong() == MAGIC && in.readInt() == PAGE_SIZE) {
+        long offset = HEADER_SIZE;
+        byte[] page = new byte[PAGE_SIZE];
+        while (true) {
+          int type = in.readInt();
+          if (type == PAGE_RECORD) {
+            long pageIndex = in.readLong();
+            in.readFully(page);
+            pages.put(pageIndex, offset + PAGE_RECORD_HEADER_SIZE);
+            offset += PAGE_RECORD_HEADER_SIZE + PAGE_SIZE;
+          } else if (type == TRUNCATE_RECORD) {
+            pages.tailMap(firstPageFrom(in.readLong())).clear();
+            offset += 4 + 8;
+          } else if (type == COMMIT_RECORD) {
+            long committedLength = in.readLong();
+            long committedZeroFrom = in.readLong();
+            long expected = crc.getValue();
+            if (in.readLong() == expected) {
+              newLength = committedLength;
+              newZeroFrom = committedZeroFrom;
+            }
+            break;
+          } else {
+            break;
+          }
+        }
+      }
+    } catch (EOFException e) {
+      // Incomplete, discarded below
+    }
+    if (newLength != -1) {
+      apply(pages, newLength, newZeroFrom);
+    } else {
+      journal.setLength(0);
+      journal.getChannel().force(true);
+    }
+  }
+
+  private static long firstPageFrom(long pos) {
+    return (pos + PAGE_SIZE - 1) / PAGE_SIZE;
+  }
+
+  private void appendRecord(byte[] b, int off, int len) throws IOException {
+    if (journalLength == 0) {
+      byte[] header = new byte[HEADER_SIZE];
+      IoUtils.longToBuffer(MAGIC, header, 0);
+      IoUtils.intToBuffer(PAGE_SIZE, header, 8);
+      journal.seek(0);
+      journal.write(header);
+      journalCrc.reset();
+      journalCrc.update(header);
+      journalLength = HEADER_SIZE;
+    }
+    journal.seek(journalLength);
+    journal.write(b, off, len);
+    journalCrc.update(b, off, len);
+    journalLength += len;
+  }
+
+  private void appendPage(long pageIndex, byte[] page) throws IOException {
+    IoUtils.intToBuffer(PAGE_RECORD, recordBuff, 0);
+    IoUtils.longToBuffer(pageIndex, recordBuff, 4);
+    appendRecord(recordBuff, 0, PAGE_RECORD_HEADER_SIZE);
+    journaled.put(pageIndex, journalLength);
+    appendRecord(page, 0, PAGE_SIZE);
+  }
+
+  /**
+   * Moves all changed pages from memory to the journal.
+   */
+  private void spill() throws IOException {
+    for (Map.Entry<Long, byte[]> entry : dirty.entrySet()) {
+      appendPage(entry.getKey(), entry.getValue());
+    }
+    dirty.clear();
+  }
+
+  /**
+   * Writes the pages to the file, sets its length, and clears the journal.
+   * Repeating this after being interrupted by a crash has the same result.
+   */
+  private void apply(SortedMap<Long, Long> pages, long newLength, long newZeroFrom) throws IOException {
+    FileChannel channel = getChannel();
+    if (newZeroFrom < channel.size()) {
+      super.setLength(newZeroFrom);
+    }
+    ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+    for (Map.Entry<Long, Long> entry : pages.entrySet()) {
+      long pageStart = entry.getKey() * PAGE_SIZE;
+      if (pageStart < newLength) {
+        page.clear();
+        readFully(journal.getChannel(), entry.getValue(), page);
+        page.flip().limit((int) Math.min(PAGE_SIZE, newLength - pageStart));
+        while (page.hasRemaining()) {
+          channel.write(page, pageStart + page.position());
+        }
+      }
+    }
+    super.setLength(newLength);
+    channel.force(true);
+    journal.setLength(0);
+    journal.getChannel().force(true);
+  }
+
+  private static void readFully(FileChannel channel, long pos, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      int count = channel.read(buffer, pos);
+      if (count == -1) {
+        throw new EOFException();
+      }
+      pos += count;
+    }
+  }
+
+  /**
+   * Commits all changes, including those made directly since the last operation.
+   */
+  public void commit() throws IOException {
+    if (writeCommitRecord()) {
+      apply(journaled, length, zeroFrom);
+      journaled.clear();
+      journalLength = 0;
+      physicalLength = length;
+      zeroFrom = Long.MAX_VALUE;
+      cleanPageIndex = -1;
+    }
+  }
+
+  /**
+   * Makes all changes durable in the journal, without yet applying them to the file.
+   * Separate from {@link #commit()} so a crash between the two may be tested.
+   *
+   * @return  {@code false} when there is nothing to commit
+   */
+  boolean writeCommitRecord() throws IOException {
+    pendingOperations = 0;
+    if (dirty.isEmpty() && journalLength == 0 && length == physicalLength && zeroFrom == Long.MAX_VALUE) {
+      return false;
+    }
+    checkWritable();
+    spill();
+    byte[] commit = new byte[4 + 8 + 8 + 8];
+    IoUtils.intToBuffer(COMMIT_RECORD, commit, 0);
+    IoUtils.longToBuffer(length, commit, 4);
+    IoUtils.longToBuffer(zeroFrom, commit, 12);
+    appendRecord(commit, 0, 20);
+    IoUtils.longToBuffer(journalCrc.getValue(), commit, 20);
+    journal.seek(journalLength);
+    journal.write(commit, 20, 8);
+    journal.getChannel().force(true);
+    return true;
+  }
+
+  /**
+   * Counts a completed operation, committing when the policy is due.
+   */
+  private void operationCompleted() throws IOException {
+    if (pendingOperations++ == 0) {
+      pendingSince = System.nanoTime();
+    }
+    if (policy.isDue(pendingOperations, pendingSince)) {
+      commit();
+    }
+  }
+
+  private void checkWritable() throws IOException {
+    if (journal == null) {
+      throw new IOException("File is read-only");
+    }
+  }
+
+  // </editor-fold>
+
+  // <editor-fold defaultstate="collapsed" desc="Pages">
+
+  /**
+   * Reads the current contents of a page into the given buffer, unless the page is
+   * changed in memory, in which case the changed page is returned directly.
+   * Only uses positional reads, so is safe for concurrent use.
+   */
+  private byte[] readPage(long pageIndex, byte[] dest) throws IOException {
+    byte[] page = dirty.get(pageIndex);
+    if (page != null) {
+      return page;
+    }
+    Long offset = journaled.get(pageIndex);
+    if (offset != null) {
+      readFully(journal.getChannel(), offset, ByteBuffer.wrap(dest));
+      return dest;
+    }
+    long pageStart = pageIndex * PAGE_SIZE;
+    int valid = (int) Math.max(0, Math.min(PAGE_SIZE, Math.min(physicalLength, zeroFrom) - pageStart));
+    readFully(getChannel(), pageStart, ByteBuffer.wrap(dest, 0, valid));
+    Arrays.fill(dest, valid, PAGE_SIZE, (byte) 0);
+    return dest;
+  }
+
+  private byte[] getPage(long pageIndex) throws IOException {
+    if (cleanPageIndex == pageIndex) {
+      return cleanPage;
+    }
+    byte[] page = readPage(pageIndex, cleanPage);
+    cleanPageIndex = page == cleanPage ? pageIndex : -1;
+    return page;
+  }
+
+  private byte[] getDirtyPage(long pageIndex) throws IOException {
+    byte[] page = dirty.get(pageIndex);
+    if (page == null) {
+      page = new byte[PAGE_SIZE];
+      if (cleanPageIndex == pageIndex) {
+        System.arraycopy(cleanPage, 0, page, 0, PAGE_SIZE);
+        cleanPageIndex = -1;
+      } else {
+        byte[] current = readPage(pageIndex, page);
+        assert current == page;
+      }
+      dirty.put(pageIndex, page);
+    }
+    return page;
+  }
+
+  private void spillIfNeeded() throws IOException {
+    if ((long) dirty.size() * PAGE_SIZE >= SPILL_SIZE) {
+      spill();
+    }
+  }
+
+  // </editor-fold>
+
+  // <editor-fold defaultstate="collapsed" desc="Operations">
+
+  @Override
+  public void addRecords(int index, int numRecords) throws IndexOutOfBoundsException, IOException {
+    super.addRecords(index, numRecords);
+    operationCompleted();
+  }
+
+  @Override
+  public void removeRecord(int index) throws IOException {
+    super.removeRecord(index);
+    operationCompleted();
+  }
+
+  @Override
+  public void removeAllRecords() throws IOException {
+    super.removeAllRecords();
+    operationCompleted();
+  }
+
+  @Override
+  public void swap(int index1, int index2) throws IOException {
+    super.swap(index1, index2);
+    operationCompleted();
+  }
+
+  @Override
+  public void writeRecords(int index, byte[] buff, int off, int numRecords) throws IndexOutOfBoundsException, IOException {
+    super.writeRecords(index, buff, off, numRecords);
+    operationCompleted();
+  }
+
+  /**
+   * The indexed layout is not supported, since its in-memory index would not survive a crash.
+   *
+   * @throws  IOException  when {@code indexed} is {@code true}, leaving the file unchanged
+   */
+  @Override
+  public void setIndexed(boolean indexed) throws IOException {
+    if (indexed) {
+      throw new IOException("Indexed layout not supported, since the index would not survive a crash");
+    }
+    super.setIndexed(false);
+  }
+
+  // </editor-fold>
+
+  // <editor-fold defaultstate="collapsed" desc="RandomAccessFile">
+
+  /**
+   * Reads the current contents, including uncommitted changes, using only positional reads.
+   */
+  @Override
+  protected void readAt(long pos, ByteBuffer buffer) throws IOException {
+    if (pos < 0 || pos + buffer.remaining() > length) {
+      throw new EOFException();
+    }
+    byte[] temp = new byte[PAGE_SIZE];
+    while (buffer.hasRemaining()) {
+      byte[] page = readPage(pos / PAGE_SIZE, temp);
+      int pageOff = (int) (pos % PAGE_SIZE);
+      int count = Math.min(buffer.remaining(), PAGE_SIZE - pageOff);
+      buffer.put(page, pageOff, count);
+      pos += count;
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (position >= length) {
+      return -1;
+    }
+    int b = getPage(position / PAGE_SIZE)[(int) (position % PAGE_SIZE)] & 0xff;
+    position++;
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (position >= length) {
+      return -1;
+    }
+    int total = (int) Math.min(len, length - position);
+    int remaining = total;
+    while (remaining > 0) {
+      byte[] page = getPage(position / PAGE_SIZE);
+      int pageOff = (int) (position % PAGE_SIZE);
+      int count = Math.min(remaining, PAGE_SIZE - pageOff);
+      System.arraycopy(page, pageOff, b, off, count);
+      position += count;
+      off += count;
+      remaining -= count;
+    }
+    return total;
+  }
+
+  @Override
+  public int read(byte[] b) throws IOException {
+    return read(b, 0, b.length);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    checkWritable();
+    getDirtyPage(position / PAGE_SIZE)[(int) (position % PAGE_SIZE)] = (byte) b;
+    position++;
+    if (position > length) {
+      length = position;
+    }
+    spillIfNeeded();
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    checkWritable();
+    while (len > 0) {
+      byte[] page = getDirtyPage(position / PAGE_SIZE);
+      int pageOff = (int) (position % PAGE_SIZE);
+      int count = Math.min(len, PAGE_SIZE - pageOff);
+      System.arraycopy(b, off, page, pageOff, count);
+      position += count;
+      off += count;
+      len -= count;
+    }
+    if (position > length) {
+      length = position;
+    }
+    spillIfNeeded();
+  }
+
+  @Override
+  public void write(byte[] b) throws IOException {
+    write(b, 0, b.length);
+  }
+
+  @Override
+  public void seek(long pos) throws IOException {
+    if (pos < 0) {
+      throw new IOException("Negative seek offset");
+    }
+    position = pos;
+  }
+
+  @Override
+  public long getFilePointer() {
+    return position;
+  }
+
+  @Override
+  public long length() {
+    return length;
+  }
+
+  @Override
+  public void setLength(long newLength) throws IOException {
+    if (newLength < 0) {
+      throw new IOException("Negative length: " + newLength);
+    }
+    checkWritable();
+    if (newLength < length) {
+      // Everything beyond the new length must read as zero should the file be grown again
+      if (newLength < zeroFrom) {
+        zeroFrom = newLength;
+      }
+      long firstDropped = firstPageFrom(newLength);
+      dirty.tailMap(firstDropped).clear();
+      if (!journaled.tailMap(firstDropped).isEmpty()) {
+        journaled.tailMap(firstDropped).clear();
+        byte[] truncate = new byte[4 + 8];
+        IoUtils.intToBuffer(TRUNCATE_RECORD, truncate, 0);
+        IoUtils.longToBuffer(newLength, truncate, 4);
+        appendRecord(truncate, 0, truncate.length);
+      }
+      int pageOff = (int) (newLength % PAGE_SIZE);
+      if (pageOff != 0) {
+        long pageIndex = newLength / PAGE_SIZE;
+        if (dirty.containsKey(pageIndex) || journaled.containsKey(pageIndex)) {
+          byte[] page = getDirtyPage(pageIndex);
+          Arrays.fill(page, pageOff, PAGE_SIZE, (byte) 0);
+        }
+      }
+      cleanPageIndex = -1;
+    }
+    length = newLength;
+    if (position > newLength) {
+      position = newLength;
+    }
+  }
+
+  /**
+   * Closes the file and journal without committing or removing the journal, as if the process had crashed.
+   */
+  void abandon() throws IOException {
+    try {
+      if (journal != null) {
+        journal.close();
+      }
+    } finally {
+      super.close();
+    }
+  }
+
+  /**
+   * Commits any changes then closes the file, removing its journal.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (journal != null && getChannel().isOpen()) {
+        try {
+          commit();
+        } finally {
+          journal.close();
+        }
+        if (!journalFile.delete() && journalFile.exists()) {
+          throw new IOException("Unable to delete journal: " + journalFile);
+        }
+      }
+    } finally {
+      super.close();
+    }
+  }
+
+  // </editor-fold>
+}
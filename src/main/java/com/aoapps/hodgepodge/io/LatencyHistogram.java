@@ -0,0 +1,166 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+/**
+ * Records latencies in nanoseconds into log-linear buckets, with each power of two split into
+ * {@link #SUB_BUCKETS} buckets.  Percentiles are accurate to within about three percent, in constant space,
+ * for any latency.
+ *
+ * <p>This class is not thread-safe.  Each thread should record into its own histogram, and the
+ * histograms {@link #add(com.aoapps.hodgepodge.io.LatencyHistogram) added} together once complete.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+
+  /**
+   * The number of buckets per power of two.
+   */
+  public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * Enough buckets for every non-negative long.
+   */
+  private static final int NUM_BUCKETS = getIndex(Long.MAX_VALUE) + 1;
+
+  private static int getIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+    return (SUB_BUCKETS * shift) + (int) (value >>> shift);
+  }
+
+  /**
+   * Gets the largest value that is recorded into the given bucket.
+   */
+  private static long getHighestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long top = index - (long) SUB_BUCKETS * shift;
+    return ((top + 1) << shift) - 1;
+  }
+
+  private final long[] counts = new long[NUM_BUCKETS];
+  private long count;
+  private long sum;
+  private long min = Long.MAX_VALUE;
+  private long max = Long.MIN_VALUE;
+
+  /**
+   * Records one latency.
+   *
+   * @param  nanos  the latency, negative values being recorded as zero
+   */
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    counts[getIndex(nanos)]++;
+    count++;
+    sum += nanos;
+    if (nanos < min) {
+      min = nanos;
+    }
+    if (nanos > max) {
+      max = nanos;
+    }
+  }
+
+  /**
+   * Adds all the latencies recorded by another histogram to this one.
+   */
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      counts[i] += other.counts[i];
+    }
+    count += other.count;
+    sum += other.sum;
+    if (other.min < min) {
+      min = other.min;
+    }
+    if (other.max > max) {
+      max = other.max;
+    }
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Gets the smallest latency, or zero when empty.
+   */
+  public long getMin() {
+    return count == 0 ? 0 : min;
+  }
+
+  /**
+   * Gets the largest latency, or zero when empty.
+   */
+  public long getMax() {
+    return count == 0 ? 0 : max;
+  }
+
+  /**
+   * Gets the mean latency, or zero when empty.
+   */
+  public double getMean() {
+    return count == 0 ? 0 : ((double) sum / count);
+  }
+
+  /**
+   * Gets the latency at the given percentile, which is the highest latency that could have been recorded into the
+   * same bucket, but never beyond the actual range of latencies.  The zeroth percentile is the smallest latency.
+   *
+   * @param  percentile  the percentile, from zero to one hundred
+   *
+   * @return  the latency or zero when empty
+   */
+  public long getPercentile(double percentile) {
+    if (!(percentile >= 0 && percentile <= 100)) {
+      throw new IllegalArgumentException("percentile out of range: " + percentile);
+    }
+    if (count == 0) {
+      return 0;
+    }
+    if (percentile == 0) {
+      return min;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.max(min, Math.min(max, getHighestValue(i)));
+      }
+    }
+    return max;
+  }
+}
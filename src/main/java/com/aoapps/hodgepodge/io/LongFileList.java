@@ -0,0 +1,281 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import com.aoapps.collections.LongList;
+import com.aoapps.lang.io.IoUtils;
+import java.io.IOException;
+
+/**
+ * A disk-backed list of <code>long</code> values, stored as big-endian
+ * 8-byte records in a temporary {@link FixedRecordFile}.  Values are accessed through a block cache,
+ * and the bulk methods move many values per I/O.
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class LongFileList extends RecordFileList<Long> implements LongList {
+
+  public LongFileList(String filenamePrefix, String filenameExtension) throws IOException {
+    this(filenamePrefix, filenameExtension, FileList.DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * @param  cacheSize  The maximum number of bytes of records to cache in memory.  At least one block is always cached.
+   */
+  public LongFileList(String filenamePrefix, String filenameExtension, long cacheSize) throws IOException {
+    super(filenamePrefix, filenameExtension, Long.BYTES, cacheSize);
+  }
+
+  @Override
+  public long getLong(int index) {
+    try {
+      RecordBlockCache.Block block = cache.getBlock(index);
+      return IoUtils.bufferToLong(block.getData(), cache.getOffset(index));
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  @Override
+  public Long get(int index) {
+    return getLong(index);
+  }
+
+  @Override
+  public long set(int index, long element) {
+    try {
+      RecordBlockCache.Block block = cache.getBlock(index);
+      long old = IoUtils.bufferToLong(block.getData(), cache.getOffset(index));
+      IoUtils.longToBuffer(element, recordBuffer);
+      cache.write(index, recordBuffer, Long.BYTES);
+      return old;
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  @Override
+  public Long set(int index, Long element) {
+    return set(index, element.longValue());
+  }
+
+  @Override
+  public void add(int index, long element) {
+    try {
+      IoUtils.longToBuffer(element, recordBuffer);
+      insertRecords(index, recordBuffer, 0, 1);
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  @Override
+  public boolean add(long e) {
+    add(size(), e);
+    return true;
+  }
+
+  @Override
+  public void add(int index, Long element) {
+    add(index, element.longValue());
+  }
+
+  @Override
+  public boolean add(Long e) {
+    return add(e.longValue());
+  }
+
+  @Override
+  public long removeAtIndex(int index) {
+    try {
+      long old = getLong(index);
+      removeRecord(index);
+      return old;
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  @Override
+  public Long remove(int index) {
+    return removeAtIndex(index);
+  }
+
+  @Override
+  public boolean removeByValue(long value) {
+    int index = indexOf(value);
+    if (index == -1) {
+      return false;
+    }
+    removeAtIndex(index);
+    return true;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    return (o instanceof Long) && removeByValue(((Long) o).longValue());
+  }
+
+  @Override
+  public int indexOf(long value) {
+    try {
+      byte[] batch = getBatchBuffer();
+      int batchRecords = getBatchRecords();
+      int size = size();
+      for (int start = 0; start < size; start += batchRecords) {
+        int count = Math.min(batchRecords, size - start);
+        readRecords(start, batch, 0, count);
+        for (int i = 0; i < count; i++) {
+          if (IoUtils.bufferToLong(batch, i * Long.BYTES) == value) {
+            return start + i;
+          }
+        }
+      }
+      return -1;
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    return (o instanceof Long) ? indexOf(((Long) o).longValue()) : -1;
+  }
+
+  @Override
+  public int lastIndexOf(long value) {
+    try {
+      byte[] batch = getBatchBuffer();
+      int batchRecords = getBatchRecords();
+      int end = size();
+      while (end > 0) {
+        int count = Math.min(batchRecords, end);
+        int start = end - count;
+        readRecords(start, batch, 0, count);
+        for (int i = count - 1; i >= 0; i--) {
+          if (IoUtils.bufferToLong(batch, i * Long.BYTES) == value) {
+            return start + i;
+          }
+        }
+        end = start;
+      }
+      return -1;
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  @Override
+  public int lastIndexOf(Object o) {
+    return (o instanceof Long) ? lastIndexOf(((Long) o).longValue()) : -1;
+  }
+
+  @Override
+  public boolean contains(long value) {
+    return indexOf(value) != -1;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return indexOf(o) != -1;
+  }
+
+  @Override
+  public long[] toArrayLong() {
+    long[] array = new long[size()];
+    getLongs(0, array, 0, array.length);
+    return array;
+  }
+
+  /**
+   * Reads a range of values into an array, with many values per I/O.
+   */
+  public void getLongs(int from, long[] dest, int off, int len) throws IndexOutOfBoundsException {
+    checkRange(from, len, off, dest.length);
+    checkRecords(from, len);
+    try {
+      byte[] batch = getBatchBuffer();
+      int batchRecords = getBatchRecords();
+      for (int done = 0; done < len; done += batchRecords) {
+        int count = Math.min(batchRecords, len - done);
+        readRecords(from + done, batch, 0, count);
+        for (int i = 0; i < count; i++) {
+          dest[off + done + i] = IoUtils.bufferToLong(batch, i * Long.BYTES);
+        }
+      }
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  /**
+   * Writes a range of existing values from an array, with many values per I/O.
+   */
+  public void setLongs(int from, long[] src, int off, int len) throws IndexOutOfBoundsException {
+    checkRange(from, len, off, src.length);
+    checkRecords(from, len);
+    try {
+      byte[] batch = getBatchBuffer();
+      int batchRecords = getBatchRecords();
+      for (int done = 0; done < len; done += batchRecords) {
+        int count = Math.min(batchRecords, len - done);
+        for (int i = 0; i < count; i++) {
+          IoUtils.longToBuffer(src[off + done + i], batch, i * Long.BYTES);
+        }
+        writeRecords(from + done, batch, 0, count);
+      }
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  /**
+   * Inserts values from an array, with many values per I/O.
+   */
+  public void addLongs(int index, long[] src, int off, int len) throws IndexOutOfBoundsException {
+    checkRange(index, len, off, src.length);
+    checkInsert(index);
+    try {
+      if (len > 0) {
+        // Allocate all at once, so the following records are only shifted once
+        cache.invalidateFrom(index);
+        frf.addRecords(index, len);
+        modCount++;
+        byte[] batch = getBatchBuffer();
+        int batchRecords = getBatchRecords();
+        for (int done = 0; done < len; done += batchRecords) {
+          int count = Math.min(batchRecords, len - done);
+          for (int i = 0; i < count; i++) {
+            IoUtils.longToBuffer(src[off + done + i], batch, i * Long.BYTES);
+          }
+          frf.writeRecords(index + done, batch, 0, count);
+        }
+      }
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+}
@@ -0,0 +1,514 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A memory-mapped, single-producer/single-consumer ring buffer persisted in a file.
+ * Unlike {@link FifoFile}, which performs several system calls and takes a shared lock for
+ * every read or write, reads and writes here are memory copies that coordinate only through
+ * a read cursor and a write cursor in the mapped header.  Each cursor is written by only one
+ * side, with release ordering after the data it covers, so no lock is needed.
+ *
+ * <p>At most one thread may be writing and at most one thread may be reading at any time,
+ * which may be different processes mapping the same file.  Reads and writes transfer as many
+ * bytes as are contiguous in the ring per cursor update.  A side that must wait spins briefly
+ * then parks, being unparked by the other side within the same JVM, and polling otherwise.</p>
+ *
+ * <p>The file consists of a header followed by the ring.  The cursors count the total bytes
+ * read and written, so the contents survive reopening.  They are only durable once
+ * {@link #flush() flushed} or {@link #force() forced}.  The format is not compatible with
+ * {@link FifoFile}.  The capacity is limited to a single mapping, slightly less than 2 GiB.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class MappedFifoFile implements Closeable {
+
+  private static final long MAGIC = 0x4d46494630303031L;
+
+  private static final int MAGIC_POS = 0;
+  private static final int CAPACITY_POS = 8;
+
+  /**
+   * The cursors are on separate cache lines, so the two sides do not contend.
+   */
+  private static final int READ_CURSOR_POS = 64;
+  private static final int WRITE_CURSOR_POS = 128;
+
+  private static final int HEADER_SIZE = 192;
+
+  /**
+   * The maximum capacity of the ring.
+   */
+  public static final int MAX_CAPACITY = Integer.MAX_VALUE - HEADER_SIZE;
+
+  private static final VarHandle CURSOR = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  private static final int SPIN_LIMIT = 100;
+
+  /**
+   * The maximum time parked before checking again, which bounds the latency when the other
+   * side is in another process and cannot unpark this side.
+   */
+  private static final long PARK_NANOS = 1000000;
+
+  private final RandomAccessFile raf;
+  private final MappedByteBuffer buffer;
+  private final int capacity;
+  private final GroupCommitPolicy flushPolicy;
+
+  /**
+   * The views of the ring used by each side, so positioning by one side does not affect the other.
+   */
+  private final ByteBuffer readView;
+  private final ByteBuffer writeView;
+
+  /**
+   * The most recently seen write cursor, only accessed by the reading side.
+   */
+  private long cachedWriteCursor;
+
+  /**
+   * The most recently seen read cursor, only accessed by the writing side.
+   */
+  private long cachedReadCursor;
+
+  private volatile Thread parkedReader;
+  private volatile Thread parkedWriter;
+  private volatile boolean closed;
+
+  private final Object flushLock = new Object();
+
+  /**
+   * Forces pending flushes once the maximum delay has passed, or {@code null} when unlimited.
+   */
+  private final GroupCommitTimer flushTimer;
+
+  private int pendingFlushes;
+  private long pendingFlushesSince;
+
+  private final InputStream in = new InputStream() {
+    @Override
+    public int read() throws IOException {
+      return MappedFifoFile.this.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return MappedFifoFile.this.read(b, off, len);
+    }
+
+    @Override
+    public int available() {
+      return MappedFifoFile.this.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+      MappedFifoFile.this.close();
+    }
+  };
+
+  private final OutputStream out = new OutputStream() {
+    @Override
+    public void write(int b) throws IOException {
+      MappedFifoFile.this.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      MappedFifoFile.this.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      MappedFifoFile.this.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      MappedFifoFile.this.close();
+    }
+  };
+
+  public MappedFifoFile(File file, int capacity) throws IOException {
+    this(file, capacity, GroupCommitPolicy.EVERY_OPERATION);
+  }
+
+  /**
+   * Opens the ring, keeping its contents when the file already has the same capacity,
+   * otherwise starting empty.
+   *
+   * @param  flushPolicy  determines how many calls to {@link #flush()} are grouped into each
+   *                      force to the storage device.  When the policy has a maximum delay, a
+   *                      background thread forces any calls pending that long.
+   */
+  public MappedFifoFile(File file, int capacity, GroupCommitPolicy flushPolicy) throws IOException {
+    if (capacity < 1 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException("capacity out of range 1 to " + MAX_CAPACITY + ": " + capacity);
+    }
+    this.capacity = capacity;
+    this.flushPolicy = flushPolicy;
+    raf = new RandomAccessFile(file, "rw");
+    try {
+      long fileLength = (long) HEADER_SIZE + capacity;
+      boolean existing = raf.length() == fileLength;
+      buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileLength);
+      if (
+          !existing
+              || buffer.getLong(MAGIC_POS) != MAGIC
+              || buffer.getLong(CAPACITY_POS) != capacity
+              || getReadCursor() > getWriteCursor()
+              || getWriteCursor() - getReadCursor() > capacity
+      ) {
+        buffer.putLong(CAPACITY_POS, capacity);
+        CURSOR.setVolatile(buffer, READ_CURSOR_POS, 0L);
+        CURSOR.setVolatile(buffer, WRITE_CURSOR_POS, 0L);
+        buffer.putLong(MAGIC_POS, MAGIC);
+        buffer.force();
+      }
+      cachedReadCursor = getReadCursor();
+      cachedWriteCursor = getWriteCursor();
+      ByteBuffer ring = buffer.duplicate();
+      ring.position(HEADER_SIZE);
+      ring = ring.slice();
+      readView = ring.duplicate();
+      writeView = ring.duplicate();
+    } catch (IOException | RuntimeException e) {
+      try {
+        raf.close();
+      } catch (IOException e2) {
+        e.addSuppressed(e2);
+      }
+      throw e;
+    }
+    flushTimer = GroupCommitTimer.start(flushPolicy, "MappedFifoFile - Flush Timer", this::flushIfDue);
+  }
+
+  private long getReadCursor() {
+    return (long) CURSOR.getAcquire(buffer, READ_CURSOR_POS);
+  }
+
+  private long getWriteCursor() {
+    return (long) CURSOR.getAcquire(buffer, WRITE_CURSOR_POS);
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public GroupCommitPolicy getFlushPolicy() {
+    return flushPolicy;
+  }
+
+  public InputStream getInputStream() {
+    return in;
+  }
+
+  public OutputStream getOutputStream() {
+    return out;
+  }
+
+  /**
+   * Gets the number of bytes currently contained by the ring.
+   */
+  public long getLength() {
+    long readCursor = getReadCursor();
+    return getWriteCursor() - readCursor;
+  }
+
+  /**
+   * Determines the number of bytes that may be read without blocking.  Must only be called by the reading side.
+   */
+  public int available() {
+    return (int) (getWriteCursor() - (long) CURSOR.get(buffer, READ_CURSOR_POS));
+  }
+
+  private void checkState() throws IOException {
+    if (closed) {
+      throw new IOException("Closed");
+    }
+    if (Thread.interrupted()) {
+      // Restore the interrupted status
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+  }
+
+  /**
+   * Waits until data is available to read.
+   *
+   * @return  the write cursor
+   */
+  private long awaitReadable(long readCursor) throws IOException {
+    for (int spins = 0; ; spins++) {
+      checkState();
+      long writeCursor = getWriteCursor();
+      if (writeCursor != readCursor) {
+        return writeCursor;
+      }
+      if (spins < SPIN_LIMIT) {
+        Thread.onSpinWait();
+      } else {
+        parkedReader = Thread.currentThread();
+        try {
+          // Volatile read pairs with the volatile cursor write and parked thread read by the writer
+          writeCursor = (long) CURSOR.getVolatile(buffer, WRITE_CURSOR_POS);
+          if (writeCursor != readCursor) {
+            return writeCursor;
+          }
+          LockSupport.parkNanos(this, PARK_NANOS);
+        } finally {
+          parkedReader = null;
+        }
+      }
+    }
+  }
+
+  /**
+   * Waits until space is available to write.
+   *
+   * @return  the read cursor
+   */
+  private long awaitWritable(long writeCursor) throws IOException {
+    for (int spins = 0; ; spins++) {
+      checkState();
+      long readCursor = getReadCursor();
+      if (writeCursor - readCursor < capacity) {
+        return readCursor;
+      }
+      if (spins < SPIN_LIMIT) {
+        Thread.onSpinWait();
+      } else {
+        parkedWriter = Thread.currentThread();
+        try {
+          readCursor = (long) CURSOR.getVolatile(buffer, READ_CURSOR_POS);
+          if (writeCursor - readCursor < capacity) {
+            return readCursor;
+          }
+          LockSupport.parkNanos(this, PARK_NANOS);
+        } finally {
+          parkedWriter = null;
+        }
+      }
+    }
+  }
+
+  private void publishReadCursor(long readCursor) {
+    CURSOR.setVolatile(buffer, READ_CURSOR_POS, readCursor);
+    Thread writer = parkedWriter;
+    if (writer != null) {
+      LockSupport.unpark(writer);
+    }
+  }
+
+  private void publishWriteCursor(long writeCursor) {
+    CURSOR.setVolatile(buffer, WRITE_CURSOR_POS, writeCursor);
+    Thread reader = parkedReader;
+    if (reader != null) {
+      LockSupport.unpark(reader);
+    }
+  }
+
+  /**
+   * Reads one byte, blocking until available.
+   */
+  public int read() throws IOException {
+    long readCursor = (long) CURSOR.get(buffer, READ_CURSOR_POS);
+    if (readCursor == cachedWriteCursor) {
+      cachedWriteCursor = awaitReadable(readCursor);
+    } else if (closed) {
+      throw new IOException("Closed");
+    }
+    int b = readView.get((int) (readCursor % capacity)) & 0xff;
+    publishReadCursor(readCursor + 1);
+    return b;
+  }
+
+  /**
+   * Reads all the bytes currently available, up to the given length, blocking until at least one is available.
+   * Copies across the end of the ring with a single update of the read cursor.
+   */
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    long readCursor = (long) CURSOR.get(buffer, READ_CURSOR_POS);
+    if (readCursor == cachedWriteCursor) {
+      cachedWriteCursor = awaitReadable(readCursor);
+    } else if (closed) {
+      throw new IOException("Closed");
+    }
+    int count = (int) Math.min(len, cachedWriteCursor - readCursor);
+    int index = (int) (readCursor % capacity);
+    int first = Math.min(count, capacity - index);
+    readView.position(index);
+    readView.get(b, off, first);
+    if (first < count) {
+      readView.position(0);
+      readView.get(b, off + first, count - first);
+    }
+    publishReadCursor(readCursor + count);
+    return count;
+  }
+
+  /**
+   * Writes one byte, blocking until space is available.
+   */
+  public void write(int b) throws IOException {
+    long writeCursor = (long) CURSOR.get(buffer, WRITE_CURSOR_POS);
+    if (writeCursor - cachedReadCursor >= capacity) {
+      cachedReadCursor = awaitWritable(writeCursor);
+    } else if (closed) {
+      throw new IOException("Closed");
+    }
+    writeView.put((int) (writeCursor % capacity), (byte) b);
+    publishWriteCursor(writeCursor + 1);
+  }
+
+  /**
+   * Writes all the bytes, blocking as needed for space.  Each update of the write cursor covers
+   * as many bytes as there is space for, copying across the end of the ring.
+   */
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    long writeCursor = (long) CURSOR.get(buffer, WRITE_CURSOR_POS);
+    while (len > 0) {
+      if (writeCursor - cachedReadCursor >= capacity) {
+        cachedReadCursor = awaitWritable(writeCursor);
+      } else if (closed) {
+        throw new IOException("Closed");
+      }
+      int count = (int) Math.min(len, capacity - (writeCursor - cachedReadCursor));
+      int index = (int) (writeCursor % capacity);
+      int first = Math.min(count, capacity - index);
+      writeView.position(index);
+      writeView.put(b, off, first);
+      if (first < count) {
+        writeView.position(0);
+        writeView.put(b, off + first, count - first);
+      }
+      writeCursor += count;
+      publishWriteCursor(writeCursor);
+      off += count;
+      len -= count;
+    }
+  }
+
+  /**
+   * Forces the contents and cursors to the storage device, grouped according to the
+   * {@link #getFlushPolicy() flush policy}.  With the default policy every call forces the device.
+   *
+   * @see  #force()
+   */
+  public void flush() throws IOException {
+    synchronized (flushLock) {
+      if (pendingFlushes++ == 0) {
+        pendingFlushesSince = System.nanoTime();
+        if (flushTimer != null) {
+          flushTimer.schedule(pendingFlushesSince);
+        }
+      }
+      if (flushPolicy.isDue(pendingFlushes, pendingFlushesSince)) {
+        force();
+      }
+    }
+  }
+
+  /**
+   * Forces the flushes pending for the maximum delay of the flush policy, called by {@link #flushTimer}.
+   */
+  private void flushIfDue() throws IOException {
+    synchronized (flushLock) {
+      if (!closed && flushPolicy.isDue(pendingFlushes, pendingFlushesSince)) {
+        force();
+      }
+    }
+  }
+
+  /**
+   * Forces the contents and cursors to the storage device, regardless of the flush policy.
+   *
+   * @see  MappedByteBuffer#force()
+   */
+  public void force() throws IOException {
+    synchronized (flushLock) {
+      if (closed) {
+        throw new IOException("Closed");
+      }
+      buffer.force();
+      pendingFlushes = 0;
+    }
+  }
+
+  /**
+   * Forces any flushes still pending under the flush policy then closes the file,
+   * waking any blocked reader or writer.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (flushLock) {
+      if (!closed) {
+        try {
+          if (pendingFlushes > 0) {
+            buffer.force();
+          }
+        } finally {
+          closed = true;
+          if (flushTimer != null) {
+            flushTimer.close();
+          }
+          Thread reader = parkedReader;
+          if (reader != null) {
+            LockSupport.unpark(reader);
+          }
+          Thread writer = parkedWriter;
+          if (writer != null) {
+            LockSupport.unpark(writer);
+          }
+          raf.close();
+        }
+      }
+    }
+  }
+}
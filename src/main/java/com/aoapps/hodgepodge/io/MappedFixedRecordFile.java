@@ -0,0 +1,426 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import com.aoapps.lang.util.BufferManager;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link FixedRecordFile} that performs all reads and writes against memory-mapped
+ * windows of the file instead of through system calls.  The mapping grows in chunks
+ * as records are added.
+ *
+ * <p>All {@link java.io.RandomAccessFile} positioning and read/write methods are
+ * supported, so this may be used anywhere a {@link FixedRecordFile} is expected,
+ * including as the storage of a {@link FileList}.  The underlying {@link #getChannel() channel}
+ * and {@link #getFD() file descriptor}, however, do not reflect the position or length
+ * of this file.</p>
+ *
+ * <p>The records follow a small header that holds the length of the file, which is
+ * updated through the mapping as the file grows or shrinks.  A file not properly closed
+ * is therefore reopened with its correct length, and files of this class may only be
+ * read by this class.  The file on disk is extended in whole chunks and is not truncated
+ * while mapped; any excess is trimmed the next time it is opened for writing.</p>
+ *
+ * <p>Like {@link java.io.RandomAccessFile}, this class is not thread safe.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class MappedFixedRecordFile extends FixedRecordFile {
+
+  /**
+   * The default number of bytes mapped per chunk.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 1 << 26;
+
+  private static final int MAGIC = 0x4d465231;
+
+  /**
+   * The header is the magic number, record length, and logical length.
+   */
+  private static final int HEADER_SIZE = 16;
+
+  private static final int LENGTH_OFFSET = 8;
+
+  private final FileChannel.MapMode mapMode;
+  private final int chunkSize;
+  private final int chunkShift;
+  private final long chunkMask;
+  private final List<MappedByteBuffer> chunks = new ArrayList<>();
+
+  /**
+   * The mapped header or {@code null} when an empty file is opened read-only.
+   */
+  private MappedByteBuffer header;
+
+  /**
+   * The logical length of the file.
+   */
+  private long length;
+
+  /**
+   * The highest logical length since opened, used to zero-fill when the file is grown after being shrunk.
+   */
+  private long highWater;
+
+  private long position;
+
+  public MappedFixedRecordFile(
+      String name,
+      String mode,
+      int recordLength
+  ) throws FileNotFoundException, IOException {
+    this(new File(name), mode, recordLength, DEFAULT_CHUNK_SIZE);
+  }
+
+  public MappedFixedRecordFile(
+      File file,
+      String mode,
+      int recordLength
+  ) throws FileNotFoundException, IOException {
+    this(file, mode, recordLength, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * @param  chunkSize  the number of bytes per mapped chunk, must be a power of two
+   */
+  public MappedFixedRecordFile(
+      File file,
+      String mode,
+      int recordLength,
+      int chunkSize
+  ) throws FileNotFoundException, IOException {
+    super(file, mode, recordLength);
+    if (chunkSize <= 0 || Integer.bitCount(chunkSize) != 1) {
+      super.close();
+      throw new IllegalArgumentException("chunkSize is not a positive power of two: " + chunkSize);
+    }
+    this.mapMode = "r".equals(mode) ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+    this.chunkSize = chunkSize;
+    this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+    this.chunkMask = chunkSize - 1L;
+    try {
+      readHeader();
+      ensureMapped(length);
+    } catch (IOException | RuntimeException e) {
+      try {
+        super.close();
+      } catch (IOException e2) {
+        e.addSuppressed(e2);
+      }
+      throw e;
+    }
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Reads the header, creating it for a new file.  Any chunk padding beyond the
+   * logical length is trimmed before anything else is mapped.
+   */
+  private void readHeader() throws IOException {
+    FileChannel channel = getChannel();
+    long size = channel.size();
+    if (size == 0) {
+      if (mapMode == FileChannel.MapMode.READ_ONLY) {
+        // Empty and read-only
+        return;
+      }
+      header = channel.map(mapMode, 0, HEADER_SIZE);
+      header.putInt(0, MAGIC);
+      header.putInt(4, getRecordLength());
+      header.putLong(LENGTH_OFFSET, 0);
+    } else {
+      if (size < HEADER_SIZE) {
+        throw new IOException("File too short for header: " + size);
+      }
+      header = channel.map(mapMode, 0, HEADER_SIZE);
+      if (header.getInt(0) != MAGIC) {
+        throw new IOException("Not a mapped record file");
+      }
+      int headerRecordLength = header.getInt(4);
+      if (headerRecordLength != getRecordLength()) {
+        throw new IOException("Record length mismatch: " + headerRecordLength + " != " + getRecordLength());
+      }
+      length = header.getLong(LENGTH_OFFSET);
+      if (length < 0 || length > size - HEADER_SIZE) {
+        throw new IOException("Invalid length: " + length);
+      }
+      if (mapMode != FileChannel.MapMode.READ_ONLY && size > HEADER_SIZE + length) {
+        // Nothing beyond the header is mapped yet
+        channel.truncate(HEADER_SIZE + length);
+      }
+    }
+    highWater = length;
+  }
+
+  /**
+   * Maps additional chunks until at least the given number of bytes are mapped.
+   * When read-only, the last chunk is limited to the length of the file.
+   */
+  private void ensureMapped(long newLength) throws IOException {
+    FileChannel channel = getChannel();
+    long mapped = (long) chunks.size() << chunkShift;
+    while (mapped < newLength) {
+      long size = chunkSize;
+      if (mapMode == FileChannel.MapMode.READ_ONLY) {
+        size = Math.min(size, length - mapped);
+      }
+      chunks.add(channel.map(mapMode, HEADER_SIZE + mapped, size));
+      mapped += chunkSize;
+    }
+  }
+
+  private MappedByteBuffer chunk(long pos) {
+    MappedByteBuffer chunk = chunks.get((int) (pos >>> chunkShift));
+    chunk.position((int) (pos & chunkMask));
+    return chunk;
+  }
+
+  /**
+   * Copies from the mapped chunks, the range must already be mapped.
+   */
+  private void get(long pos, byte[] b, int off, int len) {
+    while (len > 0) {
+      MappedByteBuffer chunk = chunk(pos);
+      int count = Math.min(len, chunk.remaining());
+      chunk.get(b, off, count);
+      pos += count;
+      off += count;
+      len -= count;
+    }
+  }
+
+  /**
+   * Copies to the mapped chunks, the range must already be mapped.
+   */
+  private void put(long pos, byte[] b, int off, int len) {
+    while (len > 0) {
+      MappedByteBuffer chunk = chunk(pos);
+      int count = Math.min(len, chunk.remaining());
+      chunk.put(b, off, count);
+      pos += count;
+      off += count;
+      len -= count;
+    }
+  }
+
+  /**
+   * Copies from independent views of the mapped chunks, so is safe for concurrent use.
+   */
+  @Override
+  protected void readAt(long pos, ByteBuffer buffer) throws IOException {
+    if (pos < 0 || pos + buffer.remaining() > length) {
+      throw new EOFException();
+    }
+    while (buffer.hasRemaining()) {
+      ByteBuffer view = chunks.get((int) (pos >>> chunkShift)).duplicate();
+      int chunkPos = (int) (pos & chunkMask);
+      int count = Math.min(buffer.remaining(), view.capacity() - chunkPos);
+      view.limit(chunkPos + count).position(chunkPos);
+      buffer.put(view);
+      pos += count;
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (position >= length) {
+      return -1;
+    }
+    int b = chunk(position).get() & 0xff;
+    position++;
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (position >= length) {
+      return -1;
+    }
+    int count = (int) Math.min(len, length - position);
+    get(position, b, off, count);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public int read(byte[] b) throws IOException {
+    return read(b, 0, b.length);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    if (position >= length) {
+      setLength(position + 1);
+    }
+    chunk(position).put((byte) b);
+    position++;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    long end = position + len;
+    if (end > length) {
+      setLength(end);
+    }
+    put(position, b, off, len);
+    position = end;
+  }
+
+  @Override
+  public void write(byte[] b) throws IOException {
+    write(b, 0, b.length);
+  }
+
+  @Override
+  public void seek(long pos) throws IOException {
+    if (pos < 0) {
+      throw new IOException("Negative seek offset");
+    }
+    position = pos;
+  }
+
+  @Override
+  public long getFilePointer() {
+    return position;
+  }
+
+  @Override
+  public long length() {
+    return length;
+  }
+
+  @Override
+  public void setLength(long newLength) throws IOException {
+    if (newLength < 0) {
+      throw new IOException("Negative length: " + newLength);
+    }
+    if (mapMode == FileChannel.MapMode.READ_ONLY) {
+      throw new IOException("File is read-only");
+    }
+    if (newLength > length) {
+      ensureMapped(newLength);
+      // Clear any data left from before being shrunk
+      long zeroEnd = Math.min(newLength, highWater);
+      if (zeroEnd > length) {
+        fill(length, zeroEnd - length);
+      }
+      if (newLength > highWater) {
+        highWater = newLength;
+      }
+    }
+    length = newLength;
+    header.putLong(LENGTH_OFFSET, newLength);
+    if (position > newLength) {
+      position = newLength;
+    }
+  }
+
+  private void fill(long pos, long numBytes) {
+    byte[] zeros = BufferManager.getBytes();
+    try {
+      while (numBytes > 0) {
+        int count = (int) Math.min(numBytes, BufferManager.BUFFER_SIZE);
+        put(pos, zeros, 0, count);
+        pos += count;
+        numBytes -= count;
+      }
+    } finally {
+      BufferManager.release(zeros, false);
+    }
+  }
+
+  /**
+   * Moves directly between the mapped chunks.
+   */
+  @Override
+  protected void moveBytes(long fromIndex, long toIndex, long numBytes) throws IOException {
+    if (numBytes < 0) {
+      throw new IllegalArgumentException("numBytes<0: " + numBytes);
+    }
+    if (numBytes > 0 && fromIndex != toIndex) {
+      if (fromIndex + numBytes > length || toIndex + numBytes > length) {
+        throw new IndexOutOfBoundsException("Move beyond end of file: fromIndex=" + fromIndex + ", toIndex=" + toIndex + ", numBytes=" + numBytes + ", length=" + length);
+      }
+      byte[] buff = BufferManager.getBytes();
+      try {
+        if (fromIndex < toIndex) {
+          // Perform the move backward
+          long remaining = numBytes;
+          while (remaining > 0) {
+            int count = (int) Math.min(remaining, BufferManager.BUFFER_SIZE);
+            remaining -= count;
+            get(fromIndex + remaining, buff, 0, count);
+            put(toIndex + remaining, buff, 0, count);
+          }
+        } else {
+          // Perform the move forward
+          long moved = 0;
+          while (moved < numBytes) {
+            int count = (int) Math.min(numBytes - moved, BufferManager.BUFFER_SIZE);
+            get(fromIndex + moved, buff, 0, count);
+            put(toIndex + moved, buff, 0, count);
+            moved += count;
+          }
+        }
+      } finally {
+        BufferManager.release(buff, false);
+      }
+    }
+  }
+
+  /**
+   * Forces any changes to the mapped chunks, then the length, to be written to the storage device.
+   *
+   * @see  MappedByteBuffer#force()
+   */
+  public void force() {
+    for (MappedByteBuffer chunk : chunks) {
+      chunk.force();
+    }
+    if (header != null) {
+      header.force();
+    }
+  }
+}
@@ -0,0 +1,561 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import com.aoapps.lang.io.IoUtils;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An on-disk FIFO of messages that any number of consumers drain independently.  Each message is
+ * stored with a length prefix in a ring within the file.  Each consumer has its own offset, kept in
+ * the file, so consumers continue where they left off when reopened.  Space is reclaimed once every
+ * consumer has read past it, and producers block while the ring is too full for their messages.
+ *
+ * <p>Like {@link FifoFile}, all access is synchronized on this object, and blocking is by
+ * {@link Object#wait()}.  Batches of messages are written or read with a single acquisition of the
+ * lock and at most two file accesses per contiguous span, with the header updated once per batch.</p>
+ *
+ * <p>Messages and offsets are durable once {@link #flush() flushed}, grouped according to a
+ * {@link GroupCommitPolicy}.  Delivery is at least once: a consumer that read messages since the
+ * last flush will read them again after a crash.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class MessageFifoFile implements Closeable {
+
+  private static final long MAGIC = 0x4d53474649464f31L;
+
+  private static final int MAGIC_POS = 0;
+  private static final int CAPACITY_POS = 8;
+  private static final int NUM_CONSUMERS_POS = 16;
+  private static final int TAIL_POS = 24;
+  private static final int HEAD_POS = 32;
+  private static final int CONSUMERS_POS = 40;
+
+  /**
+   * The number of bytes in the length prefix of each message.
+   */
+  private static final int PREFIX_SIZE = 4;
+
+  /**
+   * The number of bytes written or read at once, unless a single message is larger.
+   */
+  private static final int BATCH_SIZE = 1 << 16;
+
+  private final RandomAccessFile file;
+  private final long capacity;
+  private final int headerSize;
+  private final GroupCommitPolicy flushPolicy;
+
+  /**
+   * Forces pending flushes once the maximum delay has passed, or {@code null} when unlimited.
+   */
+  private final GroupCommitTimer flushTimer;
+
+  /**
+   * The position after the last message written.
+   */
+  private long tail;
+
+  /**
+   * The lowest position still stored, which is the lowest consumer offset.
+   */
+  private long head;
+
+  private final long[] offsets;
+  private final Consumer[] consumers;
+
+  private final byte[] headerBuff;
+
+  private int pendingFlushes;
+  private long pendingFlushesSince;
+
+  private boolean closed;
+
+  public MessageFifoFile(File file, long capacity, int numConsumers) throws IOException {
+    this(file, capacity, numConsumers, GroupCommitPolicy.EVERY_OPERATION);
+  }
+
+  /**
+   * Opens the file, keeping its messages and consumer offsets when it already has the same
+   * capacity and number of consumers, otherwise starting empty.
+   *
+   * @param  capacity  the number of bytes in the ring, including the length prefix of each message
+   * @param  flushPolicy  determines how many calls to {@link #flush()} are grouped into each
+   *                      force to the storage device.  When the policy has a maximum delay, a
+   *                      background thread forces any calls pending that long.
+   */
+  public MessageFifoFile(File file, long capacity, int numConsumers, GroupCommitPolicy flushPolicy) throws IOException {
+    if (capacity <= PREFIX_SIZE) {
+      throw new IllegalArgumentException("capacity must be more than " + PREFIX_SIZE + ": " + capacity);
+    }
+    if (numConsumers < 1) {
+      throw new IllegalArgumentException("numConsumers < 1: " + numConsumers);
+    }
+    this.capacity = capacity;
+    this.headerSize = CONSUMERS_POS + numConsumers * 8;
+    this.flushPolicy = flushPolicy;
+    this.offsets = new long[numConsumers];
+    this.consumers = new Consumer[numConsumers];
+    for (int i = 0; i < numConsumers; i++) {
+      consumers[i] = new Consumer(i);
+    }
+    this.headerBuff = new byte[headerSize];
+    this.file = new RandomAccessFile(file, "rw");
+    try {
+      if (!load()) {
+        reset();
+      }
+    } catch (IOException | RuntimeException e) {
+      try {
+        this.file.close();
+      } catch (IOException e2) {
+        e.addSuppressed(e2);
+      }
+      throw e;
+    }
+    this.flushTimer = GroupCommitTimer.start(flushPolicy, "MessageFifoFile - Flush Timer", this::flushIfDue);
+  }
+
+  /**
+   * Reads the header when the file matches this configuration.
+   *
+   * @return  {@code true} when loaded
+   */
+  private boolean load() throws IOException {
+    if (file.length() != headerSize + capacity) {
+      return false;
+    }
+    file.seek(0);
+    file.readFully(headerBuff);
+    if (
+        IoUtils.bufferToLong(headerBuff, MAGIC_POS) != MAGIC
+            || IoUtils.bufferToLong(headerBuff, CAPACITY_POS) != capacity
+            || IoUtils.bufferToInt(headerBuff, NUM_CONSUMERS_POS) != offsets.length
+    ) {
+      return false;
+    }
+    tail = IoUtils.bufferToLong(headerBuff, TAIL_POS);
+    head = IoUtils.bufferToLong(headerBuff, HEAD_POS);
+    for (int i = 0; i < offsets.length; i++) {
+      long offset = IoUtils.bufferToLong(headerBuff, CONSUMERS_POS + i * 8);
+      if (offset < head || offset > tail) {
+        return false;
+      }
+      offsets[i] = offset;
+    }
+    return head >= 0 && tail >= head && tail - head <= capacity;
+  }
+
+  /**
+   * Writes the entire header.
+   */
+  private void writeHeader() throws IOException {
+    IoUtils.longToBuffer(MAGIC, headerBuff, MAGIC_POS);
+    IoUtils.longToBuffer(capacity, headerBuff, CAPACITY_POS);
+    IoUtils.intToBuffer(offsets.length, headerBuff, NUM_CONSUMERS_POS);
+    IoUtils.intToBuffer(0, headerBuff, NUM_CONSUMERS_POS + 4);
+    IoUtils.longToBuffer(tail, headerBuff, TAIL_POS);
+    IoUtils.longToBuffer(head, headerBuff, HEAD_POS);
+    for (int i = 0; i < offsets.length; i++) {
+      IoUtils.longToBuffer(offsets[i], headerBuff, CONSUMERS_POS + i * 8);
+    }
+    file.seek(0);
+    file.write(headerBuff);
+  }
+
+  /**
+   * Resets this file to contain no messages, with all consumers at the beginning.
+   */
+  public void reset() throws IOException {
+    synchronized (this) {
+      file.setLength(headerSize + capacity);
+      tail = 0;
+      head = 0;
+      for (int i = 0; i < offsets.length; i++) {
+        offsets[i] = 0;
+      }
+      writeHeader();
+      notifyAll();
+    }
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  public int getNumConsumers() {
+    return consumers.length;
+  }
+
+  public GroupCommitPolicy getFlushPolicy() {
+    return flushPolicy;
+  }
+
+  public Consumer getConsumer(int id) {
+    return consumers[id];
+  }
+
+  /**
+   * Gets the number of bytes stored, including messages not yet read by every consumer.
+   */
+  public long getLength() {
+    synchronized (this) {
+      return tail - head;
+    }
+  }
+
+  private void write(long pos, byte[] b, int off, int len) throws IOException {
+    long index = pos % capacity;
+    long first = Math.min(len, capacity - index);
+    file.seek(headerSize + index);
+    file.write(b, off, (int) first);
+    if (first < len) {
+      file.seek(headerSize);
+      file.write(b, off + (int) first, len - (int) first);
+    }
+  }
+
+  private void read(long pos, byte[] b, int off, int len) throws IOException {
+    long index = pos % capacity;
+    long first = Math.min(len, capacity - index);
+    file.seek(headerSize + index);
+    file.readFully(b, off, (int) first);
+    if (first < len) {
+      file.seek(headerSize);
+      file.readFully(b, off + (int) first, len - (int) first);
+    }
+  }
+
+  /**
+   * Must hold the lock.
+   */
+  private void checkClosed() throws ClosedChannelException {
+    if (closed) {
+      throw new ClosedChannelException();
+    }
+  }
+
+  private static void waitOn(Object lock) throws InterruptedIOException {
+    try {
+      lock.wait();
+    } catch (InterruptedException err) {
+      // Restore the interrupted status
+      Thread.currentThread().interrupt();
+      InterruptedIOException ioErr = new InterruptedIOException();
+      ioErr.initCause(err);
+      throw ioErr;
+    }
+  }
+
+  /**
+   * Adds one message, blocking until there is space.
+   */
+  public void put(byte[] message) throws IOException {
+    putAll(Collections.singletonList(message));
+  }
+
+  /**
+   * Adds the messages in order, blocking until there is space.  As many messages as fit are
+   * written with each acquisition of the lock, as a single contiguous write where possible.
+   *
+   * @throws  IllegalArgumentException  if any message will never fit
+   */
+  public void putAll(Collection<byte[]> messages) throws IOException {
+    for (byte[] message : messages) {
+      if (PREFIX_SIZE + (long) message.length > capacity) {
+        throw new IllegalArgumentException("Message larger than capacity: " + message.length);
+      }
+    }
+    Iterator<byte[]> iter = messages.iterator();
+    byte[] next = iter.hasNext() ? iter.next() : null;
+    byte[] batch = null;
+    while (next != null) {
+      synchronized (this) {
+        while (true) {
+          if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException();
+          }
+          checkClosed();
+          long free = capacity - (tail - head);
+          if (free >= PREFIX_SIZE + next.length) {
+            // Collect as many messages as fit
+            int batchSize = 0;
+            List<byte[]> batchMessages = new ArrayList<>();
+            while (next != null && free - batchSize >= PREFIX_SIZE + next.length && batchSize < BATCH_SIZE) {
+              batchMessages.add(next);
+              batchSize += PREFIX_SIZE + next.length;
+              next = iter.hasNext() ? iter.next() : null;
+            }
+            if (batch == null || batch.length < batchSize) {
+              batch = new byte[Math.max(batchSize, batch == null ? 0 : batch.length * 2)];
+            }
+            int pos = 0;
+            for (byte[] message : batchMessages) {
+              IoUtils.intToBuffer(message.length, batch, pos);
+              System.arraycopy(message, 0, batch, pos + PREFIX_SIZE, message.length);
+              pos += PREFIX_SIZE + message.length;
+            }
+            write(tail, batch, 0, batchSize);
+            tail += batchSize;
+            IoUtils.longToBuffer(tail, headerBuff, TAIL_POS);
+            file.seek(TAIL_POS);
+            file.write(headerBuff, TAIL_POS, 8);
+            notifyAll();
+            break;
+          }
+          waitOn(this);
+        }
+      }
+    }
+  }
+
+  /**
+   * Moves a consumer offset, reclaiming space when it was the lowest.
+   * Must hold the lock.
+   */
+  private void setOffset(int id, long offset) throws IOException {
+    long oldOffset = offsets[id];
+    offsets[id] = offset;
+    int pos = CONSUMERS_POS + id * 8;
+    IoUtils.longToBuffer(offset, headerBuff, pos);
+    if (oldOffset == head) {
+      long newHead = offset;
+      for (long other : offsets) {
+        if (other < newHead) {
+          newHead = other;
+        }
+      }
+      if (newHead != head) {
+        head = newHead;
+        IoUtils.longToBuffer(head, headerBuff, HEAD_POS);
+        // Head and consumer offsets are adjacent, write together
+        file.seek(HEAD_POS);
+        file.write(headerBuff, HEAD_POS, pos + 8 - HEAD_POS);
+        notifyAll();
+        return;
+      }
+    }
+    file.seek(pos);
+    file.write(headerBuff, pos, 8);
+  }
+
+  /**
+   * Forces the messages and offsets to the storage device, grouped according to the
+   * {@link #getFlushPolicy() flush policy}.  With the default policy every call forces the device.
+   *
+   * @see  #sync()
+   */
+  public void flush() throws IOException {
+    synchronized (this) {
+      if (pendingFlushes++ == 0) {
+        pendingFlushesSince = System.nanoTime();
+        if (flushTimer != null) {
+          flushTimer.schedule(pendingFlushesSince);
+        }
+      }
+      if (flushPolicy.isDue(pendingFlushes, pendingFlushesSince)) {
+        sync();
+      }
+    }
+  }
+
+  /**
+   * Forces the flushes pending for the maximum delay of the flush policy, called by {@link #flushTimer}.
+   */
+  private void flushIfDue() throws IOException {
+    synchronized (this) {
+      if (!closed && flushPolicy.isDue(pendingFlushes, pendingFlushesSince)) {
+        sync();
+      }
+    }
+  }
+
+  /**
+   * Forces the messages and offsets to the storage device, regardless of the flush policy.
+   */
+  public void sync() throws IOException {
+    synchronized (this) {
+      file.getChannel().force(false);
+      pendingFlushes = 0;
+    }
+  }
+
+  /**
+   * Forces any flushes still pending under the flush policy then closes the file.
+   * Threads blocked in {@link #putAll(java.util.Collection)} or {@link Consumer#take()} are woken and throw
+   * {@link ClosedChannelException}.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      try {
+        if (pendingFlushes > 0 && file.getChannel().isOpen()) {
+          sync();
+        }
+      } finally {
+        closed = true;
+        notifyAll();
+        if (flushTimer != null) {
+          flushTimer.close();
+        }
+        file.close();
+      }
+    }
+  }
+
+  /**
+   * One of the independent readers of the messages.
+   */
+  public final class Consumer {
+
+    private final int id;
+
+    /**
+     * The length prefix of a single message.  Must hold the lock.
+     */
+    private final byte[] prefixBuff = new byte[PREFIX_SIZE];
+
+    private Consumer(int id) {
+      this.id = id;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public MessageFifoFile getMessageFifoFile() {
+      return MessageFifoFile.this;
+    }
+
+    /**
+     * Gets the position of the next message for this consumer.
+     */
+    public long getOffset() {
+      synchronized (MessageFifoFile.this) {
+        return offsets[id];
+      }
+    }
+
+    /**
+     * Gets the number of bytes of messages not yet read by this consumer.
+     */
+    public long getLag() {
+      synchronized (MessageFifoFile.this) {
+        return tail - offsets[id];
+      }
+    }
+
+    /**
+     * Reads the next message, blocking until one is available.
+     */
+    public byte[] take() throws IOException {
+      synchronized (MessageFifoFile.this) {
+        while (true) {
+          if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException();
+          }
+          byte[] message = poll();
+          if (message != null) {
+            return message;
+          }
+          waitOn(MessageFifoFile.this);
+        }
+      }
+    }
+
+    /**
+     * Reads the next message, if available.  Reads only its length prefix then the message itself.
+     *
+     * @return  the message or {@code null} when none available
+     */
+    public byte[] poll() throws IOException {
+      synchronized (MessageFifoFile.this) {
+        checkClosed();
+        long offset = offsets[id];
+        if (offset == tail) {
+          return null;
+        }
+        read(offset, prefixBuff, 0, PREFIX_SIZE);
+        byte[] message = new byte[IoUtils.bufferToInt(prefixBuff, 0)];
+        read(offset + PREFIX_SIZE, message, 0, message.length);
+        setOffset(id, offset + PREFIX_SIZE + message.length);
+        return message;
+      }
+    }
+
+    /**
+     * Reads up to the given number of available messages without blocking.  Messages are read in
+     * batches of contiguous bytes, with the offset written once.
+     *
+     * @return  the number of messages added to the collection
+     */
+    public int drainTo(Collection<? super byte[]> dest, int maxMessages) throws IOException {
+      synchronized (MessageFifoFile.this) {
+        checkClosed();
+        long offset = offsets[id];
+        int count = 0;
+        while (count < maxMessages && offset < tail) {
+          long available = tail - offset;
+          int batchSize = (int) Math.min(available, BATCH_SIZE);
+          byte[] batch = new byte[batchSize];
+          read(offset, batch, 0, batchSize);
+          int pos = 0;
+          while (count < maxMessages && batchSize - pos >= PREFIX_SIZE) {
+            int length = IoUtils.bufferToInt(batch, pos);
+            byte[] message;
+            if (pos + PREFIX_SIZE + length <= batchSize) {
+              message = Arrays.copyOfRange(batch, pos + PREFIX_SIZE, pos + PREFIX_SIZE + length);
+            } else if (pos == 0) {
+              // Larger than a batch, read directly
+              message = new byte[length];
+              read(offset + PREFIX_SIZE, message, 0, length);
+            } else {
+              break;
+            }
+            dest.add(message);
+            pos += PREFIX_SIZE + length;
+            count++;
+          }
+          offset += pos;
+        }
+        if (count > 0) {
+          setOffset(id, offset);
+        }
+        return count;
+      }
+    }
+  }
+}
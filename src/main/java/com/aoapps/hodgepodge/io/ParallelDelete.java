@@ -1,6 +1,6 @@
 /*
  * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
- * Copyright (C) 2009, 2010, 2011, 2013, 2016, 2018, 2019, 2020, 2021, 2022, 2024, 2025  AO Industries, Inc.
+ * Copyright (C) 2009, 2010, 2011, 2013, 2016, 2018, 2019, 2020, 2021, 2022, 2024, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -27,25 +27,50 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.io.PrintStream;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SecureDirectoryStream;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Our backup directories contain parallel directories with many hard links.
  * The performance of deleting more than one of the directories can be improved
  * by deleting from them in parallel.
  *
- * <p>Also performs the task with three threads:</p>
+ * <p>Also performs the task with multiple threads:</p>
  *
- * <pre>    Iterate filesystem -&gt; Delete entries -&gt; Verbose Output
- *     (Calling Thread)      (New Thread)      (New Thread)</pre>
+ * <pre>    Iterate filesystem -&gt; Delete entries       -&gt; Verbose Output
+ *     (Calling Thread)      (Threads per device)    (New Thread)</pre>
+ *
+ * <p>The directories are partitioned by {@link FileStore}, each with its own queue and
+ * pool of delete threads, so that multiple devices and the deeper queues of SSDs are
+ * kept busy.  A directory is only deleted once all of its contents have been deleted.</p>
+ *
+ * <p>Optionally, where {@link SecureDirectoryStream} is supported, the traversal and deletes are
+ * instead performed by the pool of each device, relative to open directory handles.  Each tree is
+ * then deleted independently, so the trees are no longer deleted in the same relative order.</p>
  *
  * <p>Verifying this is, in fact, true.  This is measured with a copy of the
  * backups from one of our managed servers.  The system RAM was limited to 128
@@ -74,8 +99,6 @@ import java.util.concurrent.BlockingQueue;
  *
  * <p>TODO: Should it use a provided ExecutorService instead of making own Threads?</p>
  *
- * <p>TODO: Concurrent deletes would be possible.  Is there any advantage?</p>
- *
  * @author  AO Industries, Inc.
  */
 @SuppressWarnings("UseOfSystemOutOrSystemErr")
@@ -87,7 +110,7 @@ public final class ParallelDelete {
   }
 
   /**
-   * The size of the delete queue.
+   * The size of the delete queue for each device.
    */
   private static final int DELETE_QUEUE_SIZE = 5000;
 
@@ -97,34 +120,75 @@ public final class ParallelDelete {
   private static final int VERBOSE_QUEUE_SIZE = 1000;
 
   /**
-   * Deletes multiple directories in parallel (but not concurrently).
+   * The default number of delete threads per device.
+   */
+  public static final int DEFAULT_THREADS_PER_DEVICE = 4;
+
+  /**
+   * The interval between progress reports.
+   */
+  private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * Deletes multiple directories in parallel.
    */
   public static void main(String[] args) {
     if (args.length == 0) {
-      System.err.println("Usage: " + ParallelDelete.class.getName() + " [-n] [-v] [--] path {path}");
+      System.err.println("Usage: " + ParallelDelete.class.getName() + " [-n] [-v] [-p] [-t threads] [-r ops_per_sec] [-l latency_ms] [-d] [--] path {path}");
       System.err.println("\t-n\tPerform dry run, do not modify the filesystem");
       System.err.println("\t-v\tWrite the full path to standard error as each file is removed");
+      System.err.println("\t-p\tWrite progress and throughput to standard error");
+      System.err.println("\t-t\tThe number of delete threads per device, defaults to " + DEFAULT_THREADS_PER_DEVICE);
+      System.err.println("\t-r\tThe maximum deletes per second, shared by all threads");
+      System.err.println("\t-l\tSlow the deletes while their average latency exceeds this many milliseconds, requires -r");
+      System.err.println("\t-d\tDelete each tree independently, relative to open directory handles, where supported");
       System.err.println("\t--\tEnd options, all additional arguments will be interpreted as paths");
 
       System.exit(1);
     } else {
       List<File> directories = new ArrayList<>(args.length);
       PrintStream verboseOutput = null;
+      PrintStream progressOutput = null;
       boolean dryRun = false;
+      int threadsPerDevice = DEFAULT_THREADS_PER_DEVICE;
+      double opsPerSecond = 0;
+      long latencyTargetMillis = 0;
+      boolean directoryRelative = false;
       boolean optionsEnded = false;
-      for (String arg : args) {
+      for (int i = 0; i < args.length; i++) {
+        String arg = args[i];
         if (!optionsEnded && "-v".equals(arg)) {
           verboseOutput = System.err;
         } else if (!optionsEnded && "-n".equals(arg)) {
           dryRun = true;
+        } else if (!optionsEnded && "-p".equals(arg)) {
+          progressOutput = System.err;
+        } else if (!optionsEnded && "-t".equals(arg) && i < (args.length - 1)) {
+          threadsPerDevice = Integer.parseInt(args[++i]);
+        } else if (!optionsEnded && "-r".equals(arg) && i < (args.length - 1)) {
+          opsPerSecond = Double.parseDouble(args[++i]);
+        } else if (!optionsEnded && "-l".equals(arg) && i < (args.length - 1)) {
+          latencyTargetMillis = Long.parseLong(args[++i]);
+        } else if (!optionsEnded && "-d".equals(arg)) {
+          directoryRelative = true;
         } else if (!optionsEnded && "--".equals(arg)) {
           optionsEnded = true;
         } else {
           directories.add(new File(arg));
         }
       }
+      if (latencyTargetMillis != 0 && opsPerSecond == 0) {
+        // The latency target only scales a configured rate
+        System.err.println("Usage: -l requires -r");
+        System.exit(1);
+      }
+      IoBudget budget = null;
+      if (opsPerSecond != 0) {
+        budget = new IoBudget(opsPerSecond, 0);
+        budget.setLatencyTarget(latencyTargetMillis, TimeUnit.MILLISECONDS);
+      }
       try {
-        parallelDelete(directories, verboseOutput, dryRun);
+        parallelDelete(directories, verboseOutput, dryRun, threadsPerDevice, progressOutput, budget, directoryRelative);
       } catch (IOException err) {
         err.printStackTrace(System.err);
         System.err.flush();
@@ -133,16 +197,342 @@ public final class ParallelDelete {
     }
   }
 
+  /**
+   * Recursively deletes all of the files in the provided directories, with
+   * {@link #DEFAULT_THREADS_PER_DEVICE} threads per device and no progress output.
+   *
+   * @see  #parallelDelete(java.util.List, java.io.PrintStream, boolean, int, java.io.PrintStream, com.aoapps.hodgepodge.io.IoBudget, boolean)
+   */
+  public static void parallelDelete(List<File> directories, PrintStream verboseOutput, boolean dryRun) throws IOException {
+    parallelDelete(directories, verboseOutput, dryRun, DEFAULT_THREADS_PER_DEVICE, null, null, false);
+  }
+
+  /**
+   * Recursively deletes all of the files in the provided directories, without an I/O budget.
+   *
+   * @see  #parallelDelete(java.util.List, java.io.PrintStream, boolean, int, java.io.PrintStream, com.aoapps.hodgepodge.io.IoBudget, boolean)
+   */
+  public static void parallelDelete(
+      List<File> directories,
+      PrintStream verboseOutput,
+      boolean dryRun,
+      int threadsPerDevice,
+      PrintStream progressOutput
+  ) throws IOException {
+    parallelDelete(directories, verboseOutput, dryRun, threadsPerDevice, progressOutput, null, false);
+  }
+
+  /**
+   * A directory waiting for its contents to be deleted.
+   */
+  private static final class PendingDirectory {
+
+    private int pendingChildren;
+    private File directory;
+    private Device device;
+  }
+
+  /**
+   * The shared state of one delete.
+   */
+  private static final class Deleter {
+
+    private final BlockingQueue<File> verboseQueue;
+    private final boolean dryRun;
+    private final IoBudget budget;
+    private final AtomicLong deleted = new AtomicLong();
+
+    /**
+     * The directories with children not yet deleted, by path.
+     */
+    private final Map<String, PendingDirectory> pending = new HashMap<>();
+
+    private IOException error;
+
+    private Deleter(BlockingQueue<File> verboseQueue, boolean dryRun, IoBudget budget) {
+      this.verboseQueue = verboseQueue;
+      this.dryRun = dryRun;
+      this.budget = budget;
+    }
+
+    private IOException getError() {
+      synchronized (pending) {
+        return error;
+      }
+    }
+
+    /**
+     * Queues a file for deletion on the given device, after its children, if any, have been deleted.
+     * Since the iteration is postorder, all children of a directory have been queued before the directory.
+     */
+    private void dispatch(File file, Device device) throws InterruptedException {
+      String parent = file.getParent();
+      synchronized (pending) {
+        if (parent != null) {
+          pending.computeIfAbsent(parent, k -> new PendingDirectory()).pendingChildren++;
+        }
+        PendingDirectory pendingDirectory = pending.get(file.getPath());
+        if (pendingDirectory != null) {
+          if (pendingDirectory.pendingChildren > 0) {
+            // Deleted by the thread that deletes its last child
+            pendingDirectory.directory = file;
+            pendingDirectory.device = device;
+            return;
+          }
+          pending.remove(file.getPath());
+        }
+      }
+      device.queue.put(file);
+    }
+
+    /**
+     * Deletes a file, then any parent directories that were only waiting on it.
+     */
+    private void delete(File file) throws InterruptedException {
+      while (file != null) {
+        if (getError() == null) {
+          try {
+            if (verboseQueue != null) {
+              verboseQueue.put(file);
+            }
+            if (!dryRun) {
+              if (budget == null) {
+                Files.delete(file.toPath());
+              } else {
+                budget.acquireOps(1);
+                long startNanos = System.nanoTime();
+                Files.delete(file.toPath());
+                budget.recordLatency(System.nanoTime() - startNanos);
+              }
+            }
+            deleted.incrementAndGet();
+          } catch (IOException err) {
+            synchronized (pending) {
+              if (error == null) {
+                error = err;
+              }
+            }
+          }
+        }
+        String parent = file.getParent();
+        file = null;
+        if (parent != null) {
+          synchronized (pending) {
+            PendingDirectory pendingDirectory = pending.get(parent);
+            if (pendingDirectory != null && --pendingDirectory.pendingChildren == 0 && pendingDirectory.directory != null) {
+              pending.remove(parent);
+              file = pendingDirectory.directory;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The queue and delete threads for one device.
+   */
+  private static final class Device {
+
+    /**
+     * Stops a delete thread.
+     */
+    private static final File END = new File("");
+
+    private final BlockingQueue<File> queue = new ArrayBlockingQueue<>(DELETE_QUEUE_SIZE);
+    private final List<Thread> threads;
+
+    private Device(String name, Deleter deleter, int numThreads) {
+      threads = new ArrayList<>(numThreads);
+      for (int i = 1; i <= numThreads; i++) {
+        Thread thread = new Thread("ParallelDelete - Delete Thread - " + name + " #" + i) {
+          @Override
+          public void run() {
+            try {
+              File file;
+              while ((file = queue.take()) != END) {
+                deleter.delete(file);
+              }
+            } catch (InterruptedException err) {
+              err.printStackTrace(System.err);
+              // Restore the interrupted status
+              Thread.currentThread().interrupt();
+            }
+          }
+        };
+        thread.start();
+        threads.add(thread);
+      }
+    }
+
+    /**
+     * Stops the delete threads once the queue is empty, or immediately when aborting.
+     */
+    private void stop(boolean abort) throws InterruptedException {
+      if (abort) {
+        queue.clear();
+      }
+      for (int i = 0; i < threads.size(); i++) {
+        if (abort) {
+          // The delete threads never add to the queue, so this has room after clear
+          queue.offer(END);
+        } else {
+          queue.put(END);
+        }
+      }
+    }
+
+    private void join() throws InterruptedException {
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    }
+  }
+
+  /**
+   * Recursively deletes all of the files in the provided directories, iterating the directories
+   * in parallel by relative path.
+   *
+   * @see  #parallelDelete(java.util.List, java.io.PrintStream, boolean, int, java.io.PrintStream, com.aoapps.hodgepodge.io.IoBudget, boolean)
+   */
+  public static void parallelDelete(
+      List<File> directories,
+      PrintStream verboseOutput,
+      boolean dryRun,
+      int threadsPerDevice,
+      PrintStream progressOutput,
+      IoBudget budget
+  ) throws IOException {
+    parallelDelete(directories, verboseOutput, dryRun, threadsPerDevice, progressOutput, budget, false);
+  }
+
   /**
    * Recursively deletes all of the files in the provided directories.  Also
-   * deletes the directories themselves.  It is assumed the directory contents
-   * are not changing, and there are no safe guards to protect against this.
-   * This implies that there is a race condition where the delete could
-   * possibly follow a symbolic link and delete outside the intended directory
-   * trees.
+   * deletes the directories themselves.
+   *
+   * <p>By default, the directories are iterated in parallel by relative path, so the same
+   * relative paths of hard-linked trees are deleted together.  It is assumed the directory
+   * contents are not changing, and there are no safe guards to protect against this.
+   * This implies that there is a race condition where the delete could possibly follow a symbolic
+   * link and delete outside the intended directory trees.  A directory is deleted by the thread
+   * that deletes its last child.</p>
+   *
+   * <p>When directory-relative and the platform provides {@link SecureDirectoryStream}, each file
+   * is instead deleted relative to an open handle of its directory, without following symbolic links.
+   * This avoids resolving the full path of every file, and is safe against concurrent renames.  Each
+   * directory is a {@link ForkJoinPool} task, which deletes its files then its subdirectories, and is
+   * itself deleted once its subdirectories are complete.  The trees are deleted independently, not
+   * in the same relative order.</p>
+   *
+   * <p>Either way, the directories are partitioned by {@link FileStore}, each with its own pool of
+   * delete threads.</p>
+   *
+   * @param  threadsPerDevice  the number of delete threads for each {@link FileStore}
+   * @param  progressOutput  when not {@code null}, the number of files deleted and the throughput
+   *                         are written once per second and when finished
+   * @param  budget  when not {@code null}, each delete is one operation of this budget, and reports its latency
+   * @param  directoryRelative  when {@code true}, deletes relative to open directory handles where supported
+   */
+  @SuppressWarnings("ThrowFromFinallyBlock")
+  public static void parallelDelete(
+      List<File> directories,
+      final PrintStream verboseOutput,
+      final boolean dryRun,
+      int threadsPerDevice,
+      PrintStream progressOutput,
+      IoBudget budget,
+      boolean directoryRelative
+  ) throws IOException {
+    if (threadsPerDevice < 1) {
+      throw new IllegalArgumentException("threadsPerDevice < 1: " + threadsPerDevice);
+    }
+    List<File> canonicalDirectories = new ArrayList<>(directories.size());
+    for (File directory : directories) {
+      if (!directory.exists()) {
+        throw new IOException("Directory not found: " + directory.getPath());
+      }
+      if (!directory.isDirectory()) {
+        throw new IOException("Not a directory: " + directory.getPath());
+      }
+      canonicalDirectories.add(directory.getCanonicalFile());
+    }
+
+    final BlockingQueue<File> verboseQueue;
+    final boolean[] verboseThreadRun;
+    Thread verboseThread;
+    if (verboseOutput == null) {
+      verboseQueue = null;
+      verboseThreadRun = null;
+      verboseThread = null;
+    } else {
+      verboseQueue = new ArrayBlockingQueue<>(VERBOSE_QUEUE_SIZE);
+      verboseThreadRun = new boolean[]{true};
+      verboseThread = new Thread("ParallelDelete - Verbose Thread") {
+        @Override
+        public void run() {
+          while (!Thread.currentThread().isInterrupted()) {
+            synchronized (verboseThreadRun) {
+              if (!verboseThreadRun[0] && verboseQueue.isEmpty()) {
+                break;
+              }
+            }
+            try {
+              File file = verboseQueue.poll(100, TimeUnit.MILLISECONDS);
+              if (file != null) {
+                verboseOutput.println(file.getPath());
+                if (verboseQueue.isEmpty()) {
+                  verboseOutput.flush();
+                }
+              }
+            } catch (InterruptedException err) {
+              err.printStackTrace(System.err);
+              // Restore the interrupted status
+              Thread.currentThread().interrupt();
+            }
+          }
+        }
+      };
+
+      verboseThread.start();
+    }
+    try {
+      if (
+          !directoryRelative
+              || !secureDelete(canonicalDirectories, verboseQueue, dryRun, threadsPerDevice, progressOutput, budget)
+      ) {
+        iteratorDelete(canonicalDirectories, verboseQueue, dryRun, threadsPerDevice, progressOutput, budget);
+      }
+    } finally {
+      // Wait for verbose queue to be empty
+      if (verboseThread != null) {
+        synchronized (verboseThreadRun) {
+          verboseThreadRun[0] = false;
+        }
+        try {
+          verboseThread.join();
+        } catch (InterruptedException err) {
+          // Restore the interrupted status
+          Thread.currentThread().interrupt();
+          InterruptedIOException ioErr = new InterruptedIOException();
+          ioErr.initCause(err);
+          throw ioErr;
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes by iterating the canonical directories in parallel by relative path.
    */
   @SuppressWarnings("ThrowFromFinallyBlock")
-  public static void parallelDelete(List<File> directories, final PrintStream verboseOutput, final boolean dryRun) throws IOException {
+  static void iteratorDelete(
+      List<File> directories,
+      BlockingQueue<File> verboseQueue,
+      boolean dryRun,
+      int threadsPerDevice,
+      PrintStream progressOutput,
+      IoBudget budget
+  ) throws IOException {
     final int numDirectories = directories.size();
 
     // The set of next files is kept in key order so that it can scale with O(n*log(n)) for larger numbers of directories
@@ -162,16 +552,11 @@ public final class ParallelDelete {
       }
       return diff;
     });
+    final Map<FilesystemIterator, FileStore> fileStores = new HashMap<>();
     {
       final Map<String, FilesystemIteratorRule> prefixRules = Collections.emptyMap();
       for (File directory : directories) {
-        if (!directory.exists()) {
-          throw new IOException("Directory not found: " + directory.getPath());
-        }
-        if (!directory.isDirectory()) {
-          throw new IOException("Not a directory: " + directory.getPath());
-        }
-        String path = directory.getCanonicalPath();
+        String path = directory.getPath();
         FilesystemIterator iterator = new FilesystemIterator(
             Collections.singletonMap(path, FilesystemIteratorRule.OK),
             prefixRules,
@@ -179,6 +564,7 @@ public final class ParallelDelete {
             false,
             true
         );
+        fileStores.put(iterator, Files.getFileStore(directory.toPath()));
         File nextFile = iterator.getNextFile();
         if (nextFile != null) {
           String relPath = getRelativePath(nextFile, iterator);
@@ -191,165 +577,386 @@ public final class ParallelDelete {
       }
     }
 
-    final BlockingQueue<File> verboseQueue;
-    final boolean[] verboseThreadRun;
-    Thread verboseThread;
-    if (verboseOutput == null) {
-      verboseQueue = null;
-      verboseThreadRun = null;
-      verboseThread = null;
-    } else {
-      verboseQueue = new ArrayBlockingQueue<>(VERBOSE_QUEUE_SIZE);
-      verboseThreadRun = new boolean[]{true};
-      verboseThread = new Thread("ParallelDelete - Verbose Thread") {
-        @Override
-        public void run() {
-          while (!Thread.currentThread().isInterrupted()) {
-            synchronized (verboseThreadRun) {
-              if (!verboseThreadRun[0] && verboseQueue.isEmpty()) {
-                break;
-              }
-            }
-            try {
-              verboseOutput.println(verboseQueue.take().getPath());
-              if (verboseQueue.isEmpty()) {
-                verboseOutput.flush();
-              }
-            } catch (InterruptedException err) {
-              err.printStackTrace(System.err);
-              // Restore the interrupted status
-              Thread.currentThread().interrupt();
+    final Deleter deleter = new Deleter(verboseQueue, dryRun, budget);
+    final Map<FileStore, Device> devices = new LinkedHashMap<>();
+    final Map<FilesystemIterator, Device> iteratorDevices = new HashMap<>();
+    for (Map.Entry<FilesystemIterator, FileStore> entry : fileStores.entrySet()) {
+      FileStore store = entry.getValue();
+      Device device = devices.get(store);
+      if (device == null) {
+        device = new Device(store.name(), deleter, threadsPerDevice);
+        devices.put(store, device);
+      }
+      iteratorDevices.put(entry.getKey(), device);
+    }
+    final long startTime = System.nanoTime();
+    boolean aborted = true;
+    try {
+      // Main loop, continue until nextFiles is empty
+      final StringBuilder sb = new StringBuilder();
+      long lastProgressTime = startTime;
+      long lastProgressDeleted = 0;
+      while (true) {
+        if (Thread.currentThread().isInterrupted()) {
+          throw new InterruptedIOException();
+        }
+        if (deleter.getError() != null) {
+          break;
+        }
+        if (progressOutput != null) {
+          long now = System.nanoTime();
+          if ((now - lastProgressTime) >= PROGRESS_INTERVAL_NANOS) {
+            long deleted = deleter.deleted.get();
+            printProgress(progressOutput, deleted, deleted - lastProgressDeleted, now - lastProgressTime);
+            lastProgressTime = now;
+            lastProgressDeleted = deleted;
+          }
+        }
+        Iterator<String> iter = nextFiles.keySet().iterator();
+        if (!iter.hasNext()) {
+          break;
+        }
+        String relPath = iter.next();
+        for (FilesystemIterator iterator : nextFiles.remove(relPath)) {
+          sb.setLength(0);
+          sb.append(iterator.getStartPath());
+          sb.append(relPath);
+          String fullPath = sb.toString();
+          try {
+            deleter.dispatch(new File(fullPath), iteratorDevices.get(iterator));
+          } catch (InterruptedException err) {
+            // Restore the interrupted status
+            Thread.currentThread().interrupt();
+            InterruptedIOException ioErr = new InterruptedIOException();
+            ioErr.initCause(err);
+            throw ioErr;
+          }
+          // Get the next file
+          File nextFile = iterator.getNextFile();
+          if (nextFile != null) {
+            String newRelPath = getRelativePath(nextFile, iterator);
+            List<FilesystemIterator> list = nextFiles.get(newRelPath);
+            if (list == null) {
+              nextFiles.put(newRelPath, list = new ArrayList<>(numDirectories));
             }
+            list.add(iterator);
           }
         }
-      };
+      }
+      aborted = deleter.getError() != null;
+    } finally {
+      // Wait for delete queues to be empty
+      try {
+        for (Device device : devices.values()) {
+          device.stop(aborted);
+        }
+        for (Device device : devices.values()) {
+          device.join();
+        }
+      } catch (InterruptedException err) {
+        // Restore the interrupted status
+        Thread.currentThread().interrupt();
+        InterruptedIOException ioErr = new InterruptedIOException();
+        ioErr.initCause(err);
+        throw ioErr;
+      }
+      if (progressOutput != null) {
+        long deleted = deleter.deleted.get();
+        printProgress(progressOutput, deleted, deleted, System.nanoTime() - startTime);
+      }
+      // Throw any exception that caused this to stop
+      IOException error = deleter.getError();
+      if (error != null) {
+        throw error;
+      }
+    }
+  }
 
-      verboseThread.start();
+  // <editor-fold defaultstate="collapsed" desc="Directory-relative deletes">
+  /**
+   * The shared state of one directory-relative delete.
+   */
+  private static final class SecureDeleter {
+
+    private final BlockingQueue<File> verboseQueue;
+    private final boolean dryRun;
+    private final IoBudget budget;
+    private final AtomicLong deleted = new AtomicLong();
+    private volatile IOException error;
+
+    private SecureDeleter(BlockingQueue<File> verboseQueue, boolean dryRun, IoBudget budget) {
+      this.verboseQueue = verboseQueue;
+      this.dryRun = dryRun;
+      this.budget = budget;
     }
-    try {
-      final BlockingQueue<File> deleteQueue = new ArrayBlockingQueue<>(DELETE_QUEUE_SIZE);
-      final boolean[] deleteThreadRun = new boolean[]{true};
-      final IOException[] deleteException = new IOException[1];
-      Thread deleteThread = new Thread("ParallelDelete - Delete Thread") {
-        @Override
-        public void run() {
-          while (!Thread.currentThread().isInterrupted()) {
-            synchronized (deleteThreadRun) {
-              if (!deleteThreadRun[0] && deleteQueue.isEmpty()) {
-                break;
-              }
+
+    private void setError(IOException err) {
+      synchronized (this) {
+        if (error == null) {
+          error = err;
+        }
+      }
+    }
+
+    /**
+     * Deletes one entry of an open directory.
+     *
+     * @param  path  the full path, only used for verbose output
+     */
+    private void delete(SecureDirectoryStream<Path> stream, Path name, Path path, boolean isDirectory) throws IOException {
+      if (verboseQueue != null) {
+        try {
+          verboseQueue.put(path.toFile());
+        } catch (InterruptedException err) {
+          // Restore the interrupted status
+          Thread.currentThread().interrupt();
+          InterruptedIOException ioErr = new InterruptedIOException();
+          ioErr.initCause(err);
+          throw ioErr;
+        }
+      }
+      if (!dryRun) {
+        long startNanos = 0;
+        if (budget != null) {
+          budget.acquireOps(1);
+          startNanos = System.nanoTime();
+        }
+        if (isDirectory) {
+          stream.deleteDirectory(name);
+        } else {
+          stream.deleteFile(name);
+        }
+        if (budget != null) {
+          budget.recordLatency(System.nanoTime() - startNanos);
+        }
+      }
+      deleted.incrementAndGet();
+    }
+  }
+
+  /**
+   * Deletes the files of one directory, forks a task for each subdirectory, and deletes the
+   * directory once all subdirectories are complete.  The directory is kept open until then, so its
+   * subdirectories are deleted relative to it.
+   */
+  private static final class SecureDeleteTask extends CountedCompleter<Void> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient SecureDeleter deleter;
+    private final transient SecureDirectoryStream<Path> parent;
+    private final transient Path name;
+
+    /**
+     * The full path, or {@code null} when there is no verbose output.
+     */
+    private final transient Path path;
+
+    private transient SecureDirectoryStream<Path> stream;
+
+    private SecureDeleteTask(
+        CountedCompleter<?> completer,
+        SecureDeleter deleter,
+        SecureDirectoryStream<Path> parent,
+        Path name,
+        Path path
+    ) {
+      super(completer);
+      this.deleter = deleter;
+      this.parent = parent;
+      this.name = name;
+      this.path = path;
+    }
+
+    @Override
+    public void compute() {
+      try {
+        if (deleter.error == null) {
+          stream = parent.newDirectoryStream(name, LinkOption.NOFOLLOW_LINKS);
+          List<Path> names = new ArrayList<>();
+          try {
+            for (Path entry : stream) {
+              names.add(entry.getFileName());
+            }
+          } catch (DirectoryIteratorException err) {
+            throw err.getCause();
+          }
+          for (Path child : names) {
+            if (deleter.error != null) {
+              break;
             }
+            BasicFileAttributes attributes;
             try {
-              File deleteme = deleteQueue.take();
-              boolean doDelete;
-              synchronized (deleteException) {
-                doDelete = deleteException[0] == null;
-              }
-              if (doDelete) {
-                try {
-                  if (verboseQueue != null) {
-                    verboseQueue.put(deleteme);
-                  }
-                  if (!dryRun) {
-                    Files.delete(deleteme.toPath());
-                  }
-                } catch (IOException err) {
-                  synchronized (deleteException) {
-                    deleteException[0] = err;
-                  }
-                }
-              }
-            } catch (InterruptedException err) {
-              err.printStackTrace(System.err);
-              // Restore the interrupted status
-              Thread.currentThread().interrupt();
+              attributes = stream.getFileAttributeView(child, BasicFileAttributeView.class, LinkOption.NOFOLLOW_LINKS).readAttributes();
+            } catch (NoSuchFileException err) {
+              // Normal if the file was deleted while accessing
+              continue;
+            }
+            Path childPath = path == null ? null : path.resolve(child);
+            if (attributes.isDirectory()) {
+              addToPendingCount(1);
+              new SecureDeleteTask(this, deleter, stream, child, childPath).fork();
+            } else {
+              deleter.delete(stream, child, childPath, false);
             }
           }
         }
-      };
-      deleteThread.start();
+      } catch (IOException err) {
+        deleter.setError(err);
+      }
+      tryComplete();
+    }
+
+    @Override
+    public void onCompletion(CountedCompleter<?> caller) {
       try {
-        // Main loop, continue until nextFiles is empty
-        final StringBuilder sb = new StringBuilder();
-        while (true) {
-          if (Thread.currentThread().isInterrupted()) {
-            throw new InterruptedIOException();
+        if (stream != null) {
+          stream.close();
+        }
+        if (deleter.error == null) {
+          deleter.delete(parent, name, path, true);
+        }
+      } catch (IOException err) {
+        deleter.setError(err);
+      }
+    }
+  }
+
+  /**
+   * Deletes the canonical directories relative to open directory handles.
+   *
+   * @return  {@code false} when {@link SecureDirectoryStream} is not supported, and nothing was deleted
+   */
+  @SuppressWarnings("ThrowFromFinallyBlock")
+  private static boolean secureDelete(
+      List<File> directories,
+      BlockingQueue<File> verboseQueue,
+      boolean dryRun,
+      int threadsPerDevice,
+      PrintStream progressOutput,
+      IoBudget budget
+  ) throws IOException {
+    List<SecureDirectoryStream<Path>> parents = new ArrayList<>(directories.size());
+    try {
+      for (File directory : directories) {
+        Path parentPath = directory.toPath().getParent();
+        if (parentPath == null) {
+          return false;
+        }
+        DirectoryStream<Path> parent = Files.newDirectoryStream(parentPath);
+        if (!(parent instanceof SecureDirectoryStream)) {
+          parent.close();
+          return false;
+        }
+        parents.add((SecureDirectoryStream<Path>) parent);
+      }
+      SecureDeleter deleter = new SecureDeleter(verboseQueue, dryRun, budget);
+      Map<FileStore, ForkJoinPool> pools = new LinkedHashMap<>();
+      List<SecureDeleteTask> tasks = new ArrayList<>(directories.size());
+      final long startTime = System.nanoTime();
+      try {
+        for (int i = 0; i < directories.size(); i++) {
+          Path directory = directories.get(i).toPath();
+          FileStore store = Files.getFileStore(directory);
+          ForkJoinPool pool = pools.get(store);
+          if (pool == null) {
+            pool = new ForkJoinPool(threadsPerDevice);
+            pools.put(store, pool);
           }
-          synchronized (deleteException) {
-            if (deleteException[0] != null) {
+          SecureDeleteTask task = new SecureDeleteTask(
+              null,
+              deleter,
+              parents.get(i),
+              directory.getFileName(),
+              verboseQueue == null ? null : directory
+          );
+          tasks.add(task);
+          pool.execute(task);
+        }
+        long lastProgressTime = startTime;
+        long lastProgressDeleted = 0;
+        for (SecureDeleteTask task : tasks) {
+          while (true) {
+            try {
+              if (progressOutput == null) {
+                task.get();
+              } else {
+                task.get(Math.max(0, lastProgressTime + PROGRESS_INTERVAL_NANOS - System.nanoTime()), TimeUnit.NANOSECONDS);
+              }
               break;
+            } catch (TimeoutException e) {
+              long now = System.nanoTime();
+              long deleted = deleter.deleted.get();
+              printProgress(progressOutput, deleted, deleted - lastProgressDeleted, now - lastProgressTime);
+              lastProgressTime = now;
+              lastProgressDeleted = deleted;
+            } catch (ExecutionException e) {
+              Throwable cause = e.getCause();
+              if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+              }
+              if (cause instanceof Error) {
+                throw (Error) cause;
+              }
+              throw new IOException(cause);
             }
           }
-          Iterator<String> iter = nextFiles.keySet().iterator();
-          if (!iter.hasNext()) {
-            break;
-          }
-          String relPath = iter.next();
-          for (FilesystemIterator iterator : nextFiles.remove(relPath)) {
-            sb.setLength(0);
-            sb.append(iterator.getStartPath());
-            sb.append(relPath);
-            String fullPath = sb.toString();
+        }
+      } catch (InterruptedException err) {
+        // Restore the interrupted status
+        Thread.currentThread().interrupt();
+        InterruptedIOException ioErr = new InterruptedIOException();
+        ioErr.initCause(err);
+        // Stop the tasks before closing their directories
+        deleter.setError(ioErr);
+        for (SecureDeleteTask task : tasks) {
+          task.quietlyJoin();
+        }
+      } finally {
+        for (ForkJoinPool pool : pools.values()) {
+          pool.shutdown();
+        }
+        // Tasks may still be running after one failed, wait for them before closing their directories
+        boolean interrupted = false;
+        for (ForkJoinPool pool : pools.values()) {
+          while (true) {
             try {
-              deleteQueue.put(new File(fullPath));
-            } catch (InterruptedException err) {
-              // Restore the interrupted status
-              Thread.currentThread().interrupt();
-              InterruptedIOException ioErr = new InterruptedIOException();
-              ioErr.initCause(err);
-              throw ioErr;
-            }
-            // Get the next file
-            File nextFile = iterator.getNextFile();
-            if (nextFile != null) {
-              String newRelPath = getRelativePath(nextFile, iterator);
-              List<FilesystemIterator> list = nextFiles.get(newRelPath);
-              if (list == null) {
-                nextFiles.put(newRelPath, list = new ArrayList<>(numDirectories));
+              if (pool.awaitTermination(1, TimeUnit.DAYS)) {
+                break;
               }
-              list.add(iterator);
+            } catch (InterruptedException err) {
+              interrupted = true;
             }
           }
         }
-      } finally {
-        // Wait for delete queue to be empty
-        synchronized (deleteThreadRun) {
-          deleteThreadRun[0] = false;
-        }
-        try {
-          deleteThread.join();
-        } catch (InterruptedException err) {
+        if (interrupted) {
           // Restore the interrupted status
           Thread.currentThread().interrupt();
-          InterruptedIOException ioErr = new InterruptedIOException();
-          ioErr.initCause(err);
-          throw ioErr;
-        }
-        // Throw any exception that caused this to stop
-        synchronized (deleteException) {
-          if (deleteException[0] != null) {
-            throw deleteException[0];
-          }
         }
       }
+      if (progressOutput != null) {
+        long deleted = deleter.deleted.get();
+        printProgress(progressOutput, deleted, deleted, System.nanoTime() - startTime);
+      }
+      // Throw any exception that caused this to stop
+      IOException error = deleter.error;
+      if (error != null) {
+        throw error;
+      }
+      return true;
     } finally {
-      // Wait for verbose queue to be empty
-      if (verboseThread != null) {
-        synchronized (verboseThreadRun) {
-          verboseThreadRun[0] = false;
-        }
-        try {
-          verboseThread.join();
-        } catch (InterruptedException err) {
-          // Restore the interrupted status
-          Thread.currentThread().interrupt();
-          InterruptedIOException ioErr = new InterruptedIOException();
-          ioErr.initCause(err);
-          throw ioErr;
-        }
+      for (SecureDirectoryStream<Path> parent : parents) {
+        parent.close();
       }
     }
   }
+  // </editor-fold>
+
+  private static void printProgress(PrintStream out, long deleted, long intervalDeleted, long intervalNanos) {
+    long perSecond = intervalNanos == 0 ? 0 : (intervalDeleted * TimeUnit.SECONDS.toNanos(1) / intervalNanos);
+    out.println("Deleted " + deleted + " (" + perSecond + "/s)");
+    out.flush();
+  }
 
   /**
    * Gets the relative path for the provided file from the provided iterator.
@@ -0,0 +1,437 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import com.aoapps.hodgepodge.io.FilesystemIterator.DirectoryAction;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Traverses the same files as a {@link FilesystemIterator}, with the same rules, start path,
+ * and ordering flags, but lists and inspects directories concurrently.
+ *
+ * <p>Two modes are offered:</p>
+ *
+ * <ol>
+ *   <li>{@link #getNextFile()} returns files in exactly the order of
+ *       {@link FilesystemIterator#getNextFile()}, while the subdirectories of the directories
+ *       being traversed are listed ahead on a {@link ForkJoinPool}.</li>
+ *   <li>{@link #spliterator()} and {@link #stream()} return the files in no particular order,
+ *       splitting off pending directories to other threads for maximum throughput.</li>
+ * </ol>
+ *
+ * <p>Listing a directory includes checking which of its entries are directories and applying the
+ * rules to them, which is where most of the time is spent waiting on the file system.
+ * The rules must be safe for concurrent use.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class ParallelFilesystemIterator {
+
+  private static final Entry[] EMPTY_ENTRIES = {};
+
+  private final FilesystemIterator config;
+  private final ForkJoinPool pool;
+
+  /**
+   * The number of subdirectories listed ahead of the current position within each directory.
+   */
+  private final int prefetch;
+
+  /**
+   * Traverses using the common pool.
+   */
+  public ParallelFilesystemIterator(FilesystemIterator config) {
+    this(config, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * @param  config  provides the rules, start path, and ordering, but is not itself advanced
+   * @param  pool  the pool that lists directories ahead for {@link #getNextFile()}
+   */
+  public ParallelFilesystemIterator(FilesystemIterator config, ForkJoinPool pool) {
+    this.config = config;
+    this.pool = pool;
+    this.prefetch = pool.getParallelism() * 2;
+  }
+
+  /**
+   * An entry of a directory, with its type and what is done with it already determined.
+   */
+  private static final class Entry {
+    private final String filename;
+    private final boolean directory;
+
+    /**
+     * For directories, what is done with it.  For other files, {@link DirectoryAction#INCLUDE} or
+     * {@link DirectoryAction#SKIP}.
+     */
+    private final DirectoryAction action;
+
+    /**
+     * For directories being recursed, the listing once started.
+     */
+    private ForkJoinTask<Entry[]> listing;
+
+    private Entry(String filename, boolean directory, DirectoryAction action) {
+      this.filename = filename;
+      this.directory = directory;
+      this.action = action;
+    }
+  }
+
+  /**
+   * Determines the type and action of each entry of a directory.
+   */
+  private Entry[] classify(String directory, String[] names) throws IOException {
+    Entry[] entries = new Entry[names.length];
+    for (int i = 0; i < names.length; i++) {
+      String filename = FilesystemIterator.resolve(directory, names[i]);
+      if (new File(filename).isDirectory()) {
+        entries[i] = new Entry(filename, true, config.getDirectoryAction(filename));
+      } else {
+        entries[i] = new Entry(filename, false, config.isIncluded(filename) ? DirectoryAction.INCLUDE : DirectoryAction.SKIP);
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Lists and classifies the contents of a directory being recursed.
+   *
+   * @return  the entries or {@code null} when the directory no longer exists
+   */
+  private Entry[] list(String filename) throws IOException {
+    String[] names;
+    try {
+      names = config.listDirectory(new File(filename), filename);
+    } catch (FileNotFoundException err) {
+      // Normal if the file was deleted while accessing
+      return null;
+    }
+    return names.length == 0 ? EMPTY_ENTRIES : classify(filename, names);
+  }
+
+  private Entry[] getStartEntries() throws IOException {
+    String startDirectory = config.getStartDirectory();
+    return startDirectory == null ? EMPTY_ENTRIES : classify(startDirectory, config.getStartList());
+  }
+
+  // <editor-fold defaultstate="collapsed" desc="Ordered">
+
+  private static final class Frame {
+    private final String directory;
+    private final Entry[] entries;
+    private int index;
+    private int prefetchIndex;
+
+    /**
+     * The number of listings started and not yet reached.
+     */
+    private int prefetched;
+
+    private Frame(String directory, Entry[] entries) {
+      this.directory = directory;
+      this.entries = entries;
+    }
+  }
+
+  private Deque<Frame> frames;
+  private boolean filesDone;
+
+  /**
+   * Starts listing the next subdirectories of the frame.
+   */
+  private void prefetch(Frame frame) {
+    while (frame.prefetched < prefetch && frame.prefetchIndex < frame.entries.length) {
+      Entry entry = frame.entries[frame.prefetchIndex++];
+      if (entry.action == DirectoryAction.RECURSE) {
+        entry.listing = pool.submit(() -> list(entry.filename));
+        frame.prefetched++;
+      }
+    }
+  }
+
+  private Entry[] join(Entry entry) throws IOException {
+    try {
+      return entry.listing.get();
+    } catch (InterruptedException err) {
+      // Restore the interrupted status
+      Thread.currentThread().interrupt();
+      InterruptedIOException ioErr = new InterruptedIOException();
+      ioErr.initCause(err);
+      throw ioErr;
+    } catch (ExecutionException err) {
+      Throwable cause = err.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    } finally {
+      entry.listing = null;
+    }
+  }
+
+  /**
+   * Gets the next file in the same order as {@link FilesystemIterator#getNextFile()}, or
+   * <code>null</code> when the traversal has completed.
+   * This method is internally synchronized and is thread-safe.
+   */
+  public File getNextFile() throws IOException {
+    synchronized (this) {
+      while (true) {
+        if (filesDone) {
+          return null;
+        }
+        if (frames == null) {
+          frames = new ArrayDeque<>();
+          Frame root = new Frame(null, getStartEntries());
+          frames.push(root);
+          prefetch(root);
+        }
+        Frame frame = frames.peek();
+        if (frame.index >= frame.entries.length) {
+          frames.pop();
+          if (frames.isEmpty()) {
+            filesDone = true;
+            return null;
+          }
+          if (!config.isPreorder()) {
+            return new File(frame.directory);
+          }
+          continue;
+        }
+        Entry entry = frame.entries[frame.index++];
+        if (entry.listing != null) {
+          frame.prefetched--;
+        }
+        prefetch(frame);
+        if (entry.action == DirectoryAction.SKIP) {
+          continue;
+        }
+        File file = new File(entry.filename);
+        if (entry.directory) {
+          Entry[] children;
+          if (entry.action == DirectoryAction.RECURSE) {
+            if (entry.listing == null) {
+              entry.listing = pool.submit(() -> list(entry.filename));
+            }
+            children = join(entry);
+            if (children == null) {
+              continue;
+            }
+          } else {
+            children = EMPTY_ENTRIES;
+          }
+          if (children.length > 0) {
+            Frame child = new Frame(entry.filename, children);
+            frames.push(child);
+            prefetch(child);
+            if (config.isPreorder()) {
+              return file;
+            }
+          } else {
+            // If empty directory both preorder and postorder return directory immediately
+            return file;
+          }
+        } else {
+          return file;
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the next files, up to batchSize, with a single acquisition of the lock.
+   *
+   * @return the number of files in the array, zero (0) indicates iteration has completed
+   */
+  public int getNextFiles(final File[] files, final int batchSize) throws IOException {
+    synchronized (this) {
+      int c = 0;
+      while (c < batchSize) {
+        File file = getNextFile();
+        if (file == null) {
+          break;
+        }
+        files[c++] = file;
+      }
+      return c;
+    }
+  }
+
+  // </editor-fold>
+
+  // <editor-fold defaultstate="collapsed" desc="Unordered">
+
+  /**
+   * Lists pending directories as advanced, and splits by giving half the pending directories to the new spliterator.
+   */
+  private final class UnorderedSpliterator implements Spliterator<Path> {
+
+    private final Deque<String> directories;
+    private final Deque<Path> files = new ArrayDeque<>();
+
+    /**
+     * Whether the start entries have been added, only initially false for the first spliterator.
+     */
+    private boolean started;
+
+    private UnorderedSpliterator(Deque<String> directories, boolean started) {
+      this.directories = directories;
+      this.started = started;
+    }
+
+    private void add(Entry[] entries) {
+      for (Entry entry : entries) {
+        if (entry.action == DirectoryAction.RECURSE) {
+          directories.add(entry.filename);
+        } else if (entry.action == DirectoryAction.INCLUDE) {
+          files.add(new File(entry.filename).toPath());
+        }
+      }
+    }
+
+    /**
+     * Lists the next pending directory.
+     *
+     * @return  {@code false} when nothing more is pending
+     */
+    private boolean expand() {
+      try {
+        if (!started) {
+          started = true;
+          add(getStartEntries());
+          return true;
+        }
+        String directory = directories.pollFirst();
+        if (directory == null) {
+          return false;
+        }
+        Entry[] entries = list(directory);
+        if (entries != null) {
+          files.add(new File(directory).toPath());
+          add(entries);
+        }
+        return true;
+      } catch (IOException err) {
+        throw new UncheckedIOException(err);
+      }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Path> action) {
+      while (files.isEmpty()) {
+        if (!expand()) {
+          return false;
+        }
+      }
+      action.accept(files.poll());
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Path> action) {
+      while (true) {
+        Path file;
+        while ((file = files.poll()) != null) {
+          action.accept(file);
+        }
+        if (!expand()) {
+          return;
+        }
+      }
+    }
+
+    @Override
+    public Spliterator<Path> trySplit() {
+      // Expand until there is more than one directory to share
+      while (directories.size() < 2 && (!started || !directories.isEmpty())) {
+        expand();
+      }
+      int size = directories.size();
+      if (size < 2) {
+        return null;
+      }
+      Deque<String> split = new ArrayDeque<>(size / 2);
+      for (int i = size / 2; i > 0; i--) {
+        split.add(directories.pollLast());
+      }
+      return new UnorderedSpliterator(split, true);
+    }
+
+    @Override
+    public long estimateSize() {
+      return directories.isEmpty() && started ? files.size() : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+      return DISTINCT | NONNULL;
+    }
+  }
+
+  /**
+   * Gets a spliterator over all files in no particular order.  Each spliterator lists its own
+   * directories, so the traversal is parallel when split, such as by a parallel {@link #stream()}.
+   * Each call starts a new traversal, independent of {@link #getNextFile()}.
+   *
+   * @throws  UncheckedIOException  when advancing fails to list a directory
+   */
+  public Spliterator<Path> spliterator() {
+    return new UnorderedSpliterator(new ArrayDeque<>(), false);
+  }
+
+  /**
+   * Gets a parallel stream of all files in no particular order.  The stream runs in the
+   * {@link ForkJoinPool#commonPool() common pool}, unless its terminal operation is invoked
+   * from within another pool.
+   *
+   * @see  #spliterator()
+   */
+  public Stream<Path> stream() {
+    return StreamSupport.stream(spliterator(), true);
+  }
+
+  // </editor-fold>
+}
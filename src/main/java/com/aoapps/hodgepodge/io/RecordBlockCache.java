@@ -0,0 +1,319 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache of blocks of records from a {@link FixedRecordFile}.
+ * Modified blocks are written back when evicted or {@link #flush() flushed}.
+ * Runs of sequential block access are detected and trigger read-ahead of the following blocks
+ * in a single read.
+ *
+ * <p>The cache only sees records by index, so any operation that shifts records within the file
+ * must first call {@link #invalidateFrom(int)}.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class RecordBlockCache {
+
+  /**
+   * The number of consecutive sequential block accesses that triggers read-ahead.
+   */
+  private static final int SEQUENTIAL_THRESHOLD = 2;
+
+  static final class Block {
+
+    private final int blockIndex;
+    private final byte[] data;
+    private final ByteBuffer buffer;
+    private int recordCount;
+    private boolean dirty;
+
+    private Block(int blockIndex, byte[] data) {
+      this.blockIndex = blockIndex;
+      this.data = data;
+      this.buffer = ByteBuffer.wrap(data);
+    }
+
+    /**
+     * Gets the underlying bytes of this block, each record is the slice
+     * starting at {@link RecordBlockCache#getOffset(int)}.
+     */
+    byte[] getData() {
+      return data;
+    }
+
+    /**
+     * Gets a buffer wrapping {@link #getData()}, shared by all users of this block.
+     */
+    ByteBuffer getBuffer() {
+      return buffer;
+    }
+  }
+
+  private final FixedRecordFile frf;
+  private final int recordLength;
+  private final int blockRecords;
+  private final int blockBytes;
+  private final int maxBlocks;
+  private final int readAheadBlocks;
+
+  private final LinkedHashMap<Integer, Block> blocks;
+
+  private final byte[] readAheadBuffer;
+  private final byte[] swapBuffer1;
+  private final byte[] swapBuffer2;
+
+  private int lastBlockIndex = -1;
+  private int sequentialCount;
+
+  /**
+   * @param  blockSize  The target size of each block in bytes.  Each block contains at least one record.
+   * @param  cacheSize  The maximum number of bytes to cache.  At least one block is always cached.
+   * @param  readAheadSize  The maximum number of bytes to read ahead once sequential access is detected,
+   *                        or {@code 0} to disable read-ahead.
+   */
+  RecordBlockCache(FixedRecordFile frf, int blockSize, long cacheSize, int readAheadSize) {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("blockSize <= 0: " + blockSize);
+    }
+    if (cacheSize < 0) {
+      throw new IllegalArgumentException("cacheSize < 0: " + cacheSize);
+    }
+    if (readAheadSize < 0) {
+      throw new IllegalArgumentException("readAheadSize < 0: " + readAheadSize);
+    }
+    this.frf = frf;
+    this.recordLength = frf.getRecordLength();
+    this.blockRecords = Math.max(1, blockSize / recordLength);
+    this.blockBytes = blockRecords * recordLength;
+    this.maxBlocks = (int) Math.max(1, Math.min(Integer.MAX_VALUE, cacheSize / blockBytes));
+    // Never read ahead more than half the cache, so that read-ahead does not evict itself
+    this.readAheadBlocks = Math.min(readAheadSize / blockBytes, maxBlocks / 2);
+    this.blocks = new LinkedHashMap<>(16, 0.75f, true);
+    this.readAheadBuffer = readAheadBlocks > 1 ? new byte[readAheadBlocks * blockBytes] : null;
+    this.swapBuffer1 = new byte[recordLength];
+    this.swapBuffer2 = new byte[recordLength];
+  }
+
+  /**
+   * Gets the offset of the given record within its block data.
+   */
+  int getOffset(int index) {
+    return (index % blockRecords) * recordLength;
+  }
+
+  /**
+   * Gets the block containing the given record, reading it from the file when not cached.
+   */
+  Block getBlock(int index) throws IndexOutOfBoundsException, IOException {
+    if (index < 0) {
+      throw new IndexOutOfBoundsException(index + "<0");
+    }
+    int blockIndex = index / blockRecords;
+    // Sequential access detection
+    if (blockIndex == lastBlockIndex + 1) {
+      sequentialCount++;
+    } else if (blockIndex != lastBlockIndex) {
+      sequentialCount = 0;
+    }
+    lastBlockIndex = blockIndex;
+
+    Block block = blocks.get(blockIndex);
+    if (block == null) {
+      int recordCount = frf.getRecordCount();
+      if (index >= recordCount) {
+        throw new IndexOutOfBoundsException(index + " >= " + recordCount);
+      }
+      block = load(blockIndex, recordCount);
+    } else if (index - blockIndex * blockRecords >= block.recordCount) {
+      throw new IndexOutOfBoundsException(index + " >= " + (blockIndex * blockRecords + block.recordCount));
+    }
+    return block;
+  }
+
+  /**
+   * Reads one or more blocks, starting at the given block, into the cache.
+   */
+  private Block load(int blockIndex, int recordCount) throws IOException {
+    int firstRecord = blockIndex * blockRecords;
+    int numBlocks = 1;
+    if (readAheadBuffer != null && sequentialCount >= SEQUENTIAL_THRESHOLD) {
+      int lastBlock = (recordCount - 1) / blockRecords;
+      while (
+          numBlocks < readAheadBlocks
+              && blockIndex + numBlocks <= lastBlock
+              && !blocks.containsKey(blockIndex + numBlocks)
+      ) {
+        numBlocks++;
+      }
+    }
+    int numRecords = Math.min(numBlocks * blockRecords, recordCount - firstRecord);
+    Block first;
+    if (numBlocks == 1) {
+      first = new Block(blockIndex, new byte[blockBytes]);
+      frf.readRecords(firstRecord, first.data, 0, numRecords);
+      first.recordCount = numRecords;
+      put(first);
+    } else {
+      frf.readRecords(firstRecord, readAheadBuffer, 0, numRecords);
+      // Add read-ahead blocks first, so the requested block is the most recently used
+      first = null;
+      for (int i = numBlocks - 1; i >= 0; i--) {
+        Block block = new Block(blockIndex + i, new byte[blockBytes]);
+        int count = Math.min(blockRecords, numRecords - i * blockRecords);
+        System.arraycopy(readAheadBuffer, i * blockBytes, block.data, 0, count * recordLength);
+        block.recordCount = count;
+        put(block);
+        first = block;
+      }
+    }
+    return first;
+  }
+
+  private void put(Block block) throws IOException {
+    blocks.put(block.blockIndex, block);
+    if (blocks.size() > maxBlocks) {
+      Iterator<Block> iter = blocks.values().iterator();
+      while (blocks.size() > maxBlocks) {
+        Block eldest = iter.next();
+        if (eldest.dirty) {
+          write(eldest);
+        }
+        iter.remove();
+      }
+    }
+  }
+
+  private void write(Block block) throws IOException {
+    frf.writeRecords(block.blockIndex * blockRecords, block.data, 0, block.recordCount);
+    block.dirty = false;
+  }
+
+  /**
+   * Reads the given record into the provided buffer.
+   */
+  void read(int index, byte[] buff) throws IndexOutOfBoundsException, IOException {
+    Block block = getBlock(index);
+    System.arraycopy(block.data, getOffset(index), buff, 0, recordLength);
+  }
+
+  /**
+   * Writes the given record, leaving any bytes past {@code len} unchanged.
+   * The write is only sent to the file on eviction or {@link #flush()}.
+   */
+  void write(int index, byte[] buff, int len) throws IndexOutOfBoundsException, IOException {
+    if (len > recordLength) {
+      throw new IllegalArgumentException("len > recordLength: " + len + " > " + recordLength);
+    }
+    Block block = getBlock(index);
+    System.arraycopy(buff, 0, block.data, getOffset(index), len);
+    block.dirty = true;
+  }
+
+  /**
+   * Swaps two records within the cache.
+   */
+  void swap(int index1, int index2) throws IndexOutOfBoundsException, IOException {
+    if (index1 != index2) {
+      read(index1, swapBuffer1);
+      read(index2, swapBuffer2);
+      write(index2, swapBuffer1, recordLength);
+      write(index1, swapBuffer2, recordLength);
+    }
+  }
+
+  /**
+   * Writes all dirty blocks to the file, in file order.
+   */
+  void flush() throws IOException {
+    List<Block> dirty = null;
+    for (Block block : blocks.values()) {
+      if (block.dirty) {
+        if (dirty == null) {
+          dirty = new ArrayList<>();
+        }
+        dirty.add(block);
+      }
+    }
+    if (dirty != null) {
+      Collections.sort(dirty, (b1, b2) -> Integer.compare(b1.blockIndex, b2.blockIndex));
+      for (Block block : dirty) {
+        write(block);
+      }
+    }
+  }
+
+  /**
+   * Writes any dirty blocks containing the given record or any record after it, then removes
+   * them from the cache.  This must be called before records at or after the given index are shifted
+   * within the underlying file.
+   */
+  void invalidateFrom(int index) throws IOException {
+    invalidateRange(index, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Writes any dirty blocks containing any of the given records, then removes them from the cache.
+   * This must be called before the records are written directly to the underlying file.
+   *
+   * @param  to  exclusive
+   */
+  void invalidateRange(int from, int to) throws IOException {
+    if (from >= to) {
+      return;
+    }
+    int fromBlock = Math.max(0, from) / blockRecords;
+    int toBlock = (to - 1) / blockRecords;
+    Iterator<Map.Entry<Integer, Block>> iter = blocks.entrySet().iterator();
+    while (iter.hasNext()) {
+      Block block = iter.next().getValue();
+      if (block.blockIndex >= fromBlock && block.blockIndex <= toBlock) {
+        if (block.dirty) {
+          write(block);
+        }
+        iter.remove();
+      }
+    }
+  }
+
+  /**
+   * Discards all cached blocks without writing them, used when the file is being cleared.
+   */
+  void clear() {
+    blocks.clear();
+    lastBlockIndex = -1;
+    sequentialCount = 0;
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * The common implementation of lists of fixed-width values stored in a temporary
+ * {@link FixedRecordFile}, accessed through a block cache.
+ *
+ * @see  IntFileList
+ * @see  LongFileList
+ * @see  BytesFileList
+ *
+ * @author  AO Industries, Inc.
+ */
+public abstract class RecordFileList<E> extends AbstractList<E> implements RandomAccess, Closeable, Flushable {
+
+  private final RecordFileStorage storage;
+  final FixedRecordFile frf;
+  final RecordBlockCache cache;
+
+  /**
+   * Holds a single encoded record.
+   */
+  final byte[] recordBuffer;
+
+  private byte[] batchBuffer;
+
+  /**
+   * @param  cacheSize  The maximum number of bytes of records to cache in memory.  At least one block is always cached.
+   */
+  RecordFileList(
+      String filenamePrefix,
+      String filenameExtension,
+      int recordLength,
+      long cacheSize
+  ) throws IOException {
+    if (cacheSize < 0) {
+      throw new IllegalArgumentException("cacheSize < 0: " + cacheSize);
+    }
+    // At least one block is always cached
+    this.storage = new RecordFileStorage(filenamePrefix, filenameExtension, recordLength, false, Math.max(1, cacheSize), false);
+    this.frf = storage.frf;
+    this.cache = storage.cache;
+    this.recordBuffer = new byte[recordLength];
+  }
+
+  public String getFilenamePrefix() {
+    return storage.getFilenamePrefix();
+  }
+
+  public String getFilenameExtension() {
+    return storage.getFilenameExtension();
+  }
+
+  public int getRecordLength() {
+    return frf.getRecordLength();
+  }
+
+  /**
+   * Gets the reusable buffer for bulk operations, holding at least one record.
+   */
+  byte[] getBatchBuffer() {
+    if (batchBuffer == null) {
+      batchBuffer = new byte[storage.getBatchRecords() * frf.getRecordLength()];
+    }
+    return batchBuffer;
+  }
+
+  /**
+   * Gets the number of records held by {@link #getBatchBuffer()}.
+   */
+  int getBatchRecords() {
+    return getBatchBuffer().length / frf.getRecordLength();
+  }
+
+  UncheckedIOException wrap(IOException err) {
+    return new UncheckedIOException("frf=" + frf, err);
+  }
+
+  @Override
+  public int size() {
+    try {
+      return frf.getRecordCount();
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  @Override
+  public void clear() {
+    try {
+      cache.clear();
+      frf.removeAllRecords();
+      modCount++;
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  public void swap(int index1, int index2) {
+    try {
+      cache.swap(index1, index2);
+    } catch (IOException err) {
+      throw wrap(err);
+    }
+  }
+
+  /**
+   * Inserts records at the given index.
+   */
+  void insertRecords(int index, byte[] src, int off, int numRecords) throws IOException, IndexOutOfBoundsException {
+    checkInsert(index);
+    if (numRecords > 0) {
+      cache.invalidateFrom(index);
+      frf.addRecords(index, numRecords);
+      frf.writeRecords(index, src, off, numRecords);
+      modCount++;
+    }
+  }
+
+  void removeRecord(int index) throws IOException {
+    cache.invalidateFrom(index);
+    frf.removeRecord(index);
+    modCount++;
+  }
+
+  /**
+   * Reads existing records directly from the file, bypassing the cache.
+   */
+  void readRecords(int index, byte[] dest, int off, int numRecords) throws IOException {
+    // Cached changes must be in the file
+    cache.flush();
+    frf.readRecords(index, dest, off, numRecords);
+  }
+
+  /**
+   * Writes existing records directly to the file, bypassing the cache.
+   */
+  void writeRecords(int index, byte[] src, int off, int numRecords) throws IOException {
+    cache.invalidateRange(index, index + numRecords);
+    frf.writeRecords(index, src, off, numRecords);
+  }
+
+  void checkRange(int from, int len, int arrayOff, int arrayLength) throws IndexOutOfBoundsException {
+    if (len < 0) {
+      throw new IndexOutOfBoundsException("len<0: " + len);
+    }
+    if (arrayOff < 0 || arrayOff + len > arrayLength) {
+      throw new IndexOutOfBoundsException("off=" + arrayOff + ", len=" + len + ", array length=" + arrayLength);
+    }
+    if (from < 0) {
+      throw new IndexOutOfBoundsException("from<0: " + from);
+    }
+  }
+
+  /**
+   * Checks that a range of records all exist.
+   */
+  void checkRecords(int from, int numRecords) throws IndexOutOfBoundsException {
+    int size = size();
+    if (from < 0 || numRecords < 0 || from > size - numRecords) {
+      throw new IndexOutOfBoundsException("from=" + from + ", len=" + numRecords + ", size=" + size);
+    }
+  }
+
+  /**
+   * Checks that records may be inserted at the given index.
+   */
+  void checkInsert(int index) throws IndexOutOfBoundsException {
+    int size = size();
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+    }
+  }
+
+  /**
+   * Writes any modified records held in the block cache to the underlying file.
+   */
+  @Override
+  public void flush() throws IOException {
+    storage.flush();
+  }
+
+  /**
+   * Closes the list and deletes its temporary file.  Modified records in the block cache are
+   * discarded instead of written, since the file is deleted.
+   */
+  @Override
+  public void close() throws IOException {
+    storage.close();
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.aoapps.hodgepodge.io;
+
+import com.aoapps.lang.AutoCloseables;
+import com.aoapps.tempfiles.TempFileContext;
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * The temporary {@link FixedRecordFile} and optional block cache shared by {@link FileList} and
+ * {@link RecordFileList}.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class RecordFileStorage implements Closeable, Flushable {
+
+  /**
+   * The size of each cached block of records, rounded down to a multiple of the record length.
+   */
+  private static final int BLOCK_SIZE = 4096;
+
+  /**
+   * The maximum number of bytes read ahead once sequential access is detected.
+   */
+  private static final int READ_AHEAD_SIZE = 64 * 1024;
+
+  /**
+   * The target number of bytes per I/O for bulk operations.
+   */
+  private static final int BATCH_SIZE = 64 * 1024;
+
+  private final String filenamePrefix;
+  private final String filenameExtension;
+  private final TempFileContext tempFileContext;
+  final FixedRecordFile frf;
+
+  /**
+   * The block cache or {@code null} when not cached.
+   */
+  final RecordBlockCache cache;
+
+  /**
+   * @param  memoryMapped  When {@code true}, records are accessed through a {@link MappedFixedRecordFile}.
+   *
+   * @param  cacheSize  The maximum number of bytes of records to cache in memory, or {@code 0} to disable the cache.
+   *
+   * @param  indexed  When {@code true}, the file uses an {@link FixedRecordFile#setIndexed(boolean) indexed layout}.
+   */
+  RecordFileStorage(
+      String filenamePrefix,
+      String filenameExtension,
+      int recordLength,
+      boolean memoryMapped,
+      long cacheSize,
+      boolean indexed
+  ) throws IOException {
+    if (recordLength <= 0) {
+      throw new IllegalArgumentException("recordLength <= 0: " + recordLength);
+    }
+    if (cacheSize < 0) {
+      throw new IllegalArgumentException("cacheSize < 0: " + cacheSize);
+    }
+    this.filenamePrefix = filenamePrefix;
+    this.filenameExtension = filenameExtension;
+    this.tempFileContext = new TempFileContext();
+    File file = tempFileContext.createTempFile(
+        filenamePrefix + '_',
+        filenameExtension == null ? null : ("." + filenameExtension)
+    ).getFile();
+    this.frf = memoryMapped
+        ? new MappedFixedRecordFile(file, "rw", recordLength)
+        : new FixedRecordFile(file, "rw", recordLength);
+    if (indexed) {
+      frf.setIndexed(true);
+    }
+    this.cache = cacheSize == 0 ? null : new RecordBlockCache(frf, BLOCK_SIZE, cacheSize, READ_AHEAD_SIZE);
+  }
+
+  String getFilenamePrefix() {
+    return filenamePrefix;
+  }
+
+  String getFilenameExtension() {
+    return filenameExtension;
+  }
+
+  /**
+   * Gets the number of records per I/O for bulk operations, at least one.
+   */
+  int getBatchRecords() {
+    return Math.max(1, BATCH_SIZE / frf.getRecordLength());
+  }
+
+  /**
+   * Writes any modified records held in the block cache to the underlying file.
+   */
+  @Override
+  public void flush() throws IOException {
+    if (cache != null) {
+      cache.flush();
+    }
+  }
+
+  /**
+   * Closes and deletes the temporary file.  Modified records in the block cache are
+   * discarded instead of written, and an indexed file is not compacted, since the file is deleted.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (frf.isIndexed()) {
+        frf.removeAllRecords();
+      }
+    } finally {
+      AutoCloseables.closeAndThrow(IOException.class, IOException::new, frf, tempFileContext);
+    }
+  }
+}
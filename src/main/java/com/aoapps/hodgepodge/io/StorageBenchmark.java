@@ -0,0 +1,641 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import com.aoapps.lang.Strings;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A storage read benchmark for qualifying files or devices, such as <code>/dev/md0</code>.  Each run reads with one
+ * {@link Access access method}, {@link Pattern pattern}, block size, and queue depth for a fixed duration, recording
+ * the latency of every read into a {@link LatencyHistogram}.  The results are written as JSON so that runs on
+ * different nodes may be compared directly.
+ *
+ * <p>The queue depth is the number of reads kept outstanding, each by its own thread.  Virtual threads are used when
+ * the Java runtime supports them, so very high queue depths are practical.  Otherwise, a platform thread is used per
+ * read.</p>
+ *
+ * <p>All access methods other than {@link Access#DIRECT_IO} may be served from the page cache.  Benchmark files
+ * larger than memory, or devices, to measure the storage itself.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public final class StorageBenchmark {
+
+  /** Make no instances. */
+  private StorageBenchmark() {
+    throw new AssertionError();
+  }
+
+  /**
+   * How the file is read.
+   */
+  public enum Access {
+    /**
+     * Positional {@link FileChannel} reads into a heap buffer, which the JDK copies through a temporary direct buffer.
+     */
+    CHANNEL_HEAP,
+
+    /**
+     * Positional {@link FileChannel} reads into a direct buffer.
+     */
+    CHANNEL_DIRECT,
+
+    /**
+     * Copies from a memory-mapped file, faulting pages in as needed.  Each region of the file is mapped when
+     * first read, and is reused by the later runs of the same file from the command line.
+     */
+    MAPPED,
+
+    /**
+     * Positional reads bypassing the page cache with <code>O_DIRECT</code>, into aligned direct buffers.
+     * Only available where the runtime provides <code>com.sun.nio.file.ExtendedOpenOption.DIRECT</code>
+     * and the file system supports it.
+     */
+    DIRECT_IO
+  }
+
+  /**
+   * The order of the reads.
+   */
+  public enum Pattern {
+    /**
+     * Consecutive blocks, shared between all outstanding reads and wrapping at the end.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Uniformly random blocks.
+     */
+    RANDOM
+  }
+
+  private static final Method newVirtualThreadPerTaskExecutor;
+
+  static {
+    Method method;
+    try {
+      method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    } catch (NoSuchMethodException e) {
+      method = null;
+    }
+    newVirtualThreadPerTaskExecutor = method;
+  }
+
+  private static final OpenOption DIRECT;
+
+  static {
+    OpenOption direct;
+    try {
+      @SuppressWarnings({"unchecked", "rawtypes"})
+      OpenOption option = (OpenOption) Enum.valueOf((Class) Class.forName("com.sun.nio.file.ExtendedOpenOption"), "DIRECT");
+      direct = option;
+    } catch (ClassNotFoundException | IllegalArgumentException | LinkageError e) {
+      direct = null;
+    }
+    DIRECT = direct;
+  }
+
+  /**
+   * Checks if reads will be performed by virtual threads.
+   */
+  public static boolean isVirtualThreads() {
+    return newVirtualThreadPerTaskExecutor != null;
+  }
+
+  /**
+   * Checks if the runtime provides {@link Access#DIRECT_IO}, although each file system may still not support it.
+   */
+  public static boolean isDirectIoAvailable() {
+    return DIRECT != null;
+  }
+
+  private static ExecutorService newExecutor(int queueDepth) {
+    if (newVirtualThreadPerTaskExecutor != null) {
+      try {
+        return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        // Fall-through to platform threads
+      }
+    }
+    return Executors.newFixedThreadPool(queueDepth);
+  }
+
+  /**
+   * The results of one run.
+   */
+  public static final class Result {
+
+    private final File file;
+    private final Access access;
+    private final Pattern pattern;
+    private final int blockSize;
+    private final int queueDepth;
+    private final String skipped;
+    private final long bytes;
+    private final long nanos;
+    private final LatencyHistogram latencies;
+
+    private Result(
+        File file,
+        Access access,
+        Pattern pattern,
+        int blockSize,
+        int queueDepth,
+        String skipped,
+        long bytes,
+        long nanos,
+        LatencyHistogram latencies
+    ) {
+      this.file = file;
+      this.access = access;
+      this.pattern = pattern;
+      this.blockSize = blockSize;
+      this.queueDepth = queueDepth;
+      this.skipped = skipped;
+      this.bytes = bytes;
+      this.nanos = nanos;
+      this.latencies = latencies;
+    }
+
+    public File getFile() {
+      return file;
+    }
+
+    public Access getAccess() {
+      return access;
+    }
+
+    public Pattern getPattern() {
+      return pattern;
+    }
+
+    public int getBlockSize() {
+      return blockSize;
+    }
+
+    public int getQueueDepth() {
+      return queueDepth;
+    }
+
+    /**
+     * Gets the reason this run was skipped, or {@code null} when it was run.
+     */
+    public String getSkipped() {
+      return skipped;
+    }
+
+    public long getOps() {
+      return latencies.getCount();
+    }
+
+    public long getBytes() {
+      return bytes;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    /**
+     * Gets the latency of every read, in nanoseconds.
+     */
+    public LatencyHistogram getLatencies() {
+      return latencies;
+    }
+
+    public double getOpsPerSecond() {
+      return nanos == 0 ? 0 : (latencies.getCount() * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+    }
+
+    public double getBytesPerSecond() {
+      return nanos == 0 ? 0 : (bytes * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      sb.append(file).append(' ').append(access).append(' ').append(pattern)
+          .append(' ').append(Strings.getApproximateSize(blockSize)).append(" x ").append(queueDepth).append(": ");
+      if (skipped != null) {
+        sb.append("skipped, ").append(skipped);
+      } else {
+        sb.append(Math.round(getOpsPerSecond())).append(" IOPS, ")
+            .append(Strings.getApproximateSize(Math.round(getBytesPerSecond()))).append("/s, p50 ")
+            .append(TimeUnit.NANOSECONDS.toMicros(latencies.getPercentile(50))).append(" us, p99 ")
+            .append(TimeUnit.NANOSECONDS.toMicros(latencies.getPercentile(99))).append(" us, max ")
+            .append(TimeUnit.NANOSECONDS.toMicros(latencies.getMax())).append(" us");
+      }
+      return sb.toString();
+    }
+
+    /**
+     * Appends this result as a JSON object.
+     */
+    public void appendJson(StringBuilder json) {
+      json.append("{\"file\":");
+      appendJsonString(file.getPath(), json);
+      json.append(",\"access\":\"").append(access).append('"');
+      json.append(",\"pattern\":\"").append(pattern).append('"');
+      json.append(",\"blockSize\":").append(blockSize);
+      json.append(",\"queueDepth\":").append(queueDepth);
+      if (skipped != null) {
+        json.append(",\"skipped\":");
+        appendJsonString(skipped, json);
+      } else {
+        json.append(",\"ops\":").append(latencies.getCount());
+        json.append(",\"bytes\":").append(bytes);
+        json.append(",\"nanos\":").append(nanos);
+        json.append(",\"opsPerSecond\":").append(String.format(Locale.ROOT, "%.3f", getOpsPerSecond()));
+        json.append(",\"bytesPerSecond\":").append(String.format(Locale.ROOT, "%.3f", getBytesPerSecond()));
+        json.append(",\"latencyNanos\":{\"min\":").append(latencies.getMin());
+        json.append(",\"mean\":").append(String.format(Locale.ROOT, "%.3f", latencies.getMean()));
+        for (String percentile : PERCENTILES) {
+          json.append(",\"p").append(percentile).append("\":").append(latencies.getPercentile(Double.parseDouble(percentile)));
+        }
+        json.append(",\"max\":").append(latencies.getMax()).append('}');
+      }
+      json.append('}');
+    }
+  }
+
+  private static final String[] PERCENTILES = {"50", "90", "99", "99.9", "99.99"};
+
+  private static void appendJsonString(String value, StringBuilder json) {
+    json.append('"');
+    for (int i = 0, len = value.length(); i < len; i++) {
+      char ch = value.charAt(i);
+      if (ch == '"' || ch == '\\') {
+        json.append('\\').append(ch);
+      } else if (ch < ' ') {
+        json.append(String.format(Locale.ROOT, "\\u%04x", (int) ch));
+      } else {
+        json.append(ch);
+      }
+    }
+    json.append('"');
+  }
+
+  /**
+   * The largest region mapped at once, when the file is larger.
+   */
+  private static final int MAX_MAP_SIZE = 1 << 30;
+
+  /**
+   * The regions of one file mapped so far.  Each region is mapped when first read and reused by
+   * every later run of the same file, since mappings are only released once garbage collected.
+   * Mappings remain valid after the channel used to create them is closed.
+   */
+  private static final class Mapping {
+
+    private long length = -1;
+    private volatile AtomicReferenceArray<MappedByteBuffer> regions;
+
+    /**
+     * Prepares for reading a file of the given length, discarding the regions when the length has changed.
+     */
+    private void setLength(long newLength) {
+      synchronized (this) {
+        if (newLength != length) {
+          length = newLength;
+          regions = new AtomicReferenceArray<>((int) ((newLength + MAX_MAP_SIZE - 1) / MAX_MAP_SIZE));
+        }
+      }
+    }
+
+    private MappedByteBuffer getRegion(FileChannel channel, int index) throws IOException {
+      AtomicReferenceArray<MappedByteBuffer> myRegions = regions;
+      MappedByteBuffer region = myRegions.get(index);
+      if (region == null) {
+        synchronized (this) {
+          region = myRegions.get(index);
+          if (region == null) {
+            long start = (long) index * MAX_MAP_SIZE;
+            region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAX_MAP_SIZE, length - start));
+            myRegions.set(index, region);
+          }
+        }
+      }
+      return region;
+    }
+
+    /**
+     * Copies from the mapped regions, mapping any not yet mapped.
+     */
+    private void read(FileChannel channel, long pos, byte[] buff) throws IOException {
+      int off = 0;
+      while (off < buff.length) {
+        ByteBuffer region = getRegion(channel, (int) (pos / MAX_MAP_SIZE)).duplicate();
+        region.position((int) (pos % MAX_MAP_SIZE));
+        int count = Math.min(buff.length - off, region.remaining());
+        region.get(buff, off, count);
+        pos += count;
+        off += count;
+      }
+    }
+  }
+
+  /**
+   * Reads one block at a time, from the thread of a single outstanding read.
+   */
+  @FunctionalInterface
+  private interface Reader {
+    void read(long pos) throws IOException;
+  }
+
+  private static Result skipped(File file, Access access, Pattern pattern, int blockSize, int queueDepth, String reason) {
+    return new Result(file, access, pattern, blockSize, queueDepth, reason, 0, 0, new LatencyHistogram());
+  }
+
+  /**
+   * Reads the file for the given duration.
+   *
+   * @return  the results, which are {@link Result#getSkipped() skipped} when the access method is not supported for
+   *          this file or block size
+   */
+  public static Result run(
+      File file,
+      Access access,
+      Pattern pattern,
+      int blockSize,
+      int queueDepth,
+      long duration,
+      TimeUnit unit
+  ) throws IOException {
+    return run(file, access, pattern, blockSize, queueDepth, duration, unit, new Mapping());
+  }
+
+  /**
+   * Reads the file for the given duration.
+   *
+   * @param  mapping  the regions already mapped by previous runs of the same file
+   */
+  private static Result run(
+      File file,
+      Access access,
+      Pattern pattern,
+      int blockSize,
+      int queueDepth,
+      long duration,
+      TimeUnit unit,
+      Mapping mapping
+  ) throws IOException {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("blockSize <= 0: " + blockSize);
+    }
+    if (queueDepth <= 0) {
+      throw new IllegalArgumentException("queueDepth <= 0: " + queueDepth);
+    }
+    Path path = file.toPath();
+    int alignment = 1;
+    List<OpenOption> options = new ArrayList<>();
+    options.add(StandardOpenOption.READ);
+    if (access == Access.DIRECT_IO) {
+      if (DIRECT == null) {
+        return skipped(file, access, pattern, blockSize, queueDepth, "O_DIRECT not available in this runtime");
+      }
+      try {
+        alignment = Math.toIntExact(Files.getFileStore(path).getBlockSize());
+      } catch (UnsupportedOperationException | ArithmeticException e) {
+        alignment = 4096;
+      }
+      if (blockSize % alignment != 0) {
+        return skipped(file, access, pattern, blockSize, queueDepth, "Block size not a multiple of " + alignment);
+      }
+      options.add(DIRECT);
+    }
+    final FileChannel channel;
+    try {
+      channel = FileChannel.open(path, options.toArray(new OpenOption[options.size()]));
+    } catch (UnsupportedOperationException e) {
+      return skipped(file, access, pattern, blockSize, queueDepth, "Unsupported: " + e.getMessage());
+    }
+    try {
+      final long fileLength = ZeroFile.getFileLengthWithFallbackBlockdev(file, channel);
+      final long blocks = fileLength / blockSize;
+      if (blocks == 0) {
+        return skipped(file, access, pattern, blockSize, queueDepth, "File smaller than block size");
+      }
+      if (access == Access.MAPPED) {
+        mapping.setLength(fileLength);
+      }
+      final int align = alignment;
+      final AtomicLong nextBlock = new AtomicLong();
+      final long durationNanos = unit.toNanos(duration);
+      final List<Future<LatencyHistogram>> futures = new ArrayList<>(queueDepth);
+      final long startNanos = System.nanoTime();
+      final long endNanos = startNanos + durationNanos;
+      ExecutorService executor = newExecutor(queueDepth);
+      try {
+        for (int i = 0; i < queueDepth; i++) {
+          futures.add(executor.submit(() -> {
+            final Reader reader;
+            switch (access) {
+              case CHANNEL_HEAP:
+              case CHANNEL_DIRECT:
+              case DIRECT_IO: {
+                ByteBuffer buff;
+                if (access == Access.CHANNEL_HEAP) {
+                  buff = ByteBuffer.allocate(blockSize);
+                } else if (access == Access.CHANNEL_DIRECT) {
+                  buff = ByteBuffer.allocateDirect(blockSize);
+                } else {
+                  buff = ByteBuffer.allocateDirect(blockSize + align).alignedSlice(align);
+                }
+                reader = pos -> {
+                  buff.clear().limit(blockSize);
+                  if (SyncFile.readFully(channel, buff, pos) != blockSize) {
+                    throw new EOFException("Unexpected end of file at " + pos);
+                  }
+                };
+                break;
+              }
+              case MAPPED: {
+                byte[] buff = new byte[blockSize];
+                reader = pos -> mapping.read(channel, pos, buff);
+                break;
+              }
+              default:
+                throw new AssertionError("Unexpected access: " + access);
+            }
+            LatencyHistogram latencies = new LatencyHistogram();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now;
+            while ((now = System.nanoTime()) < endNanos) {
+              long block;
+              if (pattern == Pattern.SEQUENTIAL) {
+                block = nextBlock.getAndIncrement() % blocks;
+              } else {
+                block = random.nextLong(blocks);
+              }
+              reader.read(block * blockSize);
+              latencies.record(System.nanoTime() - now);
+            }
+            return latencies;
+          }));
+        }
+        LatencyHistogram latencies = new LatencyHistogram();
+        for (Future<LatencyHistogram> future : futures) {
+          latencies.add(future.get());
+        }
+        long nanos = System.nanoTime() - startNanos;
+        return new Result(file, access, pattern, blockSize, queueDepth, null, latencies.getCount() * blockSize, nanos, latencies);
+      } catch (InterruptedException err) {
+        // Restore the interrupted status
+        Thread.currentThread().interrupt();
+        InterruptedIOException ioErr = new InterruptedIOException();
+        ioErr.initCause(err);
+        throw ioErr;
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+        throw new IOException(cause);
+      } finally {
+        executor.shutdownNow();
+      }
+    } finally {
+      channel.close();
+    }
+  }
+
+  private static final int[] DEFAULT_BLOCK_SIZES = {4096, 65536, 1048576};
+  private static final int[] DEFAULT_QUEUE_DEPTHS = {1, 4, 16, 64, 256};
+  private static final int DEFAULT_SECONDS = 10;
+
+  private static int[] parseInts(String arg) {
+    return Strings.split(arg, ',').stream().mapToInt(Integer::parseInt).toArray();
+  }
+
+  private static <E extends Enum<E>> List<E> parseEnums(Class<E> enumClass, String arg) {
+    List<E> values = new ArrayList<>();
+    for (String value : Strings.split(arg, ',')) {
+      values.add(Enum.valueOf(enumClass, value.toUpperCase(Locale.ROOT)));
+    }
+    return values;
+  }
+
+  public static void main(String[] args) {
+    int seconds = DEFAULT_SECONDS;
+    int[] blockSizes = DEFAULT_BLOCK_SIZES;
+    int[] queueDepths = DEFAULT_QUEUE_DEPTHS;
+    List<Access> accesses = Arrays.asList(Access.values());
+    List<Pattern> patterns = Arrays.asList(Pattern.values());
+    List<File> files = new ArrayList<>();
+    boolean usage = false;
+    try {
+      for (int i = 0; i < args.length && !usage; i++) {
+        String arg = args[i];
+        if (arg.startsWith("-") && i == args.length - 1) {
+          usage = true;
+        } else if ("-d".equals(arg)) {
+          seconds = Integer.parseInt(args[++i]);
+        } else if ("-b".equals(arg)) {
+          blockSizes = parseInts(args[++i]);
+        } else if ("-q".equals(arg)) {
+          queueDepths = parseInts(args[++i]);
+        } else if ("-a".equals(arg)) {
+          accesses = parseEnums(Access.class, args[++i]);
+        } else if ("-p".equals(arg)) {
+          patterns = parseEnums(Pattern.class, args[++i]);
+        } else if (arg.startsWith("-")) {
+          usage = true;
+        } else {
+          files.add(new File(arg));
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.toString());
+      usage = true;
+    }
+    if (usage || files.isEmpty()) {
+      System.err.println("usage: " + StorageBenchmark.class.getName()
+          + " [-d <seconds>] [-b <block_size>[,...]] [-q <queue_depth>[,...]] [-a <access>[,...]] [-p <pattern>[,...]]"
+          + " <path> [<path> ...]");
+      System.err.println("\taccess: " + Arrays.toString(Access.values()));
+      System.err.println("\tpattern: " + Arrays.toString(Pattern.values()));
+      System.exit(1);
+    } else {
+      StringBuilder json = new StringBuilder();
+      json.append("{\"javaVersion\":");
+      appendJsonString(System.getProperty("java.version"), json);
+      json.append(",\"virtualThreads\":").append(isVirtualThreads());
+      json.append(",\"seconds\":").append(seconds);
+      json.append(",\"results\":[");
+      boolean first = true;
+      try {
+        for (File file : files) {
+          Mapping mapping = new Mapping();
+          for (Access access : accesses) {
+            for (Pattern pattern : patterns) {
+              for (int blockSize : blockSizes) {
+                for (int queueDepth : queueDepths) {
+                  Result result = run(file, access, pattern, blockSize, queueDepth, seconds, TimeUnit.SECONDS, mapping);
+                  System.err.println(result);
+                  if (first) {
+                    first = false;
+                  } else {
+                    json.append(',');
+                  }
+                  result.appendJson(json);
+                }
+              }
+            }
+          }
+        }
+      } catch (IOException e) {
+        e.printStackTrace(System.err);
+        System.exit(2);
+      }
+      json.append("]}");
+      System.out.println(json);
+    }
+  }
+}
@@ -1,6 +1,6 @@
 /*
  * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
- * Copyright (C) 2012, 2016, 2020, 2021, 2022, 2025  AO Industries, Inc.
+ * Copyright (C) 2012, 2016, 2020, 2021, 2022, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -23,13 +23,34 @@
 
 package com.aoapps.hodgepodge.io;
 
-import com.aoapps.collections.AoArrays;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Copies one file to another, only writing the blocks of the destination
@@ -41,6 +62,10 @@ import java.util.Arrays;
  * <p>This is also useful for synchronizing data to an LVM snapshot (or a logical volume that has any snapshots), to
  * minimize the allocated copy-on-write space.</p>
  *
+ * <p>When the input is a {@link FileChannel}, reading the input, reading the output, and comparing then writing are
+ * performed by three threads, so the sync runs at the speed of the slower device instead of the sum of latencies.
+ * An optional manifest of block hashes avoids reading the destination at all on the next sync.</p>
+ *
  * @author  AO Industries, Inc.
  */
 public class SyncFile {
@@ -55,14 +80,34 @@ public class SyncFile {
   private static final int BLOCK_SIZE = 1048576;
 
   public static void main(String[] args) {
-    if (args.length != 2) {
-      System.err.println("usage: " + SyncFile.class.getName() + " <from> <to>");
+    IoBudget budget = null;
+    File manifest = null;
+    boolean deviceManifest = false;
+    int argPos = 0;
+    boolean usage = false;
+    while (!usage && argPos < args.length - 2) {
+      if ("-r".equals(args[argPos]) && budget == null) {
+        budget = new IoBudget(0, Double.parseDouble(args[argPos + 1]) * BLOCK_SIZE);
+        argPos += 2;
+      } else if ("-m".equals(args[argPos]) && manifest == null) {
+        manifest = new File(args[argPos + 1]);
+        argPos += 2;
+      } else if ("-d".equals(args[argPos]) && !deviceManifest) {
+        deviceManifest = true;
+        argPos++;
+      } else {
+        usage = true;
+      }
+    }
+    if (usage || argPos != args.length - 2 || (deviceManifest && manifest == null)) {
+      System.err.println("usage: " + SyncFile.class.getName() + " [-r <mb_per_sec>] [-m <manifest> [-d]] <from> <to>");
+      System.err.println("\t-d\tAllow a manifest when the output is not a regular file, such as a block device");
       System.exit(1);
     } else {
       try {
         long bytesWritten;
-        File from = new File(args[0]);
-        File to = new File(args[1]);
+        File from = new File(args[argPos]);
+        File to = new File(args[argPos + 1]);
         if (DEBUG) {
           System.err.println("Opening " + from);
         }
@@ -73,7 +118,7 @@ public class SyncFile {
           }
           RandomAccessFile out = new RandomAccessFile(to, DRY_RUN ? "r" : "rw");
           try {
-            bytesWritten = syncFile(in, to, out);
+            bytesWritten = syncFile(in.getChannel(), to, out, budget, manifest, deviceManifest);
           } finally {
             if (DEBUG) {
               System.err.println("Closing " + to);
@@ -99,8 +144,22 @@ public class SyncFile {
    * Synchronized the input to the provided output, only writing data that
    * doesn't already match the input.
    * Returns the number of bytes written.
+   *
+   * @see  #syncFile(java.io.InputStream, java.io.File, java.io.RandomAccessFile, com.aoapps.hodgepodge.io.IoBudget)
    */
   public static long syncFile(InputStream in, File outFile, RandomAccessFile out) throws IOException {
+    return syncFile(in, outFile, out, null);
+  }
+
+  /**
+   * Synchronized the input to the provided output, only writing data that
+   * doesn't already match the input.
+   * Each block read or written is one operation of the budget, and reports its latency.
+   * Returns the number of bytes written.
+   *
+   * @param  budget  the budget for all reads and writes or {@code null} for unlimited
+   */
+  public static long syncFile(InputStream in, File outFile, RandomAccessFile out, IoBudget budget) throws IOException {
     byte[] inBuff = new byte[BLOCK_SIZE];
     byte[] outBuff = new byte[BLOCK_SIZE];
     // Get the starting length of "out", with special case when zero is returned:
@@ -108,7 +167,7 @@ public class SyncFile {
     long pos = 0;
     long bytesWritten = 0;
     int numBytes;
-    while ((numBytes = in.read(inBuff, 0, BLOCK_SIZE)) != -1) {
+    while ((numBytes = readBlock(in, inBuff, budget)) != -1) {
       if (DEBUG) {
         System.err.println(pos + ": Reading " + numBytes + " bytes of input");
       }
@@ -119,14 +178,22 @@ public class SyncFile {
         if (DEBUG) {
           System.err.println(pos + ": Reading " + numBytes + " bytes of output");
         }
+        long startNanos = 0;
+        if (budget != null) {
+          budget.acquireBytes(numBytes);
+          startNanos = System.nanoTime();
+        }
         out.readFully(outBuff, 0, numBytes);
-        if (!AoArrays.equals(inBuff, outBuff, 0, numBytes)) {
+        if (budget != null) {
+          budget.recordLatency(System.nanoTime() - startNanos);
+        }
+        if (Arrays.mismatch(inBuff, 0, numBytes, outBuff, 0, numBytes) != -1) {
           if (VERBOSE) {
             System.err.println(pos + ": Updating " + numBytes + " bytes of output");
           }
           out.seek(pos);
           if (!DRY_RUN) {
-            out.write(inBuff, 0, numBytes);
+            writeBlock(out, inBuff, numBytes, budget);
           }
           bytesWritten += numBytes;
         } else {
@@ -140,7 +207,7 @@ public class SyncFile {
           System.err.println(pos + ": Appending " + numBytes + " bytes to output");
         }
         if (!DRY_RUN) {
-          out.write(inBuff, 0, numBytes);
+          writeBlock(out, inBuff, numBytes, budget);
         }
         bytesWritten += numBytes;
       }
@@ -160,4 +227,574 @@ public class SyncFile {
     }
     return bytesWritten;
   }
+
+  /**
+   * Reads the next block of input within the budget.  The block is counted after it is read,
+   * since its size is not known until then.
+   */
+  private static int readBlock(InputStream in, byte[] buff, IoBudget budget) throws IOException {
+    if (budget == null) {
+      return in.read(buff, 0, BLOCK_SIZE);
+    }
+    long startNanos = System.nanoTime();
+    int numBytes = in.read(buff, 0, BLOCK_SIZE);
+    budget.recordLatency(System.nanoTime() - startNanos);
+    if (numBytes != -1) {
+      budget.acquireBytes(numBytes);
+    }
+    return numBytes;
+  }
+
+  private static void writeBlock(RandomAccessFile out, byte[] buff, int numBytes, IoBudget budget) throws IOException {
+    if (budget == null) {
+      out.write(buff, 0, numBytes);
+    } else {
+      budget.acquireBytes(numBytes);
+      long startNanos = System.nanoTime();
+      out.write(buff, 0, numBytes);
+      budget.recordLatency(System.nanoTime() - startNanos);
+    }
+  }
+
+  // <editor-fold defaultstate="collapsed" desc="Pipelined">
+  /**
+   * The number of blocks in the pipeline, enough for each stage to have one in progress while another waits.
+   */
+  private static final int PIPELINE_BLOCKS = 4;
+
+  /**
+   * How often blocked pipeline threads check whether to stop.
+   */
+  private static final long PIPELINE_POLL_MILLIS = 100;
+
+  /**
+   * One block of input and output, reused through the pipeline.
+   */
+  private static final class Block {
+
+    private final ByteBuffer in;
+    private final ByteBuffer out;
+    private long pos;
+    private int length;
+
+    /**
+     * Whether the output existed and was read for this block.
+     */
+    private boolean outRead;
+
+    /**
+     * The hash of the input, when using a manifest.
+     */
+    private Future<byte[]> hash;
+
+    private Block(int capacity) {
+      in = ByteBuffer.allocateDirect(capacity);
+      out = ByteBuffer.allocateDirect(capacity);
+    }
+  }
+
+  /**
+   * The state shared by the pipeline threads.
+   */
+  private static final class Pipeline {
+
+    /**
+     * Marks the end of the input.
+     */
+    private final Block end = new Block(0);
+
+    private final BlockingQueue<Block> free;
+    private final BlockingQueue<Block> inputRead;
+    private final BlockingQueue<Block> outputRead;
+    private volatile boolean stop;
+    private Throwable error;
+
+    private Pipeline(int numBlocks) {
+      free = new ArrayBlockingQueue<>(numBlocks);
+      inputRead = new ArrayBlockingQueue<>(numBlocks + 1);
+      outputRead = new ArrayBlockingQueue<>(numBlocks + 1);
+      for (int i = 0; i < numBlocks; i++) {
+        free.add(new Block(BLOCK_SIZE));
+      }
+    }
+
+    /**
+     * Records the first error and passes the end marker on, which always fits since the queues have room for every
+     * block plus the marker.
+     */
+    private void fail(Throwable t, BlockingQueue<Block> next) {
+      synchronized (this) {
+        if (error == null) {
+          error = t;
+        }
+      }
+      next.offer(end);
+    }
+
+    private Throwable getError() {
+      synchronized (this) {
+        return error;
+      }
+    }
+
+    /**
+     * Takes the next block, or {@code null} when stopped.
+     */
+    private Block take(BlockingQueue<Block> queue) throws InterruptedException {
+      while (!stop) {
+        Block block = queue.poll(PIPELINE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (block != null) {
+          return block;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Puts the next block, or returns {@code false} when stopped.
+     */
+    private boolean put(BlockingQueue<Block> queue, Block block) throws InterruptedException {
+      while (!stop) {
+        if (queue.offer(block, PIPELINE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Identifies a manifest file.
+   */
+  private static final int MANIFEST_MAGIC = 0x53464d31;
+
+  private static final String MANIFEST_ALGORITHM = "SHA-256";
+
+  private static final int MANIFEST_HASH_SIZE = 32;
+
+  /**
+   * The magic, block size, output length, and output modified time.
+   */
+  private static final int MANIFEST_HEADER_SIZE = 4 + 4 + 8 + 8;
+
+  /**
+   * Opens a manifest for reading its hashes in order, when it matches the current output.
+   *
+   * @return  the stream positioned at the first hash, or {@code null} when missing or stale
+   */
+  private static DataInputStream openManifest(File manifestFile, long outLen, long outModified) throws IOException {
+    if (manifestFile == null || !manifestFile.exists()) {
+      return null;
+    }
+    long blocks = (outLen + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    if (manifestFile.length() != MANIFEST_HEADER_SIZE + blocks * MANIFEST_HASH_SIZE) {
+      return null;
+    }
+    DataInputStream manifest = new DataInputStream(new BufferedInputStream(new FileInputStream(manifestFile)));
+    boolean valid = false;
+    try {
+      valid = manifest.readInt() == MANIFEST_MAGIC
+          && manifest.readInt() == BLOCK_SIZE
+          && manifest.readLong() == outLen
+          && manifest.readLong() == outModified;
+    } finally {
+      if (!valid) {
+        manifest.close();
+      }
+    }
+    return valid ? manifest : null;
+  }
+
+  /**
+   * Invalidates an existing manifest before the output is first modified, so an interrupted sync
+   * does not leave a manifest that appears to match the output.
+   */
+  private static void invalidateManifest(File manifestFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(manifestFile.toPath(), StandardOpenOption.WRITE)) {
+      ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+      while (magic.hasRemaining()) {
+        channel.write(magic, magic.position());
+      }
+      channel.force(true);
+    } catch (NoSuchFileException e) {
+      // No manifest to invalidate
+    }
+  }
+
+  private static byte[] hash(ByteBuffer buff) throws NoSuchAlgorithmException {
+    MessageDigest digest = MessageDigest.getInstance(MANIFEST_ALGORITHM);
+    digest.update(buff);
+    return digest.digest();
+  }
+
+  /**
+   * Reads from a channel at the given position until the buffer is full or the end of the channel.
+   *
+   * @return  the number of bytes read
+   */
+  static int readFully(FileChannel channel, ByteBuffer buff, long pos) throws IOException {
+    int total = 0;
+    while (buff.hasRemaining()) {
+      int count = channel.read(buff, pos + total);
+      if (count == -1) {
+        break;
+      }
+      total += count;
+    }
+    return total;
+  }
+
+  /**
+   * Synchronized the input to the provided output without a manifest.
+   *
+   * @see  #syncFile(java.nio.channels.FileChannel, java.io.File, java.io.RandomAccessFile, com.aoapps.hodgepodge.io.IoBudget, java.io.File, boolean)
+   */
+  public static long syncFile(FileChannel in, File outFile, RandomAccessFile out, IoBudget budget) throws IOException {
+    return syncFile(in, outFile, out, budget, null, false);
+  }
+
+  /**
+   * Synchronized the input to the provided output, only allowing a manifest for a regular file.
+   *
+   * @see  #syncFile(java.nio.channels.FileChannel, java.io.File, java.io.RandomAccessFile, com.aoapps.hodgepodge.io.IoBudget, java.io.File, boolean)
+   */
+  public static long syncFile(FileChannel in, File outFile, RandomAccessFile out, IoBudget budget, File manifestFile) throws IOException {
+    return syncFile(in, outFile, out, budget, manifestFile, false);
+  }
+
+  /**
+   * Synchronized the input to the provided output, only writing data that doesn't already match the input.
+   * Uses positional reads into reusable direct buffers, with reading the input, reading the output, and comparing
+   * then writing overlapped on three threads.
+   * Each block read or written is one operation of the budget, and reports its latency.
+   * Returns the number of bytes written.
+   *
+   * <p>When a manifest file is provided, the input blocks are hashed in parallel, and the hashes are written to the
+   * manifest after the sync along with the length and modified time of the output.  When the manifest still matches
+   * the output on the next sync, the output is not read at all, and blocks are compared by hash instead.  Otherwise,
+   * the output is compared in full.  Any existing manifest is invalidated before the output is first modified, so
+   * an interrupted sync compares in full the next time.</p>
+   *
+   * <p>The modified time of block devices may not change when written, so the manifest cannot detect anything else
+   * writing to the device.  A manifest is therefore refused for any output that is not a regular file, unless
+   * explicitly allowed by a caller that ensures nothing else writes to the device.</p>
+   *
+   * @param  budget  the budget for all reads and writes or {@code null} for unlimited
+   * @param  manifestFile  the manifest of output block hashes or {@code null} to always compare in full
+   * @param  deviceManifest  when {@code true}, allows a manifest for an output that is not a regular file
+   *
+   * @throws  IOException  when a manifest is provided for an output that is not a regular file and not allowed
+   */
+  @SuppressWarnings("ThrowFromFinallyBlock")
+  public static long syncFile(
+      FileChannel in,
+      File outFile,
+      RandomAccessFile out,
+      IoBudget budget,
+      File manifestFile,
+      boolean deviceManifest
+  ) throws IOException {
+    if (manifestFile != null && !deviceManifest && !Files.isRegularFile(outFile.toPath())) {
+      throw new IOException("Manifest not allowed for output that is not a regular file: " + outFile);
+    }
+    // Get the starting length of "out", with special case when zero is returned:
+    final long outLen = ZeroFile.getFileLengthWithFallbackBlockdev(outFile, out);
+    final FileChannel outChannel = out.getChannel();
+    final DataInputStream oldManifest = openManifest(manifestFile, outLen, outFile.lastModified());
+    if (manifestFile != null && oldManifest == null && VERBOSE) {
+      System.err.println("Manifest missing or stale, comparing output in full: " + manifestFile);
+    }
+    try {
+      final int hashThreads = manifestFile == null ? 0 : Math.min(MAX_HASH_THREADS, Runtime.getRuntime().availableProcessors());
+      final ExecutorService hashPool = hashThreads == 0 ? null : Executors.newFixedThreadPool(hashThreads);
+      try {
+        return syncFile(in, outFile, out, budget, outLen, outChannel, manifestFile, oldManifest, hashThreads, hashPool);
+      } finally {
+        if (hashPool != null) {
+          hashPool.shutdown();
+        }
+      }
+    } finally {
+      if (oldManifest != null) {
+        oldManifest.close();
+      }
+    }
+  }
+
+  /**
+   * The maximum number of threads hashing blocks for a manifest.
+   */
+  private static final int MAX_HASH_THREADS = 4;
+
+  @SuppressWarnings("ThrowFromFinallyBlock")
+  private static long syncFile(
+      FileChannel in,
+      File outFile,
+      RandomAccessFile out,
+      IoBudget budget,
+      long outLen,
+      FileChannel outChannel,
+      File manifestFile,
+      DataInputStream oldManifest,
+      int hashThreads,
+      ExecutorService hashPool
+  ) throws IOException {
+    // Enough blocks to keep every hash thread busy
+    final Pipeline pipeline = new Pipeline(PIPELINE_BLOCKS + hashThreads);
+    Thread inputReader = new Thread("SyncFile - Input Reader") {
+      @Override
+      public void run() {
+        try {
+          long pos = 0;
+          while (true) {
+            Block block = pipeline.take(pipeline.free);
+            if (block == null) {
+              break;
+            }
+            if (DEBUG) {
+              System.err.println(pos + ": Reading input");
+            }
+            block.in.clear();
+            long startNanos = System.nanoTime();
+            int numBytes = readFully(in, block.in, pos);
+            if (budget != null) {
+              budget.recordLatency(System.nanoTime() - startNanos);
+              if (numBytes != 0) {
+                budget.acquireBytes(numBytes);
+              }
+            }
+            if (numBytes == 0) {
+              pipeline.put(pipeline.inputRead, pipeline.end);
+              break;
+            }
+            block.in.flip();
+            block.pos = pos;
+            block.length = numBytes;
+            if (hashPool != null) {
+              ByteBuffer toHash = block.in.duplicate();
+              block.hash = hashPool.submit(() -> hash(toHash));
+            }
+            pos += numBytes;
+            if (!pipeline.put(pipeline.inputRead, block)) {
+              break;
+            }
+          }
+        } catch (ThreadDeath td) {
+          throw td;
+        } catch (Throwable t) {
+          pipeline.fail(t, pipeline.inputRead);
+        }
+      }
+    };
+    Thread outputReader = new Thread("SyncFile - Output Reader") {
+      @Override
+      public void run() {
+        try {
+          while (true) {
+            Block block = pipeline.take(pipeline.inputRead);
+            if (block == null) {
+              break;
+            }
+            if (block != pipeline.end) {
+              block.out.clear();
+              block.outRead = oldManifest == null && outLen >= (block.pos + block.length);
+              if (block.outRead) {
+                if (DEBUG) {
+                  System.err.println(block.pos + ": Reading " + block.length + " bytes of output");
+                }
+                block.out.limit(block.length);
+                long startNanos = 0;
+                if (budget != null) {
+                  budget.acquireBytes(block.length);
+                  startNanos = System.nanoTime();
+                }
+                if (readFully(outChannel, block.out, block.pos) != block.length) {
+                  throw new EOFException("Output shorter than its length of " + outLen + " bytes");
+                }
+                if (budget != null) {
+                  budget.recordLatency(System.nanoTime() - startNanos);
+                }
+                block.out.flip();
+              }
+            }
+            if (!pipeline.put(pipeline.outputRead, block) || block == pipeline.end) {
+              break;
+            }
+          }
+        } catch (ThreadDeath td) {
+          throw td;
+        } catch (Throwable t) {
+          pipeline.fail(t, pipeline.outputRead);
+        }
+      }
+    };
+    inputReader.start();
+    try {
+      outputReader.start();
+      try {
+        long pos = 0;
+        long bytesWritten = 0;
+        final File newManifestFile = manifestFile == null || DRY_RUN ? null : new File(manifestFile.getPath() + ".new");
+        final FileChannel newManifestChannel = newManifestFile == null ? null : FileChannel.open(
+            newManifestFile.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE
+        );
+        try {
+          final DataOutputStream newManifest = newManifestChannel == null ? null : new DataOutputStream(
+              new BufferedOutputStream(Channels.newOutputStream(newManifestChannel.position(MANIFEST_HEADER_SIZE)))
+          );
+          final byte[] oldHash = new byte[MANIFEST_HASH_SIZE];
+          boolean manifestInvalidated = manifestFile == null;
+          Block block;
+          while ((block = pipeline.outputRead.take()) != pipeline.end) {
+            byte[] hash = null;
+            if (block.hash != null) {
+              try {
+                hash = block.hash.get();
+              } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+              }
+              block.hash = null;
+            }
+            boolean write;
+            if (oldManifest != null && outLen >= (block.pos + block.length)) {
+              oldManifest.readFully(oldHash);
+              write = !Arrays.equals(hash, oldHash);
+              if (write) {
+                if (VERBOSE) {
+                  System.err.println(block.pos + ": Updating " + block.length + " bytes of output");
+                }
+              } else {
+                if (DEBUG) {
+                  System.err.println(block.pos + ": Hash matches, not writing");
+                }
+              }
+            } else if (block.outRead) {
+              // Vectorized comparison of the direct buffers
+              write = block.in.mismatch(block.out) != -1;
+              if (write) {
+                if (VERBOSE) {
+                  System.err.println(block.pos + ": Updating " + block.length + " bytes of output");
+                }
+              } else {
+                if (DEBUG) {
+                  System.err.println(block.pos + ": Data matches, not writing");
+                }
+              }
+            } else {
+              // At end, write entire block
+              if (VERBOSE) {
+                System.err.println(block.pos + ": Appending " + block.length + " bytes to output");
+              }
+              write = true;
+            }
+            if (write) {
+              if (!DRY_RUN) {
+                if (!manifestInvalidated) {
+                  invalidateManifest(manifestFile);
+                  manifestInvalidated = true;
+                }
+                long startNanos = 0;
+                if (budget != null) {
+                  budget.acquireBytes(block.length);
+                  startNanos = System.nanoTime();
+                }
+                long writePos = block.pos;
+                while (block.in.hasRemaining()) {
+                  writePos += outChannel.write(block.in, writePos);
+                }
+                if (budget != null) {
+                  budget.recordLatency(System.nanoTime() - startNanos);
+                }
+              }
+              bytesWritten += block.length;
+            }
+            if (newManifest != null) {
+              newManifest.write(hash);
+            }
+            pos = block.pos + block.length;
+            pipeline.free.add(block);
+          }
+          Throwable error = pipeline.getError();
+          if (error != null) {
+            if (error instanceof IOException) {
+              throw (IOException) error;
+            }
+            if (error instanceof RuntimeException) {
+              throw (RuntimeException) error;
+            }
+            if (error instanceof Error) {
+              throw (Error) error;
+            }
+            throw new IOException(error);
+          }
+          if (outLen > pos) {
+            if (VERBOSE) {
+              System.err.println(pos + ": Truncating output to " + pos + " bytes");
+            }
+            if (!DRY_RUN) {
+              if (!manifestInvalidated) {
+                invalidateManifest(manifestFile);
+                manifestInvalidated = true;
+              }
+              try {
+                out.setLength(pos);
+              } catch (IOException e) {
+                System.err.println("Warning: Unable to truncate output to " + pos + " bytes");
+              }
+            }
+          }
+          if (newManifest != null) {
+            newManifest.flush();
+            // The header is written last, now that the output is complete
+            long newLen = ZeroFile.getFileLengthWithFallbackBlockdev(outFile, out);
+            if (newLen == pos) {
+              ByteBuffer header = ByteBuffer.allocate(MANIFEST_HEADER_SIZE);
+              header.putInt(MANIFEST_MAGIC).putInt(BLOCK_SIZE).putLong(newLen).putLong(outFile.lastModified()).flip();
+              while (header.hasRemaining()) {
+                newManifestChannel.write(header, header.position());
+              }
+              newManifestChannel.force(true);
+              newManifestChannel.close();
+              Files.move(newManifestFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+              // Truncation failed, the next sync will compare in full
+              newManifestChannel.close();
+              Files.deleteIfExists(newManifestFile.toPath());
+              Files.deleteIfExists(manifestFile.toPath());
+            }
+          }
+          return bytesWritten;
+        } finally {
+          if (newManifestChannel != null && newManifestChannel.isOpen()) {
+            newManifestChannel.close();
+            Files.deleteIfExists(newManifestFile.toPath());
+          }
+        }
+      } finally {
+        pipeline.stop = true;
+        outputReader.join();
+      }
+    } catch (InterruptedException err) {
+      // Restore the interrupted status
+      Thread.currentThread().interrupt();
+      InterruptedIOException ioErr = new InterruptedIOException();
+      ioErr.initCause(err);
+      throw ioErr;
+    } finally {
+      pipeline.stop = true;
+      try {
+        inputReader.join();
+      } catch (InterruptedException err) {
+        // Restore the interrupted status
+        Thread.currentThread().interrupt();
+        InterruptedIOException ioErr = new InterruptedIOException();
+        ioErr.initCause(err);
+        throw ioErr;
+      }
+    }
+  }
+  // </editor-fold>
 }
@@ -1,6 +1,6 @@
 /*
  * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
- * Copyright (C) 2012, 2013, 2014, 2016, 2018, 2019, 2020, 2021, 2022, 2023, 2025  AO Industries, Inc.
+ * Copyright (C) 2012, 2013, 2014, 2016, 2018, 2019, 2020, 2021, 2022, 2023, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -30,13 +30,21 @@ import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.io.RandomAccessFile;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Zeros-out a file, only writing the blocks of the destination that contain any
  * non-zero value.  This is to clear flash media with minimal writes.
  *
+ * <p>When given a {@link FileChannel}, blocks are read and checked by one thread while dirty blocks are written by
+ * another, so writing does not wait for the entire file to be read.</p>
+ *
  * @author  AO Industries, Inc.
  */
 public class ZeroFile {
@@ -77,7 +85,12 @@ public class ZeroFile {
         }
         RandomAccessFile raf = new RandomAccessFile(file, DRY_RUN ? "r" : "rw");
         try {
-          bytesWritten = zeroFile(bpsIn, bpsOut, file, raf);
+          bytesWritten = zeroFile(
+              new IoBudget(0, (double) bpsIn * BLOCK_SIZE),
+              new IoBudget(0, (double) bpsOut * BLOCK_SIZE),
+              file,
+              raf.getChannel()
+          );
         } finally {
           if (DEBUG) {
             System.err.println("Closing " + file);
@@ -94,41 +107,25 @@ public class ZeroFile {
     }
   }
 
-  private static long sleep(int bps, long lastTime) throws IOException {
-    try {
-      long millisPerBlock = 1000 / bps;
-      long sleepUntil = lastTime + millisPerBlock;
-      long currentTime = System.currentTimeMillis();
-      long sleepyTime = sleepUntil - currentTime;
-      if (sleepyTime <= 0) {
-        // IO too slow or system time set to future
-        return currentTime;
-      } else if (sleepyTime > millisPerBlock) {
-        // System time set to past
-        Thread.sleep(millisPerBlock);
-        return currentTime + millisPerBlock;
-      } else {
-        // Normal case
-        Thread.sleep(sleepyTime);
-        return currentTime + sleepyTime;
-      }
-    } catch (InterruptedException e) {
-      InterruptedIOException ioExc = new InterruptedIOException(e.getMessage());
-      ioExc.initCause(e);
-      // Restore the interrupted status
-      Thread.currentThread().interrupt();
-      throw ioExc;
-    }
-  }
-
   /**
    * Gets the length of a random access file, which will also try to fall-back to
    * <code>/sbin/blockdev --getsize64</code> (while writing a warning to standard error) when both zero is returned and
    * path begins with {@code "/dev/"}.
    */
-  @SuppressWarnings("UseOfSystemOutOrSystemErr")
   static long getFileLengthWithFallbackBlockdev(File file, RandomAccessFile raf) throws IOException {
-    long len = raf.length();
+    return getFileLengthWithFallbackBlockdev(file, raf.length());
+  }
+
+  /**
+   * Gets the length of a file channel, with the same fall-back as
+   * {@link #getFileLengthWithFallbackBlockdev(java.io.File, java.io.RandomAccessFile)}.
+   */
+  static long getFileLengthWithFallbackBlockdev(File file, FileChannel channel) throws IOException {
+    return getFileLengthWithFallbackBlockdev(file, channel.size());
+  }
+
+  @SuppressWarnings("UseOfSystemOutOrSystemErr")
+  private static long getFileLengthWithFallbackBlockdev(File file, long len) throws IOException {
     if (len == 0) {
       String canonicalPath = file.getCanonicalPath();
       if (canonicalPath.startsWith("/dev/")) {
@@ -150,9 +147,29 @@ public class ZeroFile {
    * Reads at the maximum provided bpsIn blocks per second.
    * Writes at the maximum provided bpsOut blocks per second.
    * Returns the number of bytes written.
+   *
+   * @see  #zeroFile(com.aoapps.hodgepodge.io.IoBudget, com.aoapps.hodgepodge.io.IoBudget, java.io.File, java.io.RandomAccessFile)
    */
-  @SuppressWarnings({"UseOfSystemOutOrSystemErr", "UnusedAssignment"})
   public static long zeroFile(int bpsIn, int bpsOut, File file, RandomAccessFile raf) throws IOException {
+    return zeroFile(
+        new IoBudget(0, (double) bpsIn * BLOCK_SIZE),
+        new IoBudget(0, (double) bpsOut * BLOCK_SIZE),
+        file,
+        raf
+    );
+  }
+
+  /**
+   * Zeroes the provided random access file, only writing blocks that contain non-zero.
+   * Each block read or written is one operation of its budget, and reports its latency.
+   * The same budget may be used for both, and may be shared with other tasks.
+   * Returns the number of bytes written.
+   *
+   * @param  readBudget  the budget for reads or {@code null} for unlimited
+   * @param  writeBudget  the budget for writes or {@code null} for unlimited
+   */
+  @SuppressWarnings({"UseOfSystemOutOrSystemErr", "UnusedAssignment"})
+  public static long zeroFile(IoBudget readBudget, IoBudget writeBudget, File file, RandomAccessFile raf) throws IOException {
     // Initialize bitset
     long len = getFileLengthWithFallbackBlockdev(file, raf);
     final int blocks;
@@ -169,7 +186,6 @@ public class ZeroFile {
     BitSet dirtyBlocks = new BitSet(blocks);
     int numDirtyBlocks = 0;
     // Pass one: read for non zeros
-    long lastTime = System.currentTimeMillis();
     byte[] buff = new byte[BLOCK_SIZE];
     int blockIndex = 0;
     String lastVerboseString = "";
@@ -180,10 +196,17 @@ public class ZeroFile {
         long blockSizeLong = len - pos;
         blockSize = blockSizeLong > BLOCK_SIZE ? BLOCK_SIZE : (int) blockSizeLong;
       }
+      long startNanos = 0;
+      if (readBudget != null) {
+        readBudget.acquireBytes(blockSize);
+        startNanos = System.nanoTime();
+      }
       raf.seek(pos);
       raf.readFully(buff, 0, blockSize);
+      if (readBudget != null) {
+        readBudget.recordLatency(System.nanoTime() - startNanos);
+      }
       block++;
-      lastTime = sleep(bpsIn, lastTime);
       boolean allZero = true;
       for (int i = 0; i < blockSize; i++) {
         if (buff[i] != 0) {
@@ -226,9 +249,16 @@ public class ZeroFile {
           blockSize = blockSizeLong > BLOCK_SIZE ? BLOCK_SIZE : (int) blockSizeLong;
         }
         if (!DRY_RUN) {
+          long startNanos = 0;
+          if (writeBudget != null) {
+            writeBudget.acquireBytes(blockSize);
+            startNanos = System.nanoTime();
+          }
           raf.seek(pos);
           raf.write(buff, 0, blockSize);
-          lastTime = sleep(bpsOut, lastTime);
+          if (writeBudget != null) {
+            writeBudget.recordLatency(System.nanoTime() - startNanos);
+          }
           bytesWritten += blockSize;
         }
         written++;
@@ -251,4 +281,243 @@ public class ZeroFile {
     }
     return bytesWritten;
   }
+
+  // <editor-fold defaultstate="collapsed" desc="Pipelined">
+  /**
+   * The number of dirty blocks that may be found before the writer catches up.
+   */
+  private static final int PIPELINE_DIRTY_BLOCKS = 64;
+
+  /**
+   * How often the pipeline threads check whether the other has stopped.
+   */
+  private static final long PIPELINE_POLL_MILLIS = 100;
+
+  /**
+   * The minimum time between progress reports.
+   */
+  private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+  /**
+   * Marks the end of the dirty blocks.
+   */
+  private static final Long END = -1L;
+
+  /**
+   * A block of zeros, duplicated by each use.
+   */
+  private static final ByteBuffer ZEROS = ByteBuffer.allocateDirect(BLOCK_SIZE).asReadOnlyBuffer();
+
+  /**
+   * Checks if a buffer is all zero between its position and limit.
+   * Uses the vectorized comparison of direct buffers against a block of zeros.
+   */
+  static boolean isAllZero(ByteBuffer buff) {
+    int remaining = buff.remaining();
+    if (remaining > BLOCK_SIZE) {
+      throw new IllegalArgumentException("remaining > BLOCK_SIZE: " + remaining);
+    }
+    return buff.mismatch(ZEROS.duplicate().limit(remaining)) == -1;
+  }
+
+  /**
+   * The state shared by the reader and writer threads.
+   */
+  private static final class Pipeline {
+
+    private final BlockingQueue<Long> dirtyBlocks = new ArrayBlockingQueue<>(PIPELINE_DIRTY_BLOCKS);
+    private volatile boolean stop;
+    private volatile long bytesRead;
+    private volatile long numDirtyBlocks;
+    private Throwable error;
+
+    /**
+     * Puts the next dirty block, or returns {@code false} when the writer has stopped.
+     */
+    private boolean put(Long dirty) throws InterruptedException {
+      while (!stop) {
+        if (dirtyBlocks.offer(dirty, PIPELINE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Records the first error and ends the dirty blocks.
+     */
+    private void fail(Throwable t) throws InterruptedException {
+      synchronized (this) {
+        if (error == null) {
+          error = t;
+        }
+      }
+      put(END);
+    }
+
+    private Throwable getError() {
+      synchronized (this) {
+        return error;
+      }
+    }
+  }
+
+  private static String getThroughput(long bytes, long nanos) {
+    return nanos <= 0 ? "-" : (Strings.getApproximateSize(bytes * TimeUnit.SECONDS.toNanos(1) / nanos) + "/s");
+  }
+
+  /**
+   * Zeroes the provided file channel, only writing blocks that contain non-zero.
+   * Reads use positional reads into a direct buffer on a separate thread, while dirty blocks are written from a
+   * shared block of zeros on the current thread.
+   * Each block read or written is one operation of its budget, and reports its latency.
+   * The same budget may be used for both, and may be shared with other tasks.
+   * Returns the number of bytes written.
+   *
+   * @param  readBudget  the budget for reads or {@code null} for unlimited
+   * @param  writeBudget  the budget for writes or {@code null} for unlimited
+   */
+  @SuppressWarnings({"UseOfSystemOutOrSystemErr", "ThrowFromFinallyBlock"})
+  public static long zeroFile(IoBudget readBudget, IoBudget writeBudget, File file, FileChannel channel) throws IOException {
+    final long len = getFileLengthWithFallbackBlockdev(file, channel);
+    final Pipeline pipeline = new Pipeline();
+    Thread reader = new Thread("ZeroFile - Reader") {
+      @Override
+      public void run() {
+        try {
+          ByteBuffer buff = ByteBuffer.allocateDirect(BLOCK_SIZE);
+          long numDirty = 0;
+          for (long pos = 0; pos < len && !pipeline.stop; pos += BLOCK_SIZE) {
+            int blockSize = (int) Math.min(BLOCK_SIZE, len - pos);
+            long startNanos = 0;
+            if (readBudget != null) {
+              readBudget.acquireBytes(blockSize);
+              startNanos = System.nanoTime();
+            }
+            buff.clear().limit(blockSize);
+            if (SyncFile.readFully(channel, buff, pos) != blockSize) {
+              throw new IOException("Unexpected end of file at " + pos + ", expected length " + len);
+            }
+            if (readBudget != null) {
+              readBudget.recordLatency(System.nanoTime() - startNanos);
+            }
+            buff.flip();
+            if (!isAllZero(buff)) {
+              pipeline.numDirtyBlocks = ++numDirty;
+              if (!pipeline.put(pos)) {
+                return;
+              }
+            }
+            pipeline.bytesRead = pos + blockSize;
+          }
+          pipeline.put(END);
+        } catch (ThreadDeath td) {
+          throw td;
+        } catch (Throwable t) {
+          try {
+            pipeline.fail(t);
+          } catch (InterruptedException e) {
+            // Restore the interrupted status
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+    };
+    final long startNanos = System.nanoTime();
+    long bytesWritten = 0;
+    String lastVerboseString = "";
+    reader.start();
+    try {
+      try {
+        long lastProgress = startNanos;
+        long writeNanos = 0;
+        while (true) {
+          Long dirty = pipeline.dirtyBlocks.poll(PIPELINE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+          if (END.equals(dirty)) {
+            break;
+          }
+          if (dirty != null) {
+            long pos = dirty;
+            int blockSize = (int) Math.min(BLOCK_SIZE, len - pos);
+            if (!DRY_RUN) {
+              if (writeBudget != null) {
+                writeBudget.acquireBytes(blockSize);
+              }
+              long writeStart = System.nanoTime();
+              ByteBuffer zeros = ZEROS.duplicate();
+              zeros.limit(blockSize);
+              long writePos = pos;
+              while (zeros.hasRemaining()) {
+                writePos += channel.write(zeros, writePos);
+              }
+              long latency = System.nanoTime() - writeStart;
+              writeNanos += latency;
+              if (writeBudget != null) {
+                writeBudget.recordLatency(latency);
+              }
+              bytesWritten += blockSize;
+            }
+          }
+          if (PROGRESS) {
+            long now = System.nanoTime();
+            if ((now - lastProgress) >= PROGRESS_INTERVAL_NANOS) {
+              lastProgress = now;
+              long bytesRead = pipeline.bytesRead;
+              lastVerboseString = TerminalWriter.progressOutput(
+                  lastVerboseString,
+                  Strings.getApproximateSize(bytesRead)
+                      + ": "
+                      + (len == 0 ? "100" : BigDecimal.valueOf(bytesRead * 10000 / len, 2))
+                      + "% read at "
+                      + getThroughput(bytesRead, now - startNanos)
+                      + ", "
+                      + pipeline.numDirtyBlocks
+                      + " dirty, "
+                      + Strings.getApproximateSize(bytesWritten)
+                      + " written at "
+                      + getThroughput(bytesWritten, writeNanos),
+                  System.err
+              );
+            }
+          }
+        }
+      } finally {
+        pipeline.stop = true;
+        reader.join();
+      }
+    } catch (InterruptedException err) {
+      // Restore the interrupted status
+      Thread.currentThread().interrupt();
+      InterruptedIOException ioErr = new InterruptedIOException();
+      ioErr.initCause(err);
+      throw ioErr;
+    }
+    Throwable error = pipeline.getError();
+    if (error != null) {
+      if (error instanceof IOException) {
+        throw (IOException) error;
+      }
+      if (error instanceof RuntimeException) {
+        throw (RuntimeException) error;
+      }
+      if (error instanceof Error) {
+        throw (Error) error;
+      }
+      throw new IOException(error);
+    }
+    if (PROGRESS) {
+      long nanos = System.nanoTime() - startNanos;
+      if (!lastVerboseString.isEmpty()) {
+        System.err.println();
+      }
+      System.err.println(
+          "Read " + Strings.getApproximateSize(len)
+              + ", wrote " + Strings.getApproximateSize(bytesWritten)
+              + " in " + pipeline.numDirtyBlocks + " dirty blocks, "
+              + getThroughput(len, nanos) + " overall"
+      );
+    }
+    return bytesWritten;
+  }
+  // </editor-fold>
 }
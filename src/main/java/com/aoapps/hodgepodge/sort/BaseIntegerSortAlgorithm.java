@@ -25,6 +25,7 @@ package com.aoapps.hodgepodge.sort;
 
 import com.aoapps.collections.IntList;
 import com.aoapps.hodgepodge.io.FileList;
+import com.aoapps.hodgepodge.io.IntFileList;
 
 /**
  * A sort implementation that sorts int[] primitives as was as integer representation of numeric objects.
@@ -88,6 +89,8 @@ abstract class BaseIntegerSortAlgorithm extends BaseSortAlgorithm<Number> implem
 
     if (list instanceof FileList<?>) {
       ((FileList<?>) list).swap(i, j);
+    } else if (list instanceof IntFileList) {
+      ((IntFileList) list).swap(i, j);
     } else {
       assert list != null;
       int t = list.getInt(i);
@@ -24,6 +24,7 @@
 package com.aoapps.hodgepodge.sort;
 
 import com.aoapps.hodgepodge.io.FileList;
+import com.aoapps.hodgepodge.io.RecordFileList;
 import java.util.List;
 
 /**
@@ -88,6 +89,8 @@ abstract class BaseSortAlgorithm<E> implements SortAlgorithm<E> {
 
     if (list instanceof FileList<?>) {
       ((FileList<?>) list).swap(i, j);
+    } else if (list instanceof RecordFileList<?>) {
+      ((RecordFileList<?>) list).swap(i, j);
     } else {
       assert list != null;
       T t = list.get(i);
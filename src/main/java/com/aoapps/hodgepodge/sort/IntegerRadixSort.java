@@ -1,6 +1,6 @@
 /*
  * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
- * Copyright (C) 2013, 2015, 2016, 2018, 2019, 2020, 2021, 2022, 2024, 2025  AO Industries, Inc.
+ * Copyright (C) 2013, 2015, 2016, 2018, 2019, 2020, 2021, 2022, 2024, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -24,6 +24,7 @@
 package com.aoapps.hodgepodge.sort;
 
 import com.aoapps.collections.IntList;
+import com.aoapps.hodgepodge.io.IntFileList;
 import com.aoapps.lang.NullArgumentException;
 import com.aoapps.lang.RuntimeUtils;
 import com.aoapps.lang.exception.WrappedException;
@@ -593,7 +594,8 @@ public final class IntegerRadixSort extends BaseIntegerSortAlgorithm {
       final int size,
       final T table,
       final Source<? super T> source,
-      final ExecutorService executor
+      final ExecutorService executor,
+      final SortStatistics stats
   ) {
     try {
       final int numTasks = table.numTasks;
@@ -636,6 +638,7 @@ public final class IntegerRadixSort extends BaseIntegerSortAlgorithm {
       int bitsNotSeen = 0;
 
       // May only use concurrent import for random access sources
+      long phaseStart = stats == null ? 0 : stats.phaseStarting(SortStatistics.Phase.HISTOGRAM);
       if (executor != null && source.useRandomAccess()) {
         // Perform concurrent import
         final List<Future<Source.ImportDataResult>> importStepFutures = new ArrayList<>(numTasks);
@@ -671,6 +674,9 @@ public final class IntegerRadixSort extends BaseIntegerSortAlgorithm {
         bitsNotSeen |= result.bitsNotSeen;
       }
       bitsNotSeen ^= 0xffffffff;
+      if (stats != null) {
+        stats.phaseEnding(SortStatistics.Phase.HISTOGRAM, phaseStart);
+      }
 
       // Swap toQueues and fromQueues
       table.swapQueues();
@@ -683,6 +689,9 @@ public final class IntegerRadixSort extends BaseIntegerSortAlgorithm {
         // or negative numbers.
         if (((bitsSeen >>> shift) & PASS_MASK) != ((bitsNotSeen >>> shift) & PASS_MASK)) {
           lastShiftUsed = shift;
+          if (stats != null) {
+            phaseStart = stats.phaseStarting(SortStatistics.Phase.SCATTER);
+          }
           if (executor != null) {
             // Get some final values for anonymous inner class
             final int finalShift = shift;
@@ -738,6 +747,9 @@ public final class IntegerRadixSort extends BaseIntegerSortAlgorithm {
 
           // Swap from and to
           table.swapQueues();
+          if (stats != null) {
+            stats.phaseEnding(SortStatistics.Phase.SCATTER, phaseStart);
+          }
         }
       }
 
@@ -745,6 +757,9 @@ public final class IntegerRadixSort extends BaseIntegerSortAlgorithm {
       int fromQueueStart = (lastShiftUsed + BITS_PER_PASS) == 32 ? (PASS_SIZE >>> 1) : 0;
 
       // May only use concurrent export for random access sources
+      if (stats != null) {
+        phaseStart = stats.phaseStarting(SortStatistics.Phase.MERGE);
+      }
       if (executor != null && source.useRandomAccess()) {
         // Use indexed strategy with balanced concurrency
         final int fromQueueLast = (fromQueueStart - 1) & PASS_MASK;
@@ -800,6 +815,9 @@ public final class IntegerRadixSort extends BaseIntegerSortAlgorithm {
             0
         );
       }
+      if (stats != null) {
+        stats.phaseEnding(SortStatistics.Phase.MERGE, phaseStart);
+      }
     } catch (InterruptedException e) {
       // Restore the interrupted status
       Thread.currentThread().interrupt();
@@ -905,7 +923,7 @@ public final class IntegerRadixSort extends BaseIntegerSortAlgorithm {
       throw new NullArgumentException("list");
     }
     if (list instanceof IntList) {
-      sort((IntList) list);
+      sort((IntList) list, stats);
     } else {
       if (stats != null) {
         stats.sortStarting();
@@ -932,14 +950,16 @@ public final class IntegerRadixSort extends BaseIntegerSortAlgorithm {
               size,
               new SingleTaskNumberRadixTable<>(size),
               new NumberListSource<>(size, list),
-              null
+              null,
+              stats
           );
         } else {
           radixSort(
               size,
               new MultiTaskNumberRadixTable<>(size, numProcessors * TASKS_PER_PROCESSOR),
               new NumberListSource<>(size, list),
-              executor
+              executor,
+              stats
           );
         }
       }
@@ -1033,14 +1053,16 @@ public final class IntegerRadixSort extends BaseIntegerSortAlgorithm {
             size,
             new SingleTaskNumberRadixTable<>(size),
             new NumberArraySource<>(size, array),
-            null
+            null,
+            stats
         );
       } else {
         radixSort(
             size,
             new MultiTaskNumberRadixTable<>(size, numProcessors * TASKS_PER_PROCESSOR),
             new NumberArraySource<>(size, array),
-            executor
+            executor,
+            stats
         );
       }
     }
@@ -1139,8 +1161,21 @@ public final class IntegerRadixSort extends BaseIntegerSortAlgorithm {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>An {@link IntFileList} is read into memory and written back with bulk I/O, since the radix table
+   * holds every element in memory regardless.</p>
+   */
   @Override
   public void sort(IntList list, SortStatistics stats) {
+    if (list instanceof IntFileList) {
+      IntFileList fileList = (IntFileList) list;
+      int[] array = fileList.toArrayInt();
+      sort(array, stats);
+      fileList.setInts(0, array, 0, array.length);
+      return;
+    }
     if (stats != null) {
       stats.sortStarting();
     }
@@ -1166,14 +1201,16 @@ public final class IntegerRadixSort extends BaseIntegerSortAlgorithm {
             size,
             new SingleTaskIntRadixTable(size),
             new IntListSource(size, list),
-            null
+            null,
+            stats
         );
       } else {
         radixSort(
             size,
             new MultiTaskIntRadixTable(size, numProcessors * TASKS_PER_PROCESSOR),
             new IntListSource(size, list),
-            executor
+            executor,
+            stats
         );
       }
     }
@@ -1266,14 +1303,16 @@ public final class IntegerRadixSort extends BaseIntegerSortAlgorithm {
             size,
             new SingleTaskIntRadixTable(size),
             new IntArraySource(size, array),
-            null
+            null,
+            stats
         );
       } else {
         radixSort(
             size,
             new MultiTaskIntRadixTable(size, numProcessors * TASKS_PER_PROCESSOR),
             new IntArraySource(size, array),
-            executor
+            executor,
+            stats
         );
       }
     }
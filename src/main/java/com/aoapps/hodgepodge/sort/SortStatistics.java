@@ -1,6 +1,6 @@
 /*
  * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
- * Copyright (C) 2003, 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2013, 2016, 2019, 2020, 2021, 2022  AO Industries, Inc.
+ * Copyright (C) 2003, 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2013, 2016, 2019, 2020, 2021, 2022, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -24,156 +24,343 @@
 package com.aoapps.hodgepodge.sort;
 
 import com.aoapps.lang.Strings;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Sorting statistics to help determine best algorithm for a specific task.
  *
+ * <p>All counters are striped (see {@link LongAdder}) so that they may be updated
+ * concurrently from the tasks of parallel sort implementations with minimal contention.
+ * Times are measured with {@link System#nanoTime()}.</p>
+ *
  * @author  AO Industries, Inc.
  */
 public final class SortStatistics {
 
-  private long startTime;
-  private int currentRecursion;
+  /**
+   * The phases of a sort that may be timed individually.
+   * Not all algorithms report phases; currently only {@link IntegerRadixSort}.
+   */
+  public enum Phase {
+    /**
+     * Reading the source data into the initial queues while determining which bit ranges must be sorted.
+     */
+    HISTOGRAM,
+
+    /**
+     * One gather/scatter pass over a single bit range.
+     */
+    SCATTER,
+
+    /**
+     * Writing the sorted queues back to the destination.
+     */
+    MERGE
+  }
+
+  private static final Phase[] phases = Phase.values();
 
-  private long totalTime;
-  private long algorithmSwitches;
-  private long gets;
-  private long sets;
-  private long objectComparisons;
-  private long inListComparisons;
-  private long swaps;
-  private int maxRecursion;
+  /**
+   * The value of {@link #startTime} when no sort is in progress.
+   */
+  private static final long NOT_STARTED = Long.MIN_VALUE;
+
+  private final AtomicLong startTime = new AtomicLong();
+  private final AtomicInteger currentRecursion = new AtomicInteger();
+
+  private final LongAdder totalTime = new LongAdder();
+  private final LongAdder sorts = new LongAdder();
+  private final LongAdder algorithmSwitches = new LongAdder();
+  private final LongAdder gets = new LongAdder();
+  private final LongAdder sets = new LongAdder();
+  private final LongAdder objectComparisons = new LongAdder();
+  private final LongAdder inListComparisons = new LongAdder();
+  private final LongAdder swaps = new LongAdder();
+  private final AtomicInteger maxRecursion = new AtomicInteger();
+  private final LongAdder[] phaseTimes = new LongAdder[phases.length];
+  private final LongAdder[] phaseCounts = new LongAdder[phases.length];
+
+  /**
+   * The number of each phase started and not yet ended.
+   */
+  private final AtomicInteger[] activePhases = new AtomicInteger[phases.length];
 
   public SortStatistics() {
+    for (int i = 0; i < phases.length; i++) {
+      phaseTimes[i] = new LongAdder();
+      phaseCounts[i] = new LongAdder();
+      activePhases[i] = new AtomicInteger();
+    }
     reset();
   }
 
+  /**
+   * Resets all statistics.  This should not be called while a sort is in progress.
+   */
   public void reset() {
-    startTime = -1;
-    currentRecursion = 0;
-    totalTime = 0;
-    algorithmSwitches = 0;
-    gets = 0;
-    sets = 0;
-    objectComparisons = 0;
-    inListComparisons = 0;
-    swaps = 0;
-    maxRecursion = 0;
+    startTime.set(NOT_STARTED);
+    currentRecursion.set(0);
+    totalTime.reset();
+    sorts.reset();
+    algorithmSwitches.reset();
+    gets.reset();
+    sets.reset();
+    objectComparisons.reset();
+    inListComparisons.reset();
+    swaps.reset();
+    maxRecursion.set(0);
+    for (int i = 0; i < phases.length; i++) {
+      phaseTimes[i].reset();
+      phaseCounts[i].reset();
+      activePhases[i].set(0);
+    }
   }
 
   public void sortStarting() {
-    if (startTime != -1) {
-      throw new RuntimeException("sortStarting already called");
+    if (!startTime.compareAndSet(NOT_STARTED, System.nanoTime())) {
+      throw new IllegalStateException("sortStarting already called");
     }
-    startTime = System.currentTimeMillis();
   }
 
   public void sortEnding() {
-    if (startTime == -1) {
-      throw new RuntimeException("sortStarting not yet called");
+    long endTime = System.nanoTime();
+    long start = startTime.getAndSet(NOT_STARTED);
+    if (start == NOT_STARTED) {
+      throw new IllegalStateException("sortStarting not yet called");
     }
-    totalTime += System.currentTimeMillis() - startTime;
-    startTime = -1;
+    totalTime.add(endTime - start);
+    sorts.increment();
+  }
+
+  /**
+   * Gets the number of sorts completed.
+   */
+  public long getSortCount() {
+    return sorts.sum();
   }
 
   public void sortRecursing() {
-    currentRecursion++;
-    if (currentRecursion > maxRecursion) {
-      maxRecursion = currentRecursion;
-    }
+    maxRecursion.accumulateAndGet(currentRecursion.incrementAndGet(), Math::max);
   }
 
   public void sortUnrecursing() {
-    currentRecursion--;
+    currentRecursion.decrementAndGet();
   }
 
   public void sortSwitchingAlgorithms() {
-    algorithmSwitches++;
+    algorithmSwitches.increment();
   }
 
   public long getAlgorithmSwitchCount() {
-    return algorithmSwitches;
+    return algorithmSwitches.sum();
   }
 
   public void sortGetting() {
-    gets++;
+    gets.increment();
   }
 
   public void sortGetting(int increment) {
-    gets += increment;
+    gets.add(increment);
   }
 
   public long getGetCount() {
-    return gets;
+    return gets.sum();
   }
 
   public void sortSetting() {
-    sets++;
+    sets.increment();
   }
 
   public void sortSetting(int increment) {
-    sets += increment;
+    sets.add(increment);
   }
 
   public long getSetCount() {
-    return sets;
+    return sets.sum();
   }
 
   public void sortObjectComparing() {
-    objectComparisons++;
+    objectComparisons.increment();
   }
 
   public long getObjectComparisons() {
-    return objectComparisons;
+    return objectComparisons.sum();
   }
 
   public void sortInListComparing() {
-    inListComparisons++;
+    inListComparisons.increment();
   }
 
   public long getInListComparisons() {
-    return inListComparisons;
+    return inListComparisons.sum();
   }
 
   public void sortSwapping() {
-    swaps++;
+    swaps.increment();
   }
 
   public long getSwapCount() {
-    return swaps;
+    return swaps.sum();
+  }
+
+  /**
+   * Marks the beginning of a phase.  The same phase may be in progress more than once at a time,
+   * such as in each task of a parallel sort.
+   *
+   * @return  the start time to be passed to {@link #phaseEnding(com.aoapps.hodgepodge.sort.SortStatistics.Phase, long)}
+   */
+  public long phaseStarting(Phase phase) {
+    activePhases[phase.ordinal()].incrementAndGet();
+    return System.nanoTime();
   }
 
+  /**
+   * Marks the end of a phase.  Thread-safe, since the totals are {@link LongAdder} counters,
+   * so may be called concurrently from each task of a parallel sort.  The phase time is then the
+   * sum of the time spent in each task.
+   *
+   * @param  startNanos  the value returned from {@link #phaseStarting(com.aoapps.hodgepodge.sort.SortStatistics.Phase)}
+   *
+   * @throws  IllegalStateException  if this phase has not been started
+   */
+  public void phaseEnding(Phase phase, long startNanos) {
+    long endNanos = System.nanoTime();
+    int ordinal = phase.ordinal();
+    if (activePhases[ordinal].getAndUpdate(active -> active > 0 ? active - 1 : active) == 0) {
+      throw new IllegalStateException("phaseStarting not yet called: " + phase);
+    }
+    phaseTimes[ordinal].add(endNanos - startNanos);
+    phaseCounts[ordinal].increment();
+  }
+
+  /**
+   * Gets the total time spent in the given phase, in nanoseconds.
+   */
+  public long getPhaseTimeNanos(Phase phase) {
+    return phaseTimes[phase.ordinal()].sum();
+  }
+
+  /**
+   * Gets the number of times the given phase has been performed.
+   */
+  public long getPhaseCount(Phase phase) {
+    return phaseCounts[phase.ordinal()].sum();
+  }
+
+  /**
+   * Gets the total time, in nanoseconds.
+   */
+  public long getTotalTimeNanos() {
+    return totalTime.sum();
+  }
+
+  /**
+   * Gets the total time, in milliseconds.
+   *
+   * @see  #getTotalTimeNanos()
+   */
   public long getTotalTime() {
-    return totalTime;
+    return getTotalTimeNanos() / 1000000;
   }
 
   public int getMaxRecursion() {
-    return maxRecursion;
+    return maxRecursion.get();
   }
 
-  public void printStats(PrintWriter out) {
-    out.print("Total Time...........: ");
-    if (totalTime > Integer.MAX_VALUE) {
-      out.println(Strings.getTimeLengthString(totalTime));
+  /**
+   * Gets a snapshot of all statistics, suitable for comparing algorithms
+   * or exporting to other formats.  Times are in nanoseconds.
+   * The keys and their iteration order are stable between calls.
+   *
+   * @return  an unmodifiable map
+   */
+  public Map<String, Long> getReport() {
+    Map<String, Long> report = new LinkedHashMap<>();
+    report.put("sorts", getSortCount());
+    report.put("totalTimeNanos", getTotalTimeNanos());
+    report.put("maxRecursion", (long) getMaxRecursion());
+    report.put("algorithmSwitches", getAlgorithmSwitchCount());
+    report.put("gets", getGetCount());
+    report.put("sets", getSetCount());
+    report.put("swaps", getSwapCount());
+    report.put("objectComparisons", getObjectComparisons());
+    report.put("inListComparisons", getInListComparisons());
+    for (Phase phase : phases) {
+      String name = phase.name().toLowerCase(Locale.ROOT);
+      report.put(name + "Count", getPhaseCount(phase));
+      report.put(name + "TimeNanos", getPhaseTimeNanos(phase));
+    }
+    return Collections.unmodifiableMap(report);
+  }
+
+  /**
+   * Writes the {@link #getReport() report} as a single-line JSON object.
+   */
+  public void printReport(Appendable out) throws IOException {
+    out.append('{');
+    boolean didOne = false;
+    for (Map.Entry<String, Long> entry : getReport().entrySet()) {
+      if (didOne) {
+        out.append(',');
+      } else {
+        didOne = true;
+      }
+      // Keys are all simple identifiers, no escaping required
+      out.append('"').append(entry.getKey()).append("\":").append(entry.getValue().toString());
+    }
+    out.append('}');
+  }
+
+  private static void printTime(PrintWriter out, long nanos) {
+    if (nanos > Integer.MAX_VALUE * 1000000L) {
+      out.println(Strings.getTimeLengthString(nanos / 1000000));
     } else {
-      out.print(BigDecimal.valueOf(totalTime, 3));
+      out.print(BigDecimal.valueOf(nanos, 9));
       out.println(" seconds");
     }
+  }
+
+  public void printStats(PrintWriter out) {
+    out.print("Total Time...........: ");
+    printTime(out, getTotalTimeNanos());
     out.print("Max Recursion........: ");
-    out.println(maxRecursion);
+    out.println(getMaxRecursion());
     out.print("Algorithm Switches...: ");
-    out.println(algorithmSwitches);
+    out.println(getAlgorithmSwitchCount());
     out.print("Gets.................: ");
-    out.println(gets);
+    out.println(getGetCount());
     out.print("Sets.................: ");
-    out.println(sets);
+    out.println(getSetCount());
     out.print("In-List Swaps........: ");
-    out.println(swaps);
+    out.println(getSwapCount());
     out.print("Object Comparisons...: ");
-    out.println(objectComparisons);
+    out.println(getObjectComparisons());
     out.print("In-List Comparisons..: ");
-    out.println(inListComparisons);
+    out.println(getInListComparisons());
+    for (Phase phase : phases) {
+      long count = getPhaseCount(phase);
+      if (count > 0) {
+        String name = phase.name();
+        out.print(name.charAt(0));
+        out.print(name.substring(1).toLowerCase(Locale.ROOT));
+        out.print(" Phase");
+        for (int i = name.length() + 6; i < 21; i++) {
+          out.print('.');
+        }
+        out.print(": ");
+        out.print(count);
+        out.print(" x, ");
+        printTime(out, getPhaseTimeNanos(phase));
+      }
+    }
   }
 }
@@ -0,0 +1,191 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link DirectoryMetaSnapshot}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class DirectoryMetaSnapshotTest {
+
+  private Path temp;
+  private Path root;
+
+  @Before
+  public void setUp() throws IOException {
+    temp = Files.createTempDirectory("DirectoryMetaSnapshotTest");
+    root = temp.resolve("root");
+    Files.createDirectories(root.resolve("a/b"));
+    Files.write(root.resolve("a/one"), new byte[1]);
+    Files.write(root.resolve("a/b/two"), new byte[2]);
+    Files.write(root.resolve("three"), new byte[3]);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    List<Path> paths;
+    try (Stream<Path> stream = Files.walk(temp)) {
+      paths = stream.sorted(Collections.reverseOrder()).collect(Collectors.toList());
+    }
+    for (Path path : paths) {
+      Files.delete(path);
+    }
+  }
+
+  /**
+   * Modifies "a/one" in-place, removes "three", and adds "a/c/four".
+   */
+  private void modify() throws IOException {
+    Path one = root.resolve("a/one");
+    Files.write(one, new byte[10]);
+    Files.setLastModifiedTime(one, FileTime.fromMillis(1000));
+    Files.delete(root.resolve("three"));
+    Files.createDirectories(root.resolve("a/c"));
+    Files.write(root.resolve("a/c/four"), new byte[4]);
+  }
+
+  private static void assertDiff(DirectoryMetaSnapshot.Diff diff) {
+    String sep = File.separator;
+    assertEquals(Collections.singleton("a" + sep + "c" + sep + "four"), diff.getAdded());
+    assertEquals(Collections.singleton("three"), diff.getRemoved());
+    assertEquals(Collections.singleton("a" + sep + "one"), diff.getModified());
+  }
+
+  @Test
+  public void testUpdate() throws IOException {
+    DirectoryMetaSnapshot before = new DirectoryMetaSnapshot(root.toString());
+    File saved = temp.resolve("snapshot").toFile();
+    before.write(saved);
+    modify();
+    DirectoryMetaSnapshot after = DirectoryMetaSnapshot.read(saved).update();
+    DirectoryMetaSnapshot expected = new DirectoryMetaSnapshot(root.toString());
+    assertEquals(expected, after);
+    assertTrue(expected.diff(after).isEmpty());
+    assertDiff(before.diff(after));
+  }
+
+  /**
+   * Adds a file without changing the modified time of its directory, as happens when both
+   * occur within the filesystem's timestamp granularity.
+   */
+  @Test
+  public void testUpdateRacy() throws IOException {
+    Path dir = root.resolve("a");
+    FileTime modified = Files.getLastModifiedTime(dir);
+    DirectoryMetaSnapshot before = new DirectoryMetaSnapshot(root.toString());
+    Files.write(dir.resolve("five"), new byte[5]);
+    Files.setLastModifiedTime(dir, modified);
+    DirectoryMetaSnapshot after = before.update();
+    assertEquals(new DirectoryMetaSnapshot(root.toString()), after);
+    assertEquals(Collections.singleton("a" + File.separator + "five"), before.diff(after).getAdded());
+  }
+
+  /**
+   * Directories modified well before the scan are not listed again.
+   */
+  @Test
+  public void testUpdateNotRacy() throws IOException {
+    Path dir = root.resolve("a");
+    FileTime modified = FileTime.fromMillis(1000);
+    Files.setLastModifiedTime(dir, modified);
+    DirectoryMetaSnapshot before = new DirectoryMetaSnapshot(root.toString());
+    Files.write(dir.resolve("five"), new byte[5]);
+    Files.setLastModifiedTime(dir, modified);
+    assertTrue(before.diff(before.update()).isEmpty());
+  }
+
+  @Test
+  public void testWatcher() throws IOException {
+    DirectoryMetaSnapshot before = new DirectoryMetaSnapshot(root.toString());
+    try (DirectoryMetaSnapshot.Watcher watcher = new DirectoryMetaSnapshot.Watcher(before)) {
+      assertEquals(before, watcher.getSnapshot());
+      modify();
+      DirectoryMetaSnapshot expected = new DirectoryMetaSnapshot(root.toString());
+      DirectoryMetaSnapshot after = watcher.getSnapshot();
+      long deadline = System.currentTimeMillis() + 10000;
+      while (!after.equals(expected) && System.currentTimeMillis() < deadline) {
+        after = watcher.awaitSnapshot(100, TimeUnit.MILLISECONDS);
+      }
+      assertEquals(expected, after);
+      assertDiff(before.diff(after));
+    }
+  }
+
+  /**
+   * Reads more files than fit in one sorting chunk, out of order.
+   */
+  @Test
+  public void testReadUnsorted() throws IOException {
+    int numFiles = 150000;
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bout)) {
+      out.writeInt(0x444d5331);
+      out.writeUTF(root.toString());
+      out.writeInt(0);
+      out.writeInt(numFiles);
+      for (int i = numFiles - 1; i >= 0; i--) {
+        out.writeUTF("file" + i);
+        out.writeLong(i);
+        out.writeLong(i * 2L);
+      }
+    }
+    DirectoryMetaSnapshot snapshot = DirectoryMetaSnapshot.read(new DataInputStream(new ByteArrayInputStream(bout.toByteArray())));
+    SortedMap<String, DirectoryMetaSnapshot.FileMetaSnapshot> files = snapshot.getFiles();
+    assertEquals(numFiles, files.size());
+    String last = null;
+    for (Map.Entry<String, DirectoryMetaSnapshot.FileMetaSnapshot> entry : files.entrySet()) {
+      String path = entry.getKey();
+      assertTrue(last == null || last.compareTo(path) < 0);
+      int i = Integer.parseInt(path.substring("file".length()));
+      assertEquals(i, entry.getValue().getLastModified());
+      assertEquals(i * 2L, entry.getValue().getLength());
+      last = path;
+    }
+    assertEquals(12345 * 2L, files.get("file12345").getLength());
+  }
+}
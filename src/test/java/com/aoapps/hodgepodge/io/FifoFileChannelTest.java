@@ -0,0 +1,130 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.aoapps.tempfiles.TempFile;
+import com.aoapps.tempfiles.TempFileContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests {@link FifoFileChannel}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class FifoFileChannelTest {
+
+  private static final int MAX_FIFO_LENGTH = 100;
+
+  /**
+   * Writes with gathering writes and reads with scattering reads, mixed with the streams,
+   * wrapping around the end of the file many times.
+   */
+  @Test
+  public void testScatterGather() throws IOException {
+    try (
+        TempFileContext tempFileContext = new TempFileContext();
+        TempFile tempFile = tempFileContext.createTempFile("FifoFileChannelTest")
+        ) {
+      FifoFile fifo = new FifoFile(tempFile.getFile(), MAX_FIFO_LENGTH);
+      try {
+        FifoFileChannel channel = fifo.getChannel();
+        Random random = new Random(1);
+        byte[] expected = new byte[MAX_FIFO_LENGTH];
+        for (int i = 0; i < 1000; i++) {
+          int len = random.nextInt(MAX_FIFO_LENGTH) + 1;
+          random.nextBytes(expected);
+          int split = random.nextInt(len + 1);
+          ByteBuffer src1 = ByteBuffer.wrap(expected, 0, split);
+          ByteBuffer src2 = ByteBuffer.allocateDirect(len - split);
+          src2.put(expected, split, len - split).flip();
+          assertEquals(len, channel.write(new ByteBuffer[] {src1, src2}));
+          assertEquals(len, fifo.getLength());
+
+          byte[] actual = new byte[len];
+          int pos = 0;
+          if (random.nextBoolean()) {
+            int count = fifo.getInputStream().read(actual, 0, random.nextInt(len) + 1);
+            pos += count;
+          }
+          while (pos < len) {
+            ByteBuffer dst1 = ByteBuffer.allocateDirect(random.nextInt(len - pos) + 1);
+            ByteBuffer dst2 = ByteBuffer.allocate(len);
+            long count = channel.read(new ByteBuffer[] {dst1, dst2});
+            dst1.flip();
+            dst2.flip();
+            assertEquals(count, dst1.remaining() + dst2.remaining());
+            int n1 = dst1.remaining();
+            dst1.get(actual, pos, n1);
+            int n2 = Math.min(dst2.remaining(), len - pos - n1);
+            dst2.get(actual, pos + n1, n2);
+            pos += count;
+          }
+          assertArrayEquals(Arrays.copyOf(expected, len), actual);
+          assertEquals(0, fifo.getLength());
+        }
+      } finally {
+        fifo.close();
+      }
+    }
+  }
+
+  @Test
+  public void testTransferTo() throws IOException {
+    try (
+        TempFileContext tempFileContext = new TempFileContext();
+        TempFile tempFile = tempFileContext.createTempFile("FifoFileChannelTest")
+        ) {
+      FifoFile fifo = new FifoFile(tempFile.getFile(), MAX_FIFO_LENGTH);
+      try {
+        Random random = new Random(2);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        for (int i = 0; i < 100; i++) {
+          byte[] bytes = new byte[random.nextInt(MAX_FIFO_LENGTH - (int) fifo.getLength()) + 1];
+          random.nextBytes(bytes);
+          fifo.getOutputStream().write(bytes);
+          expected.write(bytes);
+          long length = fifo.getLength();
+          long maxBytes = random.nextInt((int) length + 1);
+          assertEquals(maxBytes, fifo.getChannel().transferTo(Channels.newChannel(actual), maxBytes));
+          assertEquals(length - maxBytes, fifo.getLength());
+        }
+        fifo.getChannel().transferTo(Channels.newChannel(actual));
+        assertEquals(0, fifo.getLength());
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+      } finally {
+        fifo.close();
+      }
+    }
+  }
+}
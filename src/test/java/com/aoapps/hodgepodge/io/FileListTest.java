@@ -0,0 +1,426 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+/**
+ * Tests {@link FileList} against an {@link ArrayList} performing the same operations.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class FileListTest {
+
+  static class Value implements FileListObject {
+
+    static final int LENGTH = Long.BYTES;
+
+    long value;
+
+    Value() {
+      // Read by readRecord
+    }
+
+    Value(long value) {
+      this.value = value;
+    }
+
+    @Override
+    public void writeRecord(DataOutputStream out) throws IOException {
+      out.writeLong(value);
+    }
+
+    @Override
+    public void readRecord(DataInputStream in) throws IOException {
+      value = in.readLong();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return (obj instanceof Value) && ((Value) obj).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+      return Long.toString(value);
+    }
+  }
+
+  /**
+   * A value encoded directly against the record buffer.
+   */
+  static final class BufferValue extends Value implements FileListBufferObject {
+
+    BufferValue() {
+      // Read by readRecord
+    }
+
+    BufferValue(long value) {
+      super(value);
+    }
+
+    @Override
+    public void writeRecord(ByteBuffer out) {
+      out.putLong(value);
+    }
+
+    @Override
+    public void readRecord(ByteBuffer in) {
+      value = in.getLong();
+    }
+
+    @Override
+    public int getRecordLength() {
+      return LENGTH;
+    }
+  }
+
+  /**
+   * A value only implementing the buffer-based methods, with room for a second value.
+   */
+  static final class BridgedValue implements FileListBufferObject {
+
+    long value;
+
+    @Override
+    public void writeRecord(ByteBuffer out) {
+      out.putLong(value);
+    }
+
+    @Override
+    public void readRecord(ByteBuffer in) {
+      value = in.getLong();
+    }
+
+    @Override
+    public int getRecordLength() {
+      return 2 * Long.BYTES;
+    }
+  }
+
+  private static final int OPERATIONS = 2000;
+
+  /**
+   * Performs the same random operations on a {@link FileList} and an {@link ArrayList}, verifying they match.
+   */
+  static void testRandomOperations(FileList<Value> fileList, long seed) {
+    testRandomOperations(fileList, Value::new, seed);
+  }
+
+  static void testRandomOperations(FileList<Value> fileList, LongFunction<Value> valueFactory, long seed) {
+    Random random = new Random(seed);
+    List<Value> expected = new ArrayList<>();
+    for (int i = 0; i < OPERATIONS; i++) {
+      int size = expected.size();
+      Value value = random.nextInt(10) == 0 ? null : valueFactory.apply(random.nextLong());
+      switch (size == 0 ? 0 : random.nextInt(7)) {
+        case 0:
+          expected.add(value);
+          fileList.add(value);
+          break;
+        case 1: {
+          int index = random.nextInt(size + 1);
+          expected.add(index, value);
+          fileList.add(index, value);
+          break;
+        }
+        case 2: {
+          int index = random.nextInt(size);
+          assertEquals(expected.remove(index), fileList.remove(index));
+          break;
+        }
+        case 3: {
+          int index = random.nextInt(size);
+          assertEquals(expected.set(index, value), fileList.set(index, value));
+          break;
+        }
+        case 4: {
+          int index1 = random.nextInt(size);
+          int index2 = random.nextInt(size);
+          expected.set(index1, expected.set(index2, expected.get(index1)));
+          fileList.swap(index1, index2);
+          break;
+        }
+        case 5: {
+          int index = random.nextInt(size + 1);
+          List<Value> values = Arrays.asList(valueFactory.apply(random.nextLong()), null, valueFactory.apply(random.nextLong()));
+          expected.addAll(index, values);
+          fileList.addAll(index, values);
+          break;
+        }
+        default: {
+          int index = random.nextInt(size);
+          assertEquals(Objects.toString(expected.get(index)), Objects.toString(fileList.get(index)));
+        }
+      }
+      assertEquals(expected.size(), fileList.size());
+    }
+    assertEquals(expected, fileList);
+  }
+
+  @Test
+  public void testOptionsCacheSize() {
+    assertEquals(FileList.DEFAULT_CACHE_SIZE, new FileList.Options().getCacheSize());
+    assertEquals(0, new FileList.Options().setMemoryMapped(true).getCacheSize());
+    assertEquals(4096, new FileList.Options().setMemoryMapped(true).setCacheSize(4096).getCacheSize());
+    assertEquals(0, new FileList.Options().setCacheSize(0).setMemoryMapped(false).getCacheSize());
+  }
+
+  @Test
+  public void testRandomOperations() throws IOException {
+    try (FileList<Value> fileList = new FileList<>("FileListTest", "tmp", Value.LENGTH, Value::new)) {
+      testRandomOperations(fileList, 1);
+    }
+  }
+
+  @Test
+  public void testRandomOperationsMemoryMapped() throws IOException {
+    try (FileList<Value> fileList = new FileList<>("FileListTest", "tmp", Value.LENGTH, Value::new, new FileList.Options().setMemoryMapped(true))) {
+      testRandomOperations(fileList, 2);
+    }
+  }
+
+  @Test
+  public void testRandomOperationsUncached() throws IOException {
+    try (FileList<Value> fileList = new FileList<>("FileListTest", "tmp", Value.LENGTH, Value::new, new FileList.Options().setCacheSize(0))) {
+      testRandomOperations(fileList, 3);
+    }
+  }
+
+  /**
+   * A cache of only a few blocks, forcing eviction of dirty blocks and read-ahead during iteration.
+   */
+  @Test
+  public void testRandomOperationsSmallCache() throws IOException {
+    try (FileList<Value> fileList = new FileList<>("FileListTest", "tmp", Value.LENGTH, Value::new, new FileList.Options().setCacheSize(4 * 4096))) {
+      testRandomOperations(fileList, 4);
+    }
+  }
+
+  @Test
+  public void testRandomOperationsIndexed() throws IOException {
+    try (FileList<Value> fileList = new FileList<>("FileListTest", "tmp", Value.LENGTH, Value::new, new FileList.Options().setCacheSize(0).setIndexed(true))) {
+      testRandomOperations(fileList, 5);
+    }
+  }
+
+  @Test
+  public void testRandomOperationsIndexedCachedMemoryMapped() throws IOException {
+    try (FileList<Value> fileList = new FileList<>("FileListTest", "tmp", Value.LENGTH, Value::new,
+        new FileList.Options().setMemoryMapped(true).setCacheSize(4 * 4096).setIndexed(true))) {
+      testRandomOperations(fileList, 6);
+    }
+  }
+
+  @Test
+  public void testRandomOperationsBuffer() throws IOException {
+    try (FileList<Value> fileList = new FileList<>("FileListTest", "tmp", Value.LENGTH, BufferValue::new, new FileList.Options().setCacheSize(4 * 4096))) {
+      testRandomOperations(fileList, BufferValue::new, 7);
+    }
+  }
+
+  @Test
+  public void testRandomOperationsBufferUncached() throws IOException {
+    try (FileList<Value> fileList = new FileList<>("FileListTest", "tmp", Value.LENGTH, BufferValue::new, new FileList.Options().setCacheSize(0))) {
+      testRandomOperations(fileList, BufferValue::new, 8);
+    }
+  }
+
+  /**
+   * Stream and buffer encodings are interchangeable.
+   */
+  @Test
+  public void testStreamBridge() throws IOException {
+    BridgedValue value = new BridgedValue();
+    value.value = 0x0102030405060708L;
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bout)) {
+      value.writeRecord(out);
+      value.value = -1;
+      value.writeRecord(out);
+    }
+    byte[] bytes = bout.toByteArray();
+    assertEquals(4 * Long.BYTES, bytes.length);
+    assertEquals(0x0102030405060708L, ByteBuffer.wrap(bytes).getLong());
+    assertEquals(0, ByteBuffer.wrap(bytes).getLong(Long.BYTES));
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      BridgedValue read = new BridgedValue();
+      read.readRecord(in);
+      assertEquals(0x0102030405060708L, read.value);
+      read.readRecord(in);
+      assertEquals(-1, read.value);
+    }
+  }
+
+  @Test
+  public void testRandomOperationsMixed() throws IOException {
+    try (FileList<Value> fileList = new FileList<>("FileListTest", "tmp", Value.LENGTH, Value::new)) {
+      testRandomOperations(fileList, BufferValue::new, 9);
+    }
+  }
+
+  @Test
+  public void testFlyweight() throws IOException {
+    try (FileList<Value> fileList = new FileList<>("FileListTest", "tmp", Value.LENGTH, BufferValue::new)) {
+      for (int i = 0; i < 10000; i++) {
+        fileList.add(i % 7 == 0 ? null : new BufferValue(i));
+      }
+      fileList.setFlyweight(true);
+      Value flyweight = null;
+      int index = 0;
+      for (Value value : fileList) {
+        if (index % 7 == 0) {
+          assertEquals(null, value);
+        } else {
+          assertEquals(index, value.value);
+          if (flyweight == null) {
+            flyweight = value;
+          } else {
+            assertSame(flyweight, value);
+          }
+        }
+        index++;
+      }
+      assertEquals(10000, index);
+    }
+  }
+
+  private static void testSpliteratorAndRanges(FileList<Value> fileList) {
+    List<Value> expected = new ArrayList<>();
+    Random random = new Random(10);
+    for (int i = 0; i < 50000; i++) {
+      Value value = i % 11 == 0 ? null : new BufferValue(random.nextLong());
+      expected.add(value);
+      fileList.add(value);
+    }
+    // Leave some modified records in the cache, and move records in an indexed file
+    for (int i = 0; i < 1000; i++) {
+      int index = random.nextInt(expected.size());
+      Value value = new BufferValue(random.nextLong());
+      expected.set(index, value);
+      fileList.set(index, value);
+      int index2 = random.nextInt(expected.size());
+      expected.set(index, expected.set(index2, expected.get(index)));
+      fileList.swap(index, index2);
+    }
+    assertEquals(expected, fileList.parallelStream().collect(Collectors.toList()));
+    assertEquals(
+        expected.stream().filter(Objects::nonNull).mapToLong(v -> v.value).sum(),
+        fileList.parallelStream().filter(Objects::nonNull).mapToLong(v -> v.value).sum()
+    );
+    fileList.setFlyweight(true);
+    assertEquals(
+        expected.stream().filter(Objects::nonNull).mapToLong(v -> v.value).sum(),
+        fileList.parallelStream().filter(Objects::nonNull).mapToLong(v -> v.value).sum()
+    );
+    fileList.setFlyweight(false);
+
+    // Ranges
+    Value[] range = new Value[30000];
+    fileList.getRange(1000, 31000, range);
+    assertEquals(expected.subList(1000, 31000), Arrays.asList(range));
+    for (int i = 0; i < range.length; i++) {
+      range[i] = i % 13 == 0 ? null : new Value(random.nextLong());
+    }
+    fileList.setRange(20000, 50000, range);
+    for (int i = 0; i < range.length; i++) {
+      expected.set(20000 + i, range[i]);
+    }
+    assertEquals(expected, fileList);
+    assertEquals(expected, fileList.stream().collect(Collectors.toList()));
+  }
+
+  @Test
+  public void testSpliteratorAndRanges() throws IOException {
+    try (FileList<Value> fileList = new FileList<>("FileListTest", "tmp", Value.LENGTH, BufferValue::new)) {
+      testSpliteratorAndRanges(fileList);
+    }
+  }
+
+  @Test
+  public void testSpliteratorAndRangesIndexedMemoryMapped() throws IOException {
+    try (FileList<Value> fileList = new FileList<>("FileListTest", "tmp", Value.LENGTH, Value::new,
+        new FileList.Options().setMemoryMapped(true).setCacheSize(4 * 4096).setIndexed(true))) {
+      testSpliteratorAndRanges(fileList);
+    }
+  }
+
+  @Test
+  public void testAddAllFileListWithDirtyCache() throws IOException {
+    testAddAllFileList(false);
+  }
+
+  @Test
+  public void testAddAllFileListIndexed() throws IOException {
+    testAddAllFileList(true);
+  }
+
+  private static void testAddAllFileList(boolean indexed) throws IOException {
+    try (
+        FileList<Value> fileList = new FileList<>("FileListTest", "tmp", Value.LENGTH, Value::new, new FileList.Options().setCacheSize(2 * 4096).setIndexed(indexed));
+        FileList<Value> other = new FileList<>("FileListTest", "tmp", Value.LENGTH, Value::new, new FileList.Options().setCacheSize(2 * 4096).setIndexed(indexed))
+        ) {
+      List<Value> expected = new ArrayList<>();
+      for (int i = 0; i < 2000; i++) {
+        expected.add(new Value(i));
+        fileList.add(new Value(i));
+        other.add(new Value(-i));
+      }
+      for (int i = 0; i < 2000; i += 3) {
+        expected.set(i, new Value(i * 7L));
+        fileList.set(i, new Value(i * 7L));
+        other.set(i, new Value(i * -7L));
+      }
+      expected.addAll(100, new ArrayList<>(other));
+      fileList.addAll(100, other);
+      assertEquals(expected, fileList);
+      expected.addAll(1000, new ArrayList<>(expected));
+      fileList.addAll(1000, fileList);
+      assertEquals(expected, fileList);
+      fileList.flush();
+      assertEquals(expected, fileList);
+    }
+  }
+}
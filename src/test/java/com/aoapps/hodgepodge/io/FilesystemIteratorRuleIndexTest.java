@@ -0,0 +1,136 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests {@link FilesystemIteratorRuleIndex} against a direct search of the rule maps.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class FilesystemIteratorRuleIndexTest {
+
+  private static final char SEP = File.separatorChar;
+
+  /**
+   * Searches the filename and its parents, then all prefix rules.
+   */
+  private static FilesystemIteratorRule getBestRule(
+      Map<String, FilesystemIteratorRule> rules,
+      Map<String, FilesystemIteratorRule> prefixRules,
+      String filename
+  ) {
+    String longestPrefix = null;
+    FilesystemIteratorRule rule = null;
+    String path = filename;
+    while (true) {
+      rule = rules.get(path);
+      if (rule != null) {
+        longestPrefix = path;
+        break;
+      }
+      int pathLen = path.length();
+      if (pathLen == 0) {
+        break;
+      }
+      int lastSlashPos = path.lastIndexOf(SEP);
+      if (lastSlashPos == -1) {
+        path = "";
+      } else if (lastSlashPos == (pathLen - 1)) {
+        path = path.substring(0, lastSlashPos);
+      } else {
+        path = path.substring(0, lastSlashPos + 1);
+      }
+    }
+    for (Map.Entry<String, FilesystemIteratorRule> entry : prefixRules.entrySet()) {
+      String prefix = entry.getKey();
+      if ((longestPrefix == null || prefix.length() > longestPrefix.length()) && filename.startsWith(prefix)) {
+        longestPrefix = prefix;
+        rule = entry.getValue();
+      }
+    }
+    return rule;
+  }
+
+  private static boolean hasIncludedChild(
+      Map<String, FilesystemIteratorRule> rules,
+      Map<String, FilesystemIteratorRule> prefixRules,
+      String filenamePlusSlash
+  ) throws IOException {
+    for (Map<String, FilesystemIteratorRule> map : List.of(rules, prefixRules)) {
+      for (Map.Entry<String, FilesystemIteratorRule> entry : map.entrySet()) {
+        if (entry.getKey().startsWith(filenamePlusSlash) && entry.getValue().isIncluded(filenamePlusSlash)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static String randomPath(Random random) {
+    StringBuilder path = new StringBuilder();
+    int len = random.nextInt(8);
+    for (int i = 0; i < len; i++) {
+      int r = random.nextInt(4);
+      path.append(r == 0 ? SEP : (char) ('a' + r));
+    }
+    return path.toString();
+  }
+
+  @Test
+  public void testMatchesMaps() throws IOException {
+    Random random = new Random(1);
+    FilesystemIteratorRule[] ruleChoices = {
+        FilesystemIteratorRule.OK,
+        FilesystemIteratorRule.SKIP,
+        filename -> filename.length() % 2 == 0
+    };
+    for (int test = 0; test < 200; test++) {
+      Map<String, FilesystemIteratorRule> rules = new HashMap<>();
+      Map<String, FilesystemIteratorRule> prefixRules = new HashMap<>();
+      int numRules = random.nextInt(20);
+      for (int i = 0; i < numRules; i++) {
+        (random.nextBoolean() ? rules : prefixRules).put(randomPath(random), ruleChoices[random.nextInt(ruleChoices.length)]);
+      }
+      FilesystemIteratorRuleIndex index = new FilesystemIteratorRuleIndex(rules, prefixRules);
+      for (int i = 0; i < 200; i++) {
+        String filename = randomPath(random);
+        assertSame(filename, getBestRule(rules, prefixRules, filename), index.getBestRule(filename));
+        assertSame(filename, rules.get(filename), index.getRule(filename));
+        String filenamePlusSlash = filename + SEP;
+        assertEquals(filename, hasIncludedChild(rules, prefixRules, filenamePlusSlash), index.hasIncludedChild(filenamePlusSlash));
+      }
+    }
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests {@link FilesystemIterator}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class FilesystemIteratorTest {
+
+  private static Path root;
+
+  @BeforeClass
+  public static void setUpClass() throws IOException {
+    Path temp = Files.createTempDirectory("FilesystemIteratorTest");
+    root = temp.resolve("root");
+    Files.createDirectories(root.resolve("a/b/c"));
+    Files.createDirectories(root.resolve("empty"));
+    Files.write(root.resolve("a/one"), new byte[1]);
+    Files.write(root.resolve("a/b/two"), new byte[2]);
+    Files.write(root.resolve("a/b/c/three"), new byte[3]);
+    Files.write(root.resolve("four"), new byte[4]);
+  }
+
+  @AfterClass
+  public static void tearDownClass() throws IOException {
+    List<Path> paths;
+    try (Stream<Path> stream = Files.walk(root.getParent())) {
+      paths = stream.sorted(Collections.reverseOrder()).collect(Collectors.toList());
+    }
+    for (Path path : paths) {
+      Files.delete(path);
+    }
+  }
+
+  private static FilesystemIterator newIterator(Path start, boolean isPreorder, boolean isSorted) {
+    return new FilesystemIterator(
+        Collections.singletonMap(start.toString(), FilesystemIteratorRule.OK),
+        Collections.emptyMap(),
+        start.toString(),
+        isPreorder,
+        isSorted
+    );
+  }
+
+  private static FilesystemIterator newIterator(boolean isPreorder) {
+    return newIterator(root, isPreorder, true);
+  }
+
+  private static void testEntries(boolean isPreorder) throws IOException {
+    List<String> expected = new ArrayList<>();
+    FilesystemIterator files = newIterator(isPreorder);
+    File file;
+    while ((file = files.getNextFile()) != null) {
+      expected.add(file.getPath());
+    }
+    List<String> actual = new ArrayList<>();
+    FilesystemIterator entries = newIterator(isPreorder);
+    FilesystemEntry entry;
+    while ((entry = entries.getNextEntry()) != null) {
+      assertEquals(new File(entry.getFilename()).isDirectory(), entry.getAttributes().isDirectory());
+      actual.add(entry.getFilename());
+    }
+    assertEquals(9, expected.size());
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  public void testEntriesPreorder() throws IOException {
+    testEntries(true);
+  }
+
+  @Test
+  public void testEntriesPostorder() throws IOException {
+    testEntries(false);
+  }
+
+  @Test
+  public void testDirectoryMetaSnapshot() throws IOException {
+    DirectoryMetaSnapshot snapshot = new DirectoryMetaSnapshot(root.toString());
+    assertEquals(4, snapshot.getFiles().size());
+    DirectoryMetaSnapshot.FileMetaSnapshot three = snapshot.getFiles().get("a" + File.separatorChar + "b" + File.separatorChar + "c" + File.separatorChar + "three");
+    assertEquals(3, three.getLength());
+    assertEquals(root.resolve("a/b/c/three").toFile().lastModified(), three.getLastModified());
+    assertTrue(snapshot.equals(new DirectoryMetaSnapshot(root.toString())));
+  }
+
+  private static void testCheckpoint(boolean isPreorder, boolean isSorted) throws IOException {
+    List<String> expected = new ArrayList<>();
+    FilesystemIterator all = newIterator(root, isPreorder, isSorted);
+    File file;
+    while ((file = all.getNextFile()) != null) {
+      expected.add(file.getPath());
+    }
+    File checkpoint = new File(root.getParent().toFile(), "checkpoint");
+    for (int stop = 0; stop <= expected.size(); stop++) {
+      List<String> actual = new ArrayList<>();
+      FilesystemIterator first = newIterator(root, isPreorder, isSorted);
+      assertFalse(first.resume(checkpoint));
+      first.setCheckpoint(checkpoint, GroupCommitPolicy.EVERY_OPERATION);
+      for (int i = 0; i < stop; i++) {
+        actual.add(first.getNextFile().getPath());
+      }
+      // Interrupted while processing the last file returned, which is not in the checkpoint
+      assertEquals(stop > 1, checkpoint.exists());
+      FilesystemIterator resumed = newIterator(root, isPreorder, isSorted);
+      assertEquals(stop > 1, resumed.resume(checkpoint));
+      resumed.setCheckpoint(checkpoint, GroupCommitPolicy.EVERY_OPERATION);
+      List<String> resumedFiles = new ArrayList<>();
+      while ((file = resumed.getNextFile()) != null) {
+        resumedFiles.add(file.getPath());
+      }
+      assertFalse(checkpoint.exists());
+      assertEquals(expected.subList(0, stop), actual);
+      assertEquals(expected.subList(stop > 1 ? stop - 1 : 0, expected.size()), resumedFiles);
+    }
+  }
+
+  private static void testCheckpoint(boolean isPreorder) throws IOException {
+    testCheckpoint(isPreorder, true);
+  }
+
+  @Test
+  public void testCheckpointPreorder() throws IOException {
+    testCheckpoint(true);
+  }
+
+  @Test
+  public void testCheckpointPostorder() throws IOException {
+    testCheckpoint(false);
+  }
+
+  @Test
+  public void testCheckpointUnsorted() throws IOException {
+    testCheckpoint(true, false);
+    testCheckpoint(false, false);
+  }
+
+  /**
+   * Files added after the checkpoint position are found, and removed files are skipped.
+   */
+  @Test
+  public void testCheckpointChanges() throws IOException {
+    Path changes = root.getParent().resolve("changes");
+    Path x = changes.resolve("x");
+    Files.createDirectories(x);
+    Files.createDirectories(changes.resolve("y"));
+    for (String name : new String[]{"m1", "m3", "m5"}) {
+      Files.write(x.resolve(name), new byte[1]);
+    }
+    File checkpoint = new File(root.getParent().toFile(), "checkpoint");
+    try {
+      FilesystemIterator first = newIterator(changes, true, true);
+      first.setCheckpoint(checkpoint, GroupCommitPolicy.EVERY_OPERATION);
+      assertEquals(changes.toString(), first.getNextFile().getPath());
+      assertEquals(x.toString(), first.getNextFile().getPath());
+      assertEquals(x.resolve("m1").toString(), first.getNextFile().getPath());
+      // Interrupted while processing m3
+      assertEquals(x.resolve("m3").toString(), first.getNextFile().getPath());
+      Files.write(x.resolve("m0"), new byte[1]);
+      Files.write(x.resolve("m2"), new byte[1]);
+      Files.delete(x.resolve("m5"));
+      FilesystemIterator resumed = newIterator(changes, true, true);
+      assertTrue(resumed.resume(checkpoint));
+      List<String> actual = new ArrayList<>();
+      File file;
+      while ((file = resumed.getNextFile()) != null) {
+        actual.add(file.getPath());
+      }
+      assertEquals(
+          Arrays.asList(x.resolve("m2").toString(), x.resolve("m3").toString(), changes.resolve("y").toString()),
+          actual
+      );
+    } finally {
+      Files.deleteIfExists(checkpoint.toPath());
+      for (String name : new String[]{"x/m0", "x/m1", "x/m2", "x/m3", "x", "y", ""}) {
+        Files.delete(changes.resolve(name));
+      }
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.aoapps.tempfiles.TempFile;
+import com.aoapps.tempfiles.TempFileContext;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests {@link FixedRecordFile} implementations against a plain, non-indexed {@link FixedRecordFile}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class FixedRecordFileTest {
+
+  static final int RECORD_LENGTH = 7;
+
+  @FunctionalInterface
+  interface FixedRecordFileFactory {
+    FixedRecordFile open(File file, String mode) throws IOException;
+  }
+
+  /**
+   * Performs the same random operations on a plain {@link FixedRecordFile} and the file from the given factory,
+   * then verifies both files have the same contents and the same length on disk once closed.
+   */
+  static void testMatchesFixedRecordFile(FixedRecordFileFactory factory, int operations, long seed) throws IOException {
+    testMatchesFixedRecordFile(factory, true, operations, seed);
+  }
+
+  /**
+   * Performs the same random operations on a plain {@link FixedRecordFile} and the file from the given factory,
+   * then verifies both files have the same contents once closed.
+   *
+   * @param  sameLayout  when the file on disk has the same layout as a plain {@link FixedRecordFile}
+   */
+  static void testMatchesFixedRecordFile(FixedRecordFileFactory factory, boolean sameLayout, int operations, long seed) throws IOException {
+    Random random = new Random(seed);
+    try (
+        TempFileContext tempFileContext = new TempFileContext();
+        TempFile expectedFile = tempFileContext.createTempFile("FixedRecordFileTest");
+        TempFile actualFile = tempFileContext.createTempFile("FixedRecordFileTest")
+        ) {
+      try (
+          FixedRecordFile expected = new FixedRecordFile(expectedFile.getFile(), "rw", RECORD_LENGTH);
+          FixedRecordFile actual = factory.open(actualFile.getFile(), "rw")
+          ) {
+        byte[] record = new byte[RECORD_LENGTH];
+        for (int i = 0; i < operations; i++) {
+          int count = expected.getRecordCount();
+          assertEquals(count, actual.getRecordCount());
+          int op = count == 0 ? 0 : random.nextInt(6);
+          if (op == 0) {
+            int index = random.nextInt(count + 1);
+            int num = random.nextInt(3) + 1;
+            expected.addRecords(index, num);
+            actual.addRecords(index, num);
+            for (int j = 0; j < num; j++) {
+              random.nextBytes(record);
+              expected.write(record);
+              actual.write(record);
+            }
+          } else if (op == 1) {
+            int index = random.nextInt(count);
+            expected.removeRecord(index);
+            actual.removeRecord(index);
+          } else if (op == 2) {
+            int index1 = random.nextInt(count);
+            int index2 = random.nextInt(count);
+            expected.swap(index1, index2);
+            actual.swap(index1, index2);
+          } else if (op == 3) {
+            int index = random.nextInt(count);
+            int num = random.nextInt(Math.min(count - index, 20)) + 1;
+            byte[] expectedRecords = new byte[num * RECORD_LENGTH];
+            byte[] actualRecords = new byte[num * RECORD_LENGTH];
+            expected.readRecords(index, expectedRecords, 0, num);
+            actual.readRecords(index, actualRecords, 0, num);
+            assertArrayEquals(expectedRecords, actualRecords);
+          } else if (op == 4 && random.nextInt(50) == 0) {
+            actual.compact();
+          } else {
+            int index = random.nextInt(count);
+            expected.seekToExistingRecord(index);
+            actual.seekToExistingRecord(index);
+            byte[] expectedRecord = new byte[RECORD_LENGTH];
+            expected.readFully(expectedRecord);
+            actual.readFully(record);
+            assertArrayEquals(expectedRecord, record);
+          }
+        }
+        assertEquals(expected.getRecordCount(), actual.getRecordCount());
+      }
+      if (sameLayout) {
+        // Must be in order and truncated to its actual length when closed
+        assertEquals(expectedFile.getFile().length(), actualFile.getFile().length());
+      }
+      try (
+          FixedRecordFile expected = new FixedRecordFile(expectedFile.getFile(), "r", RECORD_LENGTH);
+          FixedRecordFile actual = factory.open(actualFile.getFile(), "r")
+          ) {
+        byte[] expectedBytes = new byte[(int) expected.length()];
+        expected.readFully(expectedBytes);
+        byte[] actualBytes = new byte[(int) actual.length()];
+        actual.readFully(actualBytes);
+        assertArrayEquals(expectedBytes, actualBytes);
+      }
+    }
+  }
+
+  private static FixedRecordFile openIndexed(File file, String mode) throws IOException {
+    FixedRecordFile frf = new FixedRecordFile(file, mode, RECORD_LENGTH);
+    frf.setIndexed(true);
+    return frf;
+  }
+
+  @Test
+  public void testIndexed() throws IOException {
+    testMatchesFixedRecordFile(FixedRecordFileTest::openIndexed, 2000, 1);
+  }
+
+  /**
+   * Removes more than inserted, crossing the automatic compaction threshold.
+   */
+  @Test
+  public void testIndexedAutoCompact() throws IOException {
+    try (
+        TempFileContext tempFileContext = new TempFileContext();
+        TempFile tempFile = tempFileContext.createTempFile("FixedRecordFileTest");
+        FixedRecordFile frf = openIndexed(tempFile.getFile(), "rw")
+        ) {
+      int count = 5000;
+      byte[] records = new byte[count * RECORD_LENGTH];
+      new Random(2).nextBytes(records);
+      frf.addRecords(0, count);
+      frf.writeRecords(0, records, 0, count);
+      Random random = new Random(3);
+      while (count > 100) {
+        int index = random.nextInt(count - 1);
+        frf.removeRecord(index);
+        System.arraycopy(records, (index + 1) * RECORD_LENGTH, records, index * RECORD_LENGTH, (count - index - 1) * RECORD_LENGTH);
+        count--;
+      }
+      assertEquals(count, frf.getRecordCount());
+      assertTrue("Must have compacted", frf.length() < 2L * 5000 / 3 * RECORD_LENGTH);
+      byte[] actual = new byte[count * RECORD_LENGTH];
+      frf.readRecords(0, actual, 0, count);
+      assertArrayEquals(Arrays.copyOf(records, count * RECORD_LENGTH), actual);
+    }
+  }
+}
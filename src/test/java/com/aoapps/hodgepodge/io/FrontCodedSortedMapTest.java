@@ -0,0 +1,94 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.junit.Test;
+
+/**
+ * Tests {@link FrontCodedSortedMap} and {@link FrontCodedStringList} against a {@link TreeMap}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class FrontCodedSortedMapTest {
+
+  private static final String[] PARTS = {"a", "ab", "b", "été", "😀", "dir", "file.txt", "z"};
+
+  private static String randomPath(Random random) {
+    StringBuilder path = new StringBuilder();
+    for (int i = random.nextInt(4); i >= 0; i--) {
+      if (path.length() > 0) {
+        path.append('/');
+      }
+      path.append(PARTS[random.nextInt(PARTS.length)]).append(random.nextInt(10));
+    }
+    return path.toString();
+  }
+
+  @Test
+  public void testMatchesTreeMap() {
+    Random random = new Random(42);
+    TreeMap<String, Integer> expected = new TreeMap<>();
+    expected.put("", -1);
+    for (int i = 0; i < 5000; i++) {
+      expected.put(randomPath(random), i);
+    }
+    FrontCodedStringList.Builder builder = new FrontCodedStringList.Builder();
+    List<Integer> values = new ArrayList<>();
+    for (var entry : expected.entrySet()) {
+      builder.add(entry.getKey());
+      values.add(entry.getValue());
+    }
+    SortedMap<String, Integer> actual = new FrontCodedSortedMap<>(builder.build(), values::get);
+    assertEquals(expected, actual);
+    assertTrue(actual.equals(expected));
+    assertEquals(expected.hashCode(), actual.hashCode());
+    assertEquals(expected.firstKey(), actual.firstKey());
+    assertEquals(expected.lastKey(), actual.lastKey());
+    for (int i = 0; i < 100; i++) {
+      String key = randomPath(random);
+      assertEquals(expected.get(key), actual.get(key));
+      String other = randomPath(random);
+      String from = key.compareTo(other) <= 0 ? key : other;
+      String to = key.compareTo(other) <= 0 ? other : key;
+      assertEquals(expected.subMap(from, to), actual.subMap(from, to));
+      assertEquals(expected.headMap(key), actual.headMap(key));
+      assertEquals(expected.tailMap(key), actual.tailMap(key));
+    }
+    assertNull(actual.get(new Object()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOutOfOrder() {
+    new FrontCodedStringList.Builder().add("b").add("a");
+  }
+}
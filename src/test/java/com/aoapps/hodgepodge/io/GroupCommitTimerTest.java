@@ -0,0 +1,65 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Tests {@link GroupCommitTimer}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class GroupCommitTimerTest {
+
+  @Test
+  public void testNotStartedWithoutDelay() {
+    assertNull(GroupCommitTimer.start(GroupCommitPolicy.EXPLICIT, "test", () -> { }));
+    assertNull(GroupCommitTimer.start(GroupCommitPolicy.EVERY_OPERATION, "test", () -> { }));
+    assertNull(GroupCommitTimer.start(new GroupCommitPolicy(100, 0, TimeUnit.SECONDS), "test", () -> { }));
+  }
+
+  /**
+   * Commits an idle group once its delay has passed, and follows a group rescheduled while waiting.
+   */
+  @Test
+  public void testCommitsIdleGroup() throws InterruptedException {
+    Semaphore commits = new Semaphore(0);
+    try (GroupCommitTimer timer = GroupCommitTimer.start(new GroupCommitPolicy(100, 50, TimeUnit.MILLISECONDS), "test", commits::release)) {
+      long startNanos = System.nanoTime();
+      timer.schedule(startNanos);
+      assertTrue(commits.tryAcquire(10, TimeUnit.SECONDS));
+      assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(50));
+      // Each schedule replaces the previous due time
+      timer.schedule(System.nanoTime() + TimeUnit.SECONDS.toNanos(60));
+      timer.schedule(System.nanoTime());
+      assertTrue(commits.tryAcquire(10, TimeUnit.SECONDS));
+      assertEquals(0, commits.availablePermits());
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Tests {@link IoBudget}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class IoBudgetTest {
+
+  @Test
+  public void testOpsPerSecond() throws IOException {
+    IoBudget budget = new IoBudget(1000, 0);
+    long start = System.nanoTime();
+    // The first second is available immediately, then half a second more
+    for (int i = 0; i < 1500; i++) {
+      budget.acquireOps(1);
+    }
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertTrue("elapsedMillis=" + elapsedMillis, elapsedMillis >= 400 && elapsedMillis < 2000);
+  }
+
+  @Test
+  public void testBytesPerSecond() throws IOException {
+    IoBudget budget = new IoBudget(0, 1 << 20);
+    long start = System.nanoTime();
+    // Larger than the bucket, waits for the debt
+    budget.acquireBytes(3 << 19);
+    budget.acquireBytes(1);
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertTrue("elapsedMillis=" + elapsedMillis, elapsedMillis >= 400 && elapsedMillis < 2000);
+  }
+
+  @Test
+  public void testLatencyTarget() throws InterruptedException {
+    IoBudget budget = new IoBudget(1000, 0);
+    budget.setLatencyTarget(1, TimeUnit.MILLISECONDS);
+    Thread.sleep(110);
+    budget.recordLatency(TimeUnit.MILLISECONDS.toNanos(10));
+    assertTrue(budget.getFactor() < 1);
+    budget.setLatencyTarget(0, TimeUnit.MILLISECONDS);
+    assertEquals(1, budget.getFactor(), 0);
+  }
+
+  private static long timeOps(IoBudget budget, int ops) throws IOException {
+    long start = System.nanoTime();
+    for (int i = 0; i < ops; i++) {
+      budget.acquireOps(1);
+    }
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+  }
+
+  @Test
+  public void testLatencyThrottles() throws IOException, InterruptedException {
+    IoBudget budget = new IoBudget(1000, 0);
+    budget.setLatencyTarget(1, TimeUnit.MILLISECONDS);
+    // Use the initial bucket
+    timeOps(budget, 1000);
+    // Report latency over the target until the rate is below 100 per second
+    while (budget.getFactor() > 0.1) {
+      Thread.sleep(110);
+      budget.recordLatency(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+    // The bucket holds one second at the reduced rate, then 100 more operations take another second.
+    // At the configured rate, all 200 would be immediate.
+    long elapsedMillis = timeOps(budget, 200);
+    assertTrue("elapsedMillis=" + elapsedMillis, elapsedMillis >= 600);
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static com.aoapps.hodgepodge.io.FixedRecordFileTest.RECORD_LENGTH;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.aoapps.tempfiles.TempFile;
+import com.aoapps.tempfiles.TempFileContext;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Tests {@link JournaledFixedRecordFile}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class JournaledFixedRecordFileTest {
+
+  @Test
+  public void testMatches() throws IOException {
+    FixedRecordFileTest.testMatchesFixedRecordFile(
+        (file, mode) -> new JournaledFixedRecordFile(file, mode, RECORD_LENGTH),
+        1000,
+        5
+    );
+  }
+
+  @Test
+  public void testMatchesGrouped() throws IOException {
+    FixedRecordFileTest.testMatchesFixedRecordFile(
+        (file, mode) -> new JournaledFixedRecordFile(file, mode, RECORD_LENGTH, new GroupCommitPolicy(7, 0, TimeUnit.SECONDS)),
+        2000,
+        6
+    );
+  }
+
+  @Test
+  public void testIndexedRejected() throws IOException {
+    try (
+        TempFileContext tempFileContext = new TempFileContext();
+        TempFile tempFile = tempFileContext.createTempFile("JournaledFixedRecordFileTest");
+        JournaledFixedRecordFile frf = new JournaledFixedRecordFile(tempFile.getFile(), "rw", RECORD_LENGTH)
+        ) {
+      try {
+        frf.setIndexed(true);
+        fail("Indexed layout must be rejected");
+      } catch (IOException e) {
+        // Expected
+      }
+      assertFalse(frf.isIndexed());
+      frf.addRecords(0, 1);
+      frf.writeRecords(0, record(1), 0, 1);
+      assertEquals(1, frf.getRecordCount());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDelayRejected() throws IOException {
+    try (
+        TempFileContext tempFileContext = new TempFileContext();
+        TempFile tempFile = tempFileContext.createTempFile("JournaledFixedRecordFileTest")
+        ) {
+      new JournaledFixedRecordFile(tempFile.getFile(), "rw", RECORD_LENGTH, new GroupCommitPolicy(7, 1, TimeUnit.SECONDS)).close();
+    }
+  }
+
+  private static byte[] record(int value) {
+    byte[] record = new byte[RECORD_LENGTH];
+    record[0] = (byte) value;
+    return record;
+  }
+
+  /**
+   * Abandons uncommitted changes, including those large enough to be spilled to the journal,
+   * by closing the file without committing.
+   */
+  @Test
+  public void testCrashRecovery() throws IOException {
+    try (
+        TempFileContext tempFileContext = new TempFileContext();
+        TempFile tempFile = tempFileContext.createTempFile("JournaledFixedRecordFileTest")
+        ) {
+      File file = tempFile.getFile();
+      JournaledFixedRecordFile crashed = new JournaledFixedRecordFile(file, "rw", RECORD_LENGTH, GroupCommitPolicy.EXPLICIT);
+      for (int i = 0; i < 3; i++) {
+        crashed.addRecord(i);
+        crashed.write(record(i));
+      }
+      crashed.commit();
+      // Enough to be spilled to the journal before being abandoned
+      int numRecords = (int) ((32L << 20) / RECORD_LENGTH);
+      crashed.addRecords(1, numRecords);
+      crashed.removeRecord(0);
+      crashed.abandon();
+      assertEquals(3L * RECORD_LENGTH, file.length());
+
+      try (JournaledFixedRecordFile recovered = new JournaledFixedRecordFile(file, "rw", RECORD_LENGTH)) {
+        assertEquals(3, recovered.getRecordCount());
+        byte[] record = new byte[RECORD_LENGTH];
+        for (int i = 0; i < 3; i++) {
+          recovered.seekToExistingRecord(i);
+          recovered.readFully(record);
+          assertArrayEquals(record(i), record);
+        }
+        recovered.removeRecord(1);
+      }
+      assertFalse(JournaledFixedRecordFile.getJournalFile(file).exists());
+      assertEquals(2L * RECORD_LENGTH, file.length());
+    }
+  }
+
+  private static void assertRecords(JournaledFixedRecordFile file, int... values) throws IOException {
+    assertEquals(values.length, file.getRecordCount());
+    byte[] record = new byte[RECORD_LENGTH];
+    for (int i = 0; i < values.length; i++) {
+      file.seekToExistingRecord(i);
+      file.readFully(record);
+      assertArrayEquals(record(values[i]), record);
+    }
+  }
+
+  /**
+   * Replays a committed journal that was not yet applied to the file.
+   */
+  @Test
+  public void testCrashReplay() throws IOException {
+    try (
+        TempFileContext tempFileContext = new TempFileContext();
+        TempFile tempFile = tempFileContext.createTempFile("JournaledFixedRecordFileTest")
+        ) {
+      File file = tempFile.getFile();
+      JournaledFixedRecordFile crashed = new JournaledFixedRecordFile(file, "rw", RECORD_LENGTH, GroupCommitPolicy.EXPLICIT);
+      for (int i = 0; i < 3; i++) {
+        crashed.addRecord(i);
+        crashed.write(record(i));
+      }
+      crashed.commit();
+      crashed.seekToExistingRecord(1);
+      crashed.write(record(9));
+      crashed.addRecord(3);
+      crashed.write(record(3));
+      crashed.removeRecord(0);
+      assertRecords(crashed, 9, 2, 3);
+      // Crash once the commit is durable in the journal, but before it is applied
+      assertTrue(crashed.writeCommitRecord());
+      crashed.abandon();
+      assertTrue(JournaledFixedRecordFile.getJournalFile(file).length() > 0);
+      try (FixedRecordFile unchanged = new FixedRecordFile(file, "r", RECORD_LENGTH)) {
+        assertEquals(3, unchanged.getRecordCount());
+        byte[] record = new byte[RECORD_LENGTH];
+        unchanged.seekToExistingRecord(1);
+        unchanged.readFully(record);
+        assertArrayEquals(record(1), record);
+      }
+
+      try (JournaledFixedRecordFile recovered = new JournaledFixedRecordFile(file, "rw", RECORD_LENGTH)) {
+        assertEquals(0, JournaledFixedRecordFile.getJournalFile(file).length());
+        assertRecords(recovered, 9, 2, 3);
+      }
+      assertFalse(JournaledFixedRecordFile.getJournalFile(file).exists());
+      assertEquals(3L * RECORD_LENGTH, file.length());
+    }
+  }
+}
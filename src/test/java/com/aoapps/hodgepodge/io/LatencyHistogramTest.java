@@ -0,0 +1,70 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link LatencyHistogram}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class LatencyHistogramTest {
+
+  private static void assertNear(long expected, long actual) {
+    assertTrue(expected + " ≉ " + actual, Math.abs(actual - expected) <= expected / LatencyHistogram.SUB_BUCKETS);
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram first = new LatencyHistogram();
+    LatencyHistogram second = new LatencyHistogram();
+    for (long i = 1; i <= 1000000; i++) {
+      (i % 2 == 0 ? first : second).record(i * 1000);
+    }
+    first.add(second);
+    assertEquals(1000000, first.getCount());
+    assertEquals(1000, first.getMin());
+    assertEquals(1000000000, first.getMax());
+    assertEquals(500000500.0, first.getMean(), 0.001);
+    assertNear(500000000, first.getPercentile(50));
+    assertNear(990000000, first.getPercentile(99));
+    assertNear(999900000, first.getPercentile(99.99));
+    assertEquals(1000, first.getPercentile(0));
+    assertEquals(1000000000, first.getPercentile(100));
+  }
+
+  @Test
+  public void testSmallAndLarge() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getPercentile(50));
+    histogram.record(-1);
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(0, histogram.getPercentile(50));
+    assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertEquals;
+
+import com.aoapps.tempfiles.TempFile;
+import com.aoapps.tempfiles.TempFileContext;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+/**
+ * Tests {@link MappedFifoFile}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class MappedFifoFileTest {
+
+  private static final int CAPACITY = 1000;
+
+  private static final int TOTAL_BYTES = 10000000;
+
+  /**
+   * Streams bytes from a writer thread to a reader thread through a ring small enough to wrap
+   * and fill often, verifying the bytes arrive in order.
+   */
+  @Test
+  public void testProducerConsumer() throws IOException, InterruptedException, ExecutionException {
+    try (
+        TempFileContext tempFileContext = new TempFileContext();
+        TempFile tempFile = tempFileContext.createTempFile("MappedFifoFileTest");
+        MappedFifoFile fifo = new MappedFifoFile(tempFile.getFile(), CAPACITY, GroupCommitPolicy.EXPLICIT)
+        ) {
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        Future<?> writer = executor.submit(() -> {
+          Random random = new Random(1);
+          byte[] buff = new byte[CAPACITY * 3];
+          int value = 0;
+          int written = 0;
+          while (written < TOTAL_BYTES) {
+            if (random.nextInt(10) == 0) {
+              fifo.getOutputStream().write(value++);
+              written++;
+            } else {
+              int len = Math.min(random.nextInt(buff.length) + 1, TOTAL_BYTES - written);
+              for (int i = 0; i < len; i++) {
+                buff[i] = (byte) value++;
+              }
+              fifo.getOutputStream().write(buff, 0, len);
+              written += len;
+            }
+          }
+          return null;
+        });
+        Random random = new Random(2);
+        byte[] buff = new byte[CAPACITY * 2];
+        int expected = 0;
+        int read = 0;
+        while (read < TOTAL_BYTES) {
+          if (random.nextInt(10) == 0) {
+            assertEquals(expected++ & 0xff, fifo.getInputStream().read());
+            read++;
+          } else {
+            int count = fifo.getInputStream().read(buff, 0, random.nextInt(buff.length) + 1);
+            for (int i = 0; i < count; i++) {
+              assertEquals((byte) expected++, buff[i]);
+            }
+            read += count;
+          }
+        }
+        writer.get();
+        assertEquals(0, fifo.getLength());
+      } finally {
+        executor.shutdown();
+      }
+    }
+  }
+
+  @Test
+  public void testReopen() throws IOException {
+    try (
+        TempFileContext tempFileContext = new TempFileContext();
+        TempFile tempFile = tempFileContext.createTempFile("MappedFifoFileTest")
+        ) {
+      try (MappedFifoFile fifo = new MappedFifoFile(tempFile.getFile(), CAPACITY)) {
+        for (int i = 0; i < CAPACITY; i++) {
+          fifo.write(i);
+        }
+        for (int i = 0; i < 10; i++) {
+          assertEquals(i & 0xff, fifo.read());
+        }
+        fifo.write(new byte[] {1, 2, 3}, 0, 3);
+      }
+      try (MappedFifoFile fifo = new MappedFifoFile(tempFile.getFile(), CAPACITY)) {
+        assertEquals(CAPACITY - 7, fifo.getLength());
+        byte[] buff = new byte[CAPACITY];
+        int count = 0;
+        while (count < CAPACITY - 7) {
+          count += fifo.read(buff, count, buff.length - count);
+        }
+        for (int i = 0; i < CAPACITY - 10; i++) {
+          assertEquals((byte) (i + 10), buff[i]);
+        }
+        assertEquals(1, buff[CAPACITY - 10]);
+        assertEquals(3, buff[CAPACITY - 8]);
+      }
+      // A different capacity starts empty
+      try (MappedFifoFile fifo = new MappedFifoFile(tempFile.getFile(), CAPACITY / 2)) {
+        assertEquals(0, fifo.getLength());
+      }
+    }
+  }
+}
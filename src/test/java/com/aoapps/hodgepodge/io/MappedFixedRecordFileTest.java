@@ -0,0 +1,96 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static com.aoapps.hodgepodge.io.FixedRecordFileTest.RECORD_LENGTH;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.aoapps.tempfiles.TempFile;
+import com.aoapps.tempfiles.TempFileContext;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests {@link MappedFixedRecordFile} against {@link FixedRecordFile}, using a tiny chunk size
+ * so that records straddle chunk boundaries.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class MappedFixedRecordFileTest {
+
+  private static final int CHUNK_SIZE = 16;
+
+  @Test
+  public void testMatches() throws IOException {
+    FixedRecordFileTest.testMatchesFixedRecordFile(
+        (file, mode) -> new MappedFixedRecordFile(file, mode, RECORD_LENGTH, CHUNK_SIZE),
+        false,
+        1000,
+        3
+    );
+  }
+
+  @Test
+  public void testIndexed() throws IOException {
+    FixedRecordFileTest.testMatchesFixedRecordFile(
+        (file, mode) -> {
+          FixedRecordFile frf = new MappedFixedRecordFile(file, mode, RECORD_LENGTH, CHUNK_SIZE);
+          frf.setIndexed(true);
+          return frf;
+        },
+        false,
+        1000,
+        4
+    );
+  }
+
+  /**
+   * Reopens a file that was never closed, so still has its chunk padding on disk.
+   */
+  @Test
+  public void testNotClosed() throws IOException {
+    byte[] records = new byte[5 * RECORD_LENGTH];
+    new Random(5).nextBytes(records);
+    try (
+        TempFileContext tempFileContext = new TempFileContext();
+        TempFile tempFile = tempFileContext.createTempFile("MappedFixedRecordFileTest");
+        MappedFixedRecordFile frf = new MappedFixedRecordFile(tempFile.getFile(), "rw", RECORD_LENGTH, CHUNK_SIZE)
+        ) {
+      frf.addRecords(0, 5);
+      frf.writeRecords(0, records, 0, 5);
+      frf.removeRecord(4);
+      assertTrue("Must still be padded", tempFile.getFile().length() > records.length);
+      try (MappedFixedRecordFile reopened = new MappedFixedRecordFile(tempFile.getFile(), "r", RECORD_LENGTH, CHUNK_SIZE)) {
+        assertEquals(4, reopened.getRecordCount());
+        byte[] actual = new byte[4 * RECORD_LENGTH];
+        reopened.readRecords(0, actual, 0, 4);
+        assertArrayEquals(Arrays.copyOf(records, 4 * RECORD_LENGTH), actual);
+      }
+    }
+  }
+}
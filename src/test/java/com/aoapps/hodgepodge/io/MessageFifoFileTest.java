@@ -0,0 +1,192 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.aoapps.tempfiles.TempFile;
+import com.aoapps.tempfiles.TempFileContext;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Test;
+
+/**
+ * Tests {@link MessageFifoFile}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class MessageFifoFileTest {
+
+  private static final int CAPACITY = 1000;
+
+  private static byte[] message(int value) {
+    byte[] message = new byte[value % 50];
+    Arrays.fill(message, (byte) value);
+    return message;
+  }
+
+  /**
+   * Two consumers drain the same messages at their own pace, while the producer is repeatedly
+   * blocked until both pass the oldest messages.
+   */
+  @Test
+  public void testConsumers() throws IOException, InterruptedException, ExecutionException {
+    final int numMessages = 20000;
+    try (
+        TempFileContext tempFileContext = new TempFileContext();
+        TempFile tempFile = tempFileContext.createTempFile("MessageFifoFileTest");
+        MessageFifoFile fifo = new MessageFifoFile(tempFile.getFile(), CAPACITY, 2, GroupCommitPolicy.EXPLICIT)
+        ) {
+      ExecutorService executor = Executors.newFixedThreadPool(2);
+      try {
+        List<Future<?>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> {
+          Random random = new Random(1);
+          int value = 0;
+          while (value < numMessages) {
+            List<byte[]> batch = new ArrayList<>();
+            int size = Math.min(random.nextInt(20) + 1, numMessages - value);
+            for (int i = 0; i < size; i++) {
+              batch.add(message(value++));
+            }
+            fifo.putAll(batch);
+          }
+          return null;
+        }));
+        futures.add(executor.submit(() -> {
+          MessageFifoFile.Consumer consumer = fifo.getConsumer(1);
+          for (int i = 0; i < numMessages; i++) {
+            assertArrayEquals(message(i), consumer.take());
+          }
+          return null;
+        }));
+        MessageFifoFile.Consumer consumer = fifo.getConsumer(0);
+        Random random = new Random(2);
+        List<byte[]> messages = new ArrayList<>();
+        int expected = 0;
+        while (expected < numMessages) {
+          if (random.nextBoolean()) {
+            assertArrayEquals(message(expected++), consumer.take());
+          } else {
+            messages.clear();
+            consumer.drainTo(messages, random.nextInt(30) + 1);
+            for (byte[] message : messages) {
+              assertArrayEquals(message(expected++), message);
+            }
+          }
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+        assertEquals(0, fifo.getLength());
+        assertNull(consumer.poll());
+      } finally {
+        executor.shutdown();
+      }
+    }
+  }
+
+  @Test
+  public void testReopen() throws IOException {
+    try (
+        TempFileContext tempFileContext = new TempFileContext();
+        TempFile tempFile = tempFileContext.createTempFile("MessageFifoFileTest")
+        ) {
+      try (MessageFifoFile fifo = new MessageFifoFile(tempFile.getFile(), CAPACITY, 2)) {
+        for (int i = 0; i < 10; i++) {
+          fifo.put(message(i));
+        }
+        for (int i = 0; i < 4; i++) {
+          assertArrayEquals(message(i), fifo.getConsumer(0).take());
+        }
+        fifo.flush();
+      }
+      try (MessageFifoFile fifo = new MessageFifoFile(tempFile.getFile(), CAPACITY, 2)) {
+        assertArrayEquals(message(4), fifo.getConsumer(0).poll());
+        assertArrayEquals(message(0), fifo.getConsumer(1).poll());
+        List<byte[]> messages = new ArrayList<>();
+        assertEquals(9, fifo.getConsumer(1).drainTo(messages, 100));
+        assertArrayEquals(message(9), messages.get(8));
+        // Everything before the offset of consumer 0 has been reclaimed
+        assertEquals(fifo.getConsumer(1).getOffset() - fifo.getConsumer(0).getOffset(), fifo.getLength());
+      }
+    }
+  }
+
+  private static void assertClosed(Future<?> future) throws InterruptedException {
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      fail("Expected ClosedChannelException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause().toString(), e.getCause() instanceof ClosedChannelException);
+    } catch (TimeoutException e) {
+      fail("Still blocked after close");
+    }
+  }
+
+  /**
+   * Threads blocked in take() and putAll() are woken by close.
+   */
+  @Test
+  public void testCloseWakesWaiters() throws IOException, InterruptedException {
+    try (
+        TempFileContext tempFileContext = new TempFileContext();
+        TempFile emptyFile = tempFileContext.createTempFile("MessageFifoFileTest");
+        TempFile fullFile = tempFileContext.createTempFile("MessageFifoFileTest")
+        ) {
+      MessageFifoFile empty = new MessageFifoFile(emptyFile.getFile(), CAPACITY, 1);
+      MessageFifoFile full = new MessageFifoFile(fullFile.getFile(), CAPACITY, 1);
+      full.put(new byte[CAPACITY - 4]);
+      ExecutorService executor = Executors.newFixedThreadPool(2);
+      try {
+        Future<?> take = executor.submit(() -> empty.getConsumer(0).take());
+        Future<?> put = executor.submit(() -> {
+          full.put(new byte[1]);
+          return null;
+        });
+        Thread.sleep(200);
+        empty.close();
+        full.close();
+        assertClosed(take);
+        assertClosed(put);
+      } finally {
+        executor.shutdown();
+      }
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link ParallelDelete}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class ParallelDeleteTest {
+
+  private Path temp;
+
+  @Before
+  public void setUp() throws IOException {
+    temp = Files.createTempDirectory("ParallelDeleteTest");
+    for (String tree : new String[]{"one", "two"}) {
+      for (int i = 0; i < 10; i++) {
+        Path dir = temp.resolve(tree).resolve("dir" + i).resolve("sub");
+        Files.createDirectories(dir);
+        for (int j = 0; j < 20; j++) {
+          Files.write(dir.resolve("file" + j), new byte[j]);
+          Files.write(dir.getParent().resolve("file" + j), new byte[j]);
+        }
+      }
+    }
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    List<Path> paths;
+    try (Stream<Path> stream = Files.walk(temp)) {
+      paths = stream.sorted(Collections.reverseOrder()).collect(Collectors.toList());
+    }
+    for (Path path : paths) {
+      Files.delete(path);
+    }
+  }
+
+  private List<File> getDirectories() {
+    return Arrays.asList(temp.resolve("one").toFile(), temp.resolve("two").toFile());
+  }
+
+  @Test
+  public void testParallelDelete() throws IOException {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    ParallelDelete.parallelDelete(getDirectories(), null, false, 3, new PrintStream(bout, true, StandardCharsets.UTF_8.name()));
+    assertFalse(Files.exists(temp.resolve("one")));
+    assertFalse(Files.exists(temp.resolve("two")));
+    // 2 * (1 + 10 * (2 + 40))
+    assertTrue(bout.toString(StandardCharsets.UTF_8.name()).contains("Deleted 842 "));
+  }
+
+  @Test
+  public void testDirectoryRelativeDelete() throws IOException {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    ParallelDelete.parallelDelete(getDirectories(), null, false, 3, new PrintStream(bout, true, StandardCharsets.UTF_8.name()), null, true);
+    assertFalse(Files.exists(temp.resolve("one")));
+    assertFalse(Files.exists(temp.resolve("two")));
+    assertTrue(bout.toString(StandardCharsets.UTF_8.name()).contains("Deleted 842 "));
+  }
+
+  @Test
+  public void testIteratorDelete() throws IOException {
+    List<File> directories = new ArrayList<>();
+    for (File directory : getDirectories()) {
+      directories.add(directory.getCanonicalFile());
+    }
+    ParallelDelete.iteratorDelete(directories, null, false, 3, null, new IoBudget(1000000, 0));
+    assertFalse(Files.exists(temp.resolve("one")));
+    assertFalse(Files.exists(temp.resolve("two")));
+  }
+
+  @Test
+  public void testDryRun() throws IOException {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    ParallelDelete.parallelDelete(getDirectories(), new PrintStream(bout, true, StandardCharsets.UTF_8.name()), true);
+    assertEquals(842, bout.toString(StandardCharsets.UTF_8.name()).split("\n").length);
+    assertTrue(Files.exists(temp.resolve("one/dir9/sub/file19")));
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests {@link ParallelFilesystemIterator} against {@link FilesystemIterator}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class ParallelFilesystemIteratorTest {
+
+  private static Path root;
+  private static String skipped;
+
+  private static void createTree(Path dir, Random random, int depth) throws IOException {
+    Files.createDirectory(dir);
+    int numFiles = random.nextInt(5);
+    for (int i = 0; i < numFiles; i++) {
+      Files.createFile(dir.resolve("f" + i));
+    }
+    if (depth > 0) {
+      int numDirs = random.nextInt(4);
+      for (int i = 0; i < numDirs; i++) {
+        createTree(dir.resolve("d" + i), random, depth - 1);
+      }
+    }
+  }
+
+  @BeforeClass
+  public static void setUpClass() throws IOException {
+    Path temp = Files.createTempDirectory("ParallelFilesystemIteratorTest");
+    root = temp.resolve("root");
+    Random random = new Random(1);
+    createTree(root, random, 5);
+    Path skip = root.resolve("skipped");
+    createTree(skip, random, 2);
+    Files.createFile(skip.resolve("extra"));
+    skipped = skip.toString();
+  }
+
+  @AfterClass
+  public static void tearDownClass() throws IOException {
+    List<Path> paths;
+    try (Stream<Path> stream = Files.walk(root.getParent())) {
+      paths = stream.sorted(Collections.reverseOrder()).collect(Collectors.toList());
+    }
+    for (Path path : paths) {
+      Files.delete(path);
+    }
+  }
+
+  private static FilesystemIterator newIterator(boolean isPreorder) {
+    Map<String, FilesystemIteratorRule> rules = new HashMap<>();
+    rules.put("", FilesystemIteratorRule.OK);
+    rules.put(skipped, FilesystemIteratorRule.SKIP);
+    return new FilesystemIterator(rules, Collections.emptyMap(), root.toString(), isPreorder, true);
+  }
+
+  private static List<String> expected(boolean isPreorder) throws IOException {
+    List<String> expected = new ArrayList<>();
+    FilesystemIterator iterator = newIterator(isPreorder);
+    File file;
+    while ((file = iterator.getNextFile()) != null) {
+      expected.add(file.getPath());
+    }
+    return expected;
+  }
+
+  private static void testOrdered(boolean isPreorder) throws IOException {
+    List<String> expected = expected(isPreorder);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      ParallelFilesystemIterator iterator = new ParallelFilesystemIterator(newIterator(isPreorder), pool);
+      List<String> actual = new ArrayList<>();
+      File[] files = new File[7];
+      int count;
+      while ((count = iterator.getNextFiles(files, files.length)) > 0) {
+        for (int i = 0; i < count; i++) {
+          actual.add(files[i].getPath());
+        }
+      }
+      assertEquals(expected, actual);
+      assertNull(iterator.getNextFile());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testPreorder() throws IOException {
+    testOrdered(true);
+  }
+
+  @Test
+  public void testPostorder() throws IOException {
+    testOrdered(false);
+  }
+
+  @Test
+  public void testStream() throws IOException {
+    List<String> expected = expected(true);
+    Set<String> actual = new ParallelFilesystemIterator(newIterator(true)).stream()
+        .map(Path::toString)
+        .collect(Collectors.toSet());
+    assertEquals(expected.size(), actual.size());
+    assertEquals(new HashSet<>(expected), actual);
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import com.aoapps.collections.IntArrayList;
+import com.aoapps.collections.LongArrayList;
+import com.aoapps.hodgepodge.sort.IntegerRadixSort;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests {@link IntFileList}, {@link LongFileList}, and {@link BytesFileList}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class RecordFileListTest {
+
+  /**
+   * A cache of only a few blocks, forcing eviction of dirty blocks.
+   */
+  private static final long SMALL_CACHE = 4 * 4096;
+
+  @Test
+  public void testIntFileList() throws IOException {
+    Random random = new Random(1);
+    IntArrayList expected = new IntArrayList();
+    try (IntFileList list = new IntFileList("RecordFileListTest", "tmp", SMALL_CACHE)) {
+      for (int i = 0; i < 20000; i++) {
+        int size = expected.size();
+        int value = random.nextInt(1000);
+        switch (size == 0 ? 0 : random.nextInt(8)) {
+          case 0:
+            expected.add(value);
+            list.add(value);
+            break;
+          case 1: {
+            int index = random.nextInt(size + 1);
+            expected.add(index, value);
+            list.add(index, value);
+            break;
+          }
+          case 2: {
+            int index = random.nextInt(size);
+            assertEquals(expected.removeAtIndex(index), list.removeAtIndex(index));
+            break;
+          }
+          case 3: {
+            int index = random.nextInt(size);
+            assertEquals(expected.set(index, value), list.set(index, value));
+            break;
+          }
+          case 4: {
+            int index = random.nextInt(size + 1);
+            int[] values = new int[random.nextInt(100)];
+            for (int j = 0; j < values.length; j++) {
+              values[j] = random.nextInt();
+            }
+            for (int j = 0; j < values.length; j++) {
+              expected.add(index + j, values[j]);
+            }
+            list.addInts(index, values, 0, values.length);
+            break;
+          }
+          case 5:
+            assertEquals(expected.indexOf(value), list.indexOf(value));
+            assertEquals(expected.lastIndexOf(value), list.lastIndexOf(value));
+            break;
+          default: {
+            int index = random.nextInt(size);
+            assertEquals(expected.getInt(index), list.getInt(index));
+          }
+        }
+        assertEquals(expected.size(), list.size());
+      }
+      assertArrayEquals(expected.toArrayInt(), list.toArrayInt());
+      assertEquals(expected, list);
+    }
+  }
+
+  @Test
+  public void testIntFileListRadixSort() throws IOException {
+    Random random = new Random(2);
+    int[] values = new int[200000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextInt();
+    }
+    try (IntFileList list = new IntFileList("RecordFileListTest", "tmp", SMALL_CACHE)) {
+      list.addInts(0, values, 0, values.length);
+      IntegerRadixSort.getInstance().sort(list);
+      Arrays.sort(values);
+      assertArrayEquals(values, list.toArrayInt());
+    }
+  }
+
+  @Test
+  public void testLongFileList() throws IOException {
+    Random random = new Random(3);
+    long[] values = new long[50000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextLong();
+    }
+    LongArrayList expected = new LongArrayList(values);
+    try (LongFileList list = new LongFileList("RecordFileListTest", "tmp", SMALL_CACHE)) {
+      list.addLongs(0, values, 0, values.length);
+      for (int i = 0; i < 1000; i++) {
+        int index = random.nextInt(expected.size());
+        long value = random.nextLong();
+        assertEquals(expected.set(index, value), list.set(index, value));
+      }
+      long[] range = new long[10000];
+      list.getLongs(5000, range, 0, range.length);
+      assertArrayEquals(Arrays.copyOfRange(expected.toArrayLong(), 5000, 15000), range);
+      for (int i = 0; i < range.length; i++) {
+        range[i] = -range[i];
+        expected.set(20000 + i, range[i]);
+      }
+      list.setLongs(20000, range, 0, range.length);
+      assertEquals(expected.lastIndexOf(range[5]), list.lastIndexOf(range[5]));
+      assertEquals(expected, list);
+    }
+  }
+
+  @Test
+  public void testBytesFileList() throws IOException {
+    final int width = 5;
+    Random random = new Random(4);
+    List<byte[]> expected = new ArrayList<>();
+    try (BytesFileList list = new BytesFileList("RecordFileListTest", "tmp", width, SMALL_CACHE)) {
+      for (int i = 0; i < 10000; i++) {
+        byte[] value = new byte[width];
+        random.nextBytes(value);
+        int index = random.nextInt(expected.size() + 1);
+        expected.add(index, value);
+        list.add(index, value);
+      }
+      for (int i = 0; i < 1000; i++) {
+        int index = random.nextInt(expected.size());
+        byte[] value = new byte[width];
+        random.nextBytes(value);
+        assertArrayEquals(expected.set(index, value), list.set(index, value));
+        index = random.nextInt(expected.size());
+        assertArrayEquals(expected.remove(index), list.remove(index));
+      }
+      byte[] all = new byte[expected.size() * width];
+      list.getBytes(0, all, 0, expected.size());
+      for (int i = 0; i < expected.size(); i++) {
+        assertArrayEquals(expected.get(i), Arrays.copyOfRange(all, i * width, (i + 1) * width));
+        assertArrayEquals(expected.get(i), list.get(i));
+      }
+      assertEquals(123, list.indexOfContents(expected.get(123).clone()));
+    }
+  }
+
+  @Test
+  public void testIndexOutOfBounds() throws IOException {
+    try (IntFileList list = new IntFileList("RecordFileListTest", "tmp", SMALL_CACHE)) {
+      list.add(1);
+      assertThrows(IndexOutOfBoundsException.class, () -> list.add(5, 7));
+      assertThrows(IndexOutOfBoundsException.class, () -> list.add(-1, 7));
+      assertThrows(IndexOutOfBoundsException.class, () -> list.addInts(2, new int[]{7}, 0, 1));
+      assertThrows(IndexOutOfBoundsException.class, () -> list.getInts(0, new int[2], 0, 2));
+      assertThrows(IndexOutOfBoundsException.class, () -> list.setInts(1, new int[1], 0, 1));
+      assertEquals(1, list.size());
+      list.addInts(1, new int[]{7}, 0, 1);
+      assertArrayEquals(new int[]{1, 7}, list.toArrayInt());
+    }
+    try (LongFileList list = new LongFileList("RecordFileListTest", "tmp", SMALL_CACHE)) {
+      list.add(1L);
+      assertThrows(IndexOutOfBoundsException.class, () -> list.add(5, 7L));
+      assertThrows(IndexOutOfBoundsException.class, () -> list.addLongs(2, new long[]{7}, 0, 1));
+      assertThrows(IndexOutOfBoundsException.class, () -> list.getLongs(1, new long[1], 0, 1));
+      assertThrows(IndexOutOfBoundsException.class, () -> list.setLongs(-1, new long[1], 0, 1));
+      assertEquals(1, list.size());
+    }
+    try (BytesFileList list = new BytesFileList("RecordFileListTest", "tmp", 2, SMALL_CACHE)) {
+      list.add(new byte[2]);
+      assertThrows(IndexOutOfBoundsException.class, () -> list.add(5, new byte[2]));
+      assertThrows(IndexOutOfBoundsException.class, () -> list.addBytes(2, new byte[2], 0, 1));
+      assertThrows(IndexOutOfBoundsException.class, () -> list.getBytes(0, new byte[4], 0, 2));
+      assertThrows(IndexOutOfBoundsException.class, () -> list.setBytes(1, new byte[2], 0, 1));
+      assertEquals(1, list.size());
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link StorageBenchmark}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class StorageBenchmarkTest {
+
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("StorageBenchmarkTest", null);
+    Files.write(file.toPath(), new byte[1 << 20]);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.delete(file.toPath());
+  }
+
+  @Test
+  public void testRun() throws IOException {
+    for (StorageBenchmark.Access access : StorageBenchmark.Access.values()) {
+      for (StorageBenchmark.Pattern pattern : StorageBenchmark.Pattern.values()) {
+        StorageBenchmark.Result result = StorageBenchmark.run(file, access, pattern, 4096, 8, 50, TimeUnit.MILLISECONDS);
+        StringBuilder json = new StringBuilder();
+        result.appendJson(json);
+        if (result.getSkipped() != null) {
+          assertEquals(StorageBenchmark.Access.DIRECT_IO, access);
+        } else {
+          assertTrue(result.getOps() > 0);
+          assertEquals(result.getOps() * 4096, result.getBytes());
+          assertTrue(json.toString(), json.indexOf("\"p99.9\":") != -1);
+        }
+        assertTrue(json.toString(), json.toString().startsWith("{\"file\":"));
+      }
+    }
+  }
+
+  @Test
+  public void testSkipped() throws IOException {
+    StorageBenchmark.Result result = StorageBenchmark.run(
+        file,
+        StorageBenchmark.Access.CHANNEL_DIRECT,
+        StorageBenchmark.Pattern.RANDOM,
+        2 << 20,
+        1,
+        1,
+        TimeUnit.MILLISECONDS
+    );
+    assertNotNull(result.getSkipped());
+  }
+}
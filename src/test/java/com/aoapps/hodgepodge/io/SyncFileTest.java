@@ -0,0 +1,179 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link SyncFile}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class SyncFileTest {
+
+  private static final int MIB = 1 << 20;
+
+  private File from;
+  private File to;
+  private File manifest;
+
+  @Before
+  public void setUp() throws IOException {
+    from = File.createTempFile("SyncFileTest", ".from");
+    to = File.createTempFile("SyncFileTest", ".to");
+    manifest = new File(to.getPath() + ".manifest");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.delete(from.toPath());
+    Files.delete(to.toPath());
+    Files.deleteIfExists(manifest.toPath());
+  }
+
+  /**
+   * The input is 3.5 blocks.  The output matches except in the second block, and has an extra block to truncate.
+   */
+  private byte[] prepare() throws IOException {
+    byte[] input = new byte[MIB * 7 / 2];
+    new Random(42).nextBytes(input);
+    byte[] output = new byte[MIB * 9 / 2];
+    System.arraycopy(input, 0, output, 0, input.length);
+    output[MIB + 12345]++;
+    Files.write(from.toPath(), input);
+    Files.write(to.toPath(), output);
+    return input;
+  }
+
+  @Test
+  public void testPipelined() throws IOException {
+    byte[] input = prepare();
+    long bytesWritten;
+    try (
+        FileInputStream in = new FileInputStream(from);
+        RandomAccessFile out = new RandomAccessFile(to, "rw")
+        ) {
+      bytesWritten = SyncFile.syncFile(in.getChannel(), to, out, new IoBudget(0, 1L << 40));
+    }
+    assertEquals(MIB, bytesWritten);
+    assertArrayEquals(input, Files.readAllBytes(to.toPath()));
+    // Already in sync
+    try (
+        FileInputStream in = new FileInputStream(from);
+        RandomAccessFile out = new RandomAccessFile(to, "rw")
+        ) {
+      bytesWritten = SyncFile.syncFile(in.getChannel(), to, out, null);
+    }
+    assertEquals(0, bytesWritten);
+  }
+
+  private long syncWithManifest() throws IOException {
+    try (
+        FileInputStream in = new FileInputStream(from);
+        RandomAccessFile out = new RandomAccessFile(to, "rw")
+        ) {
+      return SyncFile.syncFile(in.getChannel(), to, out, null, manifest);
+    }
+  }
+
+  @Test
+  public void testManifest() throws IOException {
+    byte[] input = prepare();
+    // No manifest yet, compares in full
+    assertEquals(MIB, syncWithManifest());
+    assertArrayEquals(input, Files.readAllBytes(to.toPath()));
+    assertTrue(manifest.exists());
+    assertFalse(new File(manifest.getPath() + ".new").exists());
+    // Change the input in the third block and grow by half a block
+    byte[] grown = new byte[MIB * 4];
+    System.arraycopy(input, 0, grown, 0, input.length);
+    grown[MIB * 2 + 1]++;
+    Files.write(from.toPath(), grown);
+    // Compares by hash: the third block is rewritten, and the partial last block is written in full
+    assertEquals(MIB * 2, syncWithManifest());
+    assertArrayEquals(grown, Files.readAllBytes(to.toPath()));
+    assertEquals(0, syncWithManifest());
+  }
+
+  @Test
+  public void testStaleManifest() throws IOException {
+    byte[] input = prepare();
+    assertEquals(MIB, syncWithManifest());
+    // Modify the output behind the manifest's back
+    try (RandomAccessFile out = new RandomAccessFile(to, "rw")) {
+      out.seek(12345);
+      out.write(input[12345] + 1);
+    }
+    assertTrue(to.setLastModified(to.lastModified() - 10000));
+    // Compares in full, finding the modified block
+    assertEquals(MIB, syncWithManifest());
+    assertArrayEquals(input, Files.readAllBytes(to.toPath()));
+  }
+
+  @Test
+  public void testDeviceManifestRefused() throws IOException {
+    File device = new File("/dev/null");
+    Assume.assumeTrue(device.exists() && !device.isFile());
+    prepare();
+    try (
+        FileInputStream in = new FileInputStream(from);
+        RandomAccessFile out = new RandomAccessFile(device, "rw")
+        ) {
+      SyncFile.syncFile(in.getChannel(), device, out, null, manifest);
+      fail("Manifest must be refused for a device");
+    } catch (IOException e) {
+      assertTrue(e.getMessage(), e.getMessage().startsWith("Manifest not allowed"));
+    }
+    assertFalse(manifest.exists());
+  }
+
+  @Test
+  public void testStream() throws IOException {
+    byte[] input = prepare();
+    long bytesWritten;
+    try (
+        FileInputStream in = new FileInputStream(from);
+        RandomAccessFile out = new RandomAccessFile(to, "rw")
+        ) {
+      bytesWritten = SyncFile.syncFile(in, to, out);
+    }
+    assertEquals(MIB, bytesWritten);
+    assertArrayEquals(input, Files.readAllBytes(to.toPath()));
+  }
+}
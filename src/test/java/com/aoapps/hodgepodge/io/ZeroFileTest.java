@@ -0,0 +1,92 @@
+/*
+ * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-hodgepodge.
+ *
+ * ao-hodgepodge is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-hodgepodge is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-hodgepodge.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.hodgepodge.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link ZeroFile}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class ZeroFileTest {
+
+  private static final int MIB = 1 << 20;
+
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("ZeroFileTest", null);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.delete(file.toPath());
+  }
+
+  @Test
+  public void testIsAllZero() {
+    ByteBuffer buff = ByteBuffer.allocateDirect(MIB);
+    assertTrue(ZeroFile.isAllZero(buff));
+    buff.put(MIB - 1, (byte) 1);
+    assertFalse(ZeroFile.isAllZero(buff));
+    buff.limit(MIB - 1);
+    assertTrue(ZeroFile.isAllZero(buff));
+  }
+
+  /**
+   * The file is 3.5 blocks, with non-zero data in the second and the partial last block.
+   */
+  @Test
+  public void testPipelined() throws IOException {
+    byte[] data = new byte[MIB * 7 / 2];
+    data[MIB + 12345] = 1;
+    data[data.length - 1] = 2;
+    Files.write(file.toPath(), data);
+    long bytesWritten;
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      bytesWritten = ZeroFile.zeroFile(new IoBudget(0, 1L << 40), null, file, raf.getChannel());
+    }
+    assertEquals(MIB * 3 / 2, bytesWritten);
+    assertArrayEquals(new byte[data.length], Files.readAllBytes(file.toPath()));
+    // Already zero
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      bytesWritten = ZeroFile.zeroFile(null, null, file, raf.getChannel());
+    }
+    assertEquals(0, bytesWritten);
+  }
+}
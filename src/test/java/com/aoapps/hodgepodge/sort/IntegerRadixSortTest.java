@@ -1,6 +1,6 @@
 /*
  * ao-hodgepodge - Reusable Java library of general tools with minimal external dependencies.
- * Copyright (C) 2013, 2016, 2018, 2019, 2020, 2021, 2022, 2025  AO Industries, Inc.
+ * Copyright (C) 2013, 2016, 2018, 2019, 2020, 2021, 2022, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -26,6 +26,7 @@ package com.aoapps.hodgepodge.sort;
 import com.aoapps.collections.IntArrayList;
 import com.aoapps.collections.IntList;
 import com.aoapps.lang.io.IoUtils;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.security.SecureRandom;
 import java.util.ArrayList;
@@ -50,6 +51,8 @@ public class IntegerRadixSortTest extends TestCase {
   private static final int END_TEST_SIZE = 1 << 16 /*20*/; // << 26;
   private static final int MAX_PASSES = (1 << 16/*20*/) / START_TEST_SIZE;
 
+  private static final int MIN_CONCURRENCY_TEST_SIZE = 1 << 16;
+
   private static final boolean USE_SORTED = false;
 
   private static final boolean RANDOM_FULL = true;
@@ -871,4 +874,48 @@ public class IntegerRadixSortTest extends TestCase {
             + BigDecimal.valueOf(avgSumExp[0] / tests, 3)
     );
   }
+
+  public void testSortStatistics() {
+    int[] values = new int[MIN_CONCURRENCY_TEST_SIZE];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = getRandomValue();
+    }
+    int[] expected = values.clone();
+    Arrays.sort(expected);
+    for (IntegerRadixSort sorter : new IntegerRadixSort[]{IntegerRadixSort.getSingleThreadedInstance(), IntegerRadixSort.getInstance()}) {
+      int[] result = values.clone();
+      SortStatistics stats = new SortStatistics();
+      sorter.sort(result, stats);
+      assertTrue(Arrays.equals(expected, result));
+      assertEquals(1, stats.getSortCount());
+      assertTrue(stats.getTotalTimeNanos() > 0);
+      assertEquals(values.length, stats.getGetCount());
+      assertEquals(values.length, stats.getSetCount());
+      assertEquals(1, stats.getPhaseCount(SortStatistics.Phase.HISTOGRAM));
+      assertTrue(stats.getPhaseCount(SortStatistics.Phase.SCATTER) > 0);
+      assertEquals(1, stats.getPhaseCount(SortStatistics.Phase.MERGE));
+      StringBuilder json = new StringBuilder();
+      try {
+        stats.printReport(json);
+      } catch (IOException e) {
+        throw new AssertionError(e);
+      }
+      assertTrue(json.toString(), json.toString().startsWith("{\"sorts\":1,\"totalTimeNanos\":"));
+      assertEquals(stats.getReport().size(), json.toString().split(",").length);
+    }
+  }
+
+  public void testPhaseEndingWithoutStarting() {
+    SortStatistics stats = new SortStatistics();
+    long start = stats.phaseStarting(SortStatistics.Phase.SCATTER);
+    try {
+      stats.phaseEnding(SortStatistics.Phase.MERGE, start);
+      fail("phaseEnding without phaseStarting");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+    stats.phaseEnding(SortStatistics.Phase.SCATTER, start);
+    assertEquals(1, stats.getPhaseCount(SortStatistics.Phase.SCATTER));
+    assertEquals(0, stats.getPhaseCount(SortStatistics.Phase.MERGE));
+  }
 }